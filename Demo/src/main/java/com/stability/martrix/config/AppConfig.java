@@ -2,10 +2,12 @@ package com.stability.martrix.config;
 
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@EnableScheduling
 @ComponentScan(basePackages = "com.stability.martrix")
 public class AppConfig implements WebMvcConfigurer {
 
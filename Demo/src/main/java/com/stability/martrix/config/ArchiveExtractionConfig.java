@@ -0,0 +1,43 @@
+package com.stability.martrix.config;
+
+import com.stability.martrix.service.archive.ExtractionBudget;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 归档解压相关的共享组件
+ *
+ * 解压与 bugreport 流式解析共用同一个全局预算，所有请求共用固定大小的线程池
+ */
+@Configuration
+public class ArchiveExtractionConfig {
+
+    /**
+     * 全部正在进行的解压与 bugreport 解析合计的预算
+     */
+    @Bean
+    public ExtractionBudget globalExtractionBudget(ArchiveExtractionProperties properties) {
+        return ExtractionBudget.global(properties.getMaxGlobalBytes(), properties.getMaxGlobalFiles());
+    }
+
+    /**
+     * bugreport 条目并发解析的线程池，线程数与解压线程数相同
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService bugreportParseExecutor(ArchiveExtractionProperties properties) {
+        return newDaemonPool(properties.getThreads(), "bugreport-parse-");
+    }
+
+    /**
+     * 创建固定大小的守护线程池
+     *
+     * @param threads 线程数
+     * @param namePrefix 线程名前缀
+     */
+    public static ExecutorService newDaemonPool(int threads, String namePrefix) {
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name(namePrefix, 0).daemon(true).factory());
+    }
+}
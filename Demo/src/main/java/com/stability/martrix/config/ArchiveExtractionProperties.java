@@ -0,0 +1,199 @@
+package com.stability.martrix.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 归档解压配置属性
+ *
+ * 在 application.yaml 中通过 archive.extraction 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "archive.extraction")
+public class ArchiveExtractionProperties {
+
+    /**
+     * 全局共用的解压线程数，所有会话的归档与大条目都在这些线程上解压
+     */
+    private int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * 解压后达到该大小的条目单独作为一个任务并发解压，较小的条目在同一个任务中依次解压
+     */
+    private long largeEntryBytes = 16L * 1024 * 1024;
+
+    /**
+     * 嵌套归档最多流式读取的层数，超过后内层归档作为普通文件解压
+     */
+    private int maxNestingDepth = 3;
+
+    /**
+     * 单次会话解压最多读出的解压字节数，探测、跳过的条目与嵌套归档的各层都计入
+     */
+    private long maxSessionBytes = 4L * 1024 * 1024 * 1024;
+
+    /**
+     * 单次会话解压最多写出的文件数
+     */
+    private int maxSessionFiles = 20_000;
+
+    /**
+     * 全部正在进行的解压合计最多读出的解压字节数
+     */
+    private long maxGlobalBytes = 16L * 1024 * 1024 * 1024;
+
+    /**
+     * 全部正在进行的解压合计最多写出的文件数
+     */
+    private int maxGlobalFiles = 200_000;
+
+    /**
+     * 解压后大小与压缩后大小之比的上限，超过即判定为压缩炸弹
+     */
+    private int maxCompressionRatio = 100;
+
+    /**
+     * 解压出的字节数超过该值后才检查压缩比，避免高度重复的小文件误判
+     */
+    private long ratioCheckThresholdBytes = 1024 * 1024;
+
+    /**
+     * 只解压匹配这些 glob 的条目，为空时不限制；嵌套归档不受限制，以便读取其中的条目
+     */
+    private List<String> includeGlobs = new ArrayList<>();
+
+    /**
+     * 不解压匹配这些 glob 的条目，优先于其他规则
+     */
+    private List<String> excludeGlobs = new ArrayList<>(List.of("proto/**", "FS/system/**", "FS/vendor/**"));
+
+    /**
+     * 单个条目解压后的大小上限，声明的大小超过该值的条目不解压；嵌套归档不受限制
+     */
+    private long maxEntryBytes = 512L * 1024 * 1024;
+
+    /**
+     * 共享库条目的 glob
+     */
+    private List<String> libraryGlobs = new ArrayList<>(List.of("*.so", "*.so.*"));
+
+    /**
+     * 是否只解压被回溯引用的共享库（按文件名或 BuildId 匹配），关闭后共享库按普通条目处理
+     */
+    private boolean referencedLibrariesOnly = true;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getLargeEntryBytes() {
+        return largeEntryBytes;
+    }
+
+    public void setLargeEntryBytes(long largeEntryBytes) {
+        this.largeEntryBytes = largeEntryBytes;
+    }
+
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    public void setMaxNestingDepth(int maxNestingDepth) {
+        this.maxNestingDepth = maxNestingDepth;
+    }
+
+    public long getMaxSessionBytes() {
+        return maxSessionBytes;
+    }
+
+    public void setMaxSessionBytes(long maxSessionBytes) {
+        this.maxSessionBytes = maxSessionBytes;
+    }
+
+    public int getMaxSessionFiles() {
+        return maxSessionFiles;
+    }
+
+    public void setMaxSessionFiles(int maxSessionFiles) {
+        this.maxSessionFiles = maxSessionFiles;
+    }
+
+    public long getMaxGlobalBytes() {
+        return maxGlobalBytes;
+    }
+
+    public void setMaxGlobalBytes(long maxGlobalBytes) {
+        this.maxGlobalBytes = maxGlobalBytes;
+    }
+
+    public int getMaxGlobalFiles() {
+        return maxGlobalFiles;
+    }
+
+    public void setMaxGlobalFiles(int maxGlobalFiles) {
+        this.maxGlobalFiles = maxGlobalFiles;
+    }
+
+    public int getMaxCompressionRatio() {
+        return maxCompressionRatio;
+    }
+
+    public void setMaxCompressionRatio(int maxCompressionRatio) {
+        this.maxCompressionRatio = maxCompressionRatio;
+    }
+
+    public long getRatioCheckThresholdBytes() {
+        return ratioCheckThresholdBytes;
+    }
+
+    public void setRatioCheckThresholdBytes(long ratioCheckThresholdBytes) {
+        this.ratioCheckThresholdBytes = ratioCheckThresholdBytes;
+    }
+
+    public List<String> getIncludeGlobs() {
+        return includeGlobs;
+    }
+
+    public void setIncludeGlobs(List<String> includeGlobs) {
+        this.includeGlobs = includeGlobs;
+    }
+
+    public List<String> getExcludeGlobs() {
+        return excludeGlobs;
+    }
+
+    public void setExcludeGlobs(List<String> excludeGlobs) {
+        this.excludeGlobs = excludeGlobs;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public void setMaxEntryBytes(long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public List<String> getLibraryGlobs() {
+        return libraryGlobs;
+    }
+
+    public void setLibraryGlobs(List<String> libraryGlobs) {
+        this.libraryGlobs = libraryGlobs;
+    }
+
+    public boolean isReferencedLibrariesOnly() {
+        return referencedLibrariesOnly;
+    }
+
+    public void setReferencedLibrariesOnly(boolean referencedLibrariesOnly) {
+        this.referencedLibrariesOnly = referencedLibrariesOnly;
+    }
+}
@@ -25,6 +25,36 @@ public class FileStorageProperties {
      */
     private int cleanupExpiredHours = 48;
 
+    /**
+     * 是否按内容去重存储上传文件：内容存入 blob 存储，会话文件夹中只保留硬链接
+     */
+    private boolean deduplicate = true;
+
+    /**
+     * blob 存储目录名，位于存储根路径下
+     */
+    private String blobFolderName = "blobs";
+
+    /**
+     * 遍历整个 blob 存储回收无引用 blob 的间隔（分钟）；删除会话时只回收该会话引用过的 blob
+     */
+    private int blobSweepIntervalMinutes = 60;
+
+    /**
+     * 定时回收的宽限期（分钟），最近修改过的 blob 与写入中的临时文件不回收
+     */
+    private int blobGraceMinutes = 60;
+
+    /**
+     * 是否在分析完成后把会话文件以 zstd 压缩存储，读取时透明解压
+     */
+    private boolean compressAtRest = false;
+
+    /**
+     * 压缩存储使用的 zstd 压缩级别
+     */
+    private int compressionLevel = 3;
+
     public String getBasePath() {
         return basePath;
     }
@@ -49,6 +79,54 @@ public class FileStorageProperties {
         this.cleanupExpiredHours = cleanupExpiredHours;
     }
 
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public String getBlobFolderName() {
+        return blobFolderName;
+    }
+
+    public void setBlobFolderName(String blobFolderName) {
+        this.blobFolderName = blobFolderName;
+    }
+
+    public int getBlobSweepIntervalMinutes() {
+        return blobSweepIntervalMinutes;
+    }
+
+    public void setBlobSweepIntervalMinutes(int blobSweepIntervalMinutes) {
+        this.blobSweepIntervalMinutes = blobSweepIntervalMinutes;
+    }
+
+    public int getBlobGraceMinutes() {
+        return blobGraceMinutes;
+    }
+
+    public void setBlobGraceMinutes(int blobGraceMinutes) {
+        this.blobGraceMinutes = blobGraceMinutes;
+    }
+
+    public boolean isCompressAtRest() {
+        return compressAtRest;
+    }
+
+    public void setCompressAtRest(boolean compressAtRest) {
+        this.compressAtRest = compressAtRest;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * 获取会话文件夹完整路径
      */
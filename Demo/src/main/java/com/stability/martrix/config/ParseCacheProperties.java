@@ -0,0 +1,55 @@
+package com.stability.martrix.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 解析结果缓存配置属性
+ *
+ * 在 application.yaml 中通过 parser.cache 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "parser.cache")
+public class ParseCacheProperties {
+
+    /**
+     * 是否启用解析结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 进程内 LRU 缓存的最大条目数
+     */
+    private int localMaxEntries = 128;
+
+    /**
+     * Redis 缓存的过期时间
+     */
+    private Duration redisTtl = Duration.ofHours(24);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getLocalMaxEntries() {
+        return localMaxEntries;
+    }
+
+    public void setLocalMaxEntries(int localMaxEntries) {
+        this.localMaxEntries = localMaxEntries;
+    }
+
+    public Duration getRedisTtl() {
+        return redisTtl;
+    }
+
+    public void setRedisTtl(Duration redisTtl) {
+        this.redisTtl = redisTtl;
+    }
+}
@@ -13,9 +13,15 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "parser")
 public class ParserProperties {
 
+    /**
+     * 按文件内容路由的平台取值
+     */
+    public static final String PLATFORM_AUTO = "auto";
+
     /**
      * 解析器平台类型
-     * 支持的值: android, openharmony
+     * 支持的值: android, openharmony, auto
+     * auto 表示不固定平台，每个文件按内容在所有已注册解析器中选择
      * 默认使用 android
      */
     private String platform = "android";
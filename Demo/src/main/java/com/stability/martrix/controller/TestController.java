@@ -7,6 +7,8 @@ import com.stability.martrix.entity.TroubleEntity;
 import com.stability.martrix.service.AITroubleAnalysisService;
 import com.stability.martrix.service.FileService;
 import com.stability.martrix.service.PatternMatchService;
+import com.stability.martrix.service.parser.ParseProfile;
+import com.stability.martrix.service.parser.TombstoneStreamParser;
 import com.stability.martrix.util.TombstoneFormatter;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -79,15 +81,12 @@ public class TestController {
     @PostMapping("/demo/analyzeTombstone")
     public String analyzeTombstone(@RequestParam("file") MultipartFile file) {
         try {
-            TroubleEntity troubleEntity = query(file);
-
-            // Ensure it's AArch64Tombstone type
-            if (!(troubleEntity instanceof AArch64Tombstone)) {
-                return "错误：无法解析为AArch64Tombstone格式";
+            // 模式匹配与简化墓碑只用到崩溃线程与内存映射，解析到 memory map 结束即停止读取
+            AArch64Tombstone tombstone;
+            try (InputStreamReader reader = new InputStreamReader(file.getInputStream())) {
+                tombstone = TombstoneStreamParser.parse(reader, ParseProfile.CRASH_CONTEXT);
             }
 
-            AArch64Tombstone tombstone = (AArch64Tombstone) troubleEntity;
-
             // Preserve tombstone info for logging/analysis
             logger.info("=== Tombstone Info Reserved ===");
             logger.info("PID: " + tombstone.getPid());
@@ -1,6 +1,7 @@
 package com.stability.martrix.dto;
 
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
 
 import java.util.List;
 
@@ -28,6 +29,16 @@ public class AIAnalysisResponse extends BaseResponse {
      */
     private AArch64Tombstone tombstone;
 
+    /**
+     * 从上传的 bugreport 中解析到的全部tombstone（如果有），最新的在最前
+     */
+    private List<AArch64Tombstone> bugreportTombstones;
+
+    /**
+     * 解析到的ANR现场信息（如果有）
+     */
+    private AnrTrace anrTrace;
+
     /**
      * 处理过程中的日志信息
      */
@@ -98,6 +109,22 @@ public class AIAnalysisResponse extends BaseResponse {
         this.aiAnalysis = aiAnalysis;
     }
 
+    public List<AArch64Tombstone> getBugreportTombstones() {
+        return bugreportTombstones;
+    }
+
+    public void setBugreportTombstones(List<AArch64Tombstone> bugreportTombstones) {
+        this.bugreportTombstones = bugreportTombstones;
+    }
+
+    public AnrTrace getAnrTrace() {
+        return anrTrace;
+    }
+
+    public void setAnrTrace(AnrTrace anrTrace) {
+        this.anrTrace = anrTrace;
+    }
+
     public CrashAnalysisResult getCrashAnalysisResult() {
         return crashAnalysisResult;
     }
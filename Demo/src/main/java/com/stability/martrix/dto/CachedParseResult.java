@@ -0,0 +1,25 @@
+package com.stability.martrix.dto;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按文件内容缓存的解析结果
+ * 同一文件再次上传或出现在归档中时按内容摘要直接复用，跳过解析与模式匹配；{@link com.stability.martrix.service.ParseResultCache} 每次命中返回独立副本
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedParseResult {
+    /**
+     * 解析到的Tombstone信息
+     */
+    private AArch64Tombstone tombstone;
+
+    /**
+     * 模式匹配结果，未匹配到特定模式时为 null
+     */
+    private PatternMatchResult patternMatchResult;
+}
@@ -1,6 +1,7 @@
 package com.stability.martrix.dto;
 
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
 
 import java.util.List;
 
@@ -13,6 +14,11 @@ public class FileParseResult {
      */
     private AArch64Tombstone tombstone;
 
+    /**
+     * 解析到的ANR现场信息，多个时取最新的一个
+     */
+    private AnrTrace anrTrace;
+
     /**
      * 处理日志
      */
@@ -23,6 +29,26 @@ public class FileParseResult {
      */
     private boolean success;
 
+    /**
+     * Tombstone 来源文件的内容摘要，用于写入解析结果缓存
+     */
+    private String contentHash;
+
+    /**
+     * Tombstone 是否取自解析结果缓存
+     */
+    private boolean fromCache;
+
+    /**
+     * 缓存命中时一并取出的模式匹配结果
+     */
+    private PatternMatchResult cachedPatternMatchResult;
+
+    /**
+     * 从 bugreport 中解析到的全部Tombstone，最新的在最前
+     */
+    private List<AArch64Tombstone> bugreportTombstones;
+
     public AArch64Tombstone getTombstone() {
         return tombstone;
     }
@@ -31,6 +57,14 @@ public class FileParseResult {
         this.tombstone = tombstone;
     }
 
+    public AnrTrace getAnrTrace() {
+        return anrTrace;
+    }
+
+    public void setAnrTrace(AnrTrace anrTrace) {
+        this.anrTrace = anrTrace;
+    }
+
     public List<String> getProcessLogs() {
         return processLogs;
     }
@@ -47,7 +81,43 @@ public class FileParseResult {
         this.success = success;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    public void setFromCache(boolean fromCache) {
+        this.fromCache = fromCache;
+    }
+
+    public PatternMatchResult getCachedPatternMatchResult() {
+        return cachedPatternMatchResult;
+    }
+
+    public void setCachedPatternMatchResult(PatternMatchResult cachedPatternMatchResult) {
+        this.cachedPatternMatchResult = cachedPatternMatchResult;
+    }
+
+    public List<AArch64Tombstone> getBugreportTombstones() {
+        return bugreportTombstones;
+    }
+
+    public void setBugreportTombstones(List<AArch64Tombstone> bugreportTombstones) {
+        this.bugreportTombstones = bugreportTombstones;
+    }
+
     public boolean hasTombstone() {
         return tombstone != null;
     }
+
+    public boolean hasAnrTrace() {
+        return anrTrace != null;
+    }
 }
@@ -1,6 +1,7 @@
 package com.stability.martrix.dto;
 
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -50,6 +51,11 @@ public class SessionContext {
      */
     private AArch64Tombstone tombstone;
 
+    /**
+     * ANR现场信息（如果有）
+     */
+    private AnrTrace anrTrace;
+
     /**
      * 会话文件列表（存储在文件系统中的文件路径）
      */
@@ -180,4 +186,14 @@ public class SessionContext {
             this.success = true;
         }
     }
+
+    /**
+     * 设置ANR现场信息
+     */
+    public void setAnrTrace(AnrTrace anrTrace) {
+        this.anrTrace = anrTrace;
+        if (anrTrace != null) {
+            this.success = true;
+        }
+    }
 }
@@ -1,23 +1,79 @@
 package com.stability.martrix.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
 import com.stability.martrix.enums.CPUArchitecture;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 // 故障现场信息
+// 随会话与解析缓存以 JSON 存入 Redis，字段调整时保持原有 JSON 结构，并忽略旧数据中已不存在的字段
 @Data
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class AArch64Tombstone extends TroubleEntity {
     private CPUArchitecture cpuArchitecture;
     private StackDumpInfo stackDumpInfo; // 栈信息
     private StackDumpInfo submitterStackDumpInfo; // 父线程（Submitter）栈信息
     private SignalInfo signalInfo; // 信号信息
     private List<FdInfo> fdInfo; // fd 信息
-    private List<MapsInfo> mapsInfoList; // maps 信息
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private MemoryMapIndex memoryMapIndex; // maps 信息，按地址排序的区间索引，JSON 中以 mapsInfoList 表示
+    private Map<String, MemorySnapshot> memoryNear; // memory near 内存快照，按寄存器名索引，JSON 中只保存原始 dump 行
     private AArch64RegisterDumpInfo registerDumpInfo; // dump信息
     private SpecialRegisterInfo specialRegisterInfo; // 特殊寄存器信息
+    private List<ThreadInfo> threadInfoList; // 线程信息，第一个元素为崩溃线程
+    private List<LogLine> crashThreadLogTail; // 崩溃线程在 log 分段中的最后若干行日志，按时间顺序
+
+    /**
+     * maps 信息的列表视图，由 memoryMapIndex 生成，保持会话与接口 JSON 中原有的 mapsInfoList 结构
+     *
+     * @deprecated 按地址查找映射请使用 {@link #getMemoryMapIndex()}
+     */
+    @Deprecated
+    public List<MapsInfo> getMapsInfoList() {
+        if (memoryMapIndex == null) {
+            return null;
+        }
+        List<MapsInfo> mapsInfoList = new ArrayList<>(memoryMapIndex.size());
+        for (int i = 0; i < memoryMapIndex.size(); i++) {
+            mapsInfoList.add(new MapsInfo(memoryMapIndex.start(i), memoryMapIndex.end(i),
+                memoryMapIndex.permissionString(i), memoryMapIndex.name(i), memoryMapIndex.offset(i)));
+        }
+        return mapsInfoList;
+    }
+
+    /**
+     * 由 maps 信息列表重建 memoryMapIndex，用于从 JSON 恢复
+     *
+     * @deprecated 请使用 {@link #setMemoryMapIndex(MemoryMapIndex)}
+     */
+    @Deprecated
+    public void setMapsInfoList(List<MapsInfo> mapsInfoList) {
+        if (mapsInfoList == null || mapsInfoList.isEmpty()) {
+            this.memoryMapIndex = null;
+            return;
+        }
+        MemoryMapIndex.Builder builder = new MemoryMapIndex.Builder();
+        for (MapsInfo mapsInfo : mapsInfoList) {
+            if (mapsInfo == null || mapsInfo.getStart() == null || mapsInfo.getEnd() == null) {
+                continue;
+            }
+            builder.add(mapsInfo.getStart(), mapsInfo.getEnd(),
+                mapsInfo.getOffset() == null ? 0L : mapsInfo.getOffset(),
+                MemoryMapIndex.parsePermissions(mapsInfo.getPermission() == null ? "" : mapsInfo.getPermission()),
+                mapsInfo.getName());
+        }
+        this.memoryMapIndex = builder.isEmpty() ? null : builder.build();
+    }
 
     @Data
     public static class StackDumpInfo{
@@ -142,12 +198,18 @@ public class AArch64Tombstone extends TroubleEntity {
         private Long end;
         private String permission;
         private String name;
+        private Long offset; // 文件偏移
         public MapsInfo(Long start, Long end, String permission, String name) {
             this.start = start;
             this.end = end;
             this.permission = permission;
             this.name = name;
         }
+
+        public MapsInfo(Long start, Long end, String permission, String name, Long offset) {
+            this(start, end, permission, name);
+            this.offset = offset;
+        }
     }
 
     @Data
@@ -166,4 +228,45 @@ public class AArch64Tombstone extends TroubleEntity {
         }
     }
 
+    @Data
+    @NoArgsConstructor
+    public static class ThreadInfo {
+        private Integer tid;
+        private String name;
+        private AArch64RegisterDumpInfo registerDumpInfo;
+        private SpecialRegisterInfo specialRegisterInfo;
+        private StackDumpInfo stackDumpInfo;
+        private List<LogLine> logTail; // 该线程在 log 分段中的最后若干行日志
+
+        public ThreadInfo(Integer tid, String name) {
+            this.tid = tid;
+            this.name = name;
+        }
+    }
+
+    /**
+     * tombstone 末尾 "--------- log main" 等分段中的一行 logcat 日志
+     * 示例: 01-15 00:40:06.123  2036  2036 F libc    : Fatal signal 6 (SIGABRT), code -1 (SI_QUEUE) in tid 2036 (main)
+     */
+    @Data
+    @NoArgsConstructor
+    public static class LogLine {
+        private String buffer; // 日志缓冲区名，如 main、crash、system
+        private String timestamp;
+        private Integer pid;
+        private Integer tid;
+        private String priority; // V、D、I、W、E、F
+        private String tag;
+        private String message;
+
+        public LogLine(String buffer, String timestamp, Integer pid, Integer tid, String priority, String tag, String message) {
+            this.buffer = buffer;
+            this.timestamp = timestamp;
+            this.pid = pid;
+            this.tid = tid;
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
 }
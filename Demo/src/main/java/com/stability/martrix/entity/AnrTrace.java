@@ -0,0 +1,35 @@
+package com.stability.martrix.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ANR 现场信息（traces.txt / anr_* 中第一个进程的 Java 线程转储）
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class AnrTrace extends TroubleEntity {
+    private String subject; // ANR 原因，如 Input dispatching timed out
+    private String timestamp; // 转储时间
+    private List<JavaThread> threads = new ArrayList<>(); // 线程列表，按转储顺序
+    private List<List<Integer>> deadlocks = new ArrayList<>(); // 死锁环，每个环为参与线程的 tid，按等待方向排列
+
+    @Data
+    @NoArgsConstructor
+    public static class JavaThread {
+        private String name;
+        private Integer tid; // 虚拟机内线程号，"held by thread N" 中的 N
+        private Integer sysTid; // 内核线程号
+        private Integer priority;
+        private boolean daemon;
+        private String state; // Runnable、Blocked、Waiting、Native 等
+        private List<String> stackFrames = new ArrayList<>(); // "at ..." 与 "native: ..." 帧
+        private List<String> heldMonitors = new ArrayList<>(); // "- locked <0x...>" 持有的锁
+        private String waitingToLock; // "- waiting to lock <0x...>" 等待获取的锁
+        private Integer waitingToLockOwnerTid; // 等待的锁的持有线程 tid
+        private String waitingOn; // "- waiting on <0x...>" Object.wait 等待的对象
+        private String parkingOn; // "- parking to wait for <0x...>" LockSupport.park 等待的对象
+    }
+}
@@ -0,0 +1,231 @@
+package com.stability.martrix.entity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内存映射区间索引
+ *
+ * 以按起始地址排序的并行数组保存 memory map / Maps 中的映射区间：起止地址与文件偏移为 long[]，
+ * 权限压缩为位集合，映射名在构建时驻留去重。地址按无符号数比较，通过二分查找在 O(log n) 内
+ * 定位地址所在映射，供模式匹配与符号化时解析故障地址、pc 及寄存器值
+ */
+public class MemoryMapIndex {
+
+    public static final byte PERM_READ = 1;
+    public static final byte PERM_WRITE = 1 << 1;
+    public static final byte PERM_EXEC = 1 << 2;
+    public static final byte PERM_SHARED = 1 << 3;
+    public static final byte PERM_PRIVATE = 1 << 4;
+
+    private final int count;
+    private final long[] starts; // 起始地址（包含），按无符号升序
+    private final long[] ends; // 结束地址（不包含）
+    private final long[] offsets; // 文件偏移
+    private final byte[] permissions; // 权限位集合
+    private final String[] names; // 映射名，匿名映射为 null
+
+    /**
+     * 只能经由 {@link Builder} 构建，保证 starts 有序，二分查找依赖该不变式
+     */
+    private MemoryMapIndex(int count, long[] starts, long[] ends, long[] offsets, byte[] permissions, String[] names) {
+        this.count = count;
+        this.starts = starts;
+        this.ends = ends;
+        this.offsets = offsets;
+        this.permissions = permissions;
+        this.names = names;
+    }
+
+    /**
+     * 映射条目数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 查找包含该地址的映射
+     *
+     * @param address 虚拟地址
+     * @return 映射下标，地址未落在任何映射中时返回 -1
+     */
+    public int indexOf(long address) {
+        int index = floorIndex(address);
+        if (index >= 0 && Long.compareUnsigned(address, ends[index]) < 0) {
+            return index;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找起始地址不大于该地址的最后一个映射，地址落在映射间隙时即为间隙下方的映射
+     *
+     * @param address 虚拟地址
+     * @return 映射下标，地址低于所有映射时返回 -1
+     */
+    public int floorIndex(long address) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(starts[mid], address) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    public long start(int index) {
+        return starts[index];
+    }
+
+    public long end(int index) {
+        return ends[index];
+    }
+
+    public long offset(int index) {
+        return offsets[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public boolean isReadable(int index) {
+        return (permissions[index] & PERM_READ) != 0;
+    }
+
+    public boolean isWritable(int index) {
+        return (permissions[index] & PERM_WRITE) != 0;
+    }
+
+    public boolean isExecutable(int index) {
+        return (permissions[index] & PERM_EXEC) != 0;
+    }
+
+    /**
+     * 是否为无任何访问权限的映射（guard page 等）
+     */
+    public boolean isInaccessible(int index) {
+        return (permissions[index] & (PERM_READ | PERM_WRITE | PERM_EXEC)) == 0;
+    }
+
+    /**
+     * 是否为文件映射（映射名为路径）
+     */
+    public boolean isFileBacked(int index) {
+        return names[index] != null && names[index].startsWith("/");
+    }
+
+    /**
+     * 还原权限字符串，如 "r-x" 或 "r--p"
+     */
+    public String permissionString(int index) {
+        byte permission = permissions[index];
+        StringBuilder sb = new StringBuilder(4)
+            .append((permission & PERM_READ) != 0 ? 'r' : '-')
+            .append((permission & PERM_WRITE) != 0 ? 'w' : '-')
+            .append((permission & PERM_EXEC) != 0 ? 'x' : '-');
+        if ((permission & PERM_SHARED) != 0) {
+            sb.append('s');
+        } else if ((permission & PERM_PRIVATE) != 0) {
+            sb.append('p');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 将 "rwxp" 形式的权限字符串转换为位集合
+     */
+    public static byte parsePermissions(CharSequence permission) {
+        byte result = 0;
+        for (int i = 0; i < permission.length(); i++) {
+            switch (permission.charAt(i)) {
+                case 'r' -> result |= PERM_READ;
+                case 'w' -> result |= PERM_WRITE;
+                case 'x' -> result |= PERM_EXEC;
+                case 's' -> result |= PERM_SHARED;
+                case 'p' -> result |= PERM_PRIVATE;
+                default -> {
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 逐条收集映射并构建索引，输入通常已按地址有序，仅在乱序时排序
+     */
+    public static class Builder {
+        private long[] starts = new long[256];
+        private long[] ends = new long[256];
+        private long[] offsets = new long[256];
+        private byte[] permissions = new byte[256];
+        private String[] names = new String[256];
+        private final Map<String, String> internedNames = new HashMap<>();
+        private int count;
+        private boolean sorted = true;
+
+        /**
+         * @param start 起始地址（包含）
+         * @param end 结束地址（不包含）
+         * @param offset 文件偏移
+         * @param permission 权限位集合
+         * @param name 映射名，可为 null
+         */
+        public Builder add(long start, long end, long offset, byte permission, String name) {
+            if (count == starts.length) {
+                int capacity = count << 1;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                permissions = Arrays.copyOf(permissions, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            if (count > 0 && Long.compareUnsigned(starts[count - 1], start) > 0) {
+                sorted = false;
+            }
+            starts[count] = start;
+            ends[count] = end;
+            offsets[count] = offset;
+            permissions[count] = permission;
+            names[count] = name == null || name.isEmpty() ? null : internedNames.computeIfAbsent(name, n -> n);
+            count++;
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public MemoryMapIndex build() {
+            if (sorted) {
+                return new MemoryMapIndex(count, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                    Arrays.copyOf(offsets, count), Arrays.copyOf(permissions, count), Arrays.copyOf(names, count));
+            }
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compareUnsigned(starts[a], starts[b]));
+            long[] sortedStarts = new long[count];
+            long[] sortedEnds = new long[count];
+            long[] sortedOffsets = new long[count];
+            byte[] sortedPermissions = new byte[count];
+            String[] sortedNames = new String[count];
+            for (int i = 0; i < count; i++) {
+                int from = order[i];
+                sortedStarts[i] = starts[from];
+                sortedEnds[i] = ends[from];
+                sortedOffsets[i] = offsets[from];
+                sortedPermissions[i] = permissions[from];
+                sortedNames[i] = names[from];
+            }
+            return new MemoryMapIndex(count, sortedStarts, sortedEnds, sortedOffsets, sortedPermissions, sortedNames);
+        }
+    }
+}
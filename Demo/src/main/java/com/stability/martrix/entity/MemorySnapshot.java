@@ -0,0 +1,283 @@
+package com.stability.martrix.entity;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * "memory near xN" 内存快照
+ *
+ * 解析阶段只保留原始十六进制 dump 行，首次按地址读取时才解码为 long[]（每个元素对应一个 8 字节字，
+ * 小端序），未被读取的快照不产生解码开销。"----------------" 表示该字不可读，读取不可读的字会抛出异常。
+ * 序列化时只保存原始行，从会话恢复后同样按需解码
+ *
+ * 示例:
+ * memory near x9 (/system/framework/boot-zframework.z.vdex):
+ *     0000000073682a60 000089db17b71baf 0000912b2c611baf  ..........a,+...
+ */
+@Data
+@NoArgsConstructor
+public class MemorySnapshot {
+
+    private static final int WORD_SIZE = 8;
+
+    private String register; // 寄存器名，如 x0、sp、pc
+    private String mappingName; // 寄存器值所在映射名，可为 null
+    private List<String> lines = new ArrayList<>(); // 原始 dump 行
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile long[] words;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient long baseAddress;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient BitSet unreadableWords;
+
+    public MemorySnapshot(String register, String mappingName) {
+        this.register = register;
+        this.mappingName = mappingName;
+    }
+
+    /**
+     * 由二进制内存内容创建快照（protobuf tombstone 的 MemoryDump）
+     *
+     * 按文本 tombstone 的格式生成 dump 行用于序列化，同时直接填入已解码的字，读取时无需再解析文本。
+     * 不足 8 字节的尾部被忽略，奇数个字时最后一行补一个不可读字
+     *
+     * @param register 寄存器名
+     * @param mappingName 所在映射名，可为 null
+     * @param baseAddress 内存起始地址
+     * @param memory 从起始地址开始的内存内容
+     */
+    public static MemorySnapshot fromBytes(String register, String mappingName, long baseAddress, ByteBuffer memory) {
+        MemorySnapshot snapshot = new MemorySnapshot(register, mappingName);
+        ByteBuffer data = memory.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int wordCount = data.remaining() / WORD_SIZE;
+        long[] decoded = new long[wordCount + (wordCount & 1)];
+        BitSet unreadable = new BitSet(decoded.length);
+        for (int i = 0; i < wordCount; i++) {
+            decoded[i] = data.getLong(i * WORD_SIZE);
+        }
+        if (decoded.length > wordCount) {
+            unreadable.set(wordCount);
+        }
+
+        StringBuilder line = new StringBuilder(72);
+        for (int i = 0; i < decoded.length; i += 2) {
+            line.setLength(0);
+            line.append("    ");
+            appendHex(line, baseAddress + (long) i * WORD_SIZE);
+            for (int j = i; j < i + 2; j++) {
+                line.append(' ');
+                if (unreadable.get(j)) {
+                    line.append("----------------");
+                } else {
+                    appendHex(line, decoded[j]);
+                }
+            }
+            line.append("  ");
+            for (int offset = i * WORD_SIZE; offset < Math.min(wordCount, i + 2) * WORD_SIZE; offset++) {
+                int b = data.get(offset) & 0xFF;
+                line.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+            }
+            snapshot.lines.add(line.toString());
+        }
+        snapshot.baseAddress = baseAddress;
+        snapshot.unreadableWords = unreadable;
+        snapshot.words = decoded;
+        return snapshot;
+    }
+
+    private static void appendHex(StringBuilder sb, long value) {
+        String hex = Long.toHexString(value);
+        for (int i = hex.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        sb.append(hex);
+    }
+
+    /**
+     * 替换全部原始 dump 行，从 JSON 恢复时使用
+     */
+    public void setLines(List<String> lines) {
+        this.lines = lines;
+        words = null;
+    }
+
+    /**
+     * 追加一行原始 dump
+     */
+    public void addLine(String line) {
+        lines.add(line);
+        words = null;
+    }
+
+    /**
+     * 快照起始地址
+     */
+    public long baseAddress() {
+        decode();
+        return baseAddress;
+    }
+
+    /**
+     * 快照包含的 8 字节字数量
+     */
+    public int wordCount() {
+        return decode().length;
+    }
+
+    /**
+     * 地址是否落在快照范围内且可读
+     */
+    public boolean isReadable(long address) {
+        long[] decoded = decode();
+        long offset = address - baseAddress;
+        if (offset < 0 || offset >= (long) decoded.length * WORD_SIZE) {
+            return false;
+        }
+        return !unreadableWords.get((int) (offset / WORD_SIZE));
+    }
+
+    /**
+     * 按下标判断字是否可读
+     */
+    public boolean isWordReadable(int index) {
+        long[] decoded = decode();
+        return index >= 0 && index < decoded.length && !unreadableWords.get(index);
+    }
+
+    /**
+     * 按下标读取字
+     *
+     * @throws IllegalStateException 该字在 dump 中为不可读
+     */
+    public long word(int index) {
+        long[] decoded = decode();
+        checkReadable(index, index, baseAddress + (long) index * WORD_SIZE);
+        return decoded[index];
+    }
+
+    /**
+     * 读取任意地址开始的 8 字节（小端序），允许不对齐
+     *
+     * @throws IndexOutOfBoundsException 地址超出快照范围
+     * @throws IllegalStateException 覆盖的字在 dump 中为不可读
+     */
+    public long readWord(long address) {
+        long offset = checkRange(address, WORD_SIZE);
+        int index = (int) (offset / WORD_SIZE);
+        int shift = (int) (offset % WORD_SIZE) * 8;
+        if (shift == 0) {
+            checkReadable(index, index, address);
+            return words[index];
+        }
+        checkReadable(index, index + 1, address);
+        return (words[index] >>> shift) | (words[index + 1] << (64 - shift));
+    }
+
+    /**
+     * 读取单个字节
+     *
+     * @throws IndexOutOfBoundsException 地址超出快照范围
+     * @throws IllegalStateException 所在字在 dump 中为不可读
+     */
+    public int readByte(long address) {
+        long offset = checkRange(address, 1);
+        int index = (int) (offset / WORD_SIZE);
+        checkReadable(index, index, address);
+        return (int) (words[index] >>> ((offset % WORD_SIZE) * 8)) & 0xFF;
+    }
+
+    private long checkRange(long address, int size) {
+        long[] decoded = decode();
+        long offset = address - baseAddress;
+        if (offset < 0 || offset + size > (long) decoded.length * WORD_SIZE) {
+            throw new IndexOutOfBoundsException("地址 0x" + Long.toHexString(address) + " 超出 " + register + " 内存快照范围");
+        }
+        return offset;
+    }
+
+    /**
+     * 不可读的字解码为 0，不能当作真实内存内容返回
+     */
+    private void checkReadable(int fromIndex, int toIndex, long address) {
+        int unreadable = unreadableWords.nextSetBit(fromIndex);
+        if (unreadable >= 0 && unreadable <= toIndex) {
+            throw new IllegalStateException("地址 0x" + Long.toHexString(address) + " 在 " + register + " 内存快照中不可读");
+        }
+    }
+
+    private long[] decode() {
+        long[] decoded = words;
+        if (decoded != null) {
+            return decoded;
+        }
+        synchronized (this) {
+            if (words == null) {
+                decodeLines();
+            }
+            return words;
+        }
+    }
+
+    /**
+     * 每行格式为 "地址 字 字  ASCII"，行地址之差决定字在数组中的位置
+     */
+    private void decodeLines() {
+        long base = 0;
+        long end = 0;
+        boolean first = true;
+        for (String line : lines) {
+            String[] parts = line.trim().split("\\s+", 4);
+            if (parts.length < 2) {
+                continue;
+            }
+            try {
+                long address = Long.parseUnsignedLong(parts[0], 16);
+                if (first) {
+                    base = address;
+                    first = false;
+                }
+                end = Math.max(end, address - base + (long) Math.min(2, parts.length - 1) * WORD_SIZE);
+            } catch (NumberFormatException e) {
+                // 忽略无法解析的行
+            }
+        }
+
+        long[] decoded = new long[(int) (end / WORD_SIZE)];
+        BitSet unreadable = new BitSet(decoded.length);
+        unreadable.set(0, decoded.length);
+        for (String line : lines) {
+            String[] parts = line.trim().split("\\s+", 4);
+            if (parts.length < 2) {
+                continue;
+            }
+            try {
+                int index = (int) ((Long.parseUnsignedLong(parts[0], 16) - base) / WORD_SIZE);
+                for (int i = 1; i < Math.min(3, parts.length) && index < decoded.length; i++, index++) {
+                    if (parts[i].startsWith("-")) {
+                        continue;
+                    }
+                    decoded[index] = Long.parseUnsignedLong(parts[i], 16);
+                    unreadable.clear(index);
+                }
+            } catch (NumberFormatException e) {
+                // 忽略无法解析的行
+            }
+        }
+        baseAddress = base;
+        unreadableWords = unreadable;
+        words = decoded;
+    }
+}
@@ -0,0 +1,73 @@
+package com.stability.martrix.entity.register;
+
+/**
+ * AArch64 通用寄存器，ordinal 即寄存器文件中的下标
+ *
+ * {@link #lookup(CharSequence, int, int)} 直接由寄存器名的字符计算下标，不创建字符串也不查哈希表。
+ * 除 x0-x30/sp/pc 外还识别 lr、fp 别名，以及 OpenHarmony ARM32 日志中的 r0-r12、ip，按 AArch64 寄存器对应
+ */
+public enum AArch64Register {
+    X0, X1, X2, X3, X4, X5, X6, X7, X8, X9,
+    X10, X11, X12, X13, X14, X15, X16, X17, X18, X19,
+    X20, X21, X22, X23, X24, X25, X26, X27, X28, X29,
+    X30, SP, PC;
+
+    public static final int COUNT = values().length;
+
+    private static final AArch64Register[] VALUES = values();
+
+    /**
+     * 识别区间内的寄存器名
+     *
+     * @param token 包含寄存器名的字符序列
+     * @param from 起始下标（包含）
+     * @param to 结束下标（不包含）
+     * @return 寄存器，不是已知寄存器名时返回 null
+     */
+    public static AArch64Register lookup(CharSequence token, int from, int to) {
+        int length = to - from;
+        if (length < 2 || length > 3) {
+            return null;
+        }
+        char first = token.charAt(from);
+        if (first == 'x' || first == 'r') {
+            int number = parseNumber(token, from + 1, to);
+            int limit = first == 'x' ? 30 : 12;
+            return number >= 0 && number <= limit ? VALUES[number] : null;
+        }
+        if (length != 2) {
+            return null;
+        }
+        char second = token.charAt(from + 1);
+        return switch (first) {
+            case 'l' -> second == 'r' ? X30 : null;
+            case 'f' -> second == 'p' ? X29 : null;
+            case 's' -> second == 'p' ? SP : null;
+            case 'p' -> second == 'c' ? PC : null;
+            case 'i' -> second == 'p' ? X12 : null;
+            default -> null;
+        };
+    }
+
+    public static AArch64Register lookup(CharSequence token) {
+        return lookup(token, 0, token.length());
+    }
+
+    /**
+     * 解析 1-2 位十进制寄存器编号，不允许前导 0（如 "x05"）
+     */
+    private static int parseNumber(CharSequence token, int from, int to) {
+        int tens = token.charAt(from) - '0';
+        if (tens < 0 || tens > 9) {
+            return -1;
+        }
+        if (to - from == 1) {
+            return tens;
+        }
+        int ones = token.charAt(from + 1) - '0';
+        if (tens == 0 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        return tens * 10 + ones;
+    }
+}
@@ -1,40 +1,380 @@
 package com.stability.martrix.entity.register;
 
-import lombok.Data;
-
-@Data
-public class AArch64RegisterDumpInfo implements RegisterDumpInfo{
-    private long x0;
-    private long x1;
-    private long x2;
-    private long x3;
-    private long x4;
-    private long x5;
-    private long x6;
-    private long x7;
-    private long x8;
-    private long x9;
-    private long x10;
-    private long x11;
-    private long x12;
-    private long x13;
-    private long x14;
-    private long x15;
-    private long x16;
-    private long x17;
-    private long x18;
-    private long x19;
-    private long x20;
-    private long x21;
-    private long x22;
-    private long x23;
-    private long x24;
-    private long x25;
-    private long x26;
-    private long x27;
-    private long x28;
-    private long x29;
-    private long x30;
-    private long sp;
-    private long pc;
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AArch64 寄存器文件
+ *
+ * 以 {@link AArch64Register} 的 ordinal 为下标保存在 long[] 中，presentMask 记录实际出现在日志里的寄存器，
+ * 便于区分"值为 0"与"未出现"。解析器通过 {@link #set(CharSequence, int, int, long)} 按寄存器名直接写入，
+ * getX0 ~ getPc 等访问器保留给现有调用方。long[] 只是内部存储，JSON 中仍为 x0 ~ x30、sp、pc 命名属性，
+ * 与会话、解析缓存和接口中原有的结构一致，只写出日志中出现过的寄存器，读取时未出现的寄存器保持缺失
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.NONE,
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+    setterVisibility = JsonAutoDetect.Visibility.NONE)
+public class AArch64RegisterDumpInfo implements RegisterDumpInfo {
+    private final long[] values = new long[AArch64Register.COUNT];
+    private long presentMask;
+
+    public long get(AArch64Register register) {
+        return values[register.ordinal()];
+    }
+
+    /**
+     * 寄存器是否出现在日志中
+     */
+    public boolean has(AArch64Register register) {
+        return (presentMask & (1L << register.ordinal())) != 0;
+    }
+
+    public void set(AArch64Register register, long value) {
+        values[register.ordinal()] = value;
+        presentMask |= 1L << register.ordinal();
+    }
+
+    /**
+     * 按寄存器名写入
+     *
+     * @param token 包含寄存器名的字符序列
+     * @param from 寄存器名起始下标（包含）
+     * @param to 寄存器名结束下标（不包含）
+     * @param value 寄存器值
+     * @return false 表示不是已知寄存器名，未写入
+     */
+    public boolean set(CharSequence token, int from, int to, long value) {
+        AArch64Register register = AArch64Register.lookup(token, from, to);
+        if (register == null) {
+            return false;
+        }
+        set(register, value);
+        return true;
+    }
+
+    public long getPresentMask() {
+        return presentMask;
+    }
+
+    /**
+     * 以寄存器名为键写出出现过的寄存器，按寄存器顺序
+     */
+    @JsonAnyGetter
+    Map<String, Long> presentRegisters() {
+        Map<String, Long> registers = new LinkedHashMap<>();
+        for (AArch64Register register : AArch64Register.values()) {
+            if (has(register)) {
+                registers.put(register.name().toLowerCase(), values[register.ordinal()]);
+            }
+        }
+        return registers;
+    }
+
+    /**
+     * 按寄存器名读取 JSON 属性，忽略非寄存器属性
+     */
+    @JsonAnySetter
+    void readRegister(String name, Object value) {
+        if (value instanceof Number number) {
+            set(name, 0, name.length(), number.longValue());
+        }
+    }
+
+    public long getX0() {
+        return values[AArch64Register.X0.ordinal()];
+    }
+
+    public void setX0(long value) {
+        set(AArch64Register.X0, value);
+    }
+
+    public long getX1() {
+        return values[AArch64Register.X1.ordinal()];
+    }
+
+    public void setX1(long value) {
+        set(AArch64Register.X1, value);
+    }
+
+    public long getX2() {
+        return values[AArch64Register.X2.ordinal()];
+    }
+
+    public void setX2(long value) {
+        set(AArch64Register.X2, value);
+    }
+
+    public long getX3() {
+        return values[AArch64Register.X3.ordinal()];
+    }
+
+    public void setX3(long value) {
+        set(AArch64Register.X3, value);
+    }
+
+    public long getX4() {
+        return values[AArch64Register.X4.ordinal()];
+    }
+
+    public void setX4(long value) {
+        set(AArch64Register.X4, value);
+    }
+
+    public long getX5() {
+        return values[AArch64Register.X5.ordinal()];
+    }
+
+    public void setX5(long value) {
+        set(AArch64Register.X5, value);
+    }
+
+    public long getX6() {
+        return values[AArch64Register.X6.ordinal()];
+    }
+
+    public void setX6(long value) {
+        set(AArch64Register.X6, value);
+    }
+
+    public long getX7() {
+        return values[AArch64Register.X7.ordinal()];
+    }
+
+    public void setX7(long value) {
+        set(AArch64Register.X7, value);
+    }
+
+    public long getX8() {
+        return values[AArch64Register.X8.ordinal()];
+    }
+
+    public void setX8(long value) {
+        set(AArch64Register.X8, value);
+    }
+
+    public long getX9() {
+        return values[AArch64Register.X9.ordinal()];
+    }
+
+    public void setX9(long value) {
+        set(AArch64Register.X9, value);
+    }
+
+    public long getX10() {
+        return values[AArch64Register.X10.ordinal()];
+    }
+
+    public void setX10(long value) {
+        set(AArch64Register.X10, value);
+    }
+
+    public long getX11() {
+        return values[AArch64Register.X11.ordinal()];
+    }
+
+    public void setX11(long value) {
+        set(AArch64Register.X11, value);
+    }
+
+    public long getX12() {
+        return values[AArch64Register.X12.ordinal()];
+    }
+
+    public void setX12(long value) {
+        set(AArch64Register.X12, value);
+    }
+
+    public long getX13() {
+        return values[AArch64Register.X13.ordinal()];
+    }
+
+    public void setX13(long value) {
+        set(AArch64Register.X13, value);
+    }
+
+    public long getX14() {
+        return values[AArch64Register.X14.ordinal()];
+    }
+
+    public void setX14(long value) {
+        set(AArch64Register.X14, value);
+    }
+
+    public long getX15() {
+        return values[AArch64Register.X15.ordinal()];
+    }
+
+    public void setX15(long value) {
+        set(AArch64Register.X15, value);
+    }
+
+    public long getX16() {
+        return values[AArch64Register.X16.ordinal()];
+    }
+
+    public void setX16(long value) {
+        set(AArch64Register.X16, value);
+    }
+
+    public long getX17() {
+        return values[AArch64Register.X17.ordinal()];
+    }
+
+    public void setX17(long value) {
+        set(AArch64Register.X17, value);
+    }
+
+    public long getX18() {
+        return values[AArch64Register.X18.ordinal()];
+    }
+
+    public void setX18(long value) {
+        set(AArch64Register.X18, value);
+    }
+
+    public long getX19() {
+        return values[AArch64Register.X19.ordinal()];
+    }
+
+    public void setX19(long value) {
+        set(AArch64Register.X19, value);
+    }
+
+    public long getX20() {
+        return values[AArch64Register.X20.ordinal()];
+    }
+
+    public void setX20(long value) {
+        set(AArch64Register.X20, value);
+    }
+
+    public long getX21() {
+        return values[AArch64Register.X21.ordinal()];
+    }
+
+    public void setX21(long value) {
+        set(AArch64Register.X21, value);
+    }
+
+    public long getX22() {
+        return values[AArch64Register.X22.ordinal()];
+    }
+
+    public void setX22(long value) {
+        set(AArch64Register.X22, value);
+    }
+
+    public long getX23() {
+        return values[AArch64Register.X23.ordinal()];
+    }
+
+    public void setX23(long value) {
+        set(AArch64Register.X23, value);
+    }
+
+    public long getX24() {
+        return values[AArch64Register.X24.ordinal()];
+    }
+
+    public void setX24(long value) {
+        set(AArch64Register.X24, value);
+    }
+
+    public long getX25() {
+        return values[AArch64Register.X25.ordinal()];
+    }
+
+    public void setX25(long value) {
+        set(AArch64Register.X25, value);
+    }
+
+    public long getX26() {
+        return values[AArch64Register.X26.ordinal()];
+    }
+
+    public void setX26(long value) {
+        set(AArch64Register.X26, value);
+    }
+
+    public long getX27() {
+        return values[AArch64Register.X27.ordinal()];
+    }
+
+    public void setX27(long value) {
+        set(AArch64Register.X27, value);
+    }
+
+    public long getX28() {
+        return values[AArch64Register.X28.ordinal()];
+    }
+
+    public void setX28(long value) {
+        set(AArch64Register.X28, value);
+    }
+
+    public long getX29() {
+        return values[AArch64Register.X29.ordinal()];
+    }
+
+    public void setX29(long value) {
+        set(AArch64Register.X29, value);
+    }
+
+    public long getX30() {
+        return values[AArch64Register.X30.ordinal()];
+    }
+
+    public void setX30(long value) {
+        set(AArch64Register.X30, value);
+    }
+
+    public long getSp() {
+        return values[AArch64Register.SP.ordinal()];
+    }
+
+    public void setSp(long value) {
+        set(AArch64Register.SP, value);
+    }
+
+    public long getPc() {
+        return values[AArch64Register.PC.ordinal()];
+    }
+
+    public void setPc(long value) {
+        set(AArch64Register.PC, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AArch64RegisterDumpInfo other)) {
+            return false;
+        }
+        return presentMask == other.presentMask && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(presentMask) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AArch64RegisterDumpInfo(");
+        for (AArch64Register register : AArch64Register.values()) {
+            if (register.ordinal() > 0) {
+                sb.append(", ");
+            }
+            sb.append(register.name().toLowerCase()).append("=").append(values[register.ordinal()]);
+        }
+        return sb.append(")").toString();
+    }
 }
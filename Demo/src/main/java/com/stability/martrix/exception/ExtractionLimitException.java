@@ -0,0 +1,35 @@
+package com.stability.martrix.exception;
+
+import java.io.IOException;
+
+/**
+ * 归档解压超出限制异常
+ *
+ * 继承 IOException，沿用解压失败的处理路径：该归档的解压中止，已写出的文件删除
+ */
+public class ExtractionLimitException extends IOException {
+
+    private final LimitType limitType;
+
+    public enum LimitType {
+        SESSION_BYTES,
+        SESSION_FILES,
+        GLOBAL_BYTES,
+        GLOBAL_FILES,
+        COMPRESSION_RATIO
+    }
+
+    public ExtractionLimitException(LimitType limitType, String message) {
+        super(message);
+        this.limitType = limitType;
+    }
+
+    public LimitType getLimitType() {
+        return limitType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExtractionLimitException{limitType=%s, message='%s'}", limitType, getMessage());
+    }
+}
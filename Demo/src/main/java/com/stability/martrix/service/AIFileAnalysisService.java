@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.stability.martrix.constants.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stability.martrix.dto.AIAnalysisResponse;
+import com.stability.martrix.dto.CachedParseResult;
 import com.stability.martrix.dto.CrashAnalysisResult;
 import com.stability.martrix.dto.CrashInfo;
 import com.stability.martrix.dto.FileParseResult;
@@ -11,26 +12,38 @@ import com.stability.martrix.dto.CodeLocation;
 import com.stability.martrix.dto.PatternMatchResult;
 import com.stability.martrix.dto.SessionContext;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
 import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.ArchiveView;
+import com.stability.martrix.service.archive.LibraryReferences;
+import com.stability.martrix.service.parser.AndroidProtoTombstoneParser;
 import com.stability.martrix.service.parser.FileParserFactory;
+import com.stability.martrix.service.parser.ParseProfile;
+import com.stability.martrix.util.ContentHasher;
 import com.stability.martrix.util.FileTypeDetector;
-import com.stability.martrix.util.ZipFileParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +55,22 @@ public class AIFileAnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(AIFileAnalysisService.class);
 
+    /**
+     * 送入 AI 分析的墓碑除模式匹配所需的分段外，提示词还包含崩溃线程的日志尾部，需要解析到 log 分段
+     */
+    private static final ParseProfile ANALYSIS_PARSE_PROFILE = ParseProfile.CRASH_LOG;
+
+    /**
+     * 只做模式匹配与有效性判断的墓碑需要信号、寄存器、崩溃线程堆栈和内存映射，解析到 memory map 结束即可停止
+     */
+    private static final ParseProfile PATTERN_PARSE_PROFILE = ParseProfile.CRASH_CONTEXT;
+
+    /**
+     * 归档中需要解压分析的条目类型，与 processStoredFiles 能处理的类型一致，其余条目不解压
+     */
+    private static final Set<FileTypeDetector.FileType> ANALYZED_ENTRY_TYPES = EnumSet.of(
+            FileTypeDetector.FileType.TXT, FileTypeDetector.FileType.TOMBSTONE_PROTO, FileTypeDetector.FileType.ZIP);
+
     private final FileParserFactory fileParserFactory;
     private final ChatClient chatClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -50,6 +79,10 @@ public class AIFileAnalysisService {
     private final SessionService sessionService;
     private final PatternMatchService patternMatchService;
     private final BinaryCodeResolver binaryCodeResolver;
+    private final ParseResultCache parseResultCache;
+    private final BugreportIngestionService bugreportIngestionService;
+    private final AndroidProtoTombstoneParser protoTombstoneParser;
+    private final FileProbe fileProbe;
 
     public AIFileAnalysisService(FileParserFactory fileParserFactory,
                                   ChatClient.Builder chatClientBuilder,
@@ -57,7 +90,11 @@ public class AIFileAnalysisService {
                                   ArchiveExtractionService archiveExtractionService,
                                   SessionService sessionService,
                                   PatternMatchService patternMatchService,
-                                  BinaryCodeResolver binaryCodeResolver) {
+                                  BinaryCodeResolver binaryCodeResolver,
+                                  ParseResultCache parseResultCache,
+                                  BugreportIngestionService bugreportIngestionService,
+                                  AndroidProtoTombstoneParser protoTombstoneParser,
+                                  FileProbe fileProbe) {
         this.fileParserFactory = fileParserFactory;
         // 指定 API path 的方式：
         // 方式1: 通过 base-url 配置（推荐，在 application.yaml 中配置）
@@ -71,6 +108,10 @@ public class AIFileAnalysisService {
         this.sessionService = sessionService;
         this.patternMatchService = patternMatchService;
         this.binaryCodeResolver = binaryCodeResolver;
+        this.parseResultCache = parseResultCache;
+        this.bugreportIngestionService = bugreportIngestionService;
+        this.protoTombstoneParser = protoTombstoneParser;
+        this.fileProbe = fileProbe;
     }
 
     /**
@@ -114,22 +155,31 @@ public class AIFileAnalysisService {
             FileParseResult fileParseResult;
             boolean hasTombstone = false;
             AArch64Tombstone tombstone = null;
+            AnrTrace anrTrace = null;
             PatternMatchResult patternMatchResult = null;
 
             if (files == null || files.length == 0) {
                 tombstone = sessionContext.getTombstone();
+                anrTrace = sessionContext.getAnrTrace();
                 if (tombstone != null) {
                     hasTombstone = true;
                     patternMatchResult = patternMatchService.analyzePattern(tombstone);
+                } else if (anrTrace != null) {
+                    patternMatchResult = patternMatchService.analyzeAnr(anrTrace);
                 }
                 fileParseResult = new FileParseResult();
                 fileParseResult.setTombstone(tombstone);
+                fileParseResult.setAnrTrace(anrTrace);
                 fileParseResult.setSuccess(false);
             } else {
                 // 使用 FileParserFactory 实现多态解析，支持 Android、OpenHarmony 等多平台文件
                 fileParseResult = processFiles(sessionId, files, sessionContext);
                 hasTombstone = fileParseResult.hasTombstone();
                 tombstone = fileParseResult.getTombstone();
+                anrTrace = fileParseResult.getAnrTrace();
+                if (anrTrace != null) {
+                    sessionContext.setAnrTrace(anrTrace);
+                }
 
                 // 更新会话上下文（Tombstone信息）
                 if (tombstone != null) {
@@ -139,18 +189,34 @@ public class AIFileAnalysisService {
                     // ========================================
                     // 第四步：模式匹配（仅在Tombstone解析成功后执行）
                     // ========================================
-                    logger.info("[sessionId={}] 开始模式匹配分析...", sessionId);
-                    patternMatchResult = patternMatchService.analyzePattern(tombstone);
+                    if (fileParseResult.isFromCache()) {
+                        logger.info("[sessionId={}] 使用缓存的模式匹配结果", sessionId);
+                        patternMatchResult = fileParseResult.getCachedPatternMatchResult();
+                    } else {
+                        logger.info("[sessionId={}] 开始模式匹配分析...", sessionId);
+                        patternMatchResult = patternMatchService.analyzePattern(tombstone);
+                        parseResultCache.put(fileParseResult.getContentHash(), ANALYSIS_PARSE_PROFILE,
+                                new CachedParseResult(tombstone, patternMatchResult));
+                    }
                     if (patternMatchResult != null) {
                         logger.info("[sessionId={}] 模式匹配完成: 置信度={}, 结果={}",
                                 sessionId, patternMatchResult.getConfidence(), patternMatchResult.getResult());
                     } else {
                         logger.info("[sessionId={}] 模式匹配: 未匹配到特定模式", sessionId);
                     }
+                } else if (anrTrace != null) {
+                    logger.info("[sessionId={}] 解析完成: 找到ANR信息，线程 {} 个，死锁 {} 处",
+                            sessionId, anrTrace.getThreads().size(), anrTrace.getDeadlocks().size());
+                    patternMatchResult = patternMatchService.analyzeAnr(anrTrace);
+                    if (patternMatchResult != null) {
+                        logger.info("[sessionId={}] ANR模式匹配完成: 置信度={}, 结果={}",
+                                sessionId, patternMatchResult.getConfidence(), patternMatchResult.getResult());
+                    }
                 } else {
                     logger.info("[sessionId={}] 解析完成: 未找到崩溃信息", sessionId);
                 }
             }
+            boolean hasAnrTrace = anrTrace != null;
             // ========================================
             // 第五步：二进制代码解析（将栈顶地址转换为源代码行号）
             // ========================================
@@ -183,7 +249,7 @@ public class AIFileAnalysisService {
             }
 
             // extractCrashInfo仅在工具解析失败时需要调用
-            if (!hasTombstone && question != null && !question.trim().isEmpty()) {
+            if (!hasTombstone && !hasAnrTrace && question != null && !question.trim().isEmpty()) {
                 logger.info("[sessionId={}] 工具解析未找到Tombstone，使用AI模型提取崩溃信息...", sessionId);
                 crashInfo = extractCrashInfo(question);
                 response.setCrashInfo(crashInfo);
@@ -192,24 +258,24 @@ public class AIFileAnalysisService {
                 if (crashInfo.getCrashType() != null) {
                     logger.info("[sessionId={}] 崩溃类型: {}", sessionId, crashInfo.getCrashType());
                 }
-            } else if (hasTombstone) {
+            } else if (hasTombstone || hasAnrTrace) {
                 // 工具解析成功，设置null
                 response.setCrashInfo(null);
             }
 
             // 判断是否解析成功
             boolean success = (fileParseResult != null && fileParseResult.isSuccess()) ||
-                              hasTombstone || parsedQuestion != null;
+                              hasTombstone || hasAnrTrace || parsedQuestion != null;
             sessionContext.setSuccess(success);
 
             // ========================================
             // 第七步：AI分析（调用大模型分析崩溃原因）
             // ========================================
             String aiAnalysis = null;
-            if (hasTombstone || (crashInfo != null && crashInfo.isHasCrashInfo())) {
+            if (hasTombstone || hasAnrTrace || (crashInfo != null && crashInfo.isHasCrashInfo())) {
                 logger.info("[sessionId={}] 开始AI分析...", sessionId);
                 aiAnalysis = analyzeCrashWithAI(sessionId, question, parsedQuestion,
-                        crashInfo, tombstone, patternMatchResult, topCodeLocation);
+                        crashInfo, tombstone, anrTrace, patternMatchResult, topCodeLocation);
                 logger.info("[sessionId={}] AI分析完成 aiAnalysis={}", sessionId, aiAnalysis);
             }
 
@@ -233,6 +299,8 @@ public class AIFileAnalysisService {
             // 设置响应结果
             if (fileParseResult != null) {
                 response.setTombstone(fileParseResult.getTombstone());
+                response.setBugreportTombstones(fileParseResult.getBugreportTombstones());
+                response.setAnrTrace(fileParseResult.getAnrTrace());
                 response.setProcessLogs(fileParseResult.getProcessLogs());
             }
             response.setAiAnalysis(aiAnalysis);
@@ -266,27 +334,67 @@ public class AIFileAnalysisService {
      * @return 文件解析结果
      */
     private FileParseResult processFiles(String sessionId, MultipartFile[] files, SessionContext sessionContext) {
-        // 第一步：存储所有文件到会话文件夹
-        List<String> storedFilePaths = sessionFileStorageService.storeFiles(sessionId, files);
-        logger.info("[sessionId={}] 文件已存储到会话文件夹，共 {} 个文件", sessionId, storedFilePaths.size());
+        // 第一步：存储所有文件到会话文件夹，先按内容摘要查询解析结果缓存，未命中的非归档文件在写盘的同时完成类型检测与解析
+        List<SessionFileStorageService.StoredFile<UploadParseResult>> storedFiles = new ArrayList<>();
+        for (MultipartFile file : files) {
+            if (file == null || file.isEmpty()) {
+                continue;
+            }
+            try {
+                storedFiles.add(storeUpload(sessionId, file));
+            } catch (Exception e) {
+                logger.warn("[sessionId={}] 存储文件失败，跳过: file={}, error={}",
+                        sessionId, file.getOriginalFilename(), e.getMessage());
+            }
+        }
+        List<String> storedFilePaths = new ArrayList<>();
+        Map<String, UploadParseResult> uploadParseResults = new HashMap<>();
+        for (SessionFileStorageService.StoredFile<UploadParseResult> storedFile : storedFiles) {
+            storedFilePaths.add(storedFile.path());
+            if (storedFile.result() != null) {
+                uploadParseResults.put(storedFile.path(), storedFile.result().withContentHash(storedFile.contentHash()));
+                // 写盘时已按数据流探测过文件头，后续阶段按路径探测直接复用
+                fileProbe.remember(Paths.get(storedFile.path()), storedFile.result().probe());
+            }
+        }
+        logger.info("[sessionId={}] 文件已存储到会话文件夹，共 {} 个文件，其中 {} 个已在存储时解析，解析缓存统计: {}",
+                sessionId, storedFilePaths.size(), uploadParseResults.size(), parseResultCache.getStatistics());
 
         // 将文件信息记录到会话上下文
         for (String filePath : storedFilePaths) {
             Path path = Paths.get(filePath);
             String fileName = path.getFileName().toString();
-            String fileType = detectFileTypeByName(fileName);
+            String fileType = describeFileType(path);
             long fileSize = getFileSize(path);
             sessionContext.addFile(fileName, filePath, fileSize, fileType);
         }
 
-        // 第二步：检测并解压归档文件
+        // 第二步：检测并按需解压归档文件，只解压需要分析的条目；bugreport 按条目直接流式解析，不解压
         List<String> archiveFiles = new ArrayList<>();
         List<String> regularFiles = new ArrayList<>();
+        Map<Path, List<BugreportIngestionService.IngestedEntry>> bugreportEntries = new LinkedHashMap<>();
+        // 解析出回溯后再从中解压被引用的共享库，包括按条目流式解析的 bugreport
+        List<String> libraryArchives = new ArrayList<>();
 
         for (String filePath : storedFilePaths) {
             Path path = Paths.get(filePath);
-            ArchiveExtractionService.ArchiveType archiveType = detectArchiveType(filePath);
-            if (archiveType != ArchiveExtractionService.ArchiveType.UNKNOWN) {
+            ArchiveExtractionService.ArchiveType archiveType = detectArchiveType(path);
+            if (archiveType == ArchiveExtractionService.ArchiveType.ZIP && bugreportIngestionService.isBugreport(path)) {
+                try {
+                    logger.info("[sessionId={}] 检测到 bugreport，按条目流式解析: {}", sessionId, path.getFileName());
+                    // 多数 tombstone 只用于列表展示，按模式匹配档位解析；送入 AI 的一个合并时再按分析档位重新解析
+                    bugreportEntries.put(path, bugreportIngestionService.ingest(path, PATTERN_PARSE_PROFILE));
+                    libraryArchives.add(filePath);
+                } catch (ExtractionLimitException e) {
+                    // 解压同样会超出限制，不再改为解压
+                    logger.warn("[sessionId={}] 流式解析 bugreport 超出解压限制，跳过: file={}, error={}",
+                            sessionId, path.getFileName(), e.getMessage());
+                } catch (IOException e) {
+                    logger.warn("[sessionId={}] 流式解析 bugreport 失败，改为解压: file={}, error={}",
+                            sessionId, path.getFileName(), e.getMessage());
+                    archiveFiles.add(filePath);
+                }
+            } else if (archiveType != ArchiveExtractionService.ArchiveType.UNKNOWN) {
                 archiveFiles.add(filePath);
             } else {
                 regularFiles.add(filePath);
@@ -296,14 +404,27 @@ public class AIFileAnalysisService {
         List<String> allFilePaths = new ArrayList<>();
         if (!archiveFiles.isEmpty()) {
             String sessionPath = sessionFileStorageService.getFileStorageProperties().getSessionPath(sessionId);
-            logger.info("[sessionId={}] 检测到 {} 个归档文件，开始解压...", sessionId, archiveFiles.size());
-            List<String> extractedFiles = archiveExtractionService.extractArchives(archiveFiles, sessionPath);
-            logger.info("[sessionId={}] 解压归档完成，共 {} 个文件", sessionId, extractedFiles.size());
+            logger.info("[sessionId={}] 检测到 {} 个归档文件，开始按需解压...", sessionId, archiveFiles.size());
+            // 嵌套归档逐层流式读取，崩溃文件在解压线程中边写盘边计算摘要并查询解析结果缓存，不等整棵归档树解压完
+            List<SessionFileStorageService.StoredFile<UploadParseResult>> extractedEntries =
+                    archiveExtractionService.extractArchives(archiveFiles, sessionPath,
+                            probe -> ANALYZED_ENTRY_TYPES.contains(probe.fileType()),
+                            this::hashWhileExtracting);
+            List<String> extractedFiles = new ArrayList<>();
+            for (SessionFileStorageService.StoredFile<UploadParseResult> extractedEntry : extractedEntries) {
+                extractedFiles.add(extractedEntry.path());
+                if (extractedEntry.result() != null) {
+                    uploadParseResults.put(extractedEntry.path(), extractedEntry.result());
+                }
+            }
+            logger.info("[sessionId={}] 解压归档完成，共 {} 个文件，其中 {} 个命中解析结果缓存",
+                    sessionId, extractedFiles.size(),
+                    extractedEntries.stream().filter(e -> e.result() != null && e.result().cached() != null).count());
             // 将解压后的文件信息也记录到会话上下文
             for (String filePath : extractedFiles) {
                 Path path = Paths.get(filePath);
                 String fileName = path.getFileName().toString();
-                String fileType = detectFileTypeByName(fileName);
+                String fileType = describeFileType(path);
                 long fileSize = getFileSize(path);
                 sessionContext.addFile(fileName, filePath, fileSize, fileType);
             }
@@ -315,28 +436,240 @@ public class AIFileAnalysisService {
             allFilePaths.addAll(regularFiles);
         }
 
-        return processStoredFiles(sessionId, allFilePaths, sessionContext);
+        FileParseResult result = processStoredFiles(sessionId, allFilePaths, sessionContext, uploadParseResults);
+        if (!bugreportEntries.isEmpty()) {
+            mergeBugreportEntries(sessionId, result, bugreportEntries);
+        }
+        libraryArchives.addAll(archiveFiles);
+        extractReferencedLibraries(sessionId, libraryArchives, result, sessionContext);
+        compressSessionFiles(sessionId, sessionContext);
+        return result;
+    }
+
+    /**
+     * 解析完成后按配置把会话文件压缩存储，会话上下文中的路径随之更新；之后按行读取时透明解压
+     */
+    private void compressSessionFiles(String sessionId, SessionContext sessionContext) {
+        if (!sessionFileStorageService.getFileStorageProperties().isCompressAtRest() || sessionContext.getFiles() == null) {
+            return;
+        }
+        // 同一文件可能被记录多次，只压缩一次
+        Map<String, String> storedPaths = new HashMap<>();
+        for (SessionContext.SessionFile file : sessionContext.getFiles()) {
+            if (file.getFilePath() != null) {
+                file.setFilePath(storedPaths.computeIfAbsent(file.getFilePath(),
+                        sessionFileStorageService::compressAtRest));
+            }
+        }
+        long compressed = storedPaths.entrySet().stream().filter(e -> !e.getKey().equals(e.getValue())).count();
+        logger.info("[sessionId={}] 会话文件压缩存储 {} 个", sessionId, compressed);
+    }
+
+    /**
+     * 第二轮解压：第一轮按需解压时共享库都不解压，解析出墓碑后只解压回溯中按文件名或 BuildId 引用到的共享库
+     */
+    private void extractReferencedLibraries(String sessionId, List<String> archivePaths, FileParseResult result,
+                                            SessionContext sessionContext) {
+        if (archivePaths.isEmpty() || !result.hasTombstone()) {
+            return;
+        }
+        LibraryReferences libraries = LibraryReferences.of(result.getTombstone());
+        if (libraries.isEmpty()) {
+            return;
+        }
+        String sessionPath = sessionFileStorageService.getFileStorageProperties().getSessionPath(sessionId);
+        List<String> libraryFiles = archiveExtractionService.extractLibraries(archivePaths, sessionPath, libraries);
+        for (String filePath : libraryFiles) {
+            Path path = Paths.get(filePath);
+            sessionContext.addFile(path.getFileName().toString(), filePath, getFileSize(path), describeFileType(path));
+        }
+        if (!libraryFiles.isEmpty()) {
+            result.getProcessLogs().add("按回溯引用解压共享库 %d 个".formatted(libraryFiles.size()));
+        }
+        logger.info("[sessionId={}] 按回溯引用解压共享库 {} 个", sessionId, libraryFiles.size());
+    }
+
+    /**
+     * 合并 bugreport 条目的解析结果
+     * 全部有效 tombstone 记录到结果中，其他文件未解析出 tombstone 时使用最新的一个，
+     * 该条目按分析档位重新解析以带上崩溃线程日志，其余条目保持模式匹配档位
+     */
+    private void mergeBugreportEntries(String sessionId, FileParseResult result,
+                                       Map<Path, List<BugreportIngestionService.IngestedEntry>> bugreportEntries) {
+        List<AArch64Tombstone> tombstones = new ArrayList<>();
+        Path newestZipPath = null;
+        BugreportIngestionService.IngestedEntry newestEntry = null;
+        int entryCount = 0;
+        for (Map.Entry<Path, List<BugreportIngestionService.IngestedEntry>> bugreport : bugreportEntries.entrySet()) {
+            for (BugreportIngestionService.IngestedEntry entry : bugreport.getValue()) {
+                entryCount++;
+                if (entry.entity() instanceof AArch64Tombstone parsedTombstone && isValidTombstone(parsedTombstone)) {
+                    if (newestEntry == null) {
+                        newestZipPath = bugreport.getKey();
+                        newestEntry = entry;
+                    }
+                    tombstones.add(parsedTombstone);
+                    result.getProcessLogs().add("bugreport条目解析成功: %s".formatted(entry.name()));
+                } else if (entry.entity() instanceof AnrTrace anrTrace) {
+                    // 条目按时间倒序排列，其他文件未解析出 ANR 时使用最新的一个
+                    if (!result.hasAnrTrace()) {
+                        result.setAnrTrace(anrTrace);
+                    }
+                    result.getProcessLogs().add("bugreport ANR解析成功: %s，线程 %d 个，死锁 %d 处".formatted(
+                            entry.name(), anrTrace.getThreads().size(), anrTrace.getDeadlocks().size()));
+                } else if (entry.kind() == BugreportIngestionService.EntryKind.TOMBSTONE) {
+                    result.getProcessLogs().add("bugreport条目解析失败: %s，未识别为有效崩溃日志".formatted(entry.name()));
+                }
+            }
+        }
+        logger.info("[sessionId={}] bugreport 解析完成: 相关条目 {} 个，有效Tombstone {} 个",
+                sessionId, entryCount, tombstones.size());
+
+        result.setBugreportTombstones(tombstones);
+        result.setSuccess(true);
+        if (!result.hasTombstone() && newestEntry != null) {
+            AArch64Tombstone analysisTombstone = reparseForAnalysis(sessionId, newestZipPath, newestEntry);
+            if (analysisTombstone != null) {
+                tombstones.set(0, analysisTombstone);
+            }
+            result.setTombstone(tombstones.getFirst());
+            result.setContentHash(null);
+            result.setFromCache(false);
+            result.setCachedPatternMatchResult(null);
+        }
     }
 
     /**
-     * 通过文件名检测文件类型
+     * 按分析档位重新解析 bugreport 中送入 AI 的 tombstone，失败时返回 null，沿用模式匹配档位的结果
      */
-    private String detectFileTypeByName(String fileName) {
-        if (fileName == null) {
-            return "UNKNOWN";
+    private AArch64Tombstone reparseForAnalysis(String sessionId, Path zipPath,
+                                                BugreportIngestionService.IngestedEntry entry) {
+        try {
+            if (bugreportIngestionService.reparse(zipPath, entry, ANALYSIS_PARSE_PROFILE)
+                    instanceof AArch64Tombstone tombstone && isValidTombstone(tombstone)) {
+                return tombstone;
+            }
+        } catch (IOException e) {
+            logger.warn("[sessionId={}] 重新解析 bugreport 条目失败，不带崩溃线程日志: entry={}, error={}",
+                    sessionId, entry.name(), e.getMessage());
         }
+        return null;
+    }
 
-        String lower = fileName.toLowerCase();
-        if (lower.endsWith(".txt") || lower.endsWith(".log")) {
-            return "TXT";
-        } else if (lower.endsWith(".zip")) {
-            return "ZIP";
-        } else if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
-            return "TAR_GZ";
-        } else if (lower.endsWith(".tar")) {
-            return "TAR";
+    /**
+     * 存储上传文件：上传内容已缓冲在内存或临时文件中，写盘前先按内容摘要查询解析结果缓存，
+     * 命中时存储时只探测文件头，不再解析；未命中时与写盘共用同一次读取完成解析
+     */
+    private SessionFileStorageService.StoredFile<UploadParseResult> storeUpload(String sessionId, MultipartFile file)
+            throws IOException {
+        CachedParseResult cached;
+        try (InputStream inputStream = file.getInputStream()) {
+            cached = parseResultCache.get(ContentHasher.hash(inputStream), ANALYSIS_PARSE_PROFILE);
+        }
+        if (cached == null) {
+            return sessionFileStorageService.storeFile(sessionId, file, this::parseWhileStoring);
+        }
+        return sessionFileStorageService.storeFile(sessionId, file, (fileName, inputStream) ->
+                new UploadParseResult(probeHeader(fileName, new BufferedInputStream(inputStream)),
+                        cached.getTombstone(), true, null, cached));
+    }
+
+    /**
+     * 存储上传文件时同步探测文件头并解析文本或 protobuf tombstone 内容，与写盘共用同一次读取
+     *
+     * 归档文件写盘后统一解压，这里只探测不解析；流式解码失败时返回 null，由存储后的常规流程处理
+     *
+     * @param fileName 文件名
+     * @param inputStream 上传内容
+     * @return 探测与解析结果，摘要由存储完成后补充；未处理时返回 null
+     */
+    private UploadParseResult parseWhileStoring(String fileName, InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedStream = new BufferedInputStream(inputStream);
+        FileProbe.ProbeResult probe = probeHeader(fileName, bufferedStream);
+
+        if (probe.isArchive()) {
+            return new UploadParseResult(probe, null, false, null, null);
+        }
+        if (probe.fileType() == FileTypeDetector.FileType.TOMBSTONE_PROTO) {
+            return new UploadParseResult(probe,
+                    protoTombstoneParser.parse(ByteBuffer.wrap(bufferedStream.readAllBytes()), ANALYSIS_PARSE_PROFILE),
+                    true, null, null);
+        }
+        if (probe.fileType() != FileTypeDetector.FileType.TXT) {
+            return new UploadParseResult(probe, null, false, null, null);
+        }
+
+        try {
+            return new UploadParseResult(probe, fileParserFactory.parseStream(bufferedStream, probe, ANALYSIS_PARSE_PROFILE),
+                    true, null, null);
+        } catch (IOException e) {
+            logger.debug("存储时解析文件 {} 失败，存储完成后重新解析: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解压归档条目时同步探测文件头，文本或 protobuf tombstone 条目边写盘边计算摘要并查询解析结果缓存。
+     * 条目读完才能得到摘要，因此解压时不解析：命中缓存的条目不再解析，未命中的条目解压完成后按路径解析
+     *
+     * @param fileName 文件名
+     * @param inputStream 条目内容
+     * @return 探测结果，以及文本或 protobuf tombstone 条目的摘要与命中的缓存
+     */
+    private UploadParseResult hashWhileExtracting(String fileName, InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedStream = new BufferedInputStream(inputStream);
+        FileProbe.ProbeResult probe = probeHeader(fileName, bufferedStream);
+        if (probe.fileType() != FileTypeDetector.FileType.TXT
+                && probe.fileType() != FileTypeDetector.FileType.TOMBSTONE_PROTO) {
+            return new UploadParseResult(probe, null, false, null, null);
+        }
+        String contentHash = ContentHasher.hash(bufferedStream);
+        CachedParseResult cached = parseResultCache.get(contentHash, ANALYSIS_PARSE_PROFILE);
+        return new UploadParseResult(probe, cached != null ? cached.getTombstone() : null, cached != null,
+                contentHash, cached);
+    }
+
+    /**
+     * 按数据流开头的字节探测文件类型，探测后流回到开头
+     */
+    private FileProbe.ProbeResult probeHeader(String fileName, BufferedInputStream bufferedStream) throws IOException {
+        bufferedStream.mark(FileTypeDetector.SAMPLE_SIZE);
+        byte[] header = bufferedStream.readNBytes(FileTypeDetector.SAMPLE_SIZE);
+        bufferedStream.reset();
+        return fileProbe.probe(header, fileName);
+    }
+
+    /**
+     * 上传文件或解压条目在存储时得到的探测与解析结果
+     *
+     * @param probe 按文件头探测的结果
+     * @param entity 文本文件或 protobuf tombstone 的解析结果或命中缓存的墓碑，其他类型或未识别时为 null
+     * @param parsed 是否已得到 entity；解压时未命中缓存的条目为 false，存储完成后按路径解析
+     * @param contentHash 存储时计算的内容摘要，上传文件由存储完成后补充
+     * @param cached 命中的解析结果缓存，未命中时为 null
+     */
+    private record UploadParseResult(FileProbe.ProbeResult probe, TroubleEntity entity, boolean parsed,
+                                     String contentHash, CachedParseResult cached) {
+
+        FileTypeDetector.FileType fileType() {
+            return probe.fileType();
+        }
+
+        UploadParseResult withContentHash(String hash) {
+            return new UploadParseResult(probe, entity, parsed, hash, cached);
+        }
+    }
+
+    /**
+     * 记录到会话上下文的文件类型，归档优先使用归档类型
+     */
+    private String describeFileType(Path path) {
+        try {
+            return fileProbe.probe(path).typeName();
+        } catch (IOException e) {
+            logger.debug("探测文件 {} 失败: {}", path, e.getMessage());
+            return FileTypeDetector.FileType.UNKNOWN.name();
         }
-        return "UNKNOWN";
     }
 
     /**
@@ -345,12 +678,17 @@ public class AIFileAnalysisService {
      * @param sessionId 会话ID
      * @param filePaths 文件路径列表
      * @param sessionContext 会话上下文
+     * @param uploadParseResults 上传时已完成的类型检测与解析结果，按文件路径索引
      * @return 文件解析结果
      */
-    private FileParseResult processStoredFiles(String sessionId, List<String> filePaths, SessionContext sessionContext) {
+    private FileParseResult processStoredFiles(String sessionId, List<String> filePaths, SessionContext sessionContext,
+                                               Map<String, UploadParseResult> uploadParseResults) {
         FileParseResult result = new FileParseResult();
         List<String> processLogs = new ArrayList<>();
         AArch64Tombstone tombstone = null;
+        AnrTrace anrTrace = null;
+        String tombstoneContentHash = null;
+        CachedParseResult tombstoneCached = null;
         boolean fileReadSucceeded = false;
 
         for (String filePath : filePaths) {
@@ -365,10 +703,11 @@ public class AIFileAnalysisService {
                 String fileName = path.getFileName().toString();
                 logger.info("[sessionId={}] 处理文件: {}", sessionId, fileName);
 
-                // 检测文件类型
+                // 检测文件类型，上传时已检测过的直接使用
+                UploadParseResult uploadParseResult = uploadParseResults.get(filePath);
                 FileTypeDetector.FileType fileType;
                 try {
-                    fileType = detectFileTypeByPath(path);
+                    fileType = uploadParseResult != null ? uploadParseResult.fileType() : detectFileTypeByPath(path);
                 } catch (IOException e) {
                     logger.warn("[sessionId={}] 检测文件类型失败: file={}, error={}", sessionId, fileName, e.getMessage());
                     processLogs.add("文件读取失败: %s，检测文件类型失败: %s".formatted(fileName, e.getMessage()));
@@ -378,10 +717,26 @@ public class AIFileAnalysisService {
 
                 switch (fileType) {
                     case TXT:
+                    case TOMBSTONE_PROTO:
                         logger.info("[sessionId={}] 使用多平台解析器解析文件...", sessionId);
-                        List<String> lines;
+                        TroubleEntity entity;
+                        String contentHash;
+                        CachedParseResult cached;
                         try {
-                            lines = fileParserFactory.readFileLines(path);
+                            if (uploadParseResult != null && uploadParseResult.contentHash() != null) {
+                                // 存储时已查询过解析结果缓存，解压时未命中缓存的条目在这里解析
+                                contentHash = uploadParseResult.contentHash();
+                                cached = uploadParseResult.cached();
+                                entity = uploadParseResult.parsed()
+                                        ? uploadParseResult.entity()
+                                        : parseStoredFile(path, fileType);
+                            } else {
+                                contentHash = ContentHasher.hash(path);
+                                cached = parseResultCache.get(contentHash, ANALYSIS_PARSE_PROFILE);
+                                entity = cached != null
+                                        ? cached.getTombstone()
+                                        : parseStoredFile(path, fileType);
+                            }
                             fileReadSucceeded = true;
                         } catch (IOException e) {
                             logger.warn("[sessionId={}] 读取文本文件失败: file={}, error={}",
@@ -390,11 +745,18 @@ public class AIFileAnalysisService {
                             continue;
                         }
 
-                        TroubleEntity entity = fileParserFactory.parseLines(lines);
                         if (entity instanceof AArch64Tombstone parsedTombstone && isValidTombstone(parsedTombstone)) {
                             tombstone = parsedTombstone;
-                            logger.info("[sessionId={}] 成功解析文件: {}", sessionId, fileName);
+                            tombstoneContentHash = contentHash;
+                            tombstoneCached = cached;
+                            logger.info("[sessionId={}] 成功解析文件: {}{}", sessionId, fileName,
+                                    cached != null ? "（解析缓存命中）" : "");
                             processLogs.add("文件解析成功: %s".formatted(fileName));
+                        } else if (entity instanceof AnrTrace parsedAnrTrace && parsedAnrTrace.getPid() != null) {
+                            anrTrace = parsedAnrTrace;
+                            logger.info("[sessionId={}] 成功解析ANR文件: {}", sessionId, fileName);
+                            processLogs.add("ANR文件解析成功: %s，线程 %d 个，死锁 %d 处".formatted(fileName,
+                                    parsedAnrTrace.getThreads().size(), parsedAnrTrace.getDeadlocks().size()));
                         } else {
                             logger.debug("[sessionId={}] 文件不是有效的崩溃日志格式: {}", sessionId, fileName);
                             processLogs.add("文件解析失败: %s，未识别为有效崩溃日志".formatted(fileName));
@@ -409,6 +771,8 @@ public class AIFileAnalysisService {
                         fileReadSucceeded = fileReadSucceeded || zipResult.isSuccess();
                         if (zipResult.getTombstone() != null && tombstone == null) {
                             tombstone = zipResult.getTombstone();
+                            tombstoneContentHash = null;
+                            tombstoneCached = null;
                         }
                         break;
 
@@ -425,8 +789,12 @@ public class AIFileAnalysisService {
         }
 
         result.setTombstone(tombstone);
+        result.setAnrTrace(anrTrace);
+        result.setContentHash(tombstoneContentHash);
+        result.setFromCache(tombstoneCached != null);
+        result.setCachedPatternMatchResult(tombstoneCached != null ? tombstoneCached.getPatternMatchResult() : null);
         result.setProcessLogs(processLogs);
-        result.setSuccess(tombstone != null || fileReadSucceeded);
+        result.setSuccess(tombstone != null || anrTrace != null || fileReadSucceeded);
         return result;
     }
 
@@ -443,27 +811,27 @@ public class AIFileAnalysisService {
         AArch64Tombstone tombstone = null;
         boolean zipReadSucceeded = false;
 
-        try {
+        // 通过归档视图按条目读取，只解压候选条目
+        try (ArchiveView zipView = archiveExtractionService.openView(zipPath)) {
             // 查找可能的Tombstone文件
-            List<ZipFileParser.ZipEntryInfo> potentialTombstones =
-                findPotentialTombstonesInZip(zipPath);
+            List<ArchiveView.Entry> potentialTombstones = findPotentialTombstones(zipView);
             zipReadSucceeded = true;
             logger.info("[sessionId={}] 在ZIP中找到 {} 个可能的Tombstone文件", sessionId, potentialTombstones.size());
             if (potentialTombstones.isEmpty()) {
                 processLogs.add("ZIP读取成功: %s，未找到候选崩溃文件".formatted(zipPath.getFileName()));
             }
 
-            for (ZipFileParser.ZipEntryInfo entry : potentialTombstones) {
-                logger.info("[sessionId={}] 尝试解析文件: {}", sessionId, entry.getName());
-                AArch64Tombstone parsedTombstone = parseZipEntryAsTombstone(entry);
+            for (ArchiveView.Entry entry : potentialTombstones) {
+                logger.info("[sessionId={}] 尝试解析文件: {}", sessionId, entry.name());
+                AArch64Tombstone parsedTombstone = parseArchiveEntryAsTombstone(zipView, entry);
                 if (parsedTombstone != null && isValidTombstone(parsedTombstone)) {
                     tombstone = parsedTombstone;
-                    logger.info("[sessionId={}] 成功解析Tombstone: {}", sessionId, entry.getName());
-                    processLogs.add("ZIP条目解析成功: %s".formatted(entry.getName()));
+                    logger.info("[sessionId={}] 成功解析Tombstone: {}", sessionId, entry.name());
+                    processLogs.add("ZIP条目解析成功: %s".formatted(entry.name()));
                     break;
                 } else {
-                    logger.debug("[sessionId={}] 文件不是有效的Tombstone: {}", sessionId, entry.getName());
-                    processLogs.add("ZIP条目解析失败: %s，未识别为有效崩溃日志".formatted(entry.getName()));
+                    logger.debug("[sessionId={}] 文件不是有效的Tombstone: {}", sessionId, entry.name());
+                    processLogs.add("ZIP条目解析失败: %s，未识别为有效崩溃日志".formatted(entry.name()));
                 }
             }
 
@@ -482,10 +850,20 @@ public class AIFileAnalysisService {
     }
 
     /**
-     * 通过路径检测文件类型
+     * 解析已存储的文本或 protobuf tombstone 文件，protobuf 直接内存映射解码
+     */
+    private TroubleEntity parseStoredFile(Path path, FileTypeDetector.FileType fileType) throws IOException {
+        if (fileType == FileTypeDetector.FileType.TOMBSTONE_PROTO) {
+            return protoTombstoneParser.parse(path, ANALYSIS_PARSE_PROFILE);
+        }
+        return fileParserFactory.streamParseFile(path, ANALYSIS_PARSE_PROFILE);
+    }
+
+    /**
+     * 通过路径检测文件类型，复用上传或归档检测阶段的探测结果
      */
     private FileTypeDetector.FileType detectFileTypeByPath(Path path) throws IOException {
-        return FileTypeDetector.detectFileType(path);
+        return fileProbe.probe(path).fileType();
     }
 
     private void mergeProcessLogs(List<String> target, List<String> source) {
@@ -496,10 +874,15 @@ public class AIFileAnalysisService {
     }
 
     /**
-     * 检测归档类型
+     * 检测归档类型，魔数优先，魔数无法判定时按扩展名
      */
-    private ArchiveExtractionService.ArchiveType detectArchiveType(String fileName) {
-        return ArchiveExtractionService.detectArchiveType(fileName);
+    private ArchiveExtractionService.ArchiveType detectArchiveType(Path path) {
+        try {
+            return fileProbe.probe(path).archiveType();
+        } catch (IOException e) {
+            logger.warn("检测归档类型失败: {}", e.getMessage());
+            return ArchiveExtractionService.detectArchiveTypeByName(path.getFileName().toString());
+        }
     }
 
     /**
@@ -684,78 +1067,23 @@ public class AIFileAnalysisService {
     }
 
     /**
-     * 查找ZIP中可能的Tombstone文件
+     * 查找归档中可能的Tombstone文件
+     * 文件名像 tombstone 的直接作为候选，其余条目只读取开头的字节检查内容
      */
-    private List<ZipFileParser.ZipEntryInfo> findPotentialTombstonesInZip(Path zipPath) throws IOException {
-        return ZipFileParser.findPotentialTombstoneFiles(createMultipartFileFromPath(zipPath));
-    }
-
-    /**
-     * 将Path转换为MultipartFile（用于使用现有的ZipFileParser）
-     */
-    private MultipartFile createMultipartFileFromPath(Path filePath) {
-        return new MultipartFile() {
-            @Override
-            public String getName() {
-                return filePath.getFileName().toString();
-            }
-
-            @Override
-            public String getOriginalFilename() {
-                return filePath.getFileName().toString();
+    private List<ArchiveView.Entry> findPotentialTombstones(ArchiveView view) throws IOException {
+        List<ArchiveView.Entry> result = new ArrayList<>();
+        for (ArchiveView.Entry entry : view.entries()) {
+            String name = entry.name().toLowerCase();
+            if (name.contains("tombstone") || name.endsWith(".txt") && name.contains("crash")) {
+                result.add(entry);
+                continue;
             }
-
-            @Override
-            public String getContentType() {
-                try {
-                    String probe = Files.probeContentType(filePath);
-                    return probe != null ? probe : "application/octet-stream";
-                } catch (IOException e) {
-                    return "application/octet-stream";
-                }
+            String head = new String(view.head(entry), StandardCharsets.ISO_8859_1);
+            if (head.contains("pid:") && head.contains("signal")) {
+                result.add(entry);
             }
-
-            @Override
-            public boolean isEmpty() {
-                try {
-                    return Files.size(filePath) == 0;
-                } catch (IOException e) {
-                    return true;
-                }
-            }
-
-            @Override
-            public long getSize() {
-                try {
-                    return Files.size(filePath);
-                } catch (IOException e) {
-                    return 0;
-                }
-            }
-
-            @Override
-            public byte[] getBytes() {
-                try {
-                    return Files.readAllBytes(filePath);
-                } catch (IOException e) {
-                    return new byte[0];
-                }
-            }
-
-            @Override
-            public InputStream getInputStream() throws IOException {
-                return Files.newInputStream(filePath);
-            }
-
-            @Override
-            public void transferTo(java.io.File dest) {
-                try {
-                    Files.copy(filePath, dest.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to transfer file", e);
-                }
-            }
-        };
+        }
+        return result;
     }
 
     /**
@@ -770,25 +1098,20 @@ public class AIFileAnalysisService {
     }
 
     /**
-     * 将ZIP条目解析为Tombstone
+     * 将归档条目解析为Tombstone，边解压边解析，解析档位满足后不再解压剩余内容
      */
-    private AArch64Tombstone parseZipEntryAsTombstone(ZipFileParser.ZipEntryInfo entry) {
-        if (entry == null || entry.getContent() == null) {
-            return null;
-        }
-
+    private AArch64Tombstone parseArchiveEntryAsTombstone(ArchiveView view, ArchiveView.Entry entry) {
         try {
-            List<String> lines = new BufferedReader(new InputStreamReader(
-                    new ByteArrayInputStream(entry.getContent())))
-                    .lines()
-                    .collect(Collectors.toList());
-
-            TroubleEntity entity = fileParserFactory.parseLines(lines);
+            FileProbe.ProbeResult probe = view.probe(entry);
+            TroubleEntity entity;
+            try (InputStream inputStream = view.open(entry)) {
+                entity = fileParserFactory.parseStream(inputStream, probe, ANALYSIS_PARSE_PROFILE);
+            }
             if (entity instanceof AArch64Tombstone) {
                 return (AArch64Tombstone) entity;
             }
         } catch (Exception e) {
-            logger.error("解析ZIP条目为Tombstone失败: {}", entry.getName(), e);
+            logger.error("解析归档条目为Tombstone失败: {}", entry.name(), e);
         }
         return null;
     }
@@ -801,11 +1124,12 @@ public class AIFileAnalysisService {
      * @param parsedQuestion 解析后的问题
      * @param crashInfo 崩溃信息
      * @param tombstone Tombstone数据
+     * @param anrTrace ANR现场数据
      * @param patternMatchResult 模式匹配结果
      * @return AI分析结果
      */
     private String analyzeCrashWithAI(String sessionId, String originalQuestion, String parsedQuestion,
-                                       CrashInfo crashInfo, AArch64Tombstone tombstone,
+                                       CrashInfo crashInfo, AArch64Tombstone tombstone, AnrTrace anrTrace,
                                        PatternMatchResult patternMatchResult, CodeLocation topCodeLocation) {
         try {
             AnalysisData analysisData = new AnalysisData();
@@ -855,9 +1179,20 @@ public class AIFileAnalysisService {
                         .collect(Collectors.toList());
                 }
 
+                if (tombstone.getCrashThreadLogTail() != null) {
+                    tombstoneData.crashThreadLog = tombstone.getCrashThreadLogTail().stream()
+                        .map(line -> "%s %s %s: %s".formatted(
+                            line.getTimestamp(), line.getPriority(), line.getTag(), line.getMessage()))
+                        .collect(Collectors.toList());
+                }
+
                 analysisData.tombstone = tombstoneData;
             }
 
+            if (anrTrace != null) {
+                analysisData.anr = AnrData.of(anrTrace);
+            }
+
             // 添加代码位置信息
             if (topCodeLocation != null) {
                 analysisData.codeLocation = new CodeLocationData(
@@ -871,7 +1206,7 @@ public class AIFileAnalysisService {
             String jsonData = objectMapper.writeValueAsString(analysisData);
 
             String prompt = String.format("""
-                你是一个Android系统崩溃分析专家。请分析以下JSON格式的崩溃数据，并提供专业的原因分析和解决方案。
+                你是一个Android系统崩溃分析专家。请分析以下JSON格式的崩溃或ANR数据，并提供专业的原因分析和解决方案。
 
                 崩溃数据：
                 %s
@@ -910,9 +1245,73 @@ public class AIFileAnalysisService {
         public String userQuestion;
         public CrashInfoData crashInfo;
         public TombstoneData tombstone;
+        public AnrData anr;
         public CodeLocationData codeLocation;
     }
 
+    static class AnrData {
+        /**
+         * 发给 AI 的线程数上限，只取主线程、死锁线程与主线程等待的锁的持有者
+         */
+        private static final int MAX_THREADS = 10;
+        private static final int MAX_FRAMES = 10;
+        private static final int MAIN_THREAD_TID = 1;
+
+        public Integer pid;
+        public String processName;
+        public String subject;
+        public String timestamp;
+        public List<List<Integer>> deadlocks;
+        public List<AnrThreadData> threads = new ArrayList<>();
+
+        static AnrData of(AnrTrace anrTrace) {
+            AnrData data = new AnrData();
+            data.pid = anrTrace.getPid();
+            data.processName = anrTrace.getProcessName();
+            data.subject = anrTrace.getSubject();
+            data.timestamp = anrTrace.getTimestamp();
+            data.deadlocks = anrTrace.getDeadlocks();
+
+            Set<Integer> relevantTids = new LinkedHashSet<>();
+            relevantTids.add(MAIN_THREAD_TID);
+            anrTrace.getDeadlocks().forEach(relevantTids::addAll);
+            for (AnrTrace.JavaThread thread : anrTrace.getThreads()) {
+                if (Integer.valueOf(MAIN_THREAD_TID).equals(thread.getTid()) && thread.getWaitingToLockOwnerTid() != null) {
+                    relevantTids.add(thread.getWaitingToLockOwnerTid());
+                }
+            }
+            for (AnrTrace.JavaThread thread : anrTrace.getThreads()) {
+                if (data.threads.size() >= MAX_THREADS) {
+                    break;
+                }
+                if (thread.getTid() != null && relevantTids.contains(thread.getTid())) {
+                    data.threads.add(new AnrThreadData(thread));
+                }
+            }
+            return data;
+        }
+    }
+
+    static class AnrThreadData {
+        public String name;
+        public Integer tid;
+        public String state;
+        public String waitingToLock;
+        public Integer waitingToLockOwnerTid;
+        public List<String> heldMonitors;
+        public List<String> stackFrames;
+
+        AnrThreadData(AnrTrace.JavaThread thread) {
+            this.name = thread.getName();
+            this.tid = thread.getTid();
+            this.state = thread.getState();
+            this.waitingToLock = thread.getWaitingToLock();
+            this.waitingToLockOwnerTid = thread.getWaitingToLockOwnerTid();
+            this.heldMonitors = thread.getHeldMonitors();
+            this.stackFrames = thread.getStackFrames().stream().limit(AnrData.MAX_FRAMES).toList();
+        }
+    }
+
     static class CodeLocationData {
         public String sourceFile;
         public int lineNumber;
@@ -959,6 +1358,7 @@ public class AIFileAnalysisService {
         public String processName;
         public SignalData signal;
         public List<StackFrameData> stackFrames;
+        public List<String> crashThreadLog;
     }
 
     static class SignalData {
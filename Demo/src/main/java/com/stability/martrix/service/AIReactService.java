@@ -8,13 +8,22 @@ import com.stability.martrix.dto.CodeLocation;
 import com.stability.martrix.dto.PatternMatchResult;
 import com.stability.martrix.dto.SessionContext;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.util.MappedTextFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 基于ReAct模式的多轮对话服务
@@ -25,23 +34,43 @@ public class AIReactService {
     private static final Logger logger = LoggerFactory.getLogger(AIReactService.class);
     private static final int MAX_STEPS = 4;
     private static final int MAX_HISTORY_MESSAGES = 8;
+    private static final int DEFAULT_READ_LINES = 40;
+    private static final int MAX_READ_LINES = 200;
+    private static final int MAX_LINE_LENGTH = 400;
+    private static final int MAX_MAPPED_FILES = 8;
 
     private final ChatClient chatClient;
     private final ObjectMapper objectMapper;
     private final SessionService sessionService;
     private final PatternMatchService patternMatchService;
     private final BinaryCodeResolver binaryCodeResolver;
+    private final FileProbe fileProbe;
+    private final SessionFileStorageService sessionFileStorageService;
+    /**
+     * 最近读取过的会话文件，行索引只在第一次读取时建立；会话文件夹删除时移除其中文件的映射
+     */
+    private final Map<Path, MappedEntry> mappedFiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, MappedEntry> eldest) {
+            return size() > MAX_MAPPED_FILES;
+        }
+    };
 
     public AIReactService(ChatClient.Builder chatClientBuilder,
                           SessionService sessionService,
                           PatternMatchService patternMatchService,
                           BinaryCodeResolver binaryCodeResolver,
-                          ObjectMapper objectMapper) {
+                          ObjectMapper objectMapper,
+                          FileProbe fileProbe,
+                          SessionFileStorageService sessionFileStorageService) {
         this.chatClient = chatClientBuilder.build();
         this.sessionService = sessionService;
         this.patternMatchService = patternMatchService;
         this.binaryCodeResolver = binaryCodeResolver;
         this.objectMapper = objectMapper;
+        this.fileProbe = fileProbe;
+        this.sessionFileStorageService = sessionFileStorageService;
+        sessionFileStorageService.onSessionFolderDeleted(this::evictMappings);
     }
 
     public AIReactResponse chat(String sessionId, String question) {
@@ -124,6 +153,8 @@ public class AIReactService {
                 2. get_crash_summary: 查看当前崩溃摘要，包括进程、信号、前几帧栈
                 3. analyze_pattern: 执行模式匹配，获取规则侧结论
                 4. resolve_top_frame: 解析栈顶代码位置和代码片段
+                5. read_file_lines: 按行读取会话中的文本文件，输入格式为 "文件名|起始行号或关键字|行数"，
+                   例如 "dumpstate_log.txt|120|40" 或 "bugreport.txt|------ SYSTEM LOG|60"，行数可省略
 
                 约束：
                 - 如果已有足够信息，可以直接输出 final_answer
@@ -196,6 +227,7 @@ public class AIReactService {
             || "get_crash_summary".equals(action)
             || "analyze_pattern".equals(action)
             || "resolve_top_frame".equals(action)
+            || "read_file_lines".equals(action)
             || "final_answer".equals(action);
     }
 
@@ -205,6 +237,7 @@ public class AIReactService {
             case "get_crash_summary" -> buildCrashSummary(sessionContext.getTombstone());
             case "analyze_pattern" -> buildPatternSummary(sessionContext.getTombstone());
             case "resolve_top_frame" -> buildCodeLocationSummary(sessionContext.getTombstone());
+            case "read_file_lines" -> readFileLines(actionInput, sessionContext);
             default -> "未知工具: " + action;
         };
     }
@@ -309,6 +342,162 @@ public class AIReactService {
         ).trim();
     }
 
+    /**
+     * 按行号或关键字读取会话文件的一段内容，文件内存映射后只解码返回的行
+     *
+     * @param actionInput "文件名|起始行号或关键字|行数"，行号从 1 开始
+     */
+    private String readFileLines(String actionInput, SessionContext sessionContext) {
+        String[] parts = safeText(actionInput, "").split("\\|");
+        String fileName = parts[0].trim();
+        SessionContext.SessionFile sessionFile = findSessionFile(sessionContext, fileName);
+        if (sessionFile == null) {
+            return "会话中没有文件: " + fileName;
+        }
+
+        try {
+            MappedTextFile file = mapSessionFile(Paths.get(sessionFile.getFilePath()));
+            if (file == null) {
+                return "文件不是文本格式，无法按行读取: " + fileName;
+            }
+            String locator = parts.length > 1 ? parts[1].trim() : "";
+            int count = parts.length > 2 ? parseCount(parts[2].trim()) : DEFAULT_READ_LINES;
+            int startLine;
+            if (locator.isEmpty()) {
+                startLine = 0;
+            } else if (locator.length() <= 9 && locator.chars().allMatch(Character::isDigit)) {
+                startLine = Math.max(Integer.parseInt(locator) - 1, 0);
+            } else {
+                startLine = file.findLine(locator, 0);
+                if (startLine < 0) {
+                    return "文件 %s 中没有包含 \"%s\" 的行，共 %d 行".formatted(fileName, locator, file.lineCount());
+                }
+            }
+            if (startLine >= file.lineCount()) {
+                return "起始行超出文件范围，文件 %s 共 %d 行".formatted(fileName, file.lineCount());
+            }
+
+            int endLine = Math.min(startLine + count, file.lineCount());
+            StringBuilder sb = new StringBuilder();
+            sb.append("file=").append(fileName)
+                .append(", totalLines=").append(file.lineCount())
+                .append(", lines=").append(startLine + 1).append('-').append(endLine).append('\n');
+            List<CharSequence> lines = file.lines(startLine, endLine);
+            for (int i = 0; i < lines.size(); i++) {
+                CharSequence line = lines.get(i);
+                sb.append(startLine + i + 1).append(": ");
+                if (line.length() > MAX_LINE_LENGTH) {
+                    sb.append(line, 0, MAX_LINE_LENGTH).append("...");
+                } else {
+                    sb.append(line);
+                }
+                sb.append('\n');
+            }
+            return sb.toString().trim();
+        } catch (IOException e) {
+            logger.warn("读取会话文件失败: file={}, error={}", fileName, e.getMessage());
+            return "读取文件失败: " + fileName;
+        }
+    }
+
+    private SessionContext.SessionFile findSessionFile(SessionContext sessionContext, String fileName) {
+        if (sessionContext.getFiles() == null || fileName.isEmpty()) {
+            return null;
+        }
+        return sessionContext.getFiles().stream()
+            .filter(file -> fileName.equals(file.getFileName()))
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * 映射会话文件，文件大小、修改时间或文件标识变化后重新映射；编码取文件头探测的第一个候选编码。
+     * 压缩存储的文件映射解压出的明文 blob；解压到临时文件时，映射建立后即删除临时文件，映射在被回收前保持有效
+     *
+     * @return 映射后的文件，不是文本时返回 null
+     */
+    private MappedTextFile mapSessionFile(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        FileVersion version = FileVersion.of(key);
+        synchronized (mappedFiles) {
+            MappedEntry cached = mappedFiles.get(key);
+            if (cached != null && cached.version().equals(version)) {
+                return cached.file();
+            }
+        }
+        SessionFileStorageService.MaterializedFile plain = sessionFileStorageService.materialize(key);
+        MappedTextFile file;
+        try {
+            FileProbe.ProbeResult probe = fileProbe.probe(plain.path());
+            if (!probe.likelyText() || probe.isArchive()) {
+                return null;
+            }
+            file = MappedTextFile.open(plain.path(), probe.charsets().getFirst());
+        } finally {
+            if (plain.temporary()) {
+                fileProbe.forget(plain.path());
+                deleteTemporaryFile(plain.path());
+            }
+        }
+        synchronized (mappedFiles) {
+            mappedFiles.put(key, new MappedEntry(version, file));
+        }
+        return file;
+    }
+
+    /**
+     * 移除会话文件夹下文件的映射，映射随之被回收
+     */
+    private void evictMappings(Path sessionFolder) {
+        Path folder = sessionFolder.toAbsolutePath().normalize();
+        synchronized (mappedFiles) {
+            mappedFiles.keySet().removeIf(path -> path.startsWith(folder));
+        }
+    }
+
+    /**
+     * @return 文件当前是否有缓存的映射
+     */
+    boolean isMapped(Path path) {
+        synchronized (mappedFiles) {
+            return mappedFiles.containsKey(path.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * 会话文件的映射，以及建立映射时文件的版本
+     */
+    private record MappedEntry(FileVersion version, MappedTextFile file) {
+    }
+
+    /**
+     * 文件版本，同样大小的改写或替换为另一个文件后至少修改时间或文件标识不同
+     */
+    private record FileVersion(long size, FileTime lastModified, Object fileKey) {
+
+        static FileVersion of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileVersion(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey());
+        }
+    }
+
+    private void deleteTemporaryFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 部分平台不允许删除仍被映射的文件，退出时再删除
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private int parseCount(String text) {
+        try {
+            return Math.min(Math.max(Integer.parseInt(text), 1), MAX_READ_LINES);
+        } catch (NumberFormatException e) {
+            return DEFAULT_READ_LINES;
+        }
+    }
+
     private String buildHistory(SessionContext sessionContext) {
         if (sessionContext.getChatMessages() == null || sessionContext.getChatMessages().isEmpty()) {
             return "暂无历史消息";
@@ -1,29 +1,62 @@
 package com.stability.martrix.service;
 
+import com.stability.martrix.config.ArchiveExtractionConfig;
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.ArchiveStreams;
+import com.stability.martrix.service.archive.ArchiveView;
+import com.stability.martrix.service.archive.BudgetedInputStream;
+import com.stability.martrix.service.archive.EntryPrefilter;
+import com.stability.martrix.service.archive.ExtractionBudget;
+import com.stability.martrix.service.archive.LibraryReferences;
+import com.stability.martrix.service.archive.ReadGuard;
+import com.stability.martrix.util.FileTypeDetector;
+import com.stability.martrix.util.TeeInputStream;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * 归档文件解压服务
- * 支持 ZIP、TAR.GZ、TAR 格式
+ * 支持 ZIP、TAR.GZ、TAR.ZST、TAR.XZ、TAR 格式，以及单个文件的 zstd、xz 压缩
+ *
+ * 所有会话的解压共用一个有界线程池：每个归档是一个作业，可并发读取的 ZIP 中的大条目各自作为任务，
+ * 其余条目在同一个任务中依次解压。按需解压时嵌套归档不落盘，直接在外层条目的解压流上逐层读取，
+ * 深度受限；解压出的文件可在写盘的同时交给调用方解析，不必等整棵归档树解压完。解压读出的字节数与写出的文件数同时受会话预算与全局预算限制，
+ * 并按压缩比检测压缩炸弹；字节在解压流上计入，探测、跳过的条目与嵌套归档的各层同样计入，不只计写盘的字节。
+ * 超限时立即中止该归档，删除已写出的文件，单个恶意或超大上传不会占满节点的 CPU 与磁盘 I/O。
+ *
+ * 每个条目先按路径与声明的大小预筛选（{@link EntryPrefilter}），被排除的条目不读取任何字节；
+ * 共享库只在解析出回溯后按引用解压（{@link #extractLibraries}）
  */
 @Service
 public class ArchiveExtractionService {
 
     private static final Logger logger = LoggerFactory.getLogger(ArchiveExtractionService.class);
-    private static final int TAR_MAGIC_OFFSET = 257;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
     /**
      * 归档文件类型
@@ -31,7 +64,17 @@ public class ArchiveExtractionService {
     public enum ArchiveType {
         ZIP("zip"),
         TAR_GZ("tar.gz"),
+        TAR_ZST("tar.zst"),
+        TAR_XZ("tar.xz"),
         TAR("tar"),
+        /**
+         * zstd 压缩的单个文件，作为只有一个条目的归档处理
+         */
+        ZST("zst"),
+        /**
+         * xz 压缩的单个文件，作为只有一个条目的归档处理
+         */
+        XZ("xz"),
         UNKNOWN("unknown");
 
         private final String extension;
@@ -43,252 +86,820 @@ public class ArchiveExtractionService {
         public String getExtension() {
             return extension;
         }
+
+        /**
+         * @return 是否为整体压缩的 TAR，条目只能在解压流上顺序读取
+         */
+        public boolean isCompressedTar() {
+            return this == TAR_GZ || this == TAR_ZST || this == TAR_XZ;
+        }
+
+        /**
+         * @return 是否为压缩的单个文件
+         */
+        public boolean isCompressedFile() {
+            return this == ZST || this == XZ;
+        }
+    }
+
+    private final FileProbe fileProbe;
+    private final ArchiveExtractionProperties properties;
+    private final EntryPrefilter prefilter;
+    private final ExtractionBudget globalBudget;
+    private final ExecutorService executor;
+
+    public ArchiveExtractionService(FileProbe fileProbe) {
+        this(fileProbe, new ArchiveExtractionProperties());
+    }
+
+    public ArchiveExtractionService(FileProbe fileProbe, ArchiveExtractionProperties properties) {
+        this(fileProbe, properties,
+            ExtractionBudget.global(properties.getMaxGlobalBytes(), properties.getMaxGlobalFiles()));
+    }
+
+    /**
+     * @param globalBudget 与 bugreport 解析共用的全局预算
+     */
+    @Autowired
+    public ArchiveExtractionService(FileProbe fileProbe, ArchiveExtractionProperties properties,
+                                    ExtractionBudget globalBudget) {
+        this.fileProbe = fileProbe;
+        this.properties = properties;
+        this.prefilter = EntryPrefilter.from(properties);
+        this.globalBudget = globalBudget;
+        this.executor = ArchiveExtractionConfig.newDaemonPool(properties.getThreads(), "archive-extract-");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
     /**
-     * 检测归档类型
+     * 按扩展名检测归档类型，不读取文件；按内容检测使用 {@link FileProbe}
      *
      * @param fileName 文件名
      * @return 归档类型
      */
-    public static ArchiveType detectArchiveType(String fileName) {
+    public static ArchiveType detectArchiveTypeByName(String fileName) {
         if (fileName == null) {
             return ArchiveType.UNKNOWN;
         }
 
         String lower = fileName.toLowerCase();
-
-        // 检查扩展名
         if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
             return ArchiveType.TAR_GZ;
+        } else if (lower.endsWith(".tar.zst") || lower.endsWith(".tzst")) {
+            return ArchiveType.TAR_ZST;
+        } else if (lower.endsWith(".tar.xz") || lower.endsWith(".txz")) {
+            return ArchiveType.TAR_XZ;
+        } else if (lower.endsWith(".zst")) {
+            return ArchiveType.ZST;
+        } else if (lower.endsWith(".xz")) {
+            return ArchiveType.XZ;
         } else if (lower.endsWith(".tar")) {
             return ArchiveType.TAR;
         } else if (lower.endsWith(".zip")) {
             return ArchiveType.ZIP;
         }
+        return ArchiveType.UNKNOWN;
+    }
 
-        // 通过魔数检测
-        Path path = Paths.get(fileName);
-        if (Files.exists(path)) {
-            return detectArchiveTypeByMagicNumber(path);
+    /**
+     * 解压归档文件到指定目录
+     *
+     * @param archiveFilePath 归档文件路径
+     * @param targetDir 目标目录
+     * @return 解压后的文件列表
+     */
+    public List<String> extractArchive(String archiveFilePath, String targetDir) {
+        ExtractionBudget sessionBudget = newSessionBudget();
+        try {
+            return paths(scheduleFullExtraction(Paths.get(archiveFilePath), Paths.get(targetDir), sessionBudget).await());
+        } catch (IOException e) {
+            logger.error("解压归档失败: {}, error={}", archiveFilePath, e.getMessage());
+            throw new RuntimeException("Failed to extract archive: " + e.getMessage(), e);
+        } finally {
+            sessionBudget.release();
         }
-
-        return ArchiveType.UNKNOWN;
     }
 
     /**
-     * 通过魔数检测归档类型
+     * 打开归档的只读视图，不解压即可列出与探测条目；条目流读出的字节计入一个会话预算，关闭视图时归还
+     *
+     * @param archivePath 归档文件路径
+     * @return 归档视图，由调用方负责关闭
+     * @throws IOException 打开失败，或不是可随机访问的归档格式
      */
-    private static ArchiveType detectArchiveTypeByMagicNumber(Path path) {
-        try (InputStream is = Files.newInputStream(path)) {
-            byte[] header = is.readNBytes(512);
-            int read = header.length;
-            if (read >= 2) {
-                // ZIP: PK
-                if (header[0] == 0x50 && header[1] == 0x4B) {
-                    return ArchiveType.ZIP;
-                }
+    public ArchiveView openView(Path archivePath) throws IOException {
+        ExtractionBudget viewBudget = newSessionBudget();
+        ReadGuard readGuard = new ReadGuard() {
+            @Override
+            public InputStream guard(InputStream inputStream, long compressedSize) {
+                return new BudgetedInputStream(inputStream, viewBudget);
             }
-            if (read > TAR_MAGIC_OFFSET + 4) {
-                // TAR: 偏移257处的 "ustar"
-                if (header[TAR_MAGIC_OFFSET] == 0x75
-                    && header[TAR_MAGIC_OFFSET + 1] == 0x73
-                    && header[TAR_MAGIC_OFFSET + 2] == 0x74
-                    && header[TAR_MAGIC_OFFSET + 3] == 0x61
-                    && header[TAR_MAGIC_OFFSET + 4] == 0x72) {
-                    return ArchiveType.TAR;
-                }
+
+            @Override
+            public void release() {
+                viewBudget.release();
             }
-        } catch (IOException e) {
-            logger.warn("检测归档类型失败: {}", e.getMessage());
+        };
+        try {
+            return ArchiveView.open(archivePath, fileProbe.probe(archivePath).archiveType(), fileProbe, readGuard);
+        } catch (IOException | RuntimeException e) {
+            readGuard.release();
+            throw e;
         }
-        return ArchiveType.UNKNOWN;
     }
 
     /**
-     * 解压归档文件到指定目录
+     * 按需解压：逐个条目按开头的字节探测类型，只解压 filter 接受的条目，其余条目不解压也不写盘；
+     * 嵌套归档在深度限制内逐层流式读取，内层文件解压到以归档条目路径命名的目录下，嵌套归档本身不写盘。
+     * 解压出的文件直接记录探测结果，后续阶段按路径探测时不再读取文件头
      *
      * @param archiveFilePath 归档文件路径
      * @param targetDir 目标目录
+     * @param filter 按条目探测结果决定是否解压
      * @return 解压后的文件列表
      */
-    public List<String> extractArchive(String archiveFilePath, String targetDir) {
-        Path archivePath = Paths.get(archiveFilePath);
-        ArchiveType archiveType = detectArchiveTypeByMagicNumber(archivePath);
-
-        // 如果魔数检测失败，尝试通过文件名判断
-        if (archiveType == ArchiveType.UNKNOWN) {
-            archiveType = detectArchiveType(archiveFilePath);
+    public List<String> extractMatching(String archiveFilePath, String targetDir,
+                                        Predicate<FileProbe.ProbeResult> filter) {
+        ExtractionBudget sessionBudget = newSessionBudget();
+        try {
+            return paths(scheduleMatchingExtraction(Paths.get(archiveFilePath), Paths.get(targetDir),
+                new Selection(filter, LibraryReferences.NONE, false), null, sessionBudget).await());
+        } catch (IOException e) {
+            logger.error("按需解压归档失败: {}, error={}", archiveFilePath, e.getMessage());
+            throw new RuntimeException("Failed to extract archive: " + e.getMessage(), e);
+        } finally {
+            sessionBudget.release();
         }
+    }
 
-        logger.info("开始解压归档: {}, 类型: {}, 目标: {}", archiveFilePath, archiveType, targetDir);
+    /**
+     * 批量解压归档文件，各归档在解压线程池中并发解压，共用一个会话预算
+     *
+     * @param archiveFilePaths 归档文件路径列表
+     * @param targetDir 目标目录
+     * @return 所有解压后的文件路径列表
+     */
+    public List<String> extractArchives(List<String> archiveFilePaths, String targetDir) {
+        return paths(runJobs(archiveFilePaths,
+            (archivePath, budget) -> scheduleFullExtraction(archivePath, Paths.get(targetDir), budget)));
+    }
 
-        switch (archiveType) {
-            case ZIP:
-                return extractZip(archivePath, Paths.get(targetDir));
-            case TAR_GZ:
-                return extractTarGz(archivePath, Paths.get(targetDir));
-            case TAR:
-                return extractTar(archivePath, Paths.get(targetDir));
-            default:
-                return new ArrayList<>();
-        }
+    /**
+     * 批量按需解压归档文件，各归档在解压线程池中并发解压，共用一个会话预算
+     *
+     * @param archiveFilePaths 归档文件路径列表
+     * @param targetDir 目标目录
+     * @param filter 按条目探测结果决定是否解压
+     * @return 所有解压后的文件路径列表，按归档顺序排列；超限或失败的归档跳过
+     */
+    public List<String> extractArchives(List<String> archiveFilePaths, String targetDir,
+                                        Predicate<FileProbe.ProbeResult> filter) {
+        return paths(extractArchives(archiveFilePaths, targetDir, filter, null));
+    }
+
+    /**
+     * 批量按需解压归档文件，每个解压出的文件在写盘的同时交给 consumer 处理
+     *
+     * consumer 在解压线程中执行，文件一解压出来就开始处理，不等其他条目或其他归档；
+     * consumer 读到的每个字节同时写入目标文件，consumer 返回后剩余字节继续写盘。consumer 失败不影响解压，对应结果为 null
+     *
+     * @param archiveFilePaths 归档文件路径列表
+     * @param targetDir 目标目录
+     * @param filter 按条目探测结果决定是否解压
+     * @param consumer 与写盘同时消费条目内容的处理逻辑，为 null 时只解压；需要线程安全
+     * @return 所有解压后的文件及 consumer 的结果，按归档顺序排列；超限或失败的归档跳过
+     */
+    public <T> List<SessionFileStorageService.StoredFile<T>> extractArchives(
+            List<String> archiveFilePaths, String targetDir, Predicate<FileProbe.ProbeResult> filter,
+            SessionFileStorageService.UploadConsumer<T> consumer) {
+        return runJobs(archiveFilePaths,
+            (archivePath, budget) -> scheduleMatchingExtraction(archivePath, Paths.get(targetDir),
+                new Selection(filter, LibraryReferences.NONE, false), consumer, budget));
     }
 
     /**
-     * 解压ZIP文件
+     * 只解压被回溯引用的共享库，在按需解压并解析出墓碑之后调用；其余条目都已在第一轮处理过，不再解压
+     *
+     * @param archiveFilePaths 归档文件路径列表
+     * @param targetDir 目标目录
+     * @param libraries 回溯中引用的共享库
+     * @return 解压出的共享库路径列表；没有引用任何共享库时不打开归档，返回空列表
      */
-    private List<String> extractZip(Path zipPath, Path targetDir) {
-        List<String> extractedFiles = new ArrayList<>();
+    public List<String> extractLibraries(List<String> archiveFilePaths, String targetDir, LibraryReferences libraries) {
+        if (libraries == null || libraries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> libraryFiles = paths(runJobs(archiveFilePaths,
+            (archivePath, budget) -> scheduleMatchingExtraction(archivePath, Paths.get(targetDir),
+                new Selection(probe -> false, libraries, true), null, budget)));
+        logger.info("按回溯引用解压共享库: 引用 {} 个文件名、{} 个 BuildId，解压 {} 个",
+            libraries.fileNames().size(), libraries.buildIds().size(), libraryFiles.size());
+        return libraryFiles;
+    }
 
-        // 规范化目标目录路径用于安全检查
-        Path normalizedTargetDir = targetDir.toAbsolutePath().normalize();
-
-        try (java.util.zip.ZipInputStream zis = new java.util.zip.ZipInputStream(
-                new BufferedInputStream(Files.newInputStream(zipPath)))) {
-            java.util.zip.ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (!entry.isDirectory()) {
-                    String entryName = entry.getName();
-                    Path filePath = targetDir.resolve(entryName).normalize();
-
-                    // 安全检查：防止ZIP滑洞攻击
-                    if (!filePath.startsWith(normalizedTargetDir)) {
-                        logger.warn("跳过可疑的ZIP条目（路径遍历攻击）: {}", entryName);
-                        continue;
-                    }
+    /**
+     * 一次按需解压的条目选择
+     *
+     * @param filter 按探测结果选择普通条目
+     * @param libraries 按引用选择共享库，为 {@link LibraryReferences#NONE} 时共享库都不解压
+     * @param librariesOnly 只解压共享库，普通条目一律跳过，嵌套归档仍逐层读取
+     */
+    private record Selection(Predicate<FileProbe.ProbeResult> filter, LibraryReferences libraries,
+                             boolean librariesOnly) {
+    }
 
-                    // 确保父目录存在
-                    if (filePath.getParent() != null) {
-                        Files.createDirectories(filePath.getParent());
-                    }
+    /**
+     * 安排全部归档的作业后依次等待，各归档共用一个会话预算
+     */
+    private <T> List<SessionFileStorageService.StoredFile<T>> runJobs(List<String> archiveFilePaths,
+                                                                       JobScheduler<T> scheduler) {
+        if (archiveFilePaths == null || archiveFilePaths.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-                    Files.copy(zis, filePath, StandardCopyOption.REPLACE_EXISTING);
-                    extractedFiles.add(filePath.toString());
-                    logger.debug("解压文件: {}", filePath);
+        List<SessionFileStorageService.StoredFile<T>> allFiles = new ArrayList<>();
+        ExtractionBudget sessionBudget = newSessionBudget();
+        try {
+            List<String> scheduledPaths = new ArrayList<>();
+            List<ArchiveJob<T>> jobs = new ArrayList<>();
+            for (String archivePath : archiveFilePaths) {
+                try {
+                    jobs.add(scheduler.schedule(Paths.get(archivePath), sessionBudget));
+                    scheduledPaths.add(archivePath);
+                } catch (Exception e) {
+                    logger.warn("解压归档失败，跳过: {}, error={}", archivePath, e.getMessage());
+                }
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                try {
+                    allFiles.addAll(jobs.get(i).await());
+                } catch (Exception e) {
+                    logger.warn("解压归档失败，跳过: {}, error={}", scheduledPaths.get(i), e.getMessage());
                 }
             }
-            logger.info("ZIP解压完成: {}, 文件数: {}", zipPath, extractedFiles.size());
+        } finally {
+            logger.info("会话解压结束: 读出 {} 字节，写出 {} 个文件", sessionBudget.getBytes(), sessionBudget.getFiles());
+            sessionBudget.release();
+        }
+
+        return allFiles;
+    }
+
+    /**
+     * 为一个归档安排解压作业
+     */
+    @FunctionalInterface
+    private interface JobScheduler<T> {
+        ArchiveJob<T> schedule(Path archivePath, ExtractionBudget budget) throws IOException;
+    }
+
+    private static List<String> paths(List<? extends SessionFileStorageService.StoredFile<?>> storedFiles) {
+        return storedFiles.stream().map(SessionFileStorageService.StoredFile::path).toList();
+    }
+
+    private static <T> List<SessionFileStorageService.StoredFile<T>> withoutResults(List<String> paths) {
+        return paths.stream().map(path -> new SessionFileStorageService.StoredFile<T>(path, null)).toList();
+    }
+
+    private ExtractionBudget newSessionBudget() {
+        return globalBudget.child(properties.getMaxSessionBytes(), properties.getMaxSessionFiles());
+    }
+
+    /**
+     * 安排完整解压：整个归档顺序读取，作为一个任务
+     */
+    private <T> ArchiveJob<T> scheduleFullExtraction(Path archivePath, Path targetDir, ExtractionBudget budget)
+            throws IOException {
+        ArchiveType archiveType;
+        try {
+            // 魔数优先，魔数无法判定时按文件名判断；上传阶段已探测过的文件直接复用结果
+            archiveType = fileProbe.probe(archivePath).archiveType();
         } catch (IOException e) {
-            logger.error("解压ZIP失败: {}, error={}", zipPath, e.getMessage());
-            throw new RuntimeException("Failed to extract ZIP file: " + e.getMessage(), e);
+            logger.warn("检测归档类型失败: {}", e.getMessage());
+            archiveType = detectArchiveTypeByName(archivePath.getFileName().toString());
         }
 
-        return extractedFiles;
+        logger.info("开始解压归档: {}, 类型: {}, 目标: {}", archivePath, archiveType, targetDir);
+
+        ArchiveJob<T> job = new ArchiveJob<>(archivePath, archiveType, targetDir, budget);
+        if (archiveType != ArchiveType.UNKNOWN) {
+            job.submit(() -> withoutResults(extractFully(job)));
+        }
+        return job;
     }
 
     /**
-     * 解压TAR.GZ文件
+     * 安排按需解压：在调用线程中列出并预筛选条目，可并发读取的归档中大条目各自作为任务，其余条目合为一个任务；
+     * 整体压缩的归档不能随机访问，顺序读取一遍，作为一个任务
      */
-    private List<String> extractTarGz(Path tarGzPath, Path targetDir) {
-        // 先解压GZ，再解压TAR
-        Path tempTarFile = targetDir.resolve("~temp.tar");
+    private <T> ArchiveJob<T> scheduleMatchingExtraction(Path archivePath, Path targetDir, Selection selection,
+                                                         SessionFileStorageService.UploadConsumer<T> consumer,
+                                                         ExtractionBudget budget) throws IOException {
+        ArchiveType archiveType = fileProbe.probe(archivePath).archiveType();
+        if (!ArchiveView.supportsRandomAccess(archiveType)) {
+            ArchiveJob<T> job = new ArchiveJob<>(archivePath, archiveType, targetDir, budget);
+            job.submit(() -> extractEntriesInOnePass(job, selection, consumer));
+            return job;
+        }
 
+        ArchiveJob<T> job = new ArchiveJob<>(archivePath, archiveType, targetDir, budget);
+        ArchiveView view = job.openView();
+        if (!view.supportsConcurrentReads()) {
+            // 条目只能顺序读取，探测与解压都放在一个任务中，不占用调用线程
+            job.submit(() -> extractEntries(job, view.entries(), selection, consumer));
+            return job;
+        }
+
+        List<ArchiveView.Entry> smallEntries = new ArrayList<>();
+        List<ArchiveView.Entry> entries = view.entries();
+        int selected = 0;
         try {
-            decompressGzip(tarGzPath, tempTarFile);
-            List<String> extractedFiles = extractTar(tempTarFile, targetDir);
-            return extractedFiles;
-        } finally {
-            // 删除临时TAR文件
-            try {
-                Files.deleteIfExists(tempTarFile);
-            } catch (IOException e) {
-                logger.warn("删除临时TAR文件失败: {}", e.getMessage());
+            for (ArchiveView.Entry entry : entries) {
+                if (!selects(job, entry, selection)) {
+                    continue;
+                }
+                selected++;
+                if (entry.size() >= properties.getLargeEntryBytes()) {
+                    job.submit(() -> extractEntries(job, List.of(entry), selection, consumer));
+                } else {
+                    smallEntries.add(entry);
+                }
             }
+        } catch (IOException | RuntimeException e) {
+            job.abort();
+            job.awaitQuietly();
+            throw e;
         }
+        if (!smallEntries.isEmpty()) {
+            job.submit(() -> extractEntries(job, smallEntries, selection, consumer));
+        }
+        logger.info("开始按需解压: {}, 条目数: {}, 需解压: {}", archivePath, entries.size(), selected);
+        return job;
     }
 
     /**
-     * 解压TAR文件
+     * 依次解压视图中的条目
      */
-    private List<String> extractTar(Path tarPath, Path targetDir) {
-        List<String> extractedFiles = new ArrayList<>();
+    private <T> List<SessionFileStorageService.StoredFile<T>> extractEntries(
+            ArchiveJob<T> job, List<ArchiveView.Entry> entries, Selection selection,
+            SessionFileStorageService.UploadConsumer<T> consumer) throws IOException {
+        List<SessionFileStorageService.StoredFile<T>> extractedFiles = new ArrayList<>();
+        for (ArchiveView.Entry entry : entries) {
+            if (!selects(job, entry, selection)) {
+                continue;
+            }
 
-        // 规范化目标目录路径用于安全检查
-        Path normalizedTargetDir = targetDir.toAbsolutePath().normalize();
+            try (InputStream entryStream = job.view.open(entry)) {
+                extractEntry(job, entry.name(), entry.size(), entryStream, 0, selection, consumer, extractedFiles);
+            }
+        }
+        return extractedFiles;
+    }
+
+    /**
+     * 顺序读取整个归档一遍，每个条目读到时按开头的字节探测，需要的条目就地解压，其余条目直接跳过
+     */
+    private <T> List<SessionFileStorageService.StoredFile<T>> extractEntriesInOnePass(
+            ArchiveJob<T> job, Selection selection, SessionFileStorageService.UploadConsumer<T> consumer)
+            throws IOException {
+        List<SessionFileStorageService.StoredFile<T>> extractedFiles = new ArrayList<>();
+        try (InputStream archiveStream = new BufferedInputStream(Files.newInputStream(job.archivePath),
+                STREAM_BUFFER_SIZE)) {
+            ArchiveStreams.forEachEntry(archiveStream, job.archiveType, job.archivePath.getFileName().toString(),
+                job::guard, (entryName, size, entryStream) -> extractEntry(job, entryName, size, entryStream, 0, selection,
+                    consumer, extractedFiles));
+        }
+        return extractedFiles;
+    }
 
-        try (org.apache.commons.compress.archivers.tar.TarArchiveInputStream tarInput =
-                new org.apache.commons.compress.archivers.tar.TarArchiveInputStream(
-                        new BufferedInputStream(Files.newInputStream(tarPath)))) {
+    /**
+     * 打开条目之前的筛选：先按元数据预筛选；普通条目再读取条目开头探测后筛选，共享库要读到文件头才能比对 BuildId
+     */
+    private boolean selects(ArchiveJob<?> job, ArchiveView.Entry entry, Selection selection) throws IOException {
+        if (job.resolve(entry.name()) == null) {
+            return false;
+        }
+        EntryPrefilter.Decision decision = preselect(entry.name(), entry.size(), selection);
+        if (decision == EntryPrefilter.Decision.SKIP) {
+            logger.debug("预筛选跳过条目: {}, 大小: {}", entry.name(), entry.size());
+            return false;
+        }
+        if (decision == EntryPrefilter.Decision.LIBRARY) {
+            return true;
+        }
+        FileProbe.ProbeResult probe = job.view.probe(entry);
+        if (!accepts(probe, 0, selection)) {
+            logger.debug("跳过无需分析的条目: {}, 类型: {}", entry.name(), probe.typeName());
+            return false;
+        }
+        return true;
+    }
 
-            org.apache.commons.compress.archivers.tar.TarArchiveEntry entry;
-            while ((entry = tarInput.getNextTarEntry()) != null) {
-                if (entry.isFile()) {
-                    String entryName = entry.getName();
-                    Path filePath = targetDir.resolve(entryName).normalize();
+    /**
+     * 按条目路径与声明的大小预筛选，不读取条目内容
+     *
+     * @return SKIP 表示不读取条目；LIBRARY 表示可能被引用的共享库，读到文件头后再确认
+     */
+    private EntryPrefilter.Decision preselect(String entryName, long size, Selection selection) {
+        EntryPrefilter.Decision decision = prefilter.evaluate(entryName, size);
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return switch (decision) {
+            case SKIP -> EntryPrefilter.Decision.SKIP;
+            case LIBRARY -> selection.libraries().mayReference(fileName)
+                ? EntryPrefilter.Decision.LIBRARY
+                : EntryPrefilter.Decision.SKIP;
+            // 只解压共享库时，普通条目中只有嵌套归档需要读取
+            case EXTRACT -> selection.librariesOnly() && detectArchiveTypeByName(fileName) == ArchiveType.UNKNOWN
+                ? EntryPrefilter.Decision.SKIP
+                : EntryPrefilter.Decision.EXTRACT;
+        };
+    }
 
-                    // 安全检查：防止TAR滑洞攻击
-                    if (!filePath.startsWith(normalizedTargetDir)) {
-                        logger.warn("跳过可疑的TAR条目（路径遍历攻击）: {}", entryName);
-                        continue;
-                    }
+    /**
+     * 解压一个条目；条目是嵌套归档且未超过深度限制时，不写盘，直接在条目流上逐个解压内层条目
+     *
+     * @param entryName 条目路径，嵌套条目为各层路径以 / 拼接
+     * @param size 条目声明的解压后大小，未知时为 -1
+     * @param entryStream 条目内容，已经过作业的守卫
+     * @param depth 条目所在的嵌套深度，最外层归档中的条目为 0
+     * @param extractedFiles 解压出的文件，按解压顺序追加
+     */
+    private <T> void extractEntry(ArchiveJob<T> job, String entryName, long size, InputStream entryStream,
+                                  int depth, Selection selection,
+                                  SessionFileStorageService.UploadConsumer<T> consumer,
+                                  List<SessionFileStorageService.StoredFile<T>> extractedFiles) throws IOException {
+        Path filePath = job.resolve(entryName);
+        EntryPrefilter.Decision decision = preselect(entryName, size, selection);
+        if (filePath == null || decision == EntryPrefilter.Decision.SKIP) {
+            return;
+        }
 
-                    // 确保父目录存在
-                    if (filePath.getParent() != null) {
-                        Files.createDirectories(filePath.getParent());
-                    }
+        BufferedInputStream bufferedStream = new BufferedInputStream(entryStream, STREAM_BUFFER_SIZE);
+        bufferedStream.mark(FileTypeDetector.SAMPLE_SIZE);
+        byte[] head = bufferedStream.readNBytes(FileTypeDetector.SAMPLE_SIZE);
+        bufferedStream.reset();
+        String fileName = filePath.getFileName().toString();
+        FileProbe.ProbeResult probe = fileProbe.probe(head, fileName);
 
-                    Files.copy(tarInput, filePath, StandardCopyOption.REPLACE_EXISTING);
-                    extractedFiles.add(filePath.toString());
-                    logger.debug("解压文件: {}", filePath);
-                }
+        if (probe.isArchive() && depth < properties.getMaxNestingDepth()) {
+            logger.debug("流式读取嵌套归档: {}, 类型: {}, 深度: {}", entryName, probe.archiveType(), depth + 1);
+            try {
+                // 内层的解压流同样经过守卫，外层读出的压缩字节与内层解压出的字节分别计入
+                ArchiveStreams.forEachEntry(bufferedStream, probe.archiveType(), fileName, job::guard,
+                    (innerName, innerSize, innerStream) -> extractEntry(job, entryName + "/" + innerName, innerSize,
+                        innerStream, depth + 1, selection, consumer, extractedFiles));
+            } catch (ExtractionLimitException e) {
+                throw e;
+            } catch (IOException e) {
+                job.checkAborted();
+                // 内层归档损坏只跳过这一个嵌套归档，已解压出的内层文件保留
+                logger.warn("读取嵌套归档失败，跳过: {}, error={}", entryName, e.getMessage());
             }
-            logger.info("TAR解压完成: {}, 文件数: {}", tarPath, extractedFiles.size());
-        } catch (IOException e) {
-            logger.error("解压TAR失败: {}, error={}", tarPath, e.getMessage());
-            throw new RuntimeException("Failed to extract TAR file: " + e.getMessage(), e);
+            return;
         }
 
-        return extractedFiles;
+        boolean selected = decision == EntryPrefilter.Decision.LIBRARY
+            ? selection.libraries().references(fileName, head)
+            : !selection.librariesOnly() && selection.filter().test(probe);
+        if (!selected) {
+            logger.debug("跳过无需分析的条目: {}, 类型: {}", entryName, probe.typeName());
+            return;
+        }
+
+        T result = job.copy(bufferedStream, filePath, consumer);
+        fileProbe.remember(filePath, probe);
+        extractedFiles.add(new SessionFileStorageService.StoredFile<>(filePath.toString(), result));
+        logger.debug("解压文件: {}", filePath);
     }
 
     /**
-     * 解压GZIP文件
+     * 条目需要解压：filter 接受，或是未超过深度限制的嵌套归档
      */
-    private Path decompressGzip(Path gzipPath, Path targetPath) {
-        try (java.util.zip.GZIPInputStream gzis = new java.util.zip.GZIPInputStream(
-                new BufferedInputStream(Files.newInputStream(gzipPath)))) {
-
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                byte[] buffer = new byte[4096];
-                int len;
-                while ((len = gzis.read(buffer)) != -1) {
-                    baos.write(buffer, 0, len);
-                }
-                baos.flush();
-                Files.write(targetPath, baos.toByteArray());
-            }
-            logger.info("GZIP解压完成: {} -> {}", gzipPath, targetPath);
-            return targetPath;
-        } catch (IOException e) {
-            logger.error("解压GZIP失败: {}, error={}", gzipPath, e.getMessage());
-            throw new RuntimeException("Failed to decompress GZIP file: " + e.getMessage(), e);
+    private boolean accepts(FileProbe.ProbeResult probe, int depth, Selection selection) {
+        return probe.isArchive() && depth < properties.getMaxNestingDepth()
+            || !selection.librariesOnly() && selection.filter().test(probe);
+    }
+
+    /**
+     * 完整解压时的预筛选：只跳过被排除或超过大小上限的条目；完整解压时还没有回溯，共享库按普通条目解压
+     */
+    private boolean skipsFully(String entryName, long size) {
+        if (prefilter.evaluate(entryName, size) == EntryPrefilter.Decision.SKIP) {
+            logger.debug("预筛选跳过条目: {}, 大小: {}", entryName, size);
+            return true;
         }
+        return false;
     }
 
     /**
-     * 批量解压归档文件
+     * 完整解压：顺序读取整个归档，除预筛选跳过的条目外全部写盘；跳过的条目同样经过守卫读出
+     */
+    private List<String> extractFully(ArchiveJob<?> job) throws IOException {
+        List<String> extractedFiles = new ArrayList<>();
+        // TAR 不解压，ArchiveStreams 不包装，守卫直接套在文件流上
+        try (InputStream archiveStream = job.archiveType == ArchiveType.TAR
+                ? job.guard(new BufferedInputStream(Files.newInputStream(job.archivePath), STREAM_BUFFER_SIZE), -1)
+                : new BufferedInputStream(Files.newInputStream(job.archivePath), STREAM_BUFFER_SIZE)) {
+            ArchiveStreams.forEachEntry(archiveStream, job.archiveType, job.archivePath.getFileName().toString(),
+                job::guard, (entryName, size, entryStream) -> {
+                    Path filePath = job.resolve(entryName);
+                    if (filePath == null || skipsFully(entryName, size)) {
+                        return;
+                    }
+
+                    job.copy(entryStream, filePath, null);
+                    extractedFiles.add(filePath.toString());
+                    logger.debug("解压文件: {}", filePath);
+                });
+        }
+        logger.info("{}解压完成: {}, 文件数: {}", job.archiveType.getExtension(), job.archivePath, extractedFiles.size());
+        return extractedFiles;
+    }
+
+    /**
+     * 一个归档的解压作业
      *
-     * @param archiveFilePaths 归档文件路径列表
-     * @param targetDir 目标目录
-     * @return 所有解压后的文件路径列表
+     * 同一归档的各个任务共用中止标记：任一任务超限或失败后，其余任务在下一次读取前停止，
+     * 作业结束时删除该归档已写出的全部文件（包括写了一半的文件）并关闭视图
+     *
+     * @param <T> 解压出的文件交给 consumer 处理后的结果类型
      */
-    public List<String> extractArchives(List<String> archiveFilePaths, String targetDir) {
-        if (archiveFilePaths == null || archiveFilePaths.isEmpty()) {
-            return new ArrayList<>();
+    private final class ArchiveJob<T> {
+        private final Path archivePath;
+        private final ArchiveType archiveType;
+        private final Path targetDir;
+        private final Path normalizedTargetDir;
+        private final ExtractionBudget budget;
+        /**
+         * 按需解压可随机访问的归档时由 {@link #openView()} 打开的视图，完整解压与顺序读取时为 null
+         */
+        private ArchiveView view;
+        /**
+         * 压缩归档的文件大小，用于按整个归档检查压缩比；TAR 未压缩时为 -1
+         */
+        private final long compressedArchiveSize;
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final AtomicLong archiveBytes = new AtomicLong();
+        private final Queue<Path> writtenFiles = new ConcurrentLinkedQueue<>();
+        private final List<Future<List<SessionFileStorageService.StoredFile<T>>>> futures = new ArrayList<>();
+
+        private ArchiveJob(Path archivePath, ArchiveType archiveType, Path targetDir, ExtractionBudget budget)
+                throws IOException {
+            this.archivePath = archivePath;
+            this.archiveType = archiveType;
+            this.targetDir = targetDir;
+            // 规范化目标目录路径用于安全检查
+            this.normalizedTargetDir = targetDir.toAbsolutePath().normalize();
+            this.budget = budget;
+            this.compressedArchiveSize = archiveType != ArchiveType.TAR && archiveType != ArchiveType.UNKNOWN
+                ? Files.size(archivePath)
+                : -1;
         }
 
-        List<String> allFiles = new ArrayList<>();
+        /**
+         * 打开归档视图，条目流经过作业的守卫；在提交任务之前调用
+         */
+        private ArchiveView openView() throws IOException {
+            view = ArchiveView.open(archivePath, archiveType, fileProbe, this::guard);
+            return view;
+        }
 
-        for (String archivePath : archiveFilePaths) {
+        /**
+         * 包装解压流：读出的字节计入预算，按条目与整个归档检查压缩比
+         *
+         * @param compressedSize 这段解压内容的压缩后大小，未知时为 -1，只按整个归档检查压缩比
+         */
+        private InputStream guard(InputStream inputStream, long compressedSize) {
+            return new GuardedInputStream(inputStream, compressedSize);
+        }
+
+        private void submit(Callable<List<SessionFileStorageService.StoredFile<T>>> task) {
+            futures.add(executor.submit(() -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    abort();
+                    throw e;
+                }
+            }));
+        }
+
+        private void abort() {
+            aborted.set(true);
+        }
+
+        /**
+         * @return 条目在目标目录中的路径，路径遍历的条目返回 null
+         */
+        private Path resolve(String entryName) {
+            Path filePath = targetDir.resolve(entryName).normalize();
+
+            // 安全检查：防止归档滑洞攻击
+            if (!filePath.toAbsolutePath().startsWith(normalizedTargetDir)) {
+                logger.warn("跳过可疑的归档条目（路径遍历攻击）: {}", entryName);
+                return null;
+            }
+            return filePath;
+        }
+
+        /**
+         * 计入一个文件后复制条目；in 已经过守卫，超限时立即抛出异常，不等条目写完
+         *
+         * @param consumer 与写盘同时消费条目内容的处理逻辑，为 null 时只复制
+         * @return consumer 的结果，未处理或处理失败时为 null
+         */
+        private T copy(InputStream in, Path filePath, SessionFileStorageService.UploadConsumer<T> consumer) throws IOException {
+            checkAborted();
+            budget.chargeFile();
+
+            // 确保父目录存在
+            if (filePath.getParent() != null) {
+                Files.createDirectories(filePath.getParent());
+            }
+
+            writtenFiles.add(filePath);
+            // 同名的会话文件可能是去重存储的硬链接，先删除目录项再写入，不能原地截断共享的内容
+            Files.deleteIfExists(filePath);
+            T result = null;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(filePath), STREAM_BUFFER_SIZE)) {
+                if (consumer == null) {
+                    in.transferTo(out);
+                    return null;
+                }
+                TeeInputStream teeInputStream = new TeeInputStream(in, out);
+                try {
+                    result = consumer.consume(filePath.getFileName().toString(), teeInputStream);
+                } catch (Exception e) {
+                    // 超限或中止时 drain 会再次抛出异常
+                    logger.warn("边解压边处理文件失败，仅解压文件: {}, error={}", filePath, e.getMessage());
+                }
+                teeInputStream.drain();
+            }
+            return result;
+        }
+
+        private void checkRatio(long expandedBytes, long compressedSize, Path path) throws ExtractionLimitException {
+            if (compressedSize > 0 && expandedBytes > properties.getRatioCheckThresholdBytes()
+                    && expandedBytes > compressedSize * properties.getMaxCompressionRatio()) {
+                throw new ExtractionLimitException(ExtractionLimitException.LimitType.COMPRESSION_RATIO,
+                    "压缩比超过 %d，疑似压缩炸弹: %s".formatted(properties.getMaxCompressionRatio(), path.getFileName()));
+            }
+        }
+
+        /**
+         * 读出时计入预算并检查压缩比的解压流，包在解压流上，读取探测的文件头、跳过条目时同样计入
+         */
+        private final class GuardedInputStream extends FilterInputStream {
+            private final long compressedSize;
+            private long entryBytes;
+
+            private GuardedInputStream(InputStream in, long compressedSize) {
+                super(in);
+                this.compressedSize = compressedSize;
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                int b = in.read();
+                if (b >= 0) {
+                    charge(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                int count = in.read(b, off, len);
+                if (count > 0) {
+                    charge(count);
+                }
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                checkAborted();
+                long skipped = in.skip(n);
+                if (skipped > 0) {
+                    charge(skipped);
+                }
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public synchronized void mark(int readlimit) {
+            }
+
+            @Override
+            public synchronized void reset() throws IOException {
+                throw new IOException("mark/reset not supported");
+            }
+
+            private void charge(long count) throws IOException {
+                budget.chargeBytes(count);
+                entryBytes += count;
+                checkRatio(entryBytes, compressedSize, archivePath);
+                checkRatio(archiveBytes.addAndGet(count), compressedArchiveSize, archivePath);
+            }
+        }
+
+        private void checkAborted() throws IOException {
+            if (aborted.get()) {
+                throw new IOException("归档解压已中止: " + archivePath.getFileName());
+            }
+        }
+
+        /**
+         * 等待全部任务结束，按提交顺序合并结果；任一任务失败时删除该归档已写出的文件
+         *
+         * @return 解压后的文件列表
+         * @throws IOException 任一任务超限或失败
+         */
+        private List<SessionFileStorageService.StoredFile<T>> await() throws IOException {
+            List<SessionFileStorageService.StoredFile<T>> extractedFiles = new ArrayList<>();
+            Throwable failure = null;
             try {
-                List<String> extractedFiles = extractArchive(archivePath, targetDir);
-                allFiles.addAll(extractedFiles);
-            } catch (Exception e) {
-                logger.warn("解压归档失败，跳过: {}, error={}", archivePath, e.getMessage());
+                for (Future<List<SessionFileStorageService.StoredFile<T>>> future : futures) {
+                    try {
+                        extractedFiles.addAll(future.get());
+                    } catch (ExecutionException e) {
+                        abort();
+                        if (failure == null || e.getCause() instanceof ExtractionLimitException) {
+                            failure = e.getCause();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        abort();
+                        failure = e;
+                        break;
+                    }
+                }
+            } finally {
+                closeView();
             }
+
+            if (failure != null) {
+                deleteWrittenFiles();
+                if (failure instanceof ExtractionLimitException limitException) {
+                    logger.warn("归档解压超出限制，已中止并删除已解压文件: {}, limit={}, error={}",
+                        archivePath, limitException.getLimitType(), limitException.getMessage());
+                    throw limitException;
+                }
+                throw failure instanceof IOException ioException
+                    ? ioException
+                    : new IOException(failure.getMessage(), failure);
+            }
+            return extractedFiles;
         }
 
-        return allFiles;
+        /**
+         * 等待已提交的任务结束，忽略结果，用于中止后清理
+         */
+        private void awaitQuietly() {
+            for (Future<List<SessionFileStorageService.StoredFile<T>>> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ignored) {
+                    // 中止后的任务失败是预期结果
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            closeView();
+            deleteWrittenFiles();
+        }
+
+        private void closeView() {
+            if (view != null) {
+                try {
+                    view.close();
+                } catch (IOException e) {
+                    logger.debug("关闭归档视图失败: {}, error={}", archivePath, e.getMessage());
+                }
+            }
+        }
+
+        private void deleteWrittenFiles() {
+            Path filePath;
+            while ((filePath = writtenFiles.poll()) != null) {
+                try {
+                    Files.deleteIfExists(filePath);
+                } catch (IOException e) {
+                    logger.warn("删除已解压文件失败: {}, error={}", filePath, e.getMessage());
+                }
+            }
+        }
     }
 }
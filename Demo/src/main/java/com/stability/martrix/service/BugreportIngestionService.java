@@ -0,0 +1,266 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.ArchiveExtractionConfig;
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.BudgetedInputStream;
+import com.stability.martrix.service.archive.EntryPrefilter;
+import com.stability.martrix.service.archive.ExtractionBudget;
+import com.stability.martrix.service.parser.AndroidAnrTraceParser;
+import com.stability.martrix.service.parser.FileParserFactory;
+import com.stability.martrix.service.parser.ParseProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Android bugreport 归档解析服务
+ *
+ * 只读取 ZIP 中央目录定位 tombstone 和 ANR traces 条目，
+ * 按条目直接把解压流交给解析器，不把整个 bugreport 解压到会话文件夹；
+ * 各条目在所有请求共用的有界线程池中并发解析，一次上传即可得到其中的全部崩溃。
+ * 读取的解压字节与解压共用会话与全局预算，超出时中止整个 bugreport 的解析
+ */
+@Service
+public class BugreportIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BugreportIngestionService.class);
+
+    /**
+     * bugreport 顶层的入口文件，记录主 bugreport 文本的文件名
+     */
+    private static final String MAIN_ENTRY_NAME = "main_entry.txt";
+    private static final String TOMBSTONE_DIR = "FS/data/tombstones/";
+    private static final String ANR_DIR = "FS/data/anr/";
+
+    /**
+     * 文本 tombstone 文件名，同目录下的 .pb 为 protobuf 格式，不在此处理
+     */
+    private static final Pattern TOMBSTONE_NAME_PATTERN = Pattern.compile("tombstone_\\d+");
+
+    private final FileParserFactory fileParserFactory;
+    private final AndroidAnrTraceParser anrTraceParser;
+    private final ArchiveExtractionProperties properties;
+    private final EntryPrefilter prefilter;
+    private final ExtractionBudget globalBudget;
+    private final ExecutorService executor;
+
+    public BugreportIngestionService(FileParserFactory fileParserFactory, AndroidAnrTraceParser anrTraceParser) {
+        this(fileParserFactory, anrTraceParser, new ArchiveExtractionProperties());
+    }
+
+    public BugreportIngestionService(FileParserFactory fileParserFactory, AndroidAnrTraceParser anrTraceParser,
+                                     ArchiveExtractionProperties properties) {
+        this(fileParserFactory, anrTraceParser, properties,
+            ExtractionBudget.global(properties.getMaxGlobalBytes(), properties.getMaxGlobalFiles()),
+            ArchiveExtractionConfig.newDaemonPool(properties.getThreads(), "bugreport-parse-"));
+    }
+
+    /**
+     * @param globalBudget 与解压共用的全局预算
+     * @param executor 条目解析线程池，由所有请求共用
+     */
+    @Autowired
+    public BugreportIngestionService(FileParserFactory fileParserFactory, AndroidAnrTraceParser anrTraceParser,
+                                     ArchiveExtractionProperties properties, ExtractionBudget globalBudget,
+                                     @Qualifier("bugreportParseExecutor") ExecutorService executor) {
+        this.fileParserFactory = fileParserFactory;
+        this.anrTraceParser = anrTraceParser;
+        this.properties = properties;
+        this.prefilter = EntryPrefilter.from(properties);
+        this.globalBudget = globalBudget;
+        this.executor = executor;
+    }
+
+    /**
+     * 条目类型
+     */
+    public enum EntryKind {
+        TOMBSTONE,
+        ANR_TRACE
+    }
+
+    /**
+     * 判断 ZIP 是否为 Android bugreport，只读取中央目录
+     *
+     * @param zipPath ZIP 文件路径
+     * @return 包含 main_entry.txt 或 tombstone 目录时返回 true，无法作为 ZIP 打开时返回 false
+     */
+    public boolean isBugreport(Path zipPath) {
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            if (zipFile.getEntry(MAIN_ENTRY_NAME) != null) {
+                return true;
+            }
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                if (entries.nextElement().getName().startsWith(TOMBSTONE_DIR)) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("无法按 ZIP 读取中央目录: {}, error={}", zipPath, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 从 bugreport 中解析所有相关条目
+     *
+     * @param zipPath bugreport ZIP 文件路径
+     * @param profile 解析档位
+     * @return 相关条目及其解析结果，按条目类型、最后修改时间倒序排列，最新的 tombstone 在最前
+     * @throws ExtractionLimitException 读取的解压字节超出会话或全局预算
+     * @throws IOException 无法打开 ZIP 文件
+     */
+    public List<IngestedEntry> ingest(Path zipPath, ParseProfile profile) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            List<ZipEntry> relevantEntries = new ArrayList<>();
+            List<EntryKind> kinds = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                EntryKind kind = entry.isDirectory() ? null : classify(entry.getName());
+                // 与解压共用预筛选规则：被排除或超过大小上限的条目不解析
+                if (kind != null && prefilter.evaluate(entry.getName(), entry.getSize()) != EntryPrefilter.Decision.SKIP) {
+                    relevantEntries.add(entry);
+                    kinds.add(kind);
+                }
+            }
+            logger.info("bugreport 共 {} 个条目，其中 {} 个需要解析: {}",
+                zipFile.size(), relevantEntries.size(), zipPath.getFileName());
+            if (relevantEntries.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            ExtractionBudget sessionBudget = globalBudget.child(properties.getMaxSessionBytes(),
+                properties.getMaxSessionFiles());
+            List<Future<TroubleEntity>> futures = new ArrayList<>(relevantEntries.size());
+            try {
+                for (int i = 0; i < relevantEntries.size(); i++) {
+                    ZipEntry entry = relevantEntries.get(i);
+                    EntryKind kind = kinds.get(i);
+                    futures.add(executor.submit(() -> parseEntry(zipFile, entry, kind, profile, sessionBudget)));
+                }
+
+                List<IngestedEntry> results = new ArrayList<>(relevantEntries.size());
+                for (int i = 0; i < relevantEntries.size(); i++) {
+                    ZipEntry entry = relevantEntries.get(i);
+                    results.add(new IngestedEntry(entry.getName(), kinds.get(i), entry.getSize(),
+                        entry.getLastModifiedTime(), awaitEntity(entry, futures.get(i))));
+                }
+                results.sort(Comparator.comparing(IngestedEntry::kind)
+                    .thenComparing(IngestedEntry::lastModified, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(IngestedEntry::name, Comparator.reverseOrder()));
+                return results;
+            } finally {
+                // 超出预算提前返回时不再解析剩余条目
+                futures.forEach(future -> future.cancel(true));
+                sessionBudget.release();
+            }
+        }
+    }
+
+    /**
+     * 按更高的解析档位重新解析 bugreport 中的单个条目，用于只有被选中的条目需要更多分段的场景
+     *
+     * @param zipPath bugreport ZIP 文件路径
+     * @param entry {@link #ingest} 返回的条目
+     * @param profile 解析档位
+     * @return 解析结果，条目不存在或没有匹配的解析器时为 null
+     * @throws ExtractionLimitException 读取的解压字节超出会话或全局预算
+     * @throws IOException 无法打开 ZIP 文件或读取条目
+     */
+    public TroubleEntity reparse(Path zipPath, IngestedEntry entry, ParseProfile profile) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry zipEntry = zipFile.getEntry(entry.name());
+            if (zipEntry == null) {
+                return null;
+            }
+            ExtractionBudget sessionBudget = globalBudget.child(properties.getMaxSessionBytes(),
+                properties.getMaxSessionFiles());
+            try {
+                return parseEntry(zipFile, zipEntry, entry.kind(), profile, sessionBudget);
+            } finally {
+                sessionBudget.release();
+            }
+        }
+    }
+
+    /**
+     * 按条目路径判断类型，不相关的条目返回 null
+     */
+    static EntryKind classify(String entryName) {
+        if (entryName.startsWith(TOMBSTONE_DIR)) {
+            String fileName = entryName.substring(TOMBSTONE_DIR.length());
+            return TOMBSTONE_NAME_PATTERN.matcher(fileName).matches() ? EntryKind.TOMBSTONE : null;
+        }
+        if (entryName.startsWith(ANR_DIR)) {
+            return EntryKind.ANR_TRACE;
+        }
+        return null;
+    }
+
+    /**
+     * 把条目的解压流交给解析器，解析档位满足后不再读取剩余内容；读取的解压字节计入预算
+     * ANR traces 由路径即可确定格式，不受配置的解析器平台限制，按探测的候选编码解码后直接交给 ANR 解析器
+     */
+    private TroubleEntity parseEntry(ZipFile zipFile, ZipEntry entry, EntryKind kind, ParseProfile profile,
+                                     ExtractionBudget budget) throws IOException {
+        try (InputStream inputStream = new BudgetedInputStream(zipFile.getInputStream(entry), budget)) {
+            if (kind == EntryKind.ANR_TRACE) {
+                TroubleEntity entity = anrTraceParser.parse(fileParserFactory.openReader(inputStream), profile);
+                return anrTraceParser.isValid(entity) ? entity : null;
+            }
+            return fileParserFactory.parseStream(inputStream, profile);
+        } catch (CharacterCodingException e) {
+            logger.warn("bugreport 条目编码无法识别，跳过: {}", entry.getName());
+            return null;
+        }
+    }
+
+    private TroubleEntity awaitEntity(ZipEntry entry, Future<TroubleEntity> future) throws ExtractionLimitException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ExtractionLimitException limitException) {
+                throw limitException;
+            }
+            logger.warn("解析 bugreport 条目失败: entry={}, error={}", entry.getName(), e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * bugreport 中的一个相关条目
+     *
+     * @param name 条目在 ZIP 中的路径
+     * @param kind 条目类型
+     * @param size 解压后大小，未知时为 -1
+     * @param lastModified 最后修改时间，未记录时为 null
+     * @param entity 解析结果，没有匹配的解析器或解析失败时为 null
+     */
+    public record IngestedEntry(String name, EntryKind kind, long size, FileTime lastModified, TroubleEntity entity) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.service.archive.ArchiveStreams;
+import com.stability.martrix.util.FileTypeDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件头探测
+ *
+ * 一次读取文件头，同时得出文件类型、归档类型、候选编码与是否为文本，结果按路径缓存，
+ * 上传、解压、类型检测与文本解码各阶段共用，不再各自打开文件读取文件头。
+ * 缓存按文件大小与最后修改时间校验，文件被改写后重新探测
+ */
+@Component
+public class FileProbe {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileProbe.class);
+    private static final int MAX_CACHED_PATHS = 1024;
+    private static final int TAR_HEADER_SIZE = 512;
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    private final Map<Path, CachedProbe> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, CachedProbe> eldest) {
+            return size() > MAX_CACHED_PATHS;
+        }
+    };
+
+    /**
+     * 文件头探测结果
+     *
+     * @param fileType 按魔数与内容检测的文件类型
+     * @param archiveType 归档类型，不是归档时为 UNKNOWN
+     * @param charsets 按可能性排序的候选编码
+     * @param likelyText 内容是否像文本
+     * @param empty 文件是否为空
+     */
+    public record ProbeResult(FileTypeDetector.FileType fileType, ArchiveExtractionService.ArchiveType archiveType,
+                              List<Charset> charsets, boolean likelyText, boolean empty) {
+
+        public boolean isArchive() {
+            return archiveType != ArchiveExtractionService.ArchiveType.UNKNOWN;
+        }
+
+        /**
+         * @return 记录到会话上下文中的类型名，归档优先使用归档类型
+         */
+        public String typeName() {
+            return isArchive() ? archiveType.name() : fileType.name();
+        }
+    }
+
+    private record CachedProbe(long size, long lastModified, ProbeResult result) {
+    }
+
+    /**
+     * 探测文件，缓存命中且文件未变化时只需一次 stat
+     *
+     * @param path 文件路径
+     * @return 探测结果
+     * @throws IOException 文件不存在或读取失败
+     */
+    public ProbeResult probe(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        synchronized (cache) {
+            CachedProbe cached = cache.get(key);
+            if (cached != null && cached.size() == attributes.size() && cached.lastModified() == lastModified) {
+                return cached.result();
+            }
+        }
+
+        byte[] header = readHeader(key);
+        ProbeResult result = probe(header, key.getFileName().toString());
+        put(key, attributes.size(), lastModified, result);
+        return result;
+    }
+
+    /**
+     * 按已读入内存的文件头探测，不访问文件系统，用于上传时的数据流
+     *
+     * @param header 文件开头最多 {@value FileTypeDetector#SAMPLE_SIZE} 字节
+     * @param fileName 文件名，魔数无法判定归档类型时按扩展名判断
+     * @return 探测结果
+     */
+    public ProbeResult probe(byte[] header, String fileName) {
+        FileTypeDetector.FileType fileType = FileTypeDetector.detectFileType(header);
+        boolean likelyText = FileTypeDetector.isLikelyText(header);
+        return new ProbeResult(fileType, detectArchiveType(header, fileType, fileName),
+            likelyText ? FileTypeDetector.candidateCharsets(header) : List.of(), likelyText, header.length == 0);
+    }
+
+    /**
+     * 记录数据流已探测的结果，文件写完后调用，之后按路径探测时直接复用
+     *
+     * @param path 写入的文件路径
+     * @param result 写入时按数据流探测的结果
+     */
+    public void remember(Path path, ProbeResult result) {
+        try {
+            Path key = path.toAbsolutePath().normalize();
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            put(key, attributes.size(), attributes.lastModifiedTime().toMillis(), result);
+        } catch (IOException e) {
+            logger.debug("记录文件探测结果失败: {}, error={}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 移除路径的探测缓存，删除临时文件后调用，避免缓存已不存在的路径
+     *
+     * @param path 文件路径
+     */
+    public void forget(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    private void put(Path key, long size, long lastModified, ProbeResult result) {
+        synchronized (cache) {
+            cache.put(key, new CachedProbe(size, lastModified, result));
+        }
+    }
+
+    private static byte[] readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(FileTypeDetector.SAMPLE_SIZE, channel.size()));
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read >= 0 && buffer.hasRemaining());
+            return buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        }
+    }
+
+    /**
+     * 魔数优先：ZIP 为 "PK"，TAR 在偏移 257 处为 "ustar"，gzip 解压出的前 512 字节带 "ustar" 时为 TAR.GZ；
+     * zstd、xz 解压出的内容带 "ustar" 或文件名是对应的 TAR 扩展名时为 TAR.ZST、TAR.XZ，否则为压缩的单个文件；
+     * 魔数无法判定时按扩展名判断，兼容没有 ustar 标记的旧式 TAR
+     */
+    private static ArchiveExtractionService.ArchiveType detectArchiveType(byte[] header, FileTypeDetector.FileType fileType,
+                                                                       String fileName) {
+        if (fileType == FileTypeDetector.FileType.ZIP) {
+            return ArchiveExtractionService.ArchiveType.ZIP;
+        }
+        if (hasTarMagic(header)) {
+            return ArchiveExtractionService.ArchiveType.TAR;
+        }
+        if (fileType == FileTypeDetector.FileType.GZIP
+                && hasTarMagic(inflateTarHeader(header, ArchiveExtractionService.ArchiveType.TAR_GZ))) {
+            return ArchiveExtractionService.ArchiveType.TAR_GZ;
+        }
+        if (fileType == FileTypeDetector.FileType.ZSTD) {
+            return detectCompressedType(header, fileName, ArchiveExtractionService.ArchiveType.TAR_ZST,
+                ArchiveExtractionService.ArchiveType.ZST);
+        }
+        if (fileType == FileTypeDetector.FileType.XZ) {
+            return detectCompressedType(header, fileName, ArchiveExtractionService.ArchiveType.TAR_XZ,
+                ArchiveExtractionService.ArchiveType.XZ);
+        }
+        return ArchiveExtractionService.detectArchiveTypeByName(fileName);
+    }
+
+    private static ArchiveExtractionService.ArchiveType detectCompressedType(
+            byte[] header, String fileName, ArchiveExtractionService.ArchiveType tarType,
+            ArchiveExtractionService.ArchiveType fileType) {
+        if (hasTarMagic(inflateTarHeader(header, tarType))
+                || ArchiveExtractionService.detectArchiveTypeByName(fileName) == tarType) {
+            return tarType;
+        }
+        return fileType;
+    }
+
+    private static byte[] inflateTarHeader(byte[] compressedHeader, ArchiveExtractionService.ArchiveType archiveType) {
+        try (InputStream inputStream = ArchiveStreams.decompress(new ByteArrayInputStream(compressedHeader), archiveType)) {
+            return inputStream.readNBytes(TAR_HEADER_SIZE);
+        } catch (IOException e) {
+            // 文件头截断了压缩数据，解出的内容不足一个 TAR 头
+            return new byte[0];
+        }
+    }
+
+    private static boolean hasTarMagic(byte[] header) {
+        return header.length > TAR_MAGIC_OFFSET + 4
+            && header[TAR_MAGIC_OFFSET] == 'u'
+            && header[TAR_MAGIC_OFFSET + 1] == 's'
+            && header[TAR_MAGIC_OFFSET + 2] == 't'
+            && header[TAR_MAGIC_OFFSET + 3] == 'a'
+            && header[TAR_MAGIC_OFFSET + 4] == 'r';
+    }
+}
@@ -0,0 +1,193 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.ParseCacheProperties;
+import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.dto.CachedParseResult;
+import com.stability.martrix.service.parser.ParseProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析结果缓存
+ *
+ * 以文件内容摘要为键缓存 Tombstone 与模式匹配结果，分两级：
+ * 进程内按访问顺序淘汰的 LRU 缓存，以及带过期时间、多实例共享的 Redis 缓存。
+ * 键包含解析器平台与解析档位，配置变化后不会命中按旧配置得到的结果。
+ * 进程内缓存保存与 Redis 相同格式的序列化结果，每次命中都返回独立的副本，调用方修改结果不会影响其他会话
+ */
+@Service
+public class ParseResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseResultCache.class);
+
+    /**
+     * 解析结果结构变化时递增，使旧格式的 Redis 缓存失效
+     */
+    private static final String CACHE_KEY_PREFIX = "parse-cache:v3:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ParseCacheProperties cacheProperties;
+    private final ParserProperties parserProperties;
+    /**
+     * 与 Redis 值序列化器相同的格式，进程内缓存按此保存不可变的字节快照
+     */
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+    private final Map<String, byte[]> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    public ParseResultCache(RedisTemplate<String, Object> redisTemplate,
+                            ParseCacheProperties cacheProperties,
+                            ParserProperties parserProperties) {
+        this.redisTemplate = redisTemplate;
+        this.cacheProperties = cacheProperties;
+        this.parserProperties = parserProperties;
+        int maxEntries = Math.max(0, cacheProperties.getLocalMaxEntries());
+        this.localCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查询缓存，先查进程内缓存，未命中再查 Redis，Redis 命中的结果回填进程内缓存
+     *
+     * @param contentHash 文件内容摘要，为 null 时视为未命中
+     * @param profile 解析档位
+     * @return 缓存的解析结果的独立副本，未命中返回 null
+     */
+    public CachedParseResult get(String contentHash, ParseProfile profile) {
+        if (!cacheProperties.isEnabled() || contentHash == null) {
+            return null;
+        }
+        String key = buildKey(contentHash, profile);
+
+        byte[] snapshot;
+        synchronized (localCache) {
+            snapshot = localCache.get(key);
+        }
+        CachedParseResult cached = snapshot == null ? null : deserialize(key, snapshot);
+        if (cached != null) {
+            localHits.increment();
+            logger.debug("解析结果缓存命中（进程内）: key={}", key);
+            return cached;
+        }
+
+        try {
+            Object value = redisTemplate.opsForValue().get(key);
+            if (value instanceof CachedParseResult redisCached) {
+                redisHits.increment();
+                putLocal(key, redisCached);
+                logger.debug("解析结果缓存命中（Redis）: key={}", key);
+                return redisCached;
+            }
+        } catch (Exception e) {
+            logger.warn("读取解析结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+
+        misses.increment();
+        logger.debug("解析结果缓存未命中: key={}", key);
+        return null;
+    }
+
+    /**
+     * 写入两级缓存，Redis 写入失败只影响其他实例复用
+     *
+     * @param contentHash 文件内容摘要，为 null 时不缓存
+     * @param profile 解析档位
+     * @param result 解析结果，写入的是调用时的快照，之后修改不影响缓存
+     */
+    public void put(String contentHash, ParseProfile profile, CachedParseResult result) {
+        if (!cacheProperties.isEnabled() || contentHash == null || result == null || result.getTombstone() == null) {
+            return;
+        }
+        String key = buildKey(contentHash, profile);
+        putLocal(key, result);
+        puts.increment();
+
+        try {
+            redisTemplate.opsForValue().set(key, result, cacheProperties.getRedisTtl());
+            logger.debug("解析结果已缓存: key={}", key);
+        } catch (Exception e) {
+            logger.warn("写入解析结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取命中统计
+     */
+    public Statistics getStatistics() {
+        int localSize;
+        synchronized (localCache) {
+            localSize = localCache.size();
+        }
+        return new Statistics(localHits.sum(), redisHits.sum(), misses.sum(), puts.sum(), localSize);
+    }
+
+    private void putLocal(String key, CachedParseResult result) {
+        byte[] snapshot;
+        try {
+            snapshot = serializer.serialize(result);
+        } catch (SerializationException e) {
+            logger.warn("序列化解析结果失败，不写入进程内缓存: key={}, error={}", key, e.getMessage());
+            return;
+        }
+        synchronized (localCache) {
+            localCache.put(key, snapshot);
+        }
+    }
+
+    /**
+     * 从进程内快照还原独立副本；快照无法还原时移除并按未命中处理
+     */
+    private CachedParseResult deserialize(String key, byte[] snapshot) {
+        try {
+            if (serializer.deserialize(snapshot) instanceof CachedParseResult result) {
+                return result;
+            }
+        } catch (SerializationException e) {
+            logger.warn("还原进程内解析结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+        synchronized (localCache) {
+            localCache.remove(key, snapshot);
+        }
+        return null;
+    }
+
+    private String buildKey(String contentHash, ParseProfile profile) {
+        return CACHE_KEY_PREFIX + parserProperties.getPlatform() + ":" + profile.name() + ":" + contentHash;
+    }
+
+    /**
+     * 缓存命中统计
+     *
+     * @param localHits 进程内缓存命中次数
+     * @param redisHits Redis 缓存命中次数
+     * @param misses 未命中次数
+     * @param puts 写入次数
+     * @param localSize 进程内缓存当前条目数
+     */
+    public record Statistics(long localHits, long redisHits, long misses, long puts, int localSize) {
+
+        /**
+         * 两级缓存合计命中率，没有查询时为 0
+         */
+        public double hitRate() {
+            long lookups = localHits + redisHits + misses;
+            return lookups == 0 ? 0.0 : (double) (localHits + redisHits) / lookups;
+        }
+    }
+}
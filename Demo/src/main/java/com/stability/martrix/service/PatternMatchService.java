@@ -2,7 +2,9 @@ package com.stability.martrix.service;
 
 import com.stability.martrix.dto.PatternMatchResult;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
 import com.stability.martrix.service.pattern.PatternMatcherFactory;
+import com.stability.martrix.service.pattern.impl.AnrPatternMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,10 +16,12 @@ import org.springframework.stereotype.Service;
 public class PatternMatchService {
 
     private final PatternMatcherFactory patternMatcherFactory;
+    private final AnrPatternMatcher anrPatternMatcher;
 
     @Autowired
-    public PatternMatchService(PatternMatcherFactory patternMatcherFactory) {
+    public PatternMatchService(PatternMatcherFactory patternMatcherFactory, AnrPatternMatcher anrPatternMatcher) {
         this.patternMatcherFactory = patternMatcherFactory;
+        this.anrPatternMatcher = anrPatternMatcher;
     }
 
     /**
@@ -30,6 +34,16 @@ public class PatternMatchService {
         return patternMatcherFactory.match(tombstone);
     }
 
+    /**
+     * Perform pattern matching analysis on the ANR trace: deadlock cycles and a blocked main thread
+     *
+     * @param anrTrace the ANR trace to analyze
+     * @return PatternMatchResult, or null when no known pattern is found
+     */
+    public PatternMatchResult analyzeAnr(AnrTrace anrTrace) {
+        return anrPatternMatcher.match(anrTrace);
+    }
+
     /**
      * Check if pattern matching is supported for this tombstone
      *
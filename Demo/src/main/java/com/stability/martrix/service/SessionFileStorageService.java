@@ -1,34 +1,94 @@
 package com.stability.martrix.service;
 
 import com.stability.martrix.config.FileStorageProperties;
+import com.stability.martrix.service.storage.BlobStore;
+import com.stability.martrix.util.ContentHasher;
+import com.stability.martrix.util.FileTypeDetector;
+import com.stability.martrix.util.TeeInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
  * 会话文件存储服务
  * 负责管理会话相关的文件存储
+ *
+ * 开启去重后，上传内容边写盘边计算摘要，存入按内容寻址的 {@link BlobStore}，会话文件夹中只保留指向 blob 的硬链接，
+ * 同一内容只写一次、只占一份磁盘；删除会话后只检查该会话引用过的 blob，不再被任何会话引用的随之回收，
+ * 遍历整个 blob 存储的回收由定时任务执行。
+ *
+ * 开启压缩存储后，分析完成的会话文件以 zstd 压缩保存为 {@value #COMPRESSED_SUFFIX} 文件，
+ * 之后通过 {@link #openFile} 与 {@link #materialize} 读取时透明解压。开启去重时压缩在 blob 层进行：
+ * 同一内容只压缩一次，各会话的压缩文件链接到同一个压缩 blob，解压出的明文也按内容摘要缓存为一份
  */
 @Service
 public class SessionFileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionFileStorageService.class);
+    private static final int STORE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 压缩存储的会话文件的扩展名，与用户上传的 .zst 文件区分
+     */
+    public static final String COMPRESSED_SUFFIX = ".rest.zst";
+
+    /**
+     * 本身已经压缩的文件类型，再压缩没有收益
+     */
+    private static final Set<FileTypeDetector.FileType> COMPRESSED_TYPES = EnumSet.of(
+        FileTypeDetector.FileType.ZIP, FileTypeDetector.FileType.GZIP,
+        FileTypeDetector.FileType.ZSTD, FileTypeDetector.FileType.XZ);
 
     private final FileStorageProperties fileStorageProperties;
+    /**
+     * 未开启去重或文件系统不支持硬链接数时为 null
+     */
+    private final BlobStore blobStore;
+    /**
+     * 会话文件夹删除后的回调，按路径缓存会话文件内容的组件在这里清理缓存
+     */
+    private final List<Consumer<Path>> folderDeletionListeners = new CopyOnWriteArrayList<>();
 
     public SessionFileStorageService(FileStorageProperties fileStorageProperties) {
         this.fileStorageProperties = fileStorageProperties;
+        this.blobStore = fileStorageProperties.isDeduplicate()
+                ? BlobStore.open(Paths.get(fileStorageProperties.getBasePath(), fileStorageProperties.getBlobFolderName()))
+                : null;
+    }
+
+    /**
+     * 注册会话文件夹删除后的回调
+     *
+     * @param listener 参数为已删除的会话文件夹路径
+     */
+    public void onSessionFolderDeleted(Consumer<Path> listener) {
+        folderDeletionListeners.add(listener);
     }
 
     /**
@@ -75,8 +135,9 @@ public class SessionFileStorageService {
             // 确保文件夹存在
             createSessionFolder(sessionId);
 
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("文件已存储: sessionId={}, file={}", sessionId, targetPath);
+            try (InputStream inputStream = file.getInputStream()) {
+                store(sessionId, fileName, inputStream, targetPath, null);
+            }
             return targetPath.toString();
         } catch (IOException e) {
             logger.error("存储文件失败: sessionId={}, file={}, error={}", sessionId, fileName, e.getMessage());
@@ -84,6 +145,118 @@ public class SessionFileStorageService {
         }
     }
 
+    /**
+     * 存储上传的文件，同时把写盘的字节分流给 consumer 消费
+     *
+     * 上传流只读取一次：consumer 读到的每个字节同时写入会话文件夹并计入内容摘要，consumer 返回后剩余字节继续写盘，
+     * 因此 consumer 可以只读取头部或提前结束（如按解析档位解析），文件内容与摘要始终完整。
+     * consumer 失败不影响文件存储，对应结果为 null
+     *
+     * @param sessionId 会话ID
+     * @param file 上传的文件
+     * @param consumer 与写盘同时消费上传内容的处理逻辑，不应关闭传入的流
+     * @return 存储后的文件路径、consumer 的结果与内容摘要
+     */
+    public <T> StoredFile<T> storeFile(String sessionId, MultipartFile file, UploadConsumer<T> consumer) {
+        String sessionPath = fileStorageProperties.getSessionPath(sessionId);
+        String originalFileName = file.getOriginalFilename();
+        final String fileName = (originalFileName == null || originalFileName.isEmpty())
+                ? "unnamed_" + System.currentTimeMillis()
+                : originalFileName;
+        Path targetPath = Paths.get(sessionPath, fileName);
+
+        try {
+            createSessionFolder(sessionId);
+
+            try (InputStream inputStream = file.getInputStream()) {
+                return store(sessionId, fileName, inputStream, targetPath, consumer);
+            }
+        } catch (IOException e) {
+            logger.error("存储文件失败: sessionId={}, file={}, error={}", sessionId, fileName, e.getMessage());
+            throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 写入会话文件：开启去重时写入 blob 存储后链接到 targetPath，否则直接写入；写盘的同时计算内容摘要
+     *
+     * @param consumer 与写盘同时消费内容的处理逻辑，为 null 时只写盘
+     * @return 存储后的文件、consumer 的结果（未处理或处理失败时为 null）与内容摘要
+     */
+    private <T> StoredFile<T> store(String sessionId, String fileName, InputStream inputStream, Path targetPath,
+                                    UploadConsumer<T> consumer) throws IOException {
+        BlobStore.PendingBlob pendingBlob = null;
+        OutputStream outputStream;
+        if (blobStore != null) {
+            pendingBlob = blobStore.create();
+            outputStream = pendingBlob.outputStream();
+        } else {
+            // 目标可能是之前去重存储留下的硬链接，先删除目录项，避免改写共享的内容
+            Files.deleteIfExists(targetPath);
+            outputStream = new BufferedOutputStream(Files.newOutputStream(targetPath), STORE_BUFFER_SIZE);
+        }
+
+        MessageDigest digest = ContentHasher.newDigest();
+        T result;
+        long size;
+        try (OutputStream out = outputStream) {
+            TeeInputStream teeInputStream = new TeeInputStream(new DigestInputStream(inputStream, digest), out);
+            result = consumer == null ? null : consume(sessionId, fileName, teeInputStream, consumer);
+            size = teeInputStream.drain();
+        } catch (IOException | RuntimeException e) {
+            if (pendingBlob != null) {
+                pendingBlob.discard();
+            }
+            throw e;
+        }
+        // 摘要只在读取上传内容时计算一次，blob 按同一个摘要命名
+        String hash = ContentHasher.toHex(digest);
+        if (pendingBlob != null) {
+            blobStore.commit(pendingBlob, hash, targetPath, blobOwner(targetPath));
+        }
+        logger.info("文件已存储: sessionId={}, file={}, size={}, hash={}", sessionId, targetPath, size, hash);
+        return new StoredFile<>(targetPath.toString(), result, hash);
+    }
+
+    private <T> T consume(String sessionId, String fileName, InputStream inputStream, UploadConsumer<T> consumer) {
+        try {
+            return consumer.consume(fileName, inputStream);
+        } catch (Exception e) {
+            logger.warn("边存储边处理文件失败，仅存储文件: sessionId={}, file={}, error={}",
+                sessionId, fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 存储多个文件，每个文件在写盘的同时交给 consumer 处理
+     *
+     * @param sessionId 会话ID
+     * @param files 上传的文件列表
+     * @param consumer 与写盘同时消费上传内容的处理逻辑
+     * @return 存储成功的文件，按上传顺序排列
+     */
+    public <T> List<StoredFile<T>> storeFiles(String sessionId, MultipartFile[] files, UploadConsumer<T> consumer) {
+        if (files == null || files.length == 0) {
+            return new ArrayList<>();
+        }
+
+        List<StoredFile<T>> storedFiles = new ArrayList<>();
+
+        for (MultipartFile file : files) {
+            if (file != null && !file.isEmpty()) {
+                try {
+                    storedFiles.add(storeFile(sessionId, file, consumer));
+                } catch (Exception e) {
+                    logger.warn("存储文件失败，跳过: file={}, error={}",
+                        file.getOriginalFilename(), e.getMessage());
+                }
+            }
+        }
+
+        return storedFiles;
+    }
+
     /**
      * 存储多个文件
      *
@@ -170,6 +343,7 @@ public class SessionFileStorageService {
 
             Files.deleteIfExists(path);
             logger.info("会话文件夹已删除: {}", sessionPath);
+            onFolderDeleted(path);
             return true;
         } catch (IOException e) {
             logger.error("删除会话文件夹失败: {}, error={}", sessionPath, e.getMessage());
@@ -177,6 +351,193 @@ public class SessionFileStorageService {
         }
     }
 
+    /**
+     * 按配置把会话文件压缩存储，压缩完成后删除原文件；开启去重时链接到按原文摘要去重的压缩 blob
+     *
+     * @param filePath 会话文件路径
+     * @return 压缩后的文件路径；未开启压缩存储、文件已压缩存储、本身是压缩格式或压缩失败时返回原路径
+     */
+    public String compressAtRest(String filePath) {
+        if (!fileStorageProperties.isCompressAtRest() || filePath == null) {
+            return filePath;
+        }
+        Path source = Paths.get(filePath);
+        if (isCompressedAtRest(source) || !Files.isRegularFile(source)) {
+            return filePath;
+        }
+
+        Path target = source.resolveSibling(source.getFileName() + COMPRESSED_SUFFIX);
+        try {
+            if (COMPRESSED_TYPES.contains(FileTypeDetector.detectFileType(source))) {
+                return filePath;
+            }
+            if (blobStore != null) {
+                compressToBlob(source, target);
+            } else {
+                compressToFile(source, target);
+            }
+            long originalSize = Files.size(source);
+            Files.delete(source);
+            logger.debug("会话文件已压缩存储: {}, {} -> {} 字节", target, originalSize, Files.size(target));
+            return target.toString();
+        } catch (IOException e) {
+            logger.warn("压缩存储会话文件失败，保留原文件: {}, error={}", source, e.getMessage());
+            return filePath;
+        }
+    }
+
+    /**
+     * 先按原文摘要查找压缩 blob，已有其他会话压缩过同一内容时只建立链接，不再压缩
+     */
+    private void compressToBlob(Path source, Path target) throws IOException {
+        String hash = ContentHasher.hash(source);
+        String owner = blobOwner(target);
+        if (blobStore.linkCompressed(hash, target, owner)) {
+            return;
+        }
+        BlobStore.PendingBlob pendingBlob = blobStore.createCompressed(hash);
+        try (InputStream inputStream = Files.newInputStream(source);
+             OutputStream outputStream = new ZstdCompressorOutputStream(pendingBlob.outputStream(),
+                 fileStorageProperties.getCompressionLevel())) {
+            inputStream.transferTo(outputStream);
+        } catch (IOException | RuntimeException e) {
+            pendingBlob.discard();
+            throw e;
+        }
+        blobStore.commitCompressed(pendingBlob, hash, target, owner);
+    }
+
+    private void compressToFile(Path source, Path target) throws IOException {
+        Path temp = source.resolveSibling(source.getFileName() + COMPRESSED_SUFFIX + ".tmp");
+        try {
+            try (InputStream inputStream = Files.newInputStream(source);
+                 OutputStream outputStream = new ZstdCompressorOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(temp), STORE_BUFFER_SIZE), fileStorageProperties.getCompressionLevel())) {
+                inputStream.transferTo(outputStream);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件随会话文件夹一起清理
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param path 会话文件路径
+     * @return 是否为压缩存储的会话文件
+     */
+    public static boolean isCompressedAtRest(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(COMPRESSED_SUFFIX);
+    }
+
+    /**
+     * 打开会话文件，压缩存储的文件透明解压
+     *
+     * @param path 会话文件路径
+     * @return 文件内容，由调用方负责关闭
+     * @throws IOException 打开失败
+     */
+    public InputStream openFile(Path path) throws IOException {
+        InputStream inputStream = Files.newInputStream(path);
+        if (!isCompressedAtRest(path)) {
+            return inputStream;
+        }
+        try {
+            return new ZstdCompressorInputStream(new BufferedInputStream(inputStream, STORE_BUFFER_SIZE));
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取可随机访问（内存映射、按偏移读取）的明文文件
+     *
+     * 链接到压缩 blob 的文件解压为同一摘要的明文 blob，已解压过时直接返回，不同会话、多次映射共用一份；
+     * 其余压缩存储的文件解压到同目录下的临时文件
+     *
+     * @param path 会话文件路径
+     * @return 明文文件；未压缩的文件原样返回
+     * @throws IOException 解压失败
+     */
+    public MaterializedFile materialize(Path path) throws IOException {
+        if (!isCompressedAtRest(path)) {
+            return new MaterializedFile(path, false);
+        }
+        String hash = blobStore == null ? null : BlobStore.compressedHash(path);
+        if (hash != null) {
+            Path plain = blobStore.plainBlob(hash);
+            return new MaterializedFile(plain != null ? plain : materializeBlob(path, hash), false);
+        }
+
+        String fileName = path.getFileName().toString();
+        Path plain = Files.createTempFile(path.toAbsolutePath().getParent(),
+            "." + fileName.substring(0, fileName.length() - COMPRESSED_SUFFIX.length()) + ".", ".tmp");
+        try (InputStream inputStream = openFile(path)) {
+            Files.copy(inputStream, plain, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(plain);
+            throw e;
+        }
+        return new MaterializedFile(plain, true);
+    }
+
+    private Path materializeBlob(Path path, String hash) throws IOException {
+        BlobStore.PendingBlob pendingBlob = blobStore.create();
+        try (InputStream inputStream = openFile(path)) {
+            inputStream.transferTo(pendingBlob.outputStream());
+        } catch (IOException | RuntimeException e) {
+            pendingBlob.discard();
+            throw e;
+        }
+        return blobStore.commitPlain(pendingBlob, hash);
+    }
+
+    /**
+     * {@link #materialize} 得到的明文文件
+     *
+     * @param path 明文文件路径
+     * @param temporary 是否为临时文件，为 true 时由调用方用完后删除；否则是会话文件本身或明文 blob，只读不删除
+     */
+    public record MaterializedFile(Path path, boolean temporary) {
+    }
+
+    /**
+     * 与写盘同时消费上传内容的处理逻辑
+     *
+     * @param <T> 处理结果类型
+     */
+    @FunctionalInterface
+    public interface UploadConsumer<T> {
+
+        /**
+         * @param fileName 存储使用的文件名
+         * @param inputStream 上传内容，读出的字节同时写入会话文件夹
+         * @return 处理结果，可为 null
+         * @throws IOException 读取失败
+         */
+        T consume(String fileName, InputStream inputStream) throws IOException;
+    }
+
+    /**
+     * 已存储的文件及边存储边处理的结果
+     *
+     * @param path 存储后的文件路径
+     * @param result consumer 的结果，处理失败时为 null
+     * @param contentHash 写盘时计算的内容 SHA-256 摘要（与 {@link ContentHasher} 一致），未计算时为 null
+     * @param <T> 处理结果类型
+     */
+    public record StoredFile<T>(String path, T result, String contentHash) {
+
+        public StoredFile(String path, T result) {
+            this(path, result, null);
+        }
+    }
+
     /**
      * 获取文件存储配置
      *
@@ -187,7 +548,64 @@ public class SessionFileStorageService {
     }
 
     /**
-     * 清理过期的会话文件夹
+     * 遍历整个 blob 存储，回收不再被任何会话引用的 blob、解压缓存与崩溃残留的临时文件；
+     * 会话文件夹已不存在的引用清单（删除会话时中断）一并处理。最近修改过的文件在宽限期内不回收
+     *
+     * @return 删除的文件数，未开启去重时为 0
+     */
+    public int collectUnreferencedBlobs() {
+        if (blobStore == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (String owner : blobStore.owners()) {
+            if (!Files.isDirectory(Paths.get(fileStorageProperties.getBasePath(), owner))) {
+                deleted += blobStore.release(owner);
+            }
+        }
+        return deleted + blobStore.collectGarbage(Duration.ofMinutes(fileStorageProperties.getBlobGraceMinutes()));
+    }
+
+    /**
+     * 定时回收 blob，删除会话时只回收该会话引用过的 blob，其余由这里兜底
+     */
+    @Scheduled(fixedDelayString = "${file.storage.blob-sweep-interval-minutes:60}",
+        initialDelayString = "${file.storage.blob-sweep-interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void sweepBlobs() {
+        collectUnreferencedBlobs();
+    }
+
+    /**
+     * 会话文件夹删除后通知回调，并回收该会话引用过的 blob；主动删除和过期清理都经过这里
+     */
+    private void onFolderDeleted(Path sessionFolder) {
+        folderDeletionListeners.forEach(listener -> listener.accept(sessionFolder));
+        releaseBlobs(sessionFolder);
+    }
+
+    /**
+     * 会话文件夹删除后回收该会话引用过、不再被其他会话引用的 blob
+     */
+    private void releaseBlobs(Path sessionFolder) {
+        if (blobStore != null) {
+            blobStore.release(sessionFolder.getFileName().toString());
+        }
+    }
+
+    /**
+     * @return 文件所在的会话文件夹名，作为 blob 的引用方；不在存储根路径下时为 null，只能由定时回收处理
+     */
+    private String blobOwner(Path path) {
+        Path base = Paths.get(fileStorageProperties.getBasePath()).toAbsolutePath().normalize();
+        Path file = path.toAbsolutePath().normalize();
+        if (!file.startsWith(base) || file.getNameCount() <= base.getNameCount() + 1) {
+            return null;
+        }
+        return file.getName(base.getNameCount()).toString();
+    }
+
+    /**
+     * 清理过期的会话文件夹，同时回收各文件夹引用过、不再被其他会话引用的 blob
      *
      * @return 清理的文件夹数量
      */
@@ -202,8 +620,9 @@ public class SessionFileStorageService {
                 return 0L;
             }
 
+            long count;
             try (Stream<Path> stream = Files.list(base)) {
-                return stream
+                count = stream
                         .filter(Files::isDirectory)
                         .filter(dir -> dir.getFileName().toString().startsWith(fileStorageProperties.getSessionFolderPrefix()))
                         .filter(dir -> {
@@ -228,12 +647,14 @@ public class SessionFileStorageService {
                                 }
                                 Files.deleteIfExists(dir);
                                 logger.info("清理过期会话文件夹: {}", dir);
+                                onFolderDeleted(dir);
                             } catch (IOException e) {
                                 logger.warn("清理文件夹失败: {}, error={}", dir, e.getMessage());
                             }
                         })
                         .count();
             }
+            return count;
         } catch (IOException e) {
             logger.error("清理过期会话文件夹失败: error={}", e.getMessage());
             return 0L;
@@ -0,0 +1,150 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.service.ArchiveExtractionService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 归档字节流的顺序读取
+ *
+ * 用于归档中的嵌套归档：内层归档不落盘，直接在外层条目的解压流上逐个读取内层条目。
+ * ZIP 按本地文件头顺序读取，不依赖中央目录；TAR.GZ、TAR.ZST、TAR.XZ 的解压直接串接到 TAR 读取上；
+ * zstd、xz 压缩的单个文件作为只有一个条目的归档。
+ * 解压出的字节都经过 {@link ReadGuard}，包括 TAR 条目头、visitor 没有读完的剩余内容与被跳过的条目
+ */
+public final class ArchiveStreams {
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private ArchiveStreams() {
+    }
+
+    /**
+     * 依次把归档中的每个文件条目交给 visitor，不含目录
+     *
+     * @param inputStream 归档字节流，由调用方负责关闭
+     * @param archiveType 归档类型
+     * @param archiveName 归档文件名，压缩的单个文件以去掉压缩扩展名的文件名作为条目名
+     * @param readGuard 包装解压流的守卫；TAR 不解压，读出的就是归档流本身的字节，不经过守卫
+     * @param visitor 条目处理逻辑，条目流在 visitor 返回后失效，关闭条目流不影响归档流
+     * @throws IOException 读取失败、超出守卫的限制或 visitor 抛出异常
+     */
+    public static void forEachEntry(InputStream inputStream, ArchiveExtractionService.ArchiveType archiveType,
+                                    String archiveName, ReadGuard readGuard, EntryVisitor visitor)
+            throws IOException {
+        // 读取结束时关闭各层解压流以释放 Inflater，但不关闭调用方的归档流
+        InputStream source = shield(inputStream);
+        switch (archiveType) {
+            case ZIP -> {
+                try (ZipInputStream zipInput = new ZipInputStream(source)) {
+                    ZipEntry entry;
+                    while ((entry = zipInput.getNextEntry()) != null) {
+                        if (entry.isDirectory()) {
+                            continue;
+                        }
+                        InputStream entryStream = readGuard.guard(shield(zipInput), entry.getCompressedSize());
+                        visitor.visit(entry.getName(), entry.getSize(), entryStream);
+                        // 跳到下一个条目时 ZipInputStream 会解压完剩余内容，改为经过守卫读完
+                        entryStream.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+            }
+            case TAR -> {
+                try (TarArchiveInputStream tarInput = new TarArchiveInputStream(source)) {
+                    forEachTarEntry(tarInput, visitor);
+                }
+            }
+            case TAR_GZ, TAR_ZST, TAR_XZ -> {
+                // 守卫套在解压流上，条目头与跳过的条目内容同样计入
+                try (TarArchiveInputStream tarInput = new TarArchiveInputStream(
+                        readGuard.guard(decompress(source, archiveType), -1))) {
+                    forEachTarEntry(tarInput, visitor);
+                }
+            }
+            case ZST, XZ -> {
+                try (InputStream fileInput = readGuard.guard(decompress(source, archiveType), -1)) {
+                    visitor.visit(decompressedName(archiveName), -1, shield(fileInput));
+                }
+            }
+            case UNKNOWN -> throw new IOException("不是支持的归档格式");
+        }
+    }
+
+    /**
+     * 打开压缩流的解压流，TAR 类型解压出的是 TAR 字节流
+     *
+     * @param inputStream 压缩字节流，随解压流一起关闭
+     * @param archiveType TAR.GZ、TAR.ZST、TAR.XZ 或压缩的单个文件
+     * @return 解压流
+     * @throws IOException 不是压缩格式，或压缩头无效
+     */
+    public static InputStream decompress(InputStream inputStream, ArchiveExtractionService.ArchiveType archiveType)
+            throws IOException {
+        return switch (archiveType) {
+            case TAR_GZ -> new GZIPInputStream(inputStream, STREAM_BUFFER_SIZE);
+            case TAR_ZST, ZST -> new ZstdCompressorInputStream(inputStream);
+            case TAR_XZ, XZ -> new XZCompressorInputStream(inputStream);
+            default -> throw new IOException("不是压缩格式: " + archiveType);
+        };
+    }
+
+    /**
+     * @param fileName 压缩的单个文件的文件名
+     * @return 去掉 .zst、.xz 扩展名的文件名，没有这些扩展名时原样返回
+     */
+    public static String decompressedName(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".zst") && fileName.length() > 4) {
+            return fileName.substring(0, fileName.length() - 4);
+        }
+        if (lower.endsWith(".xz") && fileName.length() > 3) {
+            return fileName.substring(0, fileName.length() - 3);
+        }
+        return fileName;
+    }
+
+    private static void forEachTarEntry(TarArchiveInputStream tarInput, EntryVisitor visitor) throws IOException {
+        TarArchiveEntry entry;
+        while ((entry = tarInput.getNextEntry()) != null) {
+            if (entry.isFile()) {
+                visitor.visit(entry.getName(), entry.getSize(), shield(tarInput));
+            }
+        }
+    }
+
+    /**
+     * 关闭返回的流不关闭被包装的流
+     */
+    private static InputStream shield(InputStream archiveStream) {
+        return new FilterInputStream(archiveStream) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * 归档条目处理逻辑
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+
+        /**
+         * @param name 条目在归档中的路径
+         * @param size 条目头中声明的解压后大小，未知时为 -1
+         * @param entryStream 条目内容
+         * @throws IOException 处理失败，中止读取
+         */
+        void visit(String name, long size, InputStream entryStream) throws IOException;
+    }
+}
@@ -0,0 +1,166 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.service.ArchiveExtractionService;
+import com.stability.martrix.service.FileProbe;
+import com.stability.martrix.util.FileTypeDetector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * 归档的只读虚拟视图
+ *
+ * 不解压即可列出归档中的文件条目，按条目开头的字节探测类型，只有真正交给解析器的条目才被解压读取。
+ * ZIP 读取中央目录，按条目随机访问；TAR 扫描一遍条目头建立偏移索引，按偏移随机访问。
+ * TAR.GZ、TAR.ZST、TAR.XZ 与 zstd、xz 压缩的单个文件无法随机访问，没有视图，
+ * 由 {@link ArchiveStreams#forEachEntry} 顺序读取一遍，读到条目时就地探测与解压。
+ * 磁盘写入与内存占用只与实际分析的条目有关，与归档大小无关；打开的条目流都经过 {@link ReadGuard}，
+ * 探测读取的文件头同样计入预算
+ *
+ * 视图不是线程安全的，由创建方负责关闭
+ */
+public abstract class ArchiveView implements Closeable {
+
+    protected final Path path;
+    private final FileProbe fileProbe;
+    private final ReadGuard readGuard;
+
+    protected ArchiveView(Path path, FileProbe fileProbe, ReadGuard readGuard) {
+        this.path = path;
+        this.fileProbe = fileProbe;
+        this.readGuard = readGuard;
+    }
+
+    /**
+     * 打开归档视图
+     *
+     * @param path 归档文件路径
+     * @param archiveType 归档类型
+     * @param fileProbe 条目探测使用的文件头探测
+     * @return 归档视图，条目流不计入预算
+     * @throws IOException 打开失败，或归档类型不能随机访问
+     */
+    public static ArchiveView open(Path path, ArchiveExtractionService.ArchiveType archiveType, FileProbe fileProbe)
+            throws IOException {
+        return open(path, archiveType, fileProbe, ReadGuard.NONE);
+    }
+
+    /**
+     * 打开归档视图，条目流经过守卫，关闭视图时归还守卫占用的预算
+     *
+     * @param path 归档文件路径
+     * @param archiveType 归档类型
+     * @param fileProbe 条目探测使用的文件头探测
+     * @param readGuard 包装条目流的守卫
+     * @return 归档视图
+     * @throws IOException 打开失败，或归档类型不能随机访问
+     */
+    public static ArchiveView open(Path path, ArchiveExtractionService.ArchiveType archiveType, FileProbe fileProbe,
+                                   ReadGuard readGuard) throws IOException {
+        return switch (archiveType) {
+            case ZIP -> new ZipArchiveView(path, fileProbe, readGuard);
+            case TAR -> new TarArchiveView(path, fileProbe, readGuard);
+            case TAR_GZ, TAR_ZST, TAR_XZ, ZST, XZ -> throw new IOException("整体压缩的归档只能顺序读取: " + path);
+            case UNKNOWN -> throw new IOException("不是支持的归档格式: " + path);
+        };
+    }
+
+    /**
+     * @param archiveType 归档类型
+     * @return 能否打开视图按条目随机访问，不能时只能用 {@link ArchiveStreams#forEachEntry} 顺序读取
+     */
+    public static boolean supportsRandomAccess(ArchiveExtractionService.ArchiveType archiveType) {
+        return archiveType == ArchiveExtractionService.ArchiveType.ZIP
+            || archiveType == ArchiveExtractionService.ArchiveType.TAR;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return 归档中的文件条目，不含目录，按归档中的顺序排列
+     * @throws IOException 读取归档失败
+     */
+    public abstract List<Entry> entries() throws IOException;
+
+    /**
+     * 打开条目的解压流，只解压这一个条目
+     *
+     * @param entry {@link #entries()} 返回的条目
+     * @return 条目内容，经过守卫，由调用方负责关闭
+     * @throws IOException 读取失败
+     */
+    public InputStream open(Entry entry) throws IOException {
+        return readGuard.guard(openEntry(entry), entry.compressedSize());
+    }
+
+    /**
+     * @return 条目未经守卫的解压流
+     */
+    protected abstract InputStream openEntry(Entry entry) throws IOException;
+
+    /**
+     * 关闭归档并归还守卫占用的预算
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeArchive();
+        } finally {
+            readGuard.release();
+        }
+    }
+
+    protected abstract void closeArchive() throws IOException;
+
+    /**
+     * @return 能否在多个线程中同时打开、读取不同的条目
+     */
+    public boolean supportsConcurrentReads() {
+        return false;
+    }
+
+    /**
+     * 读取条目开头最多 {@value FileTypeDetector#SAMPLE_SIZE} 字节
+     */
+    public byte[] head(Entry entry) throws IOException {
+        try (InputStream inputStream = open(entry)) {
+            return inputStream.readNBytes(FileTypeDetector.SAMPLE_SIZE);
+        }
+    }
+
+    /**
+     * 按条目开头的字节探测类型，不解压条目的其余内容
+     */
+    public FileProbe.ProbeResult probe(Entry entry) throws IOException {
+        return probe(head(entry), entry);
+    }
+
+    protected FileProbe.ProbeResult probe(byte[] head, Entry entry) {
+        return fileProbe.probe(head, entry.fileName());
+    }
+
+    /**
+     * 归档中的一个文件条目
+     *
+     * @param name 条目在归档中的路径
+     * @param size 解压后大小，未知时为 -1
+     * @param compressedSize 在归档中占用的压缩后大小，未知时为 -1
+     * @param lastModified 最后修改时间，未记录时为 null
+     * @param index 条目在 {@link #entries()} 中的位置
+     */
+    public record Entry(String name, long size, long compressedSize, FileTime lastModified, int index) {
+
+        /**
+         * @return 路径中的文件名部分
+         */
+        public String fileName() {
+            return name.substring(name.lastIndexOf('/') + 1);
+        }
+    }
+}
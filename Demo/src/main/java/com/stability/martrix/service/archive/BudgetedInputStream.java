@@ -0,0 +1,67 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.exception.ExtractionLimitException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 把读取到的解压字节计入预算的输入流
+ *
+ * 套在解压流上，不写盘、只读取或跳过的内容同样计入预算，超出上限时抛出 {@link ExtractionLimitException}
+ */
+public class BudgetedInputStream extends FilterInputStream {
+
+    private final ExtractionBudget budget;
+
+    /**
+     * @param in 解压流，随本流一起关闭
+     * @param budget 计入的预算
+     */
+    public BudgetedInputStream(InputStream in, ExtractionBudget budget) {
+        super(in);
+        this.budget = budget;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            budget.chargeBytes(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            budget.chargeBytes(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0) {
+            budget.chargeBytes(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
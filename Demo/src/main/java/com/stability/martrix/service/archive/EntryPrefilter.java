@@ -0,0 +1,141 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import com.stability.martrix.service.ArchiveExtractionService;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 归档条目预筛选
+ *
+ * 只按条目路径与声明的大小判断，在读取或解压条目的任何字节之前决定是否需要该条目，
+ * 解压耗时与磁盘占用随相关内容增长，而不是随归档大小增长。
+ *
+ * glob 规则：{@code *} 匹配一级路径内的任意字符，{@code **} 跨越多级路径，{@code ?} 匹配一个字符；
+ * 不含 / 的 glob 只匹配文件名，含 / 的 glob 从任一级目录开始匹配整个路径
+ */
+public final class EntryPrefilter {
+
+    /**
+     * 不做任何筛选，所有条目都解压
+     */
+    public static final EntryPrefilter ACCEPT_ALL = new EntryPrefilter(List.of(), List.of(), Long.MAX_VALUE, List.of());
+
+    /**
+     * 预筛选结论
+     */
+    public enum Decision {
+        /** 解压，之后仍按探测结果筛选 */
+        EXTRACT,
+        /** 不解压 */
+        SKIP,
+        /** 共享库，只有被回溯引用时才解压 */
+        LIBRARY
+    }
+
+    private final List<Glob> includes;
+    private final List<Glob> excludes;
+    private final long maxEntryBytes;
+    private final List<Glob> libraries;
+
+    private EntryPrefilter(List<String> includeGlobs, List<String> excludeGlobs, long maxEntryBytes,
+                           List<String> libraryGlobs) {
+        this.includes = compile(includeGlobs);
+        this.excludes = compile(excludeGlobs);
+        this.maxEntryBytes = maxEntryBytes;
+        this.libraries = compile(libraryGlobs);
+    }
+
+    /**
+     * @param properties 解压配置
+     * @return 按配置的 glob 与大小上限筛选的预筛选器
+     */
+    public static EntryPrefilter from(ArchiveExtractionProperties properties) {
+        return new EntryPrefilter(properties.getIncludeGlobs(), properties.getExcludeGlobs(),
+            properties.getMaxEntryBytes(),
+            properties.isReferencedLibrariesOnly() ? properties.getLibraryGlobs() : List.of());
+    }
+
+    /**
+     * 按条目元数据预筛选
+     *
+     * exclude 优先；按名称是归档的条目不受 include 与大小上限限制，以便读取其中的条目；
+     * 其余条目依次检查大小上限与 include，最后识别共享库
+     *
+     * @param entryName 条目在归档中的路径
+     * @param size 条目解压后的大小，未知时为 -1
+     * @return 预筛选结论
+     */
+    public Decision evaluate(String entryName, long size) {
+        String path = entryName.replace('\\', '/');
+        if (matchesAny(excludes, path)) {
+            return Decision.SKIP;
+        }
+        if (ArchiveExtractionService.detectArchiveTypeByName(path) != ArchiveExtractionService.ArchiveType.UNKNOWN) {
+            return Decision.EXTRACT;
+        }
+        if (size > maxEntryBytes) {
+            return Decision.SKIP;
+        }
+        if (!includes.isEmpty() && !matchesAny(includes, path)) {
+            return Decision.SKIP;
+        }
+        return matchesAny(libraries, path) ? Decision.LIBRARY : Decision.EXTRACT;
+    }
+
+    private static boolean matchesAny(List<Glob> globs, String path) {
+        if (globs.isEmpty()) {
+            return false;
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        for (Glob glob : globs) {
+            if (glob.pattern().matcher(glob.pathGlob() ? path : fileName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Glob> compile(List<String> globs) {
+        return globs == null ? List.of() : globs.stream()
+            .filter(glob -> glob != null && !glob.isBlank())
+            .map(EntryPrefilter::toGlob)
+            .toList();
+    }
+
+    /**
+     * 编译后的 glob
+     *
+     * @param pattern 等价的正则
+     * @param pathGlob 是否匹配整个路径，否则只匹配文件名
+     */
+    private record Glob(Pattern pattern, boolean pathGlob) {
+    }
+
+    /**
+     * glob 转为正则；含 / 的 glob 在任一级目录边界开始匹配
+     */
+    private static Glob toGlob(String glob) {
+        String trimmed = glob.strip();
+        boolean pathGlob = trimmed.indexOf('/') >= 0;
+        if (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        StringBuilder regex = new StringBuilder(pathGlob ? "(^|.*/)" : "");
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '*' && i + 1 < trimmed.length() && trimmed.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return new Glob(Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE), pathGlob);
+    }
+}
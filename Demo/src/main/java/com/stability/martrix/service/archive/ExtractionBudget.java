@@ -0,0 +1,122 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.exception.ExtractionLimitException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 解压预算，记录解压读出的字节数与写出的文件数
+ *
+ * 全局预算由所有正在进行的解压共用；每次会话解压从全局预算派生一个会话预算，
+ * 会话预算的消耗同时计入全局预算，解压结束后调用 {@link #release()} 把消耗还给全局预算。
+ * 超出任一层的上限时抛出 {@link ExtractionLimitException}，由调用方中止解压
+ */
+public final class ExtractionBudget {
+
+    private final ExtractionBudget parent;
+    private final long maxBytes;
+    private final long maxFiles;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ExtractionBudget(ExtractionBudget parent, long maxBytes, long maxFiles) {
+        this.parent = parent;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * @param maxBytes 全部解压合计最多读出的解压字节数
+     * @param maxFiles 全部解压合计最多写出的文件数
+     * @return 全局预算
+     */
+    public static ExtractionBudget global(long maxBytes, long maxFiles) {
+        return new ExtractionBudget(null, maxBytes, maxFiles);
+    }
+
+    /**
+     * 派生会话预算
+     *
+     * @param maxBytes 本次会话解压最多读出的解压字节数
+     * @param maxFiles 本次会话解压最多写出的文件数
+     * @return 会话预算
+     */
+    public ExtractionBudget child(long maxBytes, long maxFiles) {
+        return new ExtractionBudget(this, maxBytes, maxFiles);
+    }
+
+    /**
+     * 计入一个待写出的文件
+     *
+     * @throws ExtractionLimitException 文件数超出上限
+     */
+    public void chargeFile() throws ExtractionLimitException {
+        charge(files, maxFiles, 1, isGlobal()
+            ? ExtractionLimitException.LimitType.GLOBAL_FILES
+            : ExtractionLimitException.LimitType.SESSION_FILES, "文件数");
+        if (parent != null) {
+            try {
+                parent.chargeFile();
+            } catch (ExtractionLimitException e) {
+                files.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 计入解压读出的字节
+     *
+     * @param count 字节数
+     * @throws ExtractionLimitException 字节数超出上限
+     */
+    public void chargeBytes(long count) throws ExtractionLimitException {
+        charge(bytes, maxBytes, count, isGlobal()
+            ? ExtractionLimitException.LimitType.GLOBAL_BYTES
+            : ExtractionLimitException.LimitType.SESSION_BYTES, "字节数");
+        if (parent != null) {
+            try {
+                parent.chargeBytes(count);
+            } catch (ExtractionLimitException e) {
+                bytes.addAndGet(-count);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 超出上限时撤回本次计入，上下层的计数始终一致
+     */
+    private void charge(AtomicLong counter, long max, long count, ExtractionLimitException.LimitType limitType,
+                        String what) throws ExtractionLimitException {
+        if (counter.addAndGet(count) > max) {
+            counter.addAndGet(-count);
+            throw new ExtractionLimitException(limitType,
+                "解压%s超出%s上限 %d".formatted(what, isGlobal() ? "全局" : "会话", max));
+        }
+    }
+
+    /**
+     * 把本预算的消耗还给上层预算，只生效一次
+     */
+    public void release() {
+        if (parent != null && released.compareAndSet(false, true)) {
+            parent.bytes.addAndGet(-bytes.get());
+            parent.files.addAndGet(-files.get());
+        }
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getFiles() {
+        return files.get();
+    }
+
+    private boolean isGlobal() {
+        return parent == null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.util.ElfHeaderParser;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 回溯中引用到的共享库，用于只解压与崩溃相关的 .so
+ *
+ * @param fileNames 栈帧 maps 信息中的库文件名，不含目录，小写
+ * @param buildIds 栈帧中的 BuildId，小写十六进制
+ */
+public record LibraryReferences(Set<String> fileNames, Set<String> buildIds) {
+
+    /**
+     * 没有引用任何共享库
+     */
+    public static final LibraryReferences NONE = new LibraryReferences(Set.of(), Set.of());
+
+    /**
+     * 收集墓碑主栈与父线程栈中引用的共享库
+     *
+     * @param tombstone 解析出的墓碑，为 null 时返回 {@link #NONE}
+     * @return 引用的共享库
+     */
+    public static LibraryReferences of(AArch64Tombstone tombstone) {
+        if (tombstone == null) {
+            return NONE;
+        }
+        Set<String> fileNames = new HashSet<>();
+        Set<String> buildIds = new HashSet<>();
+        collect(tombstone.getStackDumpInfo(), fileNames, buildIds);
+        collect(tombstone.getSubmitterStackDumpInfo(), fileNames, buildIds);
+        return fileNames.isEmpty() && buildIds.isEmpty() ? NONE : new LibraryReferences(Set.copyOf(fileNames), Set.copyOf(buildIds));
+    }
+
+    private static void collect(AArch64Tombstone.StackDumpInfo stackDumpInfo, Set<String> fileNames, Set<String> buildIds) {
+        if (stackDumpInfo == null || stackDumpInfo.getStackFrames() == null) {
+            return;
+        }
+        for (AArch64Tombstone.StackDumpInfo.StackFrame frame : stackDumpInfo.getStackFrames()) {
+            String mapsInfo = frame.getMapsInfo();
+            if (mapsInfo != null && !mapsInfo.isBlank()) {
+                // maps 信息可能带有 "!lib.so" 形式的 APK 内路径或 "(deleted)" 后缀
+                String path = mapsInfo.strip().split("\\s+")[0];
+                String fileName = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('!')) + 1);
+                if (!fileName.isEmpty()) {
+                    fileNames.add(fileName.toLowerCase(Locale.ROOT));
+                }
+            }
+            if (frame.getBuildId() != null && !frame.getBuildId().isBlank()) {
+                buildIds.add(frame.getBuildId().strip().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return fileNames.isEmpty() && buildIds.isEmpty();
+    }
+
+    /**
+     * 只按文件名判断条目是否可能被引用，用于读取条目内容之前的预筛选
+     *
+     * @param fileName 条目文件名
+     * @return 文件名被引用，或存在需要读取条目才能比对的 BuildId
+     */
+    public boolean mayReference(String fileName) {
+        return !buildIds.isEmpty() || fileNames.contains(fileName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 判断共享库条目是否被引用：文件名相同，或文件头中的 BuildId 相同
+     *
+     * @param fileName 条目文件名
+     * @param head 条目开头的字节
+     * @return 是否被引用
+     */
+    public boolean references(String fileName, byte[] head) {
+        if (fileNames.contains(fileName.toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        if (buildIds.isEmpty()) {
+            return false;
+        }
+        String buildId = ElfHeaderParser.readBuildId(head);
+        return buildId != null && buildIds.contains(buildId);
+    }
+}
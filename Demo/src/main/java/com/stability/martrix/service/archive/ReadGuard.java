@@ -0,0 +1,33 @@
+package com.stability.martrix.service.archive;
+
+import java.io.InputStream;
+
+/**
+ * 解压读取守卫
+ *
+ * 归档视图与 {@link ArchiveStreams#forEachEntry} 把解压流交给守卫包装，读出的每个解压字节都经过守卫，
+ * 由守卫计入预算、检查压缩比。列出、探测、跳过条目时读出的字节与写盘的字节一样计入
+ */
+@FunctionalInterface
+public interface ReadGuard {
+
+    /**
+     * 不计入任何预算
+     */
+    ReadGuard NONE = (inputStream, compressedSize) -> inputStream;
+
+    /**
+     * 包装解压流
+     *
+     * @param inputStream 解压流，随返回的流一起关闭
+     * @param compressedSize 这段解压内容在归档中的压缩后大小，未知时为 -1
+     * @return 读取时计入预算的流
+     */
+    InputStream guard(InputStream inputStream, long compressedSize);
+
+    /**
+     * 不再读取时归还守卫占用的预算，由持有守卫的视图在关闭时调用
+     */
+    default void release() {
+    }
+}
@@ -0,0 +1,49 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.service.FileProbe;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TAR 归档视图，打开时扫描一遍条目头建立偏移索引，按偏移随机读取条目内容
+ */
+final class TarArchiveView extends ArchiveView {
+
+    private final TarFile tarFile;
+    private final List<TarArchiveEntry> tarEntries = new ArrayList<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    TarArchiveView(Path path, FileProbe fileProbe, ReadGuard readGuard) throws IOException {
+        super(path, fileProbe, readGuard);
+        this.tarFile = new TarFile(path);
+        for (TarArchiveEntry tarEntry : tarFile.getEntries()) {
+            if (tarEntry.isFile()) {
+                entries.add(new Entry(tarEntry.getName(), tarEntry.getSize(), tarEntry.getSize(),
+                    FileTime.from(tarEntry.getModTime().toInstant()), tarEntries.size()));
+                tarEntries.add(tarEntry);
+            }
+        }
+    }
+
+    @Override
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    @Override
+    protected InputStream openEntry(Entry entry) throws IOException {
+        return tarFile.getInputStream(tarEntries.get(entry.index()));
+    }
+
+    @Override
+    protected void closeArchive() throws IOException {
+        tarFile.close();
+    }
+}
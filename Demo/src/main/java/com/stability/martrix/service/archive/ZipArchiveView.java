@@ -0,0 +1,64 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.service.FileProbe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * ZIP 归档视图，读取中央目录列出条目，按条目随机访问
+ */
+final class ZipArchiveView extends ArchiveView {
+
+    private final ZipFile zipFile;
+    private List<ZipEntry> zipEntries;
+    private List<Entry> entries;
+
+    ZipArchiveView(Path path, FileProbe fileProbe, ReadGuard readGuard) throws IOException {
+        super(path, fileProbe, readGuard);
+        this.zipFile = new ZipFile(path.toFile());
+    }
+
+    @Override
+    public List<Entry> entries() {
+        if (entries == null) {
+            zipEntries = new ArrayList<>();
+            entries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry zipEntry = enumeration.nextElement();
+                if (!zipEntry.isDirectory()) {
+                    entries.add(new Entry(zipEntry.getName(), zipEntry.getSize(), zipEntry.getCompressedSize(),
+                        zipEntry.getLastModifiedTime(), zipEntries.size()));
+                    zipEntries.add(zipEntry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * ZipFile 的条目流各自独立，可并发读取
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    protected InputStream openEntry(Entry entry) throws IOException {
+        entries();
+        return zipFile.getInputStream(zipEntries.get(entry.index()));
+    }
+
+    @Override
+    protected void closeArchive() throws IOException {
+        zipFile.close();
+    }
+}
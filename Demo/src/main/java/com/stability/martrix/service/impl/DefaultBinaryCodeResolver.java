@@ -2,13 +2,16 @@ package com.stability.martrix.service.impl;
 
 import com.stability.martrix.dto.CodeLocation;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.register.AArch64Register;
 import com.stability.martrix.service.BinaryCodeResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 /**
- * 二进制代码解析服务默认实现（空实现）
+ * 二进制代码解析服务默认实现
+ * 目前只通过内存映射把栈顶 pc 解析为所在模块及模块内偏移，不解析源码行号
  * TODO: 需要集成LLVM addr2line工具进行实际的地址解析
  */
 @Service
@@ -19,8 +22,25 @@ public class DefaultBinaryCodeResolver implements BinaryCodeResolver {
     @Override
     public CodeLocation resolveTopStackFrame(AArch64Tombstone tombstone) {
         // 示例: addr2line -e library.so -f -C 0x7f8a9b2c4d
-        logger.info("二进制代码解析（空实现）");
-        return null;
+        MemoryMapIndex memoryMapIndex = tombstone.getMemoryMapIndex();
+        Long pc = getPc(tombstone);
+        if (memoryMapIndex == null || pc == null) {
+            logger.info("二进制代码解析：缺少内存映射或 pc，无法解析");
+            return null;
+        }
+
+        int index = memoryMapIndex.indexOf(pc);
+        if (index < 0 || memoryMapIndex.name(index) == null) {
+            logger.info("二进制代码解析：pc 0x{} 不在任何具名映射中", Long.toHexString(pc));
+            return null;
+        }
+
+        // 模块内偏移 = pc - 映射起始地址 + 映射的文件偏移，即 addr2line 所需的地址
+        long relativePc = pc - memoryMapIndex.start(index) + memoryMapIndex.offset(index);
+        CodeLocation codeLocation = new CodeLocation(memoryMapIndex.name(index), 0, getTopSymbol(tombstone));
+        codeLocation.setCodeSnippet("pc 0x" + Long.toHexString(pc) + " 位于 " + memoryMapIndex.name(index)
+            + " + 0x" + Long.toHexString(relativePc) + "（权限 " + memoryMapIndex.permissionString(index) + "）");
+        return codeLocation;
     }
 
     @Override
@@ -32,4 +52,23 @@ public class DefaultBinaryCodeResolver implements BinaryCodeResolver {
     public String readCodeSnippet(String sourceFile, int lineNumber, int contextLines) {
         return "";
     }
+
+    private Long getPc(AArch64Tombstone tombstone) {
+        if (tombstone.getSpecialRegisterInfo() != null && tombstone.getSpecialRegisterInfo().getPc() != null) {
+            return tombstone.getSpecialRegisterInfo().getPc();
+        }
+        if (tombstone.getRegisterDumpInfo() != null && tombstone.getRegisterDumpInfo().has(AArch64Register.PC)) {
+            return tombstone.getRegisterDumpInfo().getPc();
+        }
+        return null;
+    }
+
+    private String getTopSymbol(AArch64Tombstone tombstone) {
+        if (tombstone.getStackDumpInfo() == null
+            || tombstone.getStackDumpInfo().getStackFrames() == null
+            || tombstone.getStackDumpInfo().getStackFrames().isEmpty()) {
+            return null;
+        }
+        return tombstone.getStackDumpInfo().getStackFrames().get(0).getSymbol();
+    }
 }
@@ -0,0 +1,384 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AnrTrace;
+import com.stability.martrix.entity.TroubleEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Android ANR traces 文件解析器
+ *
+ * 解析 /data/anr/traces.txt 与 anr_* 中第一个进程的 Java 线程转储：进程头部、每个线程的状态、
+ * 持有与等待的锁，并构建线程等待图检测死锁（见 {@link WaitForGraph}）
+ *
+ * 逐行读取时只按线程切分分段，不做字段解析；线程分段较多时并行解析，各分段内按行首关键字分派，
+ * 不使用正则。读到第一个进程的 "----- end" 后即停止读取
+ */
+@Component
+public class AndroidAnrTraceParser implements FileParserStrategy {
+
+    /**
+     * 线程数达到该值时并行解析线程分段，线程较少时并行的调度开销大于收益
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private static final String PROCESS_START = "----- pid ";
+    private static final String PROCESS_END = "----- end ";
+    private static final String CMD_LINE = "Cmd line:";
+    private static final String BUILD_FINGERPRINT = "Build fingerprint:";
+    private static final String SUBJECT = "Subject:";
+    private static final String THREADS_START = "DALVIK THREADS";
+
+    private static final String LOCKED = "- locked <";
+    private static final String WAITING_TO_LOCK = "- waiting to lock <";
+    private static final String WAITING_ON = "- waiting on <";
+    private static final String PARKING = "- parking to wait for <";
+    private static final String HELD_BY_THREAD = "held by thread ";
+    private static final String HELD_BY_TID = "held by tid=";
+    private static final String SYS_TID = "sysTid=";
+
+    @Override
+    public String getPlatformName() {
+        return "AndroidANR";
+    }
+
+    @Override
+    public int getPriority() {
+        return 30;
+    }
+
+    @Override
+    public boolean canParse(List<String> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return false;
+        }
+
+        boolean hasProcessStart = false;
+        boolean hasCmdLine = false;
+        for (String line : lines) {
+            if (line.startsWith(PROCESS_START)) {
+                hasProcessStart = true;
+            } else if (line.startsWith(CMD_LINE) || line.startsWith(THREADS_START)) {
+                hasCmdLine = true;
+            }
+        }
+        return hasProcessStart && hasCmdLine;
+    }
+
+    @Override
+    public TroubleEntity parse(List<String> lines) {
+        return parse(lines, ParseProfile.FULL);
+    }
+
+    @Override
+    public TroubleEntity parse(List<String> lines, ParseProfile profile) {
+        if (lines == null || lines.isEmpty()) {
+            return null;
+        }
+
+        TraceReader traceReader = new TraceReader(profile);
+        for (String line : lines) {
+            if (!traceReader.accept(line)) {
+                break;
+            }
+        }
+        return traceReader.finish();
+    }
+
+    @Override
+    public TroubleEntity parse(Reader reader) throws IOException {
+        return parse(reader, ParseProfile.FULL);
+    }
+
+    @Override
+    public TroubleEntity parse(Reader reader, ParseProfile profile) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        TraceReader traceReader = new TraceReader(profile);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (!traceReader.accept(line)) {
+                break;
+            }
+        }
+        return traceReader.finish();
+    }
+
+    @Override
+    public boolean isValid(TroubleEntity entity) {
+        return entity instanceof AnrTrace && entity.getPid() != null;
+    }
+
+    /**
+     * 逐行状态机：解析进程头部，线程部分只按 '"' 开头的线程行和空行切分分段
+     */
+    private static final class TraceReader {
+
+        private enum Section {
+            HEADER,
+            THREADS,
+            DONE
+        }
+
+        private final ParseProfile profile;
+        private final AnrTrace trace = new AnrTrace();
+        private final List<List<String>> threadBlocks = new ArrayList<>();
+        private List<String> currentBlock;
+        private Section section = Section.HEADER;
+
+        private TraceReader(ParseProfile profile) {
+            this.profile = profile;
+        }
+
+        /**
+         * @return 是否还需要后续行
+         */
+        private boolean accept(String line) {
+            switch (section) {
+                case HEADER -> acceptHeader(line);
+                case THREADS -> acceptThreadLine(line);
+                case DONE -> {
+                }
+            }
+            return section != Section.DONE;
+        }
+
+        private void acceptHeader(String line) {
+            if (line.startsWith(PROCESS_START)) {
+                if (trace.getPid() != null) {
+                    // 没有线程部分就进入了下一个进程
+                    section = Section.DONE;
+                    return;
+                }
+                int pidEnd = digitsEnd(line, PROCESS_START.length());
+                trace.setPid(parseInt(line, PROCESS_START.length(), pidEnd));
+                int atIndex = line.indexOf(" at ", pidEnd);
+                int tailIndex = line.lastIndexOf(" -----");
+                if (atIndex >= 0 && tailIndex > atIndex) {
+                    trace.setTimestamp(line.substring(atIndex + 4, tailIndex));
+                }
+            } else if (line.startsWith(CMD_LINE)) {
+                trace.setProcessName(line.substring(CMD_LINE.length()).trim());
+            } else if (line.startsWith(BUILD_FINGERPRINT)) {
+                trace.setVersion(stripQuotes(line.substring(BUILD_FINGERPRINT.length()).trim()));
+            } else if (line.startsWith(SUBJECT)) {
+                trace.setSubject(line.substring(SUBJECT.length()).trim());
+            } else if (line.startsWith(THREADS_START) && trace.getPid() != null) {
+                section = profile == ParseProfile.HEADER_ONLY ? Section.DONE : Section.THREADS;
+            }
+        }
+
+        private void acceptThreadLine(String line) {
+            if (line.startsWith("\"")) {
+                flushBlock();
+                currentBlock = new ArrayList<>();
+                currentBlock.add(line);
+            } else if (line.startsWith(PROCESS_END)) {
+                flushBlock();
+                section = Section.DONE;
+            } else if (line.isBlank()) {
+                flushBlock();
+            } else if (currentBlock != null) {
+                currentBlock.add(line);
+            }
+        }
+
+        private void flushBlock() {
+            if (currentBlock != null) {
+                threadBlocks.add(currentBlock);
+                currentBlock = null;
+            }
+        }
+
+        private AnrTrace finish() {
+            flushBlock();
+            if (trace.getPid() == null) {
+                return null;
+            }
+
+            Stream<List<String>> blocks = threadBlocks.size() >= PARALLEL_THRESHOLD
+                ? threadBlocks.parallelStream()
+                : threadBlocks.stream();
+            List<AnrTrace.JavaThread> threads = blocks.map(AndroidAnrTraceParser::parseThread).toList();
+
+            trace.setThreads(new ArrayList<>(threads));
+            trace.setFirstTid(findMainSysTid(threads));
+            trace.setDeadlocks(WaitForGraph.findDeadlocks(threads));
+            return trace;
+        }
+
+        private Integer findMainSysTid(List<AnrTrace.JavaThread> threads) {
+            for (AnrTrace.JavaThread thread : threads) {
+                if ("main".equals(thread.getName())) {
+                    return thread.getSysTid();
+                }
+            }
+            return threads.isEmpty() ? null : threads.getFirst().getSysTid();
+        }
+    }
+
+    /**
+     * 解析一个线程分段，首行为线程行，如:
+     * "main" prio=5 tid=1 Blocked
+     * "Binder:1234_2" daemon prio=5 tid=12 Native
+     * "HwBinder:1234_1" prio=10 (not attached)
+     */
+    static AnrTrace.JavaThread parseThread(List<String> block) {
+        AnrTrace.JavaThread thread = new AnrTrace.JavaThread();
+        parseThreadHeader(block.getFirst(), thread);
+
+        for (int i = 1; i < block.size(); i++) {
+            String line = block.get(i);
+            int start = skipWhitespace(line, 0);
+            if (start >= line.length()) {
+                continue;
+            }
+            switch (line.charAt(start)) {
+                case '|' -> {
+                    int sysTidIndex = line.indexOf(SYS_TID, start);
+                    if (sysTidIndex >= 0) {
+                        int from = sysTidIndex + SYS_TID.length();
+                        thread.setSysTid(parseInt(line, from, digitsEnd(line, from)));
+                    }
+                }
+                case 'a' -> {
+                    if (line.startsWith("at ", start)) {
+                        thread.getStackFrames().add(line.substring(start + 3));
+                    }
+                }
+                case 'n' -> {
+                    if (line.startsWith("native:", start)) {
+                        thread.getStackFrames().add(line.substring(start));
+                    }
+                }
+                case '-' -> parseMonitorLine(line, start, thread);
+                default -> {
+                }
+            }
+        }
+        return thread;
+    }
+
+    private static void parseThreadHeader(String line, AnrTrace.JavaThread thread) {
+        int nameEnd = line.lastIndexOf('"');
+        if (nameEnd <= 0) {
+            return;
+        }
+        thread.setName(line.substring(1, nameEnd));
+
+        int position = skipWhitespace(line, nameEnd + 1);
+        int length = line.length();
+        while (position < length) {
+            if (line.charAt(position) == '(') {
+                // "(not attached)" 等括号状态一直到行尾
+                thread.setState(line.substring(position).trim());
+                return;
+            }
+            int tokenEnd = tokenEnd(line, position);
+            if (line.startsWith("daemon", position) && tokenEnd - position == 6) {
+                thread.setDaemon(true);
+            } else if (line.startsWith("prio=", position)) {
+                thread.setPriority(parseInt(line, position + 5, tokenEnd));
+            } else if (line.startsWith("tid=", position)) {
+                thread.setTid(parseInt(line, position + 4, tokenEnd));
+            } else if (line.indexOf('=', position) < 0 || line.indexOf('=', position) >= tokenEnd) {
+                thread.setState(line.substring(position, tokenEnd));
+            }
+            position = skipWhitespace(line, tokenEnd);
+        }
+    }
+
+    private static void parseMonitorLine(String line, int start, AnrTrace.JavaThread thread) {
+        if (line.startsWith(LOCKED, start)) {
+            String monitor = monitorAddress(line, start + LOCKED.length());
+            if (monitor != null) {
+                thread.getHeldMonitors().add(monitor);
+            }
+        } else if (line.startsWith(WAITING_TO_LOCK, start)) {
+            thread.setWaitingToLock(monitorAddress(line, start + WAITING_TO_LOCK.length()));
+            thread.setWaitingToLockOwnerTid(parseOwnerTid(line, start));
+        } else if (line.startsWith(WAITING_ON, start)) {
+            thread.setWaitingOn(monitorAddress(line, start + WAITING_ON.length()));
+        } else if (line.startsWith(PARKING, start)) {
+            thread.setParkingOn(monitorAddress(line, start + PARKING.length()));
+        }
+    }
+
+    /**
+     * 解析 "held by thread 23" 或 "held by tid=23 (Thread-2)" 中的 tid
+     */
+    private static Integer parseOwnerTid(String line, int from) {
+        int index = line.indexOf(HELD_BY_THREAD, from);
+        int digitsStart;
+        if (index >= 0) {
+            digitsStart = index + HELD_BY_THREAD.length();
+        } else {
+            index = line.indexOf(HELD_BY_TID, from);
+            if (index < 0) {
+                return null;
+            }
+            digitsStart = index + HELD_BY_TID.length();
+        }
+        return parseInt(line, digitsStart, digitsEnd(line, digitsStart));
+    }
+
+    /**
+     * @param from '<' 之后的位置
+     * @return '<' 与 '>' 之间的锁地址
+     */
+    private static String monitorAddress(String line, int from) {
+        int end = line.indexOf('>', from);
+        return end > from ? line.substring(from, end) : null;
+    }
+
+    private static String stripQuotes(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '\'' && value.charAt(value.length() - 1) == '\'') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static Integer parseInt(String line, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return null;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int digitsEnd(String line, int from) {
+        int i = from;
+        while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String line, int from) {
+        int i = from;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tokenEnd(String line, int from) {
+        int i = from;
+        while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,548 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
+import com.stability.martrix.enums.CPUArchitecture;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Android protobuf tombstone（/data/tombstones/tombstone_NN.pb）解析器
+ *
+ * 按 AOSP system/core/debuggerd/proto/tombstone.proto 的字段号直接解码二进制内容，
+ * 结果与文本 tombstone 解析得到的 {@link AArch64Tombstone} 字段一致，不经过字符集识别与按行切分。
+ * 文件通过内存映射读取；档位不需要的字段（线程、内存映射、打开的文件、日志）只按长度跳过，不解码
+ *
+ * 二进制内容无法按行判定，canParse 始终返回 false，由 FileTypeDetector 按文件头路由到这里
+ */
+@Component
+public class AndroidProtoTombstoneParser implements FileParserStrategy {
+
+    private static final Logger logger = Logger.getLogger(AndroidProtoTombstoneParser.class.getName());
+
+    // Tombstone
+    private static final int TOMBSTONE_ARCH = 1;
+    private static final int TOMBSTONE_BUILD_FINGERPRINT = 2;
+    private static final int TOMBSTONE_PID = 5;
+    private static final int TOMBSTONE_TID = 6;
+    private static final int TOMBSTONE_COMMAND_LINE = 9;
+    private static final int TOMBSTONE_SIGNAL_INFO = 10;
+    private static final int TOMBSTONE_THREADS = 16;
+    private static final int TOMBSTONE_MEMORY_MAPPINGS = 17;
+    private static final int TOMBSTONE_LOG_BUFFERS = 18;
+    private static final int TOMBSTONE_OPEN_FDS = 19;
+
+    // Signal
+    private static final int SIGNAL_NUMBER = 1;
+    private static final int SIGNAL_NAME = 2;
+    private static final int SIGNAL_CODE_NAME = 4;
+    private static final int SIGNAL_HAS_SENDER = 5;
+    private static final int SIGNAL_SENDER_UID = 6;
+    private static final int SIGNAL_SENDER_PID = 7;
+    private static final int SIGNAL_HAS_FAULT_ADDRESS = 8;
+    private static final int SIGNAL_FAULT_ADDRESS = 9;
+
+    // map<uint32, Thread> 的条目
+    private static final int MAP_KEY = 1;
+    private static final int MAP_VALUE = 2;
+
+    // Thread
+    private static final int THREAD_ID = 1;
+    private static final int THREAD_NAME = 2;
+    private static final int THREAD_REGISTERS = 3;
+    private static final int THREAD_CURRENT_BACKTRACE = 4;
+    private static final int THREAD_MEMORY_DUMP = 5;
+
+    // Register
+    private static final int REGISTER_NAME = 1;
+    private static final int REGISTER_U64 = 2;
+
+    // BacktraceFrame
+    private static final int FRAME_REL_PC = 1;
+    private static final int FRAME_FUNCTION_NAME = 4;
+    private static final int FRAME_FUNCTION_OFFSET = 5;
+    private static final int FRAME_FILE_NAME = 6;
+    private static final int FRAME_BUILD_ID = 8;
+
+    // MemoryDump
+    private static final int DUMP_REGISTER_NAME = 1;
+    private static final int DUMP_MAPPING_NAME = 2;
+    private static final int DUMP_BEGIN_ADDRESS = 3;
+    private static final int DUMP_MEMORY = 4;
+
+    // MemoryMapping
+    private static final int MAPPING_BEGIN_ADDRESS = 1;
+    private static final int MAPPING_END_ADDRESS = 2;
+    private static final int MAPPING_OFFSET = 3;
+    private static final int MAPPING_READ = 4;
+    private static final int MAPPING_WRITE = 5;
+    private static final int MAPPING_EXECUTE = 6;
+    private static final int MAPPING_NAME = 7;
+
+    // LogBuffer / LogMessage
+    private static final int LOG_BUFFER_NAME = 1;
+    private static final int LOG_BUFFER_LOGS = 2;
+    private static final int LOG_TIMESTAMP = 1;
+    private static final int LOG_PID = 2;
+    private static final int LOG_TID = 3;
+    private static final int LOG_PRIORITY = 4;
+    private static final int LOG_TAG = 5;
+    private static final int LOG_MESSAGE = 6;
+
+    // FD
+    private static final int FD_FD = 1;
+    private static final int FD_PATH = 2;
+    private static final int FD_OWNER = 3;
+    private static final int FD_TAG = 4;
+
+    @Override
+    public String getPlatformName() {
+        return "AndroidProto";
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public boolean canParse(List<String> lines) {
+        return false;
+    }
+
+    @Override
+    public TroubleEntity parse(List<String> lines) {
+        return null;
+    }
+
+    @Override
+    public TroubleEntity parse(Reader reader) {
+        return null;
+    }
+
+    /**
+     * 内存映射文件并解码
+     *
+     * @param filePath .pb 文件路径
+     * @param profile 解析档位
+     * @return 解析后的 tombstone，内容不是合法的 protobuf 时返回 null
+     * @throws IOException 无法打开或映射文件
+     */
+    public AArch64Tombstone parse(Path filePath, ParseProfile profile) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), profile);
+        }
+    }
+
+    /**
+     * 解码 protobuf tombstone
+     *
+     * @param buffer 从 position 到 limit 为完整的 Tombstone 消息，不会修改其 position
+     * @param profile 解析档位
+     * @return 解析后的 tombstone，内容不是合法的 protobuf 时返回 null
+     */
+    public AArch64Tombstone parse(ByteBuffer buffer, ParseProfile profile) {
+        ParseProfile effectiveProfile = profile == null ? ParseProfile.FULL : profile;
+        try {
+            return decodeTombstone(new ProtoReader(buffer), effectiveProfile);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+            logger.log(Level.WARNING, "protobuf tombstone 解码失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isValid(TroubleEntity entity) {
+        return entity instanceof AArch64Tombstone tombstone
+            && (tombstone.getPid() != null || tombstone.getSignalInfo() != null);
+    }
+
+    private AArch64Tombstone decodeTombstone(ProtoReader reader, ParseProfile profile) {
+        boolean crashThread = profile != ParseProfile.HEADER_ONLY;
+        boolean crashContext = profile != ParseProfile.HEADER_ONLY && profile != ParseProfile.CRASH_THREAD;
+        boolean logs = profile == ParseProfile.CRASH_LOG || profile == ParseProfile.FULL;
+        boolean full = profile == ParseProfile.FULL;
+
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        List<String> commandLine = new ArrayList<>();
+        List<ByteBuffer> threadEntries = new ArrayList<>();
+        List<ByteBuffer> logBuffers = new ArrayList<>();
+        MemoryMapIndex.Builder memoryMapBuilder = crashContext ? new MemoryMapIndex.Builder() : null;
+        MappingNameCache mappingNames = new MappingNameCache();
+        List<AArch64Tombstone.FdInfo> fdInfos = new ArrayList<>();
+
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case TOMBSTONE_ARCH -> tombstone.setCpuArchitecture(toArchitecture(reader.readInt()));
+                case TOMBSTONE_BUILD_FINGERPRINT -> tombstone.setVersion(reader.readString());
+                case TOMBSTONE_PID -> tombstone.setPid(reader.readInt());
+                case TOMBSTONE_TID -> tombstone.setFirstTid(reader.readInt());
+                case TOMBSTONE_COMMAND_LINE -> commandLine.add(reader.readString());
+                case TOMBSTONE_SIGNAL_INFO -> tombstone.setSignalInfo(decodeSignal(reader.readMessage()));
+                case TOMBSTONE_THREADS -> {
+                    if (crashThread) {
+                        threadEntries.add(reader.readBytes());
+                    } else {
+                        reader.skip();
+                    }
+                }
+                case TOMBSTONE_MEMORY_MAPPINGS -> {
+                    if (crashContext) {
+                        decodeMapping(reader.readMessage(), memoryMapBuilder, mappingNames);
+                    } else {
+                        reader.skip();
+                    }
+                }
+                case TOMBSTONE_LOG_BUFFERS -> {
+                    if (logs) {
+                        logBuffers.add(reader.readBytes());
+                    } else {
+                        reader.skip();
+                    }
+                }
+                case TOMBSTONE_OPEN_FDS -> {
+                    if (full) {
+                        fdInfos.add(decodeFd(reader.readMessage()));
+                    } else {
+                        reader.skip();
+                    }
+                }
+                default -> reader.skip();
+            }
+        }
+
+        if (!commandLine.isEmpty()) {
+            // 与文本 tombstone 的 "Cmdline:" 一致，参数以空格拼接
+            tombstone.setProcessName(String.join(" ", commandLine));
+        }
+        if (memoryMapBuilder != null && !memoryMapBuilder.isEmpty()) {
+            tombstone.setMemoryMapIndex(memoryMapBuilder.build());
+        }
+        if (!fdInfos.isEmpty()) {
+            tombstone.setFdInfo(fdInfos);
+        }
+        decodeThreads(tombstone, threadEntries, crashContext, full);
+        if (!logBuffers.isEmpty()) {
+            // 崩溃线程 tid 可能在日志之后才出现，因此日志在整个消息读完后再解码
+            ThreadLogTails logTails = new ThreadLogTails(tombstone.getFirstTid());
+            for (ByteBuffer logBuffer : logBuffers) {
+                decodeLogBuffer(new ProtoReader(logBuffer), logTails);
+            }
+            logTails.attachTo(tombstone);
+        }
+        return tombstone;
+    }
+
+    /**
+     * 日志逐条写入环形缓冲区，不保留整个缓冲区的消息列表；name 按字段号顺序出现在日志之前
+     */
+    private void decodeLogBuffer(ProtoReader reader, ThreadLogTails logTails) {
+        String name = null;
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case LOG_BUFFER_NAME -> name = reader.readString();
+                case LOG_BUFFER_LOGS -> logTails.accept(decodeLogMessage(reader.readMessage(), name));
+                default -> reader.skip();
+            }
+        }
+    }
+
+    private AArch64Tombstone.LogLine decodeLogMessage(ProtoReader reader, String buffer) {
+        AArch64Tombstone.LogLine logLine = new AArch64Tombstone.LogLine();
+        logLine.setBuffer(buffer);
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case LOG_TIMESTAMP -> logLine.setTimestamp(reader.readString());
+                case LOG_PID -> logLine.setPid(reader.readInt());
+                case LOG_TID -> logLine.setTid(reader.readInt());
+                case LOG_PRIORITY -> logLine.setPriority(ThreadLogTails.priorityName(reader.readInt()));
+                case LOG_TAG -> logLine.setTag(reader.readString());
+                case LOG_MESSAGE -> logLine.setMessage(reader.readString());
+                default -> reader.skip();
+            }
+        }
+        return logLine;
+    }
+
+    /**
+     * 线程以 map 存储，顺序不确定；崩溃线程放在列表第一个，其余线程只在 FULL 档位解码
+     */
+    private void decodeThreads(AArch64Tombstone tombstone, List<ByteBuffer> threadEntries,
+                               boolean withMemoryDump, boolean allThreads) {
+        if (threadEntries.isEmpty()) {
+            return;
+        }
+        Integer crashTid = tombstone.getFirstTid();
+        AArch64Tombstone.ThreadInfo crashThread = null;
+        List<AArch64Tombstone.ThreadInfo> otherThreads = new ArrayList<>();
+        for (ByteBuffer entry : threadEntries) {
+            ProtoReader entryReader = new ProtoReader(entry);
+            Integer key = null;
+            ByteBuffer value = null;
+            while (entryReader.next()) {
+                switch (entryReader.fieldNumber()) {
+                    case MAP_KEY -> key = entryReader.readInt();
+                    case MAP_VALUE -> value = entryReader.readBytes();
+                    default -> entryReader.skip();
+                }
+            }
+            if (value == null) {
+                continue;
+            }
+            boolean isCrashThread = crashThread == null && key != null && key.equals(crashTid);
+            if (isCrashThread) {
+                crashThread = decodeThread(new ProtoReader(value), withMemoryDump ? tombstone : null);
+            } else if (allThreads) {
+                otherThreads.add(decodeThread(new ProtoReader(value), null));
+            }
+        }
+
+        List<AArch64Tombstone.ThreadInfo> threads = new ArrayList<>(otherThreads.size() + 1);
+        if (crashThread != null) {
+            tombstone.setRegisterDumpInfo(crashThread.getRegisterDumpInfo());
+            tombstone.setSpecialRegisterInfo(crashThread.getSpecialRegisterInfo());
+            tombstone.setStackDumpInfo(crashThread.getStackDumpInfo());
+            threads.add(crashThread);
+        }
+        threads.addAll(otherThreads);
+        if (!threads.isEmpty()) {
+            tombstone.setThreadInfoList(threads);
+        }
+    }
+
+    /**
+     * @param memoryNearTarget 不为 null 时把线程的内存快照写入其 memoryNear
+     */
+    private AArch64Tombstone.ThreadInfo decodeThread(ProtoReader reader, AArch64Tombstone memoryNearTarget) {
+        AArch64Tombstone.ThreadInfo thread = new AArch64Tombstone.ThreadInfo();
+        AArch64RegisterDumpInfo registers = null;
+        Long lr = null, sp = null, pc = null, pst = null;
+        List<AArch64Tombstone.StackDumpInfo.StackFrame> frames = null;
+
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case THREAD_ID -> thread.setTid(reader.readInt());
+                case THREAD_NAME -> thread.setName(reader.readString());
+                case THREAD_REGISTERS -> {
+                    if (registers == null) {
+                        registers = new AArch64RegisterDumpInfo();
+                    }
+                    ProtoReader registerReader = reader.readMessage();
+                    String name = null;
+                    long value = 0;
+                    while (registerReader.next()) {
+                        switch (registerReader.fieldNumber()) {
+                            case REGISTER_NAME -> name = registerReader.readString();
+                            case REGISTER_U64 -> value = registerReader.readVarint();
+                            default -> registerReader.skip();
+                        }
+                    }
+                    if (name == null) {
+                        continue;
+                    }
+                    registers.set(name, 0, name.length(), value);
+                    switch (name) {
+                        case "lr" -> lr = value;
+                        case "sp" -> sp = value;
+                        case "pc" -> pc = value;
+                        case "pst" -> pst = value;
+                        default -> {
+                        }
+                    }
+                }
+                case THREAD_CURRENT_BACKTRACE -> {
+                    if (frames == null) {
+                        frames = new ArrayList<>();
+                    }
+                    frames.add(decodeFrame(reader.readMessage(), frames.size()));
+                }
+                case THREAD_MEMORY_DUMP -> {
+                    if (memoryNearTarget != null) {
+                        MemorySnapshot snapshot = decodeMemoryDump(reader.readMessage());
+                        if (memoryNearTarget.getMemoryNear() == null) {
+                            memoryNearTarget.setMemoryNear(new LinkedHashMap<>());
+                        }
+                        memoryNearTarget.getMemoryNear().putIfAbsent(snapshot.getRegister(), snapshot);
+                    } else {
+                        reader.skip();
+                    }
+                }
+                default -> reader.skip();
+            }
+        }
+
+        thread.setRegisterDumpInfo(registers);
+        if (lr != null || sp != null || pc != null || pst != null) {
+            thread.setSpecialRegisterInfo(new AArch64Tombstone.SpecialRegisterInfo(lr, sp, pc, pst));
+        }
+        if (frames != null) {
+            AArch64Tombstone.StackDumpInfo stackDumpInfo = new AArch64Tombstone.StackDumpInfo();
+            stackDumpInfo.setStackFrames(frames);
+            thread.setStackDumpInfo(stackDumpInfo);
+        }
+        return thread;
+    }
+
+    private AArch64Tombstone.StackDumpInfo.StackFrame decodeFrame(ProtoReader reader, int index) {
+        long relPc = 0;
+        String functionName = null;
+        long functionOffset = 0;
+        String fileName = null;
+        String buildId = null;
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case FRAME_REL_PC -> relPc = reader.readVarint();
+                case FRAME_FUNCTION_NAME -> functionName = emptyToNull(reader.readString());
+                case FRAME_FUNCTION_OFFSET -> functionOffset = reader.readVarint();
+                case FRAME_FILE_NAME -> fileName = emptyToNull(reader.readString());
+                case FRAME_BUILD_ID -> buildId = emptyToNull(reader.readString());
+                default -> reader.skip();
+            }
+        }
+        return new AArch64Tombstone.StackDumpInfo.StackFrame(
+            functionName != null ? functionOffset : null,
+            functionName,
+            fileName,
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.OFFSET,
+            relPc,
+            index,
+            buildId
+        );
+    }
+
+    private AArch64Tombstone.SignalInfo decodeSignal(ProtoReader reader) {
+        AArch64Tombstone.SignalInfo signalInfo = new AArch64Tombstone.SignalInfo();
+        boolean hasSender = false;
+        boolean hasFaultAddress = false;
+        int senderUid = 0;
+        int senderPid = 0;
+        long faultAddress = 0;
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case SIGNAL_NUMBER -> signalInfo.setSigNumber(reader.readInt());
+                case SIGNAL_NAME -> signalInfo.setSigInformation(reader.readString());
+                case SIGNAL_CODE_NAME -> signalInfo.setTroubleInformation(reader.readString());
+                case SIGNAL_HAS_SENDER -> hasSender = reader.readBool();
+                case SIGNAL_SENDER_UID -> senderUid = reader.readInt();
+                case SIGNAL_SENDER_PID -> senderPid = reader.readInt();
+                case SIGNAL_HAS_FAULT_ADDRESS -> hasFaultAddress = reader.readBool();
+                case SIGNAL_FAULT_ADDRESS -> faultAddress = reader.readVarint();
+                default -> reader.skip();
+            }
+        }
+        if (hasSender) {
+            signalInfo.setFromPid(senderPid);
+            signalInfo.setFromUid(senderUid);
+        }
+        if (hasFaultAddress) {
+            signalInfo.setFaultAddress(faultAddress);
+        }
+        return signalInfo;
+    }
+
+    private MemorySnapshot decodeMemoryDump(ProtoReader reader) {
+        String registerName = null;
+        String mappingName = null;
+        long beginAddress = 0;
+        ByteBuffer memory = ByteBuffer.allocate(0);
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case DUMP_REGISTER_NAME -> registerName = reader.readString();
+                case DUMP_MAPPING_NAME -> mappingName = emptyToNull(reader.readString());
+                case DUMP_BEGIN_ADDRESS -> beginAddress = reader.readVarint();
+                case DUMP_MEMORY -> memory = reader.readBytes();
+                default -> reader.skip();
+            }
+        }
+        return MemorySnapshot.fromBytes(registerName, mappingName, beginAddress, memory);
+    }
+
+    /**
+     * protobuf 中的结束地址为开区间，与索引约定一致；文本格式没有 p/s 标记，这里同样不写入
+     */
+    private void decodeMapping(ProtoReader reader, MemoryMapIndex.Builder builder, MappingNameCache names) {
+        long begin = 0;
+        long end = 0;
+        long offset = 0;
+        byte permission = 0;
+        String name = null;
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case MAPPING_BEGIN_ADDRESS -> begin = reader.readVarint();
+                case MAPPING_END_ADDRESS -> end = reader.readVarint();
+                case MAPPING_OFFSET -> offset = reader.readVarint();
+                case MAPPING_READ -> permission |= reader.readBool() ? MemoryMapIndex.PERM_READ : 0;
+                case MAPPING_WRITE -> permission |= reader.readBool() ? MemoryMapIndex.PERM_WRITE : 0;
+                case MAPPING_EXECUTE -> permission |= reader.readBool() ? MemoryMapIndex.PERM_EXEC : 0;
+                case MAPPING_NAME -> name = names.decode(reader.readBytes());
+                default -> reader.skip();
+            }
+        }
+        builder.add(begin, end, offset, permission, name);
+    }
+
+    private AArch64Tombstone.FdInfo decodeFd(ProtoReader reader) {
+        int fd = 0;
+        String path = null;
+        String owner = null;
+        long tag = 0;
+        while (reader.next()) {
+            switch (reader.fieldNumber()) {
+                case FD_FD -> fd = reader.readInt();
+                case FD_PATH -> path = reader.readString();
+                case FD_OWNER -> owner = emptyToNull(reader.readString());
+                case FD_TAG -> tag = reader.readVarint();
+                default -> reader.skip();
+            }
+        }
+        // 文本格式中无 owner 的描述符显示为 "(unowned)"，对应 fdsanInfo 为 null
+        return new AArch64Tombstone.FdInfo(fd, path,
+            owner != null ? new AArch64Tombstone.FdInfo.FdsanInfo(owner, tag) : null);
+    }
+
+    /**
+     * 同一个库的各个段在 memory_mappings 中相邻出现，名称字节与上一条相同时直接复用已解码的字符串
+     */
+    private static final class MappingNameCache {
+        private ByteBuffer lastBytes;
+        private String lastName;
+
+        String decode(ByteBuffer bytes) {
+            if (!bytes.equals(lastBytes)) {
+                lastBytes = bytes;
+                lastName = ProtoReader.decodeString(bytes);
+            }
+            return lastName;
+        }
+    }
+
+    private static CPUArchitecture toArchitecture(int arch) {
+        return switch (arch) {
+            case 0 -> CPUArchitecture.ARM;
+            case 1 -> CPUArchitecture.ARM64;
+            case 2 -> CPUArchitecture.X86;
+            case 3 -> CPUArchitecture.X86_64;
+            case 4 -> CPUArchitecture.RISC_V;
+            default -> null;
+        };
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,166 @@
+package com.stability.martrix.service.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按候选编码依次回退的增量解码字符流
+ *
+ * 以第一个候选编码边读边解码，只持有定长的字节与字符缓冲区，不把整个文件读入内存。遇到非法字节序列时，
+ * 如果此前解码出的内容全部是 ASCII 且前后两个编码都兼容 ASCII（UTF-8、GB18030、GBK），
+ * 已输出的字符在两种编码下完全相同，直接从出错位置换用下一个候选编码继续解码，不重新解码任何字节；
+ * 否则抛出 {@link CharacterCodingException}，由调用方通过 {@link #charset()} 得知失败的编码，
+ * 改用后续候选编码重新读取
+ */
+final class FallbackDecodingReader extends Reader {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] ASCII_PROBE = {'A', 'z', '0', ':', '\n'};
+
+    private final InputStream inputStream;
+    private final List<Charset> candidates;
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final CharBuffer output = CharBuffer.allocate(BUFFER_SIZE).flip();
+    private int candidateIndex;
+    private CharsetDecoder decoder;
+    private boolean asciiOnly = true;
+    private boolean endOfInput;
+    private boolean finished;
+
+    /**
+     * @param inputStream 原始字节流，随本字符流一起关闭
+     * @param candidates 按可能性排序的候选编码，不能为空
+     */
+    FallbackDecodingReader(InputStream inputStream, List<Charset> candidates) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("候选编码为空");
+        }
+        this.inputStream = inputStream;
+        this.candidates = candidates;
+        this.decoder = newDecoder(candidates.getFirst());
+    }
+
+    /**
+     * @return 当前使用的编码；解码失败抛出异常后为失败的编码
+     */
+    Charset charset() {
+        return candidates.get(candidateIndex);
+    }
+
+    /**
+     * 判断编码对 ASCII 字节的解释是否与 ASCII 相同，UTF-16 等多字节编码单元的编码不满足
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return Arrays.equals(ASCII_PROBE, new String(ASCII_PROBE, charset).getBytes(charset))
+            && new String(ASCII_PROBE, charset).length() == ASCII_PROBE.length;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!output.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int count = Math.min(len, output.remaining());
+        output.get(cbuf, off, count);
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    /**
+     * 解码出至少一个字符
+     *
+     * @return false 表示已到流末尾
+     */
+    private boolean fill() throws IOException {
+        output.clear();
+        try {
+            while (output.position() == 0 && !finished) {
+                if (!endOfInput && input.remaining() < BUFFER_SIZE / 2) {
+                    readInput();
+                }
+                int start = output.position();
+                CoderResult result = decoder.decode(input, output, endOfInput);
+                checkDecoded(start);
+                if (result.isError()) {
+                    switchCharset(result);
+                } else if (endOfInput && !input.hasRemaining()) {
+                    result = decoder.flush(output);
+                    if (result.isError()) {
+                        switchCharset(result);
+                    } else {
+                        finished = true;
+                    }
+                }
+            }
+        } finally {
+            output.flip();
+        }
+        return output.hasRemaining();
+    }
+
+    private void readInput() throws IOException {
+        input.compact();
+        int read = inputStream.read(input.array(), input.position(), input.remaining());
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            input.position(input.position() + read);
+        }
+        input.flip();
+    }
+
+    /**
+     * 检查新解码出的字符：出现 NUL 说明编码猜错；记录是否仍然全部是 ASCII
+     */
+    private void checkDecoded(int start) throws CharacterCodingException {
+        for (int i = start; i < output.position(); i++) {
+            char c = output.get(i);
+            if (c == '\u0000') {
+                throw new CharacterCodingException();
+            }
+            if (c >= 0x80) {
+                asciiOnly = false;
+            }
+        }
+    }
+
+    /**
+     * 当前编码在 input 当前位置遇到非法序列，能无损切换时换用下一个候选编码，否则抛出异常
+     */
+    private void switchCharset(CoderResult result) throws CharacterCodingException {
+        Charset failed = charset();
+        if (!asciiOnly || candidateIndex + 1 >= candidates.size() || !isAsciiCompatible(failed)) {
+            throw new MalformedInputException(result.length());
+        }
+        Charset next = candidates.get(candidateIndex + 1);
+        if (!isAsciiCompatible(next)) {
+            throw new MalformedInputException(result.length());
+        }
+        candidateIndex++;
+        decoder = newDecoder(next);
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+}
@@ -2,23 +2,27 @@ package com.stability.martrix.service.parser;
 
 import com.stability.martrix.config.ParserProperties;
 import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.FileProbe;
+import com.stability.martrix.util.FileTypeDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
-import java.nio.ByteBuffer;
+import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,28 +35,56 @@ import java.util.stream.Collectors;
  * 根据配置选择合适的解析器
  * 支持多平台文件解析（Android、OpenHarmony等）
  *
- * 解析器在项目启动时通过配置指定，无需运行时判断
+ * 解析器在项目启动时通过配置指定；配置为 {@value ParserProperties#PLATFORM_AUTO} 时进入路由模式，
+ * 每个文件只读取一次前缀，按优先级依次交给所有已注册解析器的 canParse 判定，由第一个匹配的解析器处理
  */
 @Component
 public class FileParserFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(FileParserFactory.class);
-    private static final int TEXT_SAMPLE_SIZE = 4096;
-    private static final double UTF16_ZERO_RATIO_THRESHOLD = 0.3;
-    private static final double UTF16_ASCII_RATIO_THRESHOLD = 0.5;
-    private static final double CONTROL_CHAR_RATIO_THRESHOLD = 0.05;
-    private static final double ASCII_TEXT_RATIO_THRESHOLD = 0.2;
+    private static final int CAN_PARSE_PREFIX_LINES = 50;
+    /**
+     * 判定前缀最多读取的字符数，同时是 mark 的回退上限，超长行被截断，不会使 reset 失效；
+     * 50 行日志通常只有几 KB，BufferedReader 只在前缀超过默认缓冲区时才按该上限扩容
+     */
+    private static final int CAN_PARSE_PREFIX_CHARS = 32 * 1024;
+    /**
+     * 读取前缀的初始缓冲区大小，读满后按倍数扩大到 {@link #CAN_PARSE_PREFIX_CHARS}
+     */
+    private static final int CAN_PARSE_PREFIX_CHUNK = 4 * 1024;
 
+    private final FileProbe fileProbe;
     private final FileParserStrategy parser;
     private final Map<String, FileParserStrategy> parserMap;
+    /**
+     * 路由模式下按优先级排序的候选解析器，固定平台时为 null
+     */
+    private final List<FileParserStrategy> routingParsers;
+    /**
+     * 固定平台时的候选解析器：配置的解析器在前，其后是同一平台的其他格式解析器（如 Android 的 ANR traces）
+     */
+    private final List<FileParserStrategy> platformParsers;
 
     /**
-     * 构造函数 - 根据配置选择解析器
+     * 构造函数 - 根据配置选择解析器，使用独立的文件头探测缓存
      *
      * @param parsers 所有可用的解析器
      * @param properties 解析器配置属性
      */
     public FileParserFactory(List<FileParserStrategy> parsers, ParserProperties properties) {
+        this(parsers, properties, new FileProbe());
+    }
+
+    /**
+     * 构造函数 - 根据配置选择解析器
+     *
+     * @param parsers 所有可用的解析器
+     * @param properties 解析器配置属性
+     * @param fileProbe 与其他阶段共用的文件头探测
+     */
+    @Autowired
+    public FileParserFactory(List<FileParserStrategy> parsers, ParserProperties properties, FileProbe fileProbe) {
+        this.fileProbe = fileProbe;
         // 构建平台名称到解析器的映射
         this.parserMap = parsers.stream()
             .collect(Collectors.toMap(
@@ -63,11 +95,37 @@ public class FileParserFactory {
 
         // 根据配置选择解析器
         String configuredPlatform = properties.getPlatform().toLowerCase();
-        this.parser = selectParser(configuredPlatform);
+        if (ParserProperties.PLATFORM_AUTO.equals(configuredPlatform)) {
+            if (parserMap.isEmpty()) {
+                throw new IllegalStateException("没有可用的文件解析器");
+            }
+            this.parser = null;
+            this.platformParsers = null;
+            this.routingParsers = parserMap.values().stream()
+                .sorted(Comparator.comparingInt(FileParserStrategy::getPriority)
+                    .thenComparing(FileParserStrategy::getPlatformName))
+                .toList();
+            logger.info("文件解析器初始化完成 - 路由模式，候选解析器: {}",
+                routingParsers.stream().map(FileParserStrategy::getPlatformName).toList());
+            return;
+        }
+
+        this.parser = selectConfiguredParser(configuredPlatform);
+        this.routingParsers = null;
+        String platformPrefix = parser.getPlatformName().toLowerCase();
+        List<FileParserStrategy> companions = parserMap.values().stream()
+            .filter(p -> p != parser && p.getPlatformName().toLowerCase().startsWith(platformPrefix))
+            .sorted(Comparator.comparingInt(FileParserStrategy::getPriority)
+                .thenComparing(FileParserStrategy::getPlatformName))
+            .toList();
+        List<FileParserStrategy> candidates = new ArrayList<>(companions.size() + 1);
+        candidates.add(parser);
+        candidates.addAll(companions);
+        this.platformParsers = List.copyOf(candidates);
 
         logger.info("文件解析器初始化完成 - 配置平台: {}, 实际使用: {}, 可用解析器: {}",
             configuredPlatform,
-            parser.getPlatformName(),
+            platformParsers.stream().map(FileParserStrategy::getPlatformName).toList(),
             parserMap.keySet()
         );
     }
@@ -75,7 +133,7 @@ public class FileParserFactory {
     /**
      * 根据配置选择解析器
      */
-    private FileParserStrategy selectParser(String platform) {
+    private FileParserStrategy selectConfiguredParser(String platform) {
         FileParserStrategy selected = parserMap.get(platform);
 
         if (selected == null) {
@@ -101,28 +159,41 @@ public class FileParserFactory {
      * @return 解析后的 TroubleEntity 对象，解析失败返回 null
      */
     public TroubleEntity parseLines(List<String> lines) {
+        return parseLines(lines, ParseProfile.FULL);
+    }
+
+    /**
+     * 按解析档位解析文件内容
+     *
+     * @param lines 文件内容的行列表
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，解析失败返回 null
+     */
+    public TroubleEntity parseLines(List<String> lines, ParseProfile profile) {
         if (lines == null || lines.isEmpty()) {
             return null;
         }
 
-        logger.debug("使用 {} 解析器处理文件", parser.getPlatformName());
+        FileParserStrategy selected = selectParser(lines.size() > CAN_PARSE_PREFIX_LINES
+            ? lines.subList(0, CAN_PARSE_PREFIX_LINES)
+            : lines);
+        if (selected == null) {
+            return null;
+        }
+
+        logger.debug("使用 {} 解析器处理文件", selected.getPlatformName());
 
         try {
-            if (!parser.canParse(lines)) {
-                logger.debug("{} 解析器判定当前内容不匹配", parser.getPlatformName());
-                return null;
-            }
-
-            TroubleEntity entity = parser.parse(lines);
-            if (entity != null && parser.isValid(entity)) {
+            TroubleEntity entity = selected.parse(lines, profile);
+            if (entity != null && selected.isValid(entity)) {
                 return entity;
             }
         } catch (Exception e) {
-            logger.error("{} 解析器处理内容失败", parser.getPlatformName(), e);
+            logger.error("{} 解析器处理内容失败", selected.getPlatformName(), e);
             return null;
         }
 
-        logger.warn("{} 解析器解析结果无效", parser.getPlatformName());
+        logger.warn("{} 解析器解析结果无效", selected.getPlatformName());
         return null;
     }
 
@@ -139,8 +210,7 @@ public class FileParserFactory {
         }
 
         try {
-            List<String> lines = readFileLines(filePath);
-            return parseLines(lines);
+            return streamParseFile(filePath);
         } catch (IOException e) {
             logger.error("读取文件失败: {}", filePath, e);
             return null;
@@ -148,227 +218,345 @@ public class FileParserFactory {
     }
 
     /**
-     * 读取文件内容并解码为行列表
+     * 流式解析文件
+     *
+     * 仅读取文件头部推断编码，随后边解码边解析，不把整个文件读入内存；
+     * 推断的编码在中途解码失败时回退到逐个候选编码整体解码
      *
      * @param filePath 文件路径
-     * @return 文件内容的行列表
-     * @throws IOException 文件读取或解码失败
+     * @return 解析后的 TroubleEntity 对象，内容不匹配或解析失败返回 null
+     * @throws IOException 文件读取失败、不是文本文件或无法识别编码
      */
-    public List<String> readFileLines(Path filePath) throws IOException {
+    public TroubleEntity streamParseFile(Path filePath) throws IOException {
+        return streamParseFile(filePath, ParseProfile.FULL);
+    }
+
+    /**
+     * 按解析档位流式解析文件，所需分段解析完成后即关闭文件，不再读取剩余内容
+     *
+     * @param filePath 文件路径
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，内容不匹配或解析失败返回 null
+     * @throws IOException 文件读取失败、不是文本文件或无法识别编码
+     */
+    public TroubleEntity streamParseFile(Path filePath, ParseProfile profile) throws IOException {
         if (filePath == null) {
             throw new IOException("文件路径为空，无法读取");
         }
-        return readLinesWithFallback(filePath);
+
+        FileProbe.ProbeResult probe = fileProbe.probe(filePath);
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            return parseStream(inputStream, probe, profile);
+        } catch (CharacterCodingException e) {
+            logger.debug("流式读取文件 {} 失败，回退到整体解码", filePath, e);
+        }
+
+        return parseLines(readFileLines(filePath), profile);
     }
 
     /**
-     * 获取当前使用的解析器
+     * 把已确定格式、直接交给特定解析器的字节流包装为增量解码的字符流
+     * 只读取流的头部推断候选编码，随后按候选编码依次回退边读边解码
      *
-     * @return 当前解析器
+     * @param inputStream 文件内容字节流，随返回的字符流一起关闭
+     * @return 字符流，内容为空时立即结束
+     * @throws IOException 读取失败或不是文本内容
      */
-    public FileParserStrategy getCurrentParser() {
-        return parser;
+    public Reader openReader(InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedStream = inputStream instanceof BufferedInputStream bis
+            ? bis
+            : new BufferedInputStream(inputStream);
+        bufferedStream.mark(FileTypeDetector.SAMPLE_SIZE);
+        byte[] header = bufferedStream.readNBytes(FileTypeDetector.SAMPLE_SIZE);
+        bufferedStream.reset();
+        FileProbe.ProbeResult probe = fileProbe.probe(header, null);
+        if (probe.empty()) {
+            return Reader.nullReader();
+        }
+        if (!probe.likelyText()) {
+            throw new IOException("文件内容不是可解析的文本格式");
+        }
+        return new FallbackDecodingReader(bufferedStream, probe.charsets());
     }
 
     /**
-     * 获取指定平台的解析器
+     * 按解析档位从字节流解析内容
      *
-     * @param platformName 平台名称
-     * @return 对应的解析器，未找到返回 empty
+     * 只读取流的头部推断编码，随后边解码边解析，所需分段解析完成后即返回，不再读取剩余内容；
+     * 上传文件可将写盘的分流输入流直接交给此方法，解析与写盘共用同一次读取
+     *
+     * @param inputStream 文件内容字节流，由调用方负责关闭
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，内容为空、不匹配或解析失败返回 null
+     * @throws CharacterCodingException 已解码出非 ASCII 内容后候选编码仍解码失败，无法在出错位置无损切换编码，
+     *                                  调用方可在内容完整后改用 {@link #readFileLines} 重新读取
+     * @throws IOException 读取失败或不是文本内容
      */
-    public Optional<FileParserStrategy> getParserByPlatform(String platformName) {
-        return Optional.ofNullable(parserMap.get(platformName.toLowerCase()));
+    public TroubleEntity parseStream(InputStream inputStream, ParseProfile profile) throws IOException {
+        BufferedInputStream bufferedStream = inputStream instanceof BufferedInputStream bis
+            ? bis
+            : new BufferedInputStream(inputStream);
+        bufferedStream.mark(FileTypeDetector.SAMPLE_SIZE);
+        byte[] header = bufferedStream.readNBytes(FileTypeDetector.SAMPLE_SIZE);
+        bufferedStream.reset();
+        return parseStream(bufferedStream, fileProbe.probe(header, null), profile);
     }
 
     /**
-     * 获取所有已注册的解析器平台名称
+     * 按解析档位从字节流解析内容，使用调用方已完成的文件头探测结果，不再重复检测
      *
-     * @return 平台名称列表
+     * @param inputStream 文件内容字节流，从文件开头读取，由调用方负责关闭
+     * @param probe 该内容的文件头探测结果
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，内容为空、不匹配或解析失败返回 null
+     * @throws CharacterCodingException 同 {@link #parseStream(InputStream, ParseProfile)}
+     * @throws IOException 读取失败或不是文本内容
      */
-    public List<String> getAvailablePlatforms() {
-        return List.copyOf(parserMap.keySet());
-    }
-
-    private List<String> readLinesWithFallback(Path filePath) throws IOException {
-        byte[] fileBytes = Files.readAllBytes(filePath);
-        if (fileBytes.length == 0) {
-            return List.of();
+    public TroubleEntity parseStream(InputStream inputStream, FileProbe.ProbeResult probe, ParseProfile profile)
+        throws IOException {
+        if (probe.empty()) {
+            return null;
         }
-
-        if (!isLikelyTextFile(fileBytes)) {
-            throw new IOException("文件内容不是可解析的文本格式: " + filePath);
+        if (!probe.likelyText()) {
+            throw new IOException("文件内容不是可解析的文本格式");
         }
 
-        Exception lastException = null;
-        for (Charset charset : getCandidateCharsets(fileBytes)) {
-            try {
-                List<String> lines = decodeLines(fileBytes, charset);
-                if (!StandardCharsets.UTF_8.equals(charset)) {
-                    logger.warn("文件 {} 非 UTF-8 编码，回退使用 {} 读取", filePath, charset.name());
-                }
-                return lines;
-            } catch (CharacterCodingException e) {
-                lastException = e;
-                logger.debug("使用 {} 读取文件 {} 失败", charset.name(), filePath, e);
-            }
+        FallbackDecodingReader reader = new FallbackDecodingReader(inputStream, probe.charsets());
+        TroubleEntity entity = parseReader(new BufferedReader(reader), profile);
+        if (!StandardCharsets.UTF_8.equals(reader.charset())) {
+            logger.warn("文件内容非 UTF-8 编码，使用 {} 流式读取", reader.charset().name());
         }
+        return entity;
+    }
 
-        throw new IOException("无法识别文件编码: " + filePath, lastException);
+    /**
+     * 从字符流解析内容
+     *
+     * 先缓存前 {@value #CAN_PARSE_PREFIX_LINES} 行（最多 {@value #CAN_PARSE_PREFIX_CHARS} 个字符）交给 canParse 判定，
+     * 再将整个流交给解析器单次消费
+     *
+     * @param reader 文件内容字符流，由调用方负责关闭
+     * @return 解析后的 TroubleEntity 对象，内容不匹配或解析失败返回 null
+     * @throws IOException 读取或解码失败
+     */
+    public TroubleEntity parseReader(Reader reader) throws IOException {
+        return parseReader(reader, ParseProfile.FULL);
     }
 
-    private List<Charset> getCandidateCharsets(byte[] fileBytes) {
-        LinkedHashSet<Charset> charsets = new LinkedHashSet<>();
+    /**
+     * 按解析档位从字符流解析内容
+     *
+     * @param reader 文件内容字符流，由调用方负责关闭
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，内容不匹配或解析失败返回 null
+     * @throws IOException 读取或解码失败
+     */
+    public TroubleEntity parseReader(Reader reader, ParseProfile profile) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        skipBom(bufferedReader);
 
-        Charset bomCharset = detectBomCharset(fileBytes);
-        if (bomCharset != null) {
-            charsets.add(bomCharset);
+        bufferedReader.mark(CAN_PARSE_PREFIX_CHARS);
+        List<String> prefix = readPrefix(bufferedReader);
+        if (prefix.isEmpty()) {
+            return null;
         }
 
-        Charset bomLessUtf16 = detectBomlessUtf16Charset(fileBytes);
-        if (bomLessUtf16 != null) {
-            charsets.add(bomLessUtf16);
+        FileParserStrategy selected = selectParser(prefix);
+        if (selected == null) {
+            return null;
         }
 
-        charsets.add(StandardCharsets.UTF_8);
-        addSupportedCharset(charsets, "GB18030");
-        addSupportedCharset(charsets, "GBK");
-
-        return List.copyOf(charsets);
-    }
-
-    private void addSupportedCharset(LinkedHashSet<Charset> charsets, String charsetName) {
-        if (Charset.isSupported(charsetName)) {
-            charsets.add(Charset.forName(charsetName));
-        }
-    }
+        logger.debug("使用 {} 解析器流式处理文件", selected.getPlatformName());
+        bufferedReader.reset();
 
-    private Charset detectBomCharset(byte[] fileBytes) {
-        if (fileBytes.length >= 3
-            && (fileBytes[0] & 0xFF) == 0xEF
-            && (fileBytes[1] & 0xFF) == 0xBB
-            && (fileBytes[2] & 0xFF) == 0xBF) {
-            return StandardCharsets.UTF_8;
-        }
-
-        if (fileBytes.length >= 2) {
-            if ((fileBytes[0] & 0xFF) == 0xFF && (fileBytes[1] & 0xFF) == 0xFE) {
-                return StandardCharsets.UTF_16LE;
-            }
-            if ((fileBytes[0] & 0xFF) == 0xFE && (fileBytes[1] & 0xFF) == 0xFF) {
-                return StandardCharsets.UTF_16BE;
+        try {
+            TroubleEntity entity = selected.parse(bufferedReader, profile);
+            if (entity != null && selected.isValid(entity)) {
+                return entity;
             }
+        } catch (CharacterCodingException | ExtractionLimitException e) {
+            // 编码错误由调用方换编码重试，超出解压预算由调用方中止，都不能当作解析失败吞掉
+            throw e;
+        } catch (Exception e) {
+            logger.error("{} 解析器处理内容失败", selected.getPlatformName(), e);
+            return null;
         }
 
+        logger.warn("{} 解析器解析结果无效", selected.getPlatformName());
         return null;
     }
 
-    private Charset detectBomlessUtf16Charset(byte[] fileBytes) {
-        int sampleLength = Math.min(fileBytes.length - (fileBytes.length % 2), TEXT_SAMPLE_SIZE);
-        if (sampleLength < 16) {
-            return null;
+    /**
+     * 读取 canParse 判定用的前缀行
+     *
+     * 按字符数而不是行数限制读取量，读取量不超过 mark 上限，之后的 reset 总能回到开头；
+     * 达到上限时最后一行可能被截断，只影响判定，不影响随后解析器读取的完整内容
+     */
+    private static List<String> readPrefix(BufferedReader reader) throws IOException {
+        char[] buffer = new char[CAN_PARSE_PREFIX_CHUNK];
+        int length = 0;
+        int newlines = 0;
+        while (length < CAN_PARSE_PREFIX_CHARS && newlines < CAN_PARSE_PREFIX_LINES) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, CAN_PARSE_PREFIX_CHARS));
+            }
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            for (int i = length; i < length + read; i++) {
+                if (buffer[i] == '\n' || buffer[i] == '\r') {
+                    newlines++;
+                }
+            }
+            length += read;
         }
 
-        if (looksLikeUtf16(fileBytes, sampleLength, true)) {
-            return StandardCharsets.UTF_16LE;
+        List<String> prefix = new ArrayList<>(CAN_PARSE_PREFIX_LINES);
+        int lineStart = 0;
+        for (int i = 0; i < length && prefix.size() < CAN_PARSE_PREFIX_LINES; i++) {
+            char c = buffer[i];
+            if (c == '\n' || c == '\r') {
+                prefix.add(new String(buffer, lineStart, i - lineStart));
+                if (c == '\r' && i + 1 < length && buffer[i + 1] == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < length && prefix.size() < CAN_PARSE_PREFIX_LINES) {
+            prefix.add(new String(buffer, lineStart, length - lineStart));
         }
+        return prefix;
+    }
 
-        if (looksLikeUtf16(fileBytes, sampleLength, false)) {
-            return StandardCharsets.UTF_16BE;
+    /**
+     * 读取文件内容并解码为行列表
+     *
+     * @param filePath 文件路径
+     * @return 文件内容的行列表
+     * @throws IOException 文件读取或解码失败
+     */
+    public List<String> readFileLines(Path filePath) throws IOException {
+        if (filePath == null) {
+            throw new IOException("文件路径为空，无法读取");
         }
+        return readLinesWithFallback(filePath);
+    }
 
+    /**
+     * 按文件前缀选择解析器
+     *
+     * 固定平台时先判定配置的解析器，再判定同一平台的其他格式解析器；路由模式下按优先级依次判定，
+     * 所有候选共用同一份前缀，不重复读取或解码文件
+     *
+     * @param prefix 文件的前 {@value #CAN_PARSE_PREFIX_LINES} 行
+     * @return 能处理该内容的解析器，都不匹配时返回 null
+     */
+    FileParserStrategy selectParser(List<String> prefix) {
+        List<FileParserStrategy> candidates = routingParsers != null ? routingParsers : platformParsers;
+        for (FileParserStrategy candidate : candidates) {
+            try {
+                if (candidate.canParse(prefix)) {
+                    return candidate;
+                }
+            } catch (Exception e) {
+                logger.warn("{} 解析器判定内容时出错，跳过", candidate.getPlatformName(), e);
+            }
+        }
+        logger.debug("没有解析器能处理当前内容，候选解析器: {}",
+            candidates.stream().map(FileParserStrategy::getPlatformName).toList());
         return null;
     }
 
-    private boolean looksLikeUtf16(byte[] fileBytes, int sampleLength, boolean littleEndian) {
-        int pairs = sampleLength / 2;
-        int zeroHighByteCount = 0;
-        int zeroLowByteCount = 0;
-        int printableLowByteCount = 0;
-
-        for (int i = 0; i < sampleLength; i += 2) {
-            int lowByte = fileBytes[littleEndian ? i : i + 1] & 0xFF;
-            int highByte = fileBytes[littleEndian ? i + 1 : i] & 0xFF;
+    /**
+     * 是否处于按内容路由模式
+     *
+     * @return true 如果配置为 {@value ParserProperties#PLATFORM_AUTO}
+     */
+    public boolean isRouting() {
+        return routingParsers != null;
+    }
 
-            if (highByte == 0) {
-                zeroHighByteCount++;
-            }
-            if (lowByte == 0) {
-                zeroLowByteCount++;
-            }
-            if (isAsciiTextByte(lowByte)) {
-                printableLowByteCount++;
-            }
-        }
+    /**
+     * 获取当前使用的解析器
+     *
+     * @return 当前解析器，路由模式下每个文件单独选择，返回 null
+     */
+    public FileParserStrategy getCurrentParser() {
+        return parser;
+    }
 
-        double zeroHighRatio = (double) zeroHighByteCount / pairs;
-        double zeroLowRatio = (double) zeroLowByteCount / pairs;
-        double printableLowRatio = (double) printableLowByteCount / pairs;
+    /**
+     * 获取指定平台的解析器
+     *
+     * @param platformName 平台名称
+     * @return 对应的解析器，未找到返回 empty
+     */
+    public Optional<FileParserStrategy> getParserByPlatform(String platformName) {
+        return Optional.ofNullable(parserMap.get(platformName.toLowerCase()));
+    }
 
-        return zeroHighRatio >= UTF16_ZERO_RATIO_THRESHOLD
-            && zeroLowRatio < CONTROL_CHAR_RATIO_THRESHOLD
-            && printableLowRatio >= UTF16_ASCII_RATIO_THRESHOLD;
+    /**
+     * 获取所有已注册的解析器平台名称
+     *
+     * @return 平台名称列表
+     */
+    public List<String> getAvailablePlatforms() {
+        return List.copyOf(parserMap.keySet());
     }
 
-    private boolean isLikelyTextFile(byte[] fileBytes) {
-        if (detectBomCharset(fileBytes) != null || detectBomlessUtf16Charset(fileBytes) != null) {
-            return true;
+    /**
+     * 按候选编码增量解码文件
+     *
+     * 候选编码取自文件头探测结果，其他阶段已探测过的文件不再读取文件头；随后边读边解码，不把整个文件读入内存。
+     * 前缀全是 ASCII 时编码切换在出错位置原地完成，只有已解码出非 ASCII 内容后才从文件开头以下一个候选编码重新读取
+     */
+    private List<String> readLinesWithFallback(Path filePath) throws IOException {
+        FileProbe.ProbeResult probe = fileProbe.probe(filePath);
+        if (probe.empty()) {
+            return List.of();
         }
 
-        int sampleLength = Math.min(fileBytes.length, TEXT_SAMPLE_SIZE);
-        int zeroCount = 0;
-        int controlCount = 0;
-        int asciiTextCount = 0;
-
-        for (int i = 0; i < sampleLength; i++) {
-            int value = fileBytes[i] & 0xFF;
-            if (value == 0) {
-                zeroCount++;
-                continue;
-            }
+        if (!probe.likelyText()) {
+            throw new IOException("文件内容不是可解析的文本格式: " + filePath);
+        }
 
-            if (!isTextByte(value)) {
-                controlCount++;
-            }
-            if (isAsciiTextByte(value)) {
-                asciiTextCount++;
+        List<Charset> candidates = probe.charsets();
+        Exception lastException = null;
+        int start = 0;
+        while (start < candidates.size()) {
+            FallbackDecodingReader reader = new FallbackDecodingReader(
+                Files.newInputStream(filePath), candidates.subList(start, candidates.size()));
+            try (BufferedReader bufferedReader = new BufferedReader(reader)) {
+                List<String> lines = readLines(bufferedReader);
+                if (!StandardCharsets.UTF_8.equals(reader.charset())) {
+                    logger.warn("文件 {} 非 UTF-8 编码，回退使用 {} 读取", filePath, reader.charset().name());
+                }
+                return lines;
+            } catch (CharacterCodingException e) {
+                lastException = e;
+                logger.debug("使用 {} 读取文件 {} 失败", reader.charset().name(), filePath, e);
+                start = candidates.indexOf(reader.charset()) + 1;
             }
         }
 
-        return zeroCount == 0
-            && ((double) controlCount / sampleLength) <= CONTROL_CHAR_RATIO_THRESHOLD
-            && ((double) asciiTextCount / sampleLength) >= ASCII_TEXT_RATIO_THRESHOLD;
-    }
-
-    private boolean isTextByte(int value) {
-        return value == '\t'
-            || value == '\n'
-            || value == '\r'
-            || value >= 0x20;
-    }
-
-    private boolean isAsciiTextByte(int value) {
-        return value == '\t'
-            || value == '\n'
-            || value == '\r'
-            || (value >= 0x20 && value <= 0x7E);
+        throw new IOException("无法识别文件编码: " + filePath, lastException);
     }
 
-    private List<String> decodeLines(byte[] fileBytes, Charset charset) throws CharacterCodingException {
-        CharsetDecoder decoder = charset.newDecoder()
-            .onMalformedInput(CodingErrorAction.REPORT)
-            .onUnmappableCharacter(CodingErrorAction.REPORT);
-
-        String content = decoder.decode(ByteBuffer.wrap(fileBytes)).toString();
-        if (content.indexOf('\u0000') >= 0) {
-            throw new CharacterCodingException();
+    private void skipBom(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
         }
-        return toLines(content);
     }
 
-    private List<String> toLines(String content) {
-        List<String> lines = new BufferedReader(new StringReader(content))
-            .lines()
-            .collect(Collectors.toCollection(ArrayList::new));
+    private List<String> readLines(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
 
         if (!lines.isEmpty() && !lines.getFirst().isEmpty() && lines.getFirst().charAt(0) == '\uFEFF') {
             lines.set(0, lines.getFirst().substring(1));
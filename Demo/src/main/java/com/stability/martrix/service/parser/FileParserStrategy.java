@@ -2,6 +2,10 @@ package com.stability.martrix.service.parser;
 
 import com.stability.martrix.entity.TroubleEntity;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -46,6 +50,49 @@ public interface FileParserStrategy {
      */
     TroubleEntity parse(List<String> lines);
 
+    /**
+     * 流式解析文件内容
+     * 默认实现先读入全部行再委托给 {@link #parse(List)}，支持单次遍历的解析器应覆盖此方法
+     *
+     * @param reader 文件内容的字符流，由调用方负责关闭
+     * @return 解析后的 TroubleEntity 对象，解析失败返回 null
+     * @throws IOException 读取或解码失败
+     */
+    default TroubleEntity parse(Reader reader) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            lines.add(line);
+        }
+        return parse(lines);
+    }
+
+    /**
+     * 按解析档位解析文件内容
+     * 默认忽略档位按 FULL 解析，支持提前结束的解析器应覆盖此方法
+     *
+     * @param lines 文件内容的行列表
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，解析失败返回 null
+     */
+    default TroubleEntity parse(List<String> lines, ParseProfile profile) {
+        return parse(lines);
+    }
+
+    /**
+     * 按解析档位流式解析文件内容，所需分段解析完成后可不再读取剩余内容
+     * 默认忽略档位按 FULL 解析，支持提前结束的解析器应覆盖此方法
+     *
+     * @param reader 文件内容的字符流，由调用方负责关闭
+     * @param profile 调用方需要的解析档位
+     * @return 解析后的 TroubleEntity 对象，解析失败返回 null
+     * @throws IOException 读取或解码失败
+     */
+    default TroubleEntity parse(Reader reader, ParseProfile profile) throws IOException {
+        return parse(reader);
+    }
+
     /**
      * 验证解析结果是否有效
      *
@@ -1,15 +1,15 @@
 package com.stability.martrix.service.parser;
 
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
 import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.entity.register.AArch64Register;
 import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
 import com.stability.martrix.enums.CPUArchitecture;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -34,15 +34,37 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
     // 解析模式
     private static final Pattern PID_PATTERN = Pattern.compile("Pid:(\\d+)");
     private static final Pattern UID_PATTERN = Pattern.compile("Uid:(\\d+)");
-    private static final Pattern TID_PATTERN = Pattern.compile("Tid:(\\d+)");
     private static final Pattern PROCESS_NAME_PATTERN = Pattern.compile("Process name:(\\S+)");
     private static final Pattern MODULE_NAME_PATTERN = Pattern.compile("Module name:(\\S+)");
     private static final Pattern TIMESTAMP_PATTERN = Pattern.compile("Timestamp:(\\d{4}-\\d{2}-\\d{2}[T\\s]\\d{2}:\\d{2}:\\d{2})");
     private static final Pattern SIGNAL_PATTERN = Pattern.compile("Reason:Signal:([A-Z]+)\\(([^)]+)\\)@0x([0-9a-fA-F]+)");
     private static final Pattern FAULT_THREAD_PATTERN = Pattern.compile("Tid:(\\d+),\\s*Name:(\\S+)");
-    private static final Pattern STACK_FRAME_PATTERN = Pattern.compile("#(\\d+)\\s+pc\\s+([0-9a-fA-F]+)\\s+(\\S+)\\s*\\(([^)]*)\\)(.*)");
-    private static final Pattern REGISTER_PATTERN = Pattern.compile("([a-z0-9]+):([0-9a-fA-F]+)");
-    private static final Pattern MAPS_PATTERN = Pattern.compile("([0-9a-fA-F]+)-([0-9a-fA-F]+)\\s+([rwxps-]+)\\s+([0-9a-fA-F]+)\\s+(\\S+)");
+    private static final Pattern HIGH_LEVEL_FRAME_PATTERN = Pattern.compile("#(\\d+)\\s+at\\s+(\\S+)\\s*\\(([^)]+):(\\d+):(\\d+)\\)");
+    private static final Pattern NATIVE_FRAME_PATTERN = Pattern.compile("#(\\d+)\\s+pc\\s+([0-9a-fA-F]+)");
+    private static final Pattern NATIVE_FRAME_SYMBOL_PATTERN = Pattern.compile("(/.+?)(?:\\(([^)]+)\\))?(?:\\(([^)]+)\\))?$");
+
+    private static final String SUBMITTER_MARKER = "====SubmitterStacktrace====";
+
+    /**
+     * 日志行类型，由 {@link #classify(String)} 按行首字符分派得到
+     */
+    enum LineType {
+        EMPTY,
+        PID,
+        PROCESS_NAME,
+        /** Uid、Module name、Timestamp，暂不存储 */
+        IGNORED,
+        REASON,
+        THREAD,
+        HIGH_LEVEL_FRAME,
+        NATIVE_FRAME,
+        REGISTERS,
+        MAPS,
+        /** OpenFiles、HiLog，Maps 段结束 */
+        MAPS_END,
+        /** 不以关键字开头的行：寄存器、映射及 Build info 等，由当前所在段决定如何解析 */
+        OTHER
+    }
 
     @Override
     public String getPlatformName() {
@@ -81,126 +103,102 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         AArch64Tombstone tombstone = new AArch64Tombstone();
         tombstone.setCpuArchitecture(CPUArchitecture.ARM64);
 
-        Map<String, String> registers = new HashMap<>();
+        AArch64RegisterDumpInfo registerDumpInfo = new AArch64RegisterDumpInfo();
         List<AArch64Tombstone.StackDumpInfo.StackFrame> stackFrames = new ArrayList<>();
         List<AArch64Tombstone.StackDumpInfo.StackFrame> submitterStackFrames = new ArrayList<>();  // 父线程堆栈
-        List<AArch64Tombstone.MapsInfo> mapsList = new ArrayList<>();
+        MemoryMapIndex.Builder mapsBuilder = new MemoryMapIndex.Builder();
 
         boolean inRegisters = false;
-        boolean inStackTrace = false;
         boolean inMaps = false;
         boolean inFaultThread = false;  // 是否正在解析崩溃线程的堆栈
         boolean parsingSubmitterThread = false;  // 是否正在解析父线程（Submitter）的堆栈
 
         String threadName = null;
         Integer tid = null;
-        Integer submitterTid = null;  // 父线程的TID
 
         for (int i = 0; i < lines.size(); i++) {
             String line = lines.get(i).trim();
+            LineType lineType = classify(line);
 
-            // 解析基本信息
-            if (line.startsWith("Pid:")) {
-                Matcher m = PID_PATTERN.matcher(line);
-                if (m.find()) {
-                    tombstone.setPid(Integer.parseInt(m.group(1)));
-                }
-            } else if (line.startsWith("Uid:")) {
-                // Uid信息暂时不存储在当前实体中
-            } else if (line.startsWith("Process name:")) {
-                Matcher m = PROCESS_NAME_PATTERN.matcher(line);
-                if (m.find()) {
-                    tombstone.setProcessName(m.group(1));
-                }
-            } else if (line.startsWith("Module name:")) {
-                // Module name 暂时不存储在当前实体中
-            } else if (line.contains("Build info:")) {
-                // 解析 Build info 作为 version（使用contains处理行首可能有空格的情况）
-                int index = line.indexOf("Build info:");
-                String version = line.substring(index + "Build info:".length()).trim();
-                tombstone.setVersion(version);
-            } else if (line.startsWith("Timestamp:")) {
-                // Timestamp 暂时不存储在当前实体中
-            } else if (line.startsWith("Reason:")) {
-                // 解析Signal信息
-                parseSignal(line, tombstone);
-            } else if (line.startsWith("Tid:")) {
-                Matcher m = FAULT_THREAD_PATTERN.matcher(line);
-                if (m.find()) {
-                    tid = Integer.parseInt(m.group(1));
-                    threadName = m.group(2);
-                    // 第一次遇到Tid时设置为崩溃线程，后续遇到则说明是其他线程
-                    if (!inFaultThread) {
-                        inFaultThread = true;
-                        tombstone.setFirstTid(tid);
-                    } else {
-                        // 再次遇到Tid，说明崩溃线程解析完成
-                        inFaultThread = false;
-                        // 也要将父线程的解析流程结束
-                        parsingSubmitterThread = false;
+            switch (lineType) {
+                case PID -> {
+                    Matcher m = PID_PATTERN.matcher(line);
+                    if (m.find()) {
+                        tombstone.setPid(Integer.parseInt(m.group(1)));
                     }
                 }
-            } else if (line.contains("====SubmitterStacktrace====")) {
-                // 遇到父线程标记，开始解析父线程堆栈
-                parsingSubmitterThread = true;
-                // 这里也需要将崩溃线程的解析置为false
-                inFaultThread = false;
-            } else if (parsingSubmitterThread && line.startsWith("Tid:")) {
-                // 解析父线程的Tid
-                Matcher m = TID_PATTERN.matcher(line);
-                if (m.find()) {
-                    submitterTid = Integer.parseInt(m.group(1));
+                case PROCESS_NAME -> {
+                    Matcher m = PROCESS_NAME_PATTERN.matcher(line);
+                    if (m.find()) {
+                        tombstone.setProcessName(m.group(1));
+                    }
                 }
-            } else if (parsingSubmitterThread && line.startsWith("#") && line.contains(" at ") && !line.startsWith("Registers:")) {
-                // 解析父线程高级语言堆栈帧
-                AArch64Tombstone.StackDumpInfo.StackFrame frame = parseHighLevelStackFrame(line);
-                if (frame != null) {
-                    submitterStackFrames.add(frame);
+                case IGNORED -> {
+                    // Uid、Module name、Timestamp 暂时不存储在当前实体中
                 }
-            } else if (parsingSubmitterThread && line.startsWith("#") && line.contains("pc ") && !line.startsWith("Registers:")) {
-                // 解析父线程native堆栈帧
-                AArch64Tombstone.StackDumpInfo.StackFrame frame = parseStackFrame(line);
-                if (frame != null) {
-                    submitterStackFrames.add(frame);
+                case REASON -> parseSignal(line, tombstone);
+                case THREAD -> {
+                    Matcher m = FAULT_THREAD_PATTERN.matcher(line);
+                    if (m.find()) {
+                        tid = Integer.parseInt(m.group(1));
+                        threadName = m.group(2);
+                        // 第一次遇到Tid时设置为崩溃线程，后续遇到则说明是其他线程
+                        if (!inFaultThread) {
+                            inFaultThread = true;
+                            tombstone.setFirstTid(tid);
+                        } else {
+                            // 再次遇到Tid，说明崩溃线程解析完成
+                            inFaultThread = false;
+                            // 也要将父线程的解析流程结束
+                            parsingSubmitterThread = false;
+                        }
+                    }
                 }
-            } else if (inFaultThread && line.startsWith("#") && line.contains(" at ") && !line.startsWith("Registers:")) {
-                // 解析崩溃线程高级语言堆栈帧
-                AArch64Tombstone.StackDumpInfo.StackFrame frame = parseHighLevelStackFrame(line);
-                if (frame != null) {
-                    stackFrames.add(frame);
+                case REGISTERS -> {
+                    inRegisters = true;
+                    inMaps = false;
                 }
-            } else if (inFaultThread && line.startsWith("#") && line.contains("pc ") && !line.startsWith("Registers:")) {
-                // 解析崩溃线程native堆栈帧
-                AArch64Tombstone.StackDumpInfo.StackFrame frame = parseStackFrame(line);
-                if (frame != null) {
-                    stackFrames.add(frame);
+                case MAPS -> {
+                    inMaps = true;
+                    inRegisters = false;
                 }
-            } else if (line.startsWith("Registers:")) {
-                inRegisters = true;
-                inStackTrace = false;
-                inMaps = false;
-            } else if (inRegisters && !line.isEmpty() && !line.startsWith("Memory") && !line.startsWith("Registers")) {
-                // 解析寄存器
-                Matcher m = REGISTER_PATTERN.matcher(line);
-                while (m.find()) {
-                    registers.put(m.group(1), m.group(2));
+                case MAPS_END -> inMaps = false;
+                case HIGH_LEVEL_FRAME, NATIVE_FRAME -> {
+                    if (!parsingSubmitterThread && !inFaultThread) {
+                        // 不属于崩溃线程和父线程的堆栈，按寄存器段内容处理
+                        if (inRegisters) {
+                            inRegisters = parseRegisterLine(line, registerDumpInfo);
+                        }
+                        break;
+                    }
+                    AArch64Tombstone.StackDumpInfo.StackFrame frame = lineType == LineType.HIGH_LEVEL_FRAME
+                        ? parseHighLevelStackFrame(line)
+                        : parseStackFrame(line);
+                    if (frame != null) {
+                        (parsingSubmitterThread ? submitterStackFrames : stackFrames).add(frame);
+                    }
                 }
-                // 寄存器解析结束条件：遇到 pstate (ARM64) 结尾
-                if (line.contains("pstate:")) {
-                    inRegisters = false;
+                case OTHER -> {
+                    // Maps 段占日志的绝大部分，首字符为十六进制数字时直接按映射行解析
+                    if (inMaps && isHexDigit(line.charAt(0))) {
+                        parseMaps(line, mapsBuilder);
+                    } else if (line.contains("Build info:")) {
+                        // 解析 Build info 作为 version（使用contains处理行首可能有其他内容的情况）
+                        int index = line.indexOf("Build info:");
+                        String version = line.substring(index + "Build info:".length()).trim();
+                        tombstone.setVersion(version);
+                    } else if (line.contains(SUBMITTER_MARKER)) {
+                        // 遇到父线程标记，开始解析父线程堆栈
+                        parsingSubmitterThread = true;
+                        // 这里也需要将崩溃线程的解析置为false
+                        inFaultThread = false;
+                    } else if (inRegisters && !line.startsWith("Memory") && !line.startsWith("Registers")) {
+                        inRegisters = parseRegisterLine(line, registerDumpInfo);
+                    }
                 }
-            } else if (line.startsWith("Maps:")) {
-                inMaps = true;
-                inRegisters = false;
-                inStackTrace = false;
-            } else if (inMaps && line.matches("[0-9a-fA-F]+-[0-9a-fA-F]+.*")) {
-                // 解析Maps
-                AArch64Tombstone.MapsInfo mapsInfo = parseMaps(line);
-                if (mapsInfo != null) {
-                    mapsList.add(mapsInfo);
+                case EMPTY -> {
+                    // 空行不改变解析状态
                 }
-            } else if (line.startsWith("OpenFiles:") || line.startsWith("HiLog:")) {
-                inMaps = false;
             }
         }
 
@@ -219,24 +217,20 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         }
 
         // 设置Maps信息
-        if (!mapsList.isEmpty()) {
-            tombstone.setMapsInfoList(mapsList);
+        if (!mapsBuilder.isEmpty()) {
+            tombstone.setMemoryMapIndex(mapsBuilder.build());
         }
 
-        // 将ARM32寄存器转换为ARM64格式
-        AArch64RegisterDumpInfo registerDumpInfo = convertRegisters(registers);
         tombstone.setRegisterDumpInfo(registerDumpInfo);
 
         // 设置特殊寄存器
-        if (registerDumpInfo != null) {
-            AArch64Tombstone.SpecialRegisterInfo specialRegister = new AArch64Tombstone.SpecialRegisterInfo(
-                registerDumpInfo.getX30(),
-                registerDumpInfo.getSp(),
-                registerDumpInfo.getPc(),
-                null
-            );
-            tombstone.setSpecialRegisterInfo(specialRegister);
-        }
+        AArch64Tombstone.SpecialRegisterInfo specialRegister = new AArch64Tombstone.SpecialRegisterInfo(
+            registerDumpInfo.has(AArch64Register.X30) ? registerDumpInfo.getX30() : null,
+            registerDumpInfo.has(AArch64Register.SP) ? registerDumpInfo.getSp() : null,
+            registerDumpInfo.has(AArch64Register.PC) ? registerDumpInfo.getPc() : null,
+            null
+        );
+        tombstone.setSpecialRegisterInfo(specialRegister);
 
         logger.info("Parsed OpenHarmony log: pid=" + tombstone.getPid() +
                     ", signal=" + (tombstone.getSignalInfo() != null ? tombstone.getSignalInfo().getSigNumber() : "unknown") +
@@ -318,8 +312,7 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         // 格式: #07 at symbol (file:line:col) 或 #07 at address (file:line:col)
         // 示例: #00 at hello (index.ets:24:9)
         //       #01 at foo (index.ets:10:5)
-        Pattern pattern = Pattern.compile("#(\\d+)\\s+at\\s+(\\S+)\\s*\\(([^)]+):(\\d+):(\\d+)\\)");
-        Matcher m = pattern.matcher(line);
+        Matcher m = HIGH_LEVEL_FRAME_PATTERN.matcher(line);
         if (m.find()) {
             int index = Integer.parseInt(m.group(1));
             String symbol = m.group(2);
@@ -358,8 +351,7 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         // 解析 index, address, library, symbol, offset, buildId
 
         // 先提取 index 和 address
-        Pattern basicPattern = Pattern.compile("#(\\d+)\\s+pc\\s+([0-9a-fA-F]+)");
-        Matcher basicMatcher = basicPattern.matcher(line);
+        Matcher basicMatcher = NATIVE_FRAME_PATTERN.matcher(line);
         if (!basicMatcher.find()) {
             return null;
         }
@@ -383,8 +375,7 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         String buildId = null;
 
         // 查找 (symbol+offset)(buildId) 部分
-        Pattern symbolPattern = Pattern.compile("(/.+?)(?:\\(([^)]+)\\))?(?:\\(([^)]+)\\))?$");
-        Matcher symbolMatcher = symbolPattern.matcher(line.substring(basicMatcher.end()));
+        Matcher symbolMatcher = NATIVE_FRAME_SYMBOL_PATTERN.matcher(line).region(basicMatcher.end(), line.length());
         if (symbolMatcher.find()) {
             library = symbolMatcher.group(1);
             String symbolInfo = symbolMatcher.group(2);
@@ -418,92 +409,196 @@ public class OpenHarmonyLogFileParser implements FileParserStrategy {
         return null;
     }
 
-    private AArch64RegisterDumpInfo convertRegisters(Map<String, String> registers) {
-        AArch64RegisterDumpInfo info = new AArch64RegisterDumpInfo();
-
-        // ARM64 x0-x29 直接映射
-        for (int i = 0; i <= 29; i++) {
-            String regName = "x" + i;
-            String value = registers.get(regName);
-            if (value != null) {
-                try {
-                    long val = Long.parseLong(value, 16);
-                    switch (i) {
-                        case 0: info.setX0(val); break;
-                        case 1: info.setX1(val); break;
-                        case 2: info.setX2(val); break;
-                        case 3: info.setX3(val); break;
-                        case 4: info.setX4(val); break;
-                        case 5: info.setX5(val); break;
-                        case 6: info.setX6(val); break;
-                        case 7: info.setX7(val); break;
-                        case 8: info.setX8(val); break;
-                        case 9: info.setX9(val); break;
-                        case 10: info.setX10(val); break;
-                        case 11: info.setX11(val); break;
-                        case 12: info.setX12(val); break;
-                        case 13: info.setX13(val); break;
-                        case 14: info.setX14(val); break;
-                        case 15: info.setX15(val); break;
-                        case 16: info.setX16(val); break;
-                        case 17: info.setX17(val); break;
-                        case 18: info.setX18(val); break;
-                        case 19: info.setX19(val); break;
-                        case 20: info.setX20(val); break;
-                        case 21: info.setX21(val); break;
-                        case 22: info.setX22(val); break;
-                        case 23: info.setX23(val); break;
-                        case 24: info.setX24(val); break;
-                        case 25: info.setX25(val); break;
-                        case 26: info.setX26(val); break;
-                        case 27: info.setX27(val); break;
-                        case 28: info.setX28(val); break;
-                        case 29: info.setX29(val); break;
-                    }
-                } catch (NumberFormatException e) {
-                    // ignore
+    /**
+     * 按行首字符分派行类型，每行只比较与首字符对应的少数几个关键字
+     */
+    static LineType classify(String line) {
+        if (line.isEmpty()) {
+            return LineType.EMPTY;
+        }
+        switch (line.charAt(0)) {
+            case '#':
+                if (line.contains(" at ")) {
+                    return LineType.HIGH_LEVEL_FRAME;
                 }
-            }
+                if (line.contains("pc ")) {
+                    return LineType.NATIVE_FRAME;
+                }
+                break;
+            case 'P':
+                if (line.startsWith("Pid:")) {
+                    return LineType.PID;
+                }
+                if (line.startsWith("Process name:")) {
+                    return LineType.PROCESS_NAME;
+                }
+                break;
+            case 'T':
+                if (line.startsWith("Tid:")) {
+                    return LineType.THREAD;
+                }
+                if (line.startsWith("Timestamp:")) {
+                    return LineType.IGNORED;
+                }
+                break;
+            case 'R':
+                if (line.startsWith("Reason:")) {
+                    return LineType.REASON;
+                }
+                if (line.startsWith("Registers:")) {
+                    return LineType.REGISTERS;
+                }
+                break;
+            case 'M':
+                if (line.startsWith("Maps:")) {
+                    return LineType.MAPS;
+                }
+                if (line.startsWith("Module name:")) {
+                    return LineType.IGNORED;
+                }
+                break;
+            case 'U':
+                if (line.startsWith("Uid:")) {
+                    return LineType.IGNORED;
+                }
+                break;
+            case 'O':
+                if (line.startsWith("OpenFiles:")) {
+                    return LineType.MAPS_END;
+                }
+                break;
+            case 'H':
+                if (line.startsWith("HiLog:")) {
+                    return LineType.MAPS_END;
+                }
+                break;
+            default:
+                break;
         }
+        return LineType.OTHER;
+    }
 
-        // ARM64 sp
-        String spValue = registers.get("sp");
-        if (spValue != null) {
-            try {
-                info.setSp(Long.parseLong(spValue, 16));
-            } catch (NumberFormatException e) {
-                // ignore
-            }
+    /**
+     * 解析一行寄存器，ARM32 寄存器按 AArch64 寄存器写入
+     *
+     * @return 寄存器段是否继续，遇到 pstate (ARM64) 时结束
+     */
+    private boolean parseRegisterLine(String line, AArch64RegisterDumpInfo registerDumpInfo) {
+        RegisterLineParser.parseColonSeparated(line, registerDumpInfo);
+        return !line.contains("pstate:");
+    }
+
+    /**
+     * 解析一行映射，按列扫描，不符合格式的行被忽略
+     *
+     * 格式: bc2000-bc5000 r--p 00000000 /data/local/tmp/libc-test/vfwscanf，结束地址为开区间
+     *
+     * @return 是否成功解析
+     */
+    static boolean parseMaps(String line, MemoryMapIndex.Builder mapsBuilder) {
+        int length = line.length();
+
+        // 起始地址-结束地址
+        int startEnd = hexEnd(line, 0);
+        if (startEnd == 0 || startEnd >= length || line.charAt(startEnd) != '-') {
+            return false;
+        }
+        int endEnd = hexEnd(line, startEnd + 1);
+        if (endEnd == startEnd + 1) {
+            return false;
         }
 
-        // ARM64 pc
-        String pcValue = registers.get("pc");
-        if (pcValue != null) {
-            try {
-                info.setPc(Long.parseLong(pcValue, 16));
-            } catch (NumberFormatException e) {
-                // ignore
-            }
+        // 权限
+        int permStart = skipWhitespace(line, endEnd);
+        if (permStart == endEnd) {
+            return false;
+        }
+        int permEnd = permStart;
+        while (permEnd < length && "rwxps-".indexOf(line.charAt(permEnd)) >= 0) {
+            permEnd++;
+        }
+        if (permEnd == permStart) {
+            return false;
         }
 
-        return info;
+        // 文件偏移
+        int offsetStart = skipWhitespace(line, permEnd);
+        if (offsetStart == permEnd) {
+            return false;
+        }
+        int offsetEnd = hexEnd(line, offsetStart);
+        if (offsetEnd == offsetStart) {
+            return false;
+        }
+
+        // 映射名称，只取第一个非空白字段
+        int nameStart = skipWhitespace(line, offsetEnd);
+        if (nameStart == offsetEnd || nameStart >= length) {
+            return false;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < length && !isWhitespace(line.charAt(nameEnd))) {
+            nameEnd++;
+        }
+
+        if (!fitsInLong(line, 0, startEnd) || !fitsInLong(line, startEnd + 1, endEnd)
+            || !fitsInLong(line, offsetStart, offsetEnd)) {
+            return false;
+        }
+        long start = parseHex(line, 0, startEnd);
+        long end = parseHex(line, startEnd + 1, endEnd);
+        long offset = parseHex(line, offsetStart, offsetEnd);
+        byte permission = MemoryMapIndex.parsePermissions(line.subSequence(permStart, permEnd));
+        mapsBuilder.add(start, end, offset, permission, line.substring(nameStart, nameEnd));
+        return true;
     }
 
-    private AArch64Tombstone.MapsInfo parseMaps(String line) {
-        // 格式: bc2000-bc5000 r--p 00000000 /data/local/tmp/libc-test/vfwscanf
-        Matcher m = MAPS_PATTERN.matcher(line);
-        if (m.find()) {
-            try {
-                Long start = Long.parseLong(m.group(1), 16);
-                Long end = Long.parseLong(m.group(2), 16);
-                String permission = m.group(3);
-                String name = m.group(5);
-                return new AArch64Tombstone.MapsInfo(start, end, permission, name);
-            } catch (NumberFormatException e) {
-                // ignore
-            }
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * 与正则 \s 一致的空白字符
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespace(String s, int from) {
+        int length = s.length();
+        while (from < length && isWhitespace(s.charAt(from))) {
+            from++;
         }
-        return null;
+        return from;
+    }
+
+    private static int hexEnd(String s, int from) {
+        int length = s.length();
+        while (from < length && isHexDigit(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * 十六进制数去掉前导 0 后是否不超过 16 位，即能以无符号 long 表示
+     */
+    private static boolean fitsInLong(String s, int from, int to) {
+        while (from < to - 1 && s.charAt(from) == '0') {
+            from++;
+        }
+        return to - from <= 16;
+    }
+
+    /**
+     * 解析已通过 {@link #fitsInLong} 校验的无符号十六进制数
+     */
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | Character.digit(s.charAt(i), 16);
+        }
+        return value;
     }
 
     @Override
@@ -0,0 +1,36 @@
+package com.stability.martrix.service.parser;
+
+/**
+ * 解析档位
+ *
+ * 调用方声明需要哪些分段，解析器在所需分段全部解析完成后即停止读取剩余内容
+ * 不支持按档位解析的解析器会忽略该参数并按 FULL 处理
+ */
+public enum ParseProfile {
+
+    /**
+     * 仅解析头部：进程名、pid/tid、信号信息
+     */
+    HEADER_ONLY,
+
+    /**
+     * 头部 + 崩溃线程的寄存器与堆栈回溯，满足 AI 分析的需要
+     */
+    CRASH_THREAD,
+
+    /**
+     * 崩溃线程 + memory near + memory map，模式匹配需要通过内存映射解析故障地址与寄存器
+     */
+    CRASH_CONTEXT,
+
+    /**
+     * 崩溃现场 + 文件末尾 log 分段中各线程的日志尾部，AI 分析需要崩溃线程最后输出的日志；
+     * log 分段位于最后，其他线程与 open files 分段只逐行跳过、不解析
+     */
+    CRASH_LOG,
+
+    /**
+     * 解析全部分段
+     */
+    FULL
+}
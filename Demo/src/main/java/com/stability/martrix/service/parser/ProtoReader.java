@@ -0,0 +1,115 @@
+package com.stability.martrix.service.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * protobuf 线格式读取器
+ *
+ * 直接在 ByteBuffer 上按 tag 逐字段读取，嵌套消息与 bytes 字段以 slice 返回，不复制数据；
+ * 未知字段按线类型跳过。只实现 tombstone.proto 用到的 varint、64 位、长度前缀与 32 位四种线类型
+ */
+final class ProtoReader {
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH_DELIMITED = 2;
+    static final int WIRE_FIXED32 = 5;
+
+    private final ByteBuffer buffer;
+    private int tag;
+
+    ProtoReader(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 读取下一个字段的 tag
+     *
+     * @return false 表示消息已读完
+     */
+    boolean next() {
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+        tag = (int) readVarint();
+        if (tag >>> 3 == 0) {
+            throw new IllegalArgumentException("非法的 protobuf 字段号 0，位置 " + buffer.position());
+        }
+        return true;
+    }
+
+    int fieldNumber() {
+        return tag >>> 3;
+    }
+
+    int wireType() {
+        return tag & 0x7;
+    }
+
+    long readVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint 超过 10 字节，位置 " + buffer.position());
+    }
+
+    int readInt() {
+        return (int) readVarint();
+    }
+
+    boolean readBool() {
+        return readVarint() != 0;
+    }
+
+    String readString() {
+        return decodeString(readBytes());
+    }
+
+    static String decodeString(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(),
+                StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(bytes.position(), copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取长度前缀字段，返回共享底层数据的只读视图
+     */
+    ByteBuffer readBytes() {
+        int length = readInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("长度前缀 " + length + " 超出剩余 " + buffer.remaining() + " 字节");
+        }
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    ProtoReader readMessage() {
+        return new ProtoReader(readBytes());
+    }
+
+    /**
+     * 跳过当前字段的值
+     */
+    void skip() {
+        switch (wireType()) {
+            case WIRE_VARINT -> readVarint();
+            case WIRE_FIXED64 -> buffer.position(buffer.position() + Long.BYTES);
+            case WIRE_LENGTH_DELIMITED -> readBytes();
+            case WIRE_FIXED32 -> buffer.position(buffer.position() + Integer.BYTES);
+            default -> throw new IllegalArgumentException("不支持的 protobuf 线类型 " + wireType()
+                + "，字段 " + fieldNumber());
+        }
+    }
+}
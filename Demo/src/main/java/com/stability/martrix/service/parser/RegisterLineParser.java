@@ -0,0 +1,125 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
+
+/**
+ * 寄存器行解析，Android 与 OpenHarmony 解析器共用
+ *
+ * 在原字符串上按下标扫描寄存器名与十六进制值，通过 {@link AArch64RegisterDumpInfo#set(CharSequence, int, int, long)}
+ * 直接写入寄存器文件，不拆分字符串也不经过中间 Map
+ */
+final class RegisterLineParser {
+
+    private RegisterLineParser() {
+    }
+
+    /**
+     * Android 格式，寄存器名与值以空白分隔并按位置两两成对，未知寄存器名与非法值被忽略
+     *
+     * 示例: x0  0000000000000000  x1  0000007c5072d028  x2  0000000000000020  x3  0000007c5072d048
+     *
+     * @param line 已去除首尾空白的寄存器行
+     * @param registerDumpInfo 寄存器文件
+     */
+    static void parseSpaceSeparated(String line, AArch64RegisterDumpInfo registerDumpInfo) {
+        int length = line.length();
+        int pos = 0;
+        while (pos < length) {
+            int nameStart = skipWhitespace(line, pos);
+            int nameEnd = tokenEnd(line, nameStart);
+            int valueStart = skipWhitespace(line, nameEnd);
+            int valueEnd = tokenEnd(line, valueStart);
+            if (valueStart >= length) {
+                return;
+            }
+            int digitsStart = valueEnd - valueStart > 2 && line.startsWith("0x", valueStart) ? valueStart + 2 : valueStart;
+            if (isHex(line, digitsStart, valueEnd)) {
+                registerDumpInfo.set(line, nameStart, nameEnd, parseHex(line, digitsStart, valueEnd));
+            }
+            pos = valueEnd;
+        }
+    }
+
+    /**
+     * OpenHarmony 格式，"名称:值" 成对出现，同一行可包含多个寄存器
+     *
+     * 示例: r0:4ceadb00 r1:ffc480a8 r2:00000000 r3:00000001
+     *
+     * @param line 寄存器行
+     * @param registerDumpInfo 寄存器文件
+     */
+    static void parseColonSeparated(String line, AArch64RegisterDumpInfo registerDumpInfo) {
+        int length = line.length();
+        int searchFrom = 0;
+        int colon;
+        while ((colon = line.indexOf(':', searchFrom)) >= 0) {
+            int nameStart = colon;
+            while (nameStart > searchFrom && isNameChar(line.charAt(nameStart - 1))) {
+                nameStart--;
+            }
+            int valueEnd = colon + 1;
+            while (valueEnd < length && Character.digit(line.charAt(valueEnd), 16) >= 0 && line.charAt(valueEnd) < 0x80) {
+                valueEnd++;
+            }
+            if (nameStart == colon || valueEnd == colon + 1) {
+                searchFrom = colon + 1;
+                continue;
+            }
+            if (isHex(line, colon + 1, valueEnd)) {
+                registerDumpInfo.set(line, nameStart, colon, parseHex(line, colon + 1, valueEnd));
+            }
+            searchFrom = valueEnd;
+        }
+    }
+
+    /**
+     * 解析已通过 {@link #isHex} 校验的无符号十六进制数
+     */
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+
+    /**
+     * 是否为 1~16 位 ASCII 十六进制数字
+     */
+    private static boolean isHex(String s, int from, int to) {
+        if (from >= to || to - from > 16) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80 || Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static int skipWhitespace(String s, int from) {
+        int length = s.length();
+        while (from < length && isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int tokenEnd(String s, int from) {
+        int length = s.length();
+        while (from < length && !isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,257 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+
+/**
+ * Android tombstone 堆栈行游标解析器
+ *
+ * 对每行只做一次从左到右的扫描，以下标记录各字段边界，十六进制地址、帧序号和符号偏移直接在原字符串上解码，
+ * 只为最终写入 StackFrame 的 maps、符号与 BuildId 创建字符串。字段含义与原先基于 split 的实现保持一致：
+ * 连续空白视为单个空格，符号偏移解析失败时整段作为符号
+ *
+ * 示例: #00 pc 000000000005a8cc  /system/lib64/libbinder.so (android::Parcel::ipcSetDataReference(...)+340) (BuildId: f992d84feb3f8b8e5f0f7268aeaa2f5d)
+ */
+final class StackFrameTokenizer {
+
+    private static final String BUILD_ID_PREFIX = "(BuildId: ";
+
+    private StackFrameTokenizer() {
+    }
+
+    /**
+     * @param line 已去除首尾空白的堆栈行
+     * @return 堆栈帧，字段不足 4 个时返回 null
+     * @throws NumberFormatException 帧序号不是十进制数字
+     */
+    static AArch64Tombstone.StackDumpInfo.StackFrame parse(String line) {
+        int length = line.length();
+
+        // 前 4 个字段："#00"、"pc"、地址、maps
+        int indexEnd = tokenEnd(line, 0);
+        int pcStart = skipWhitespace(line, indexEnd);
+        int addressStart = skipWhitespace(line, tokenEnd(line, pcStart));
+        int addressEnd = tokenEnd(line, addressStart);
+        int mapsStart = skipWhitespace(line, addressEnd);
+        if (pcStart >= length || addressStart >= length || mapsStart >= length) {
+            return null;
+        }
+        int mapsEnd = tokenEnd(line, mapsStart);
+
+        int index = parseFrameIndex(line, 1, indexEnd);
+        Long address = parseAddress(line, addressStart, addressEnd);
+        String mapsInfo = line.substring(mapsStart, mapsEnd);
+
+        // 剩余部分：符号与 BuildId
+        String tail = line;
+        int from = skipWhitespace(line, mapsEnd);
+        int to = trimEnd(line, from, length);
+        if (!isNormalized(line, from, to)) {
+            tail = normalize(line, from, to);
+            from = 0;
+            to = tail.length();
+        }
+
+        String buildId = null;
+        int symbolFrom = from;
+        int symbolTo = to;
+        int buildIdStart = tail.indexOf(BUILD_ID_PREFIX, from);
+        if (buildIdStart >= 0 && buildIdStart + BUILD_ID_PREFIX.length() <= to) {
+            int buildIdEnd = tail.indexOf(')', buildIdStart);
+            if (buildIdEnd >= 0 && buildIdEnd < to) {
+                int valueStart = trimStart(tail, buildIdStart + BUILD_ID_PREFIX.length(), buildIdEnd);
+                buildId = tail.substring(valueStart, trimEnd(tail, valueStart, buildIdEnd));
+                symbolTo = trimEnd(tail, from, buildIdStart);
+                symbolFrom = trimStart(tail, from, symbolTo);
+            }
+        }
+
+        if (symbolTo > symbolFrom && tail.charAt(symbolFrom) == '(' && tail.charAt(symbolTo - 1) == ')') {
+            symbolFrom++;
+            symbolTo--;
+        }
+
+        String symbol = null;
+        Long offsetFromSymbolStart = null;
+        if (symbolTo > symbolFrom) {
+            int plus = tail.lastIndexOf('+', symbolTo - 1);
+            if (plus >= symbolFrom) {
+                int offsetStart = trimStart(tail, plus + 1, symbolTo);
+                offsetFromSymbolStart = parseOffset(tail, offsetStart, trimEnd(tail, offsetStart, symbolTo));
+            }
+            if (offsetFromSymbolStart != null) {
+                int nameEnd = trimEnd(tail, symbolFrom, plus);
+                symbol = tail.substring(trimStart(tail, symbolFrom, nameEnd), nameEnd);
+            } else {
+                symbol = tail.substring(symbolFrom, symbolTo);
+            }
+        }
+
+        return new AArch64Tombstone.StackDumpInfo.StackFrame(
+            offsetFromSymbolStart,
+            symbol,
+            mapsInfo,
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.OFFSET,
+            address,
+            index,
+            buildId
+        );
+    }
+
+    /**
+     * 与正则 \s 一致的空白字符
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespace(String s, int from) {
+        int length = s.length();
+        while (from < length && isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int tokenEnd(String s, int from) {
+        int length = s.length();
+        while (from < length && !isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * 与 String.trim 一致：跳过不大于空格的字符
+     */
+    private static int trimStart(String s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String s, int from, int to) {
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * 区间内的空白是否都是单个空格
+     */
+    private static boolean isNormalized(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (isWhitespace(c) && (c != ' ' || isWhitespace(s.charAt(i + 1)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将区间内的连续空白折叠为单个空格，只在行内出现多余空白时使用
+     */
+    private static String normalize(String s, int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        boolean whitespace = false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (isWhitespace(c)) {
+                whitespace = true;
+                continue;
+            }
+            if (whitespace) {
+                sb.append(' ');
+                whitespace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static int parseFrameIndex(String s, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return Integer.parseInt(s.substring(Math.min(from, to), to));
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(s.substring(from, to));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 解析可带 0x 前缀的十六进制地址，超出 long 正数范围或含非法字符时返回 null
+     */
+    private static Long parseAddress(String s, int from, int to) {
+        if (to - from > 2 && s.charAt(from) == '0' && s.charAt(from + 1) == 'x') {
+            from += 2;
+        }
+        if (from >= to) {
+            return null;
+        }
+        int digitsStart = from;
+        while (from < to - 1 && s.charAt(from) == '0') {
+            from++;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return parseSignedHex(s.substring(digitsStart, to));
+            }
+            value = (value << 4) | digit;
+        }
+        // 超过 long 正数范围
+        if (to - from > 16 || (to - from == 16 && value < 0)) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * 非常规写法（带符号等）交给 Long.parseLong 处理
+     */
+    private static Long parseSignedHex(String hex) {
+        try {
+            return Long.parseLong(hex, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析符号偏移（十进制），无法解析时返回 null
+     */
+    private static Long parseOffset(String s, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        if (to - from > 18) {
+            try {
+                return Long.parseLong(s.substring(from, to));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                try {
+                    return Long.parseLong(s.substring(from, to));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,231 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * tombstone log 分段的按线程日志尾部
+ *
+ * 每个 tid 一个定长环形缓冲区，只保留该线程最后 {@link #LINES_PER_THREAD} 行；跟踪的线程数不超过
+ * {@link #MAX_THREADS}，超出时淘汰最久没有输出日志的线程，崩溃线程的缓冲区单独保存、不会被淘汰；
+ * 单行消息超过 {@link #MAX_MESSAGE_LENGTH} 时截断。因此无论 log 分段多长，占用的内存都有固定上限
+ */
+final class ThreadLogTails {
+
+    static final int LINES_PER_THREAD = 32;
+    static final int MAX_THREADS = 64;
+    static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private static final String LOG_SECTION_PREFIX = "--------- log ";
+    private static final String LEGACY_LOG_SECTION_PREFIX = "--------- beginning of ";
+
+    private final Integer crashTid;
+    private final Ring crashThreadRing = new Ring();
+    private final Map<Integer, Ring> otherRings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Ring> eldest) {
+            return size() > MAX_THREADS - 1;
+        }
+    };
+
+    /**
+     * @param crashTid 崩溃线程 tid，未知时为 null
+     */
+    ThreadLogTails(Integer crashTid) {
+        this.crashTid = crashTid;
+    }
+
+    /**
+     * 判断是否为 log 分段的标题行
+     */
+    static boolean isSectionHeader(String line) {
+        return line.startsWith(LOG_SECTION_PREFIX) || line.startsWith(LEGACY_LOG_SECTION_PREFIX);
+    }
+
+    /**
+     * 从 log 分段标题行中取出缓冲区名，如 "--------- log main" 得到 main
+     */
+    static String bufferName(String header) {
+        String prefix = header.startsWith(LOG_SECTION_PREFIX) ? LOG_SECTION_PREFIX : LEGACY_LOG_SECTION_PREFIX;
+        return header.substring(prefix.length()).trim();
+    }
+
+    /**
+     * 解析并记录一行文本日志，不是 logcat threadtime 格式的行被忽略
+     *
+     * 格式: "MM-DD HH:MM:SS.mmm  pid  tid P tag     : message"，tag 可能包含空格，以第一个 ": " 结束
+     */
+    void accept(String buffer, String line) {
+        int[] bounds = new int[2];
+        int pos = nextToken(line, 0, bounds);
+        if (pos < 0) {
+            return;
+        }
+        int timestampStart = bounds[0];
+        pos = nextToken(line, pos, bounds);
+        if (pos < 0) {
+            return;
+        }
+        String timestamp = line.substring(timestampStart, bounds[1]);
+
+        pos = nextToken(line, pos, bounds);
+        Integer pid = pos < 0 ? null : parseDecimal(line, bounds[0], bounds[1]);
+        if (pid == null) {
+            return;
+        }
+        pos = nextToken(line, pos, bounds);
+        Integer tid = pos < 0 ? null : parseDecimal(line, bounds[0], bounds[1]);
+        if (tid == null) {
+            return;
+        }
+        pos = nextToken(line, pos, bounds);
+        if (pos < 0 || bounds[1] - bounds[0] != 1) {
+            return;
+        }
+        String priority = line.substring(bounds[0], bounds[1]);
+
+        int tagStart = pos;
+        while (tagStart < line.length() && line.charAt(tagStart) == ' ') {
+            tagStart++;
+        }
+        int separator = line.indexOf(": ", tagStart);
+        String tag;
+        String message;
+        if (separator >= 0) {
+            tag = line.substring(tagStart, separator).trim();
+            message = truncate(line, separator + 2);
+        } else if (line.endsWith(":")) {
+            tag = line.substring(tagStart, line.length() - 1).trim();
+            message = "";
+        } else {
+            tag = null;
+            message = truncate(line, tagStart);
+        }
+        accept(new AArch64Tombstone.LogLine(buffer, timestamp, pid, tid, priority, tag, message));
+    }
+
+    /**
+     * 记录一行已解析的日志
+     */
+    void accept(AArch64Tombstone.LogLine logLine) {
+        if (logLine.getTid() == null) {
+            return;
+        }
+        String message = logLine.getMessage();
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            logLine.setMessage(message.substring(0, MAX_MESSAGE_LENGTH));
+        }
+        if (logLine.getTid().equals(crashTid)) {
+            crashThreadRing.add(logLine);
+        } else {
+            otherRings.computeIfAbsent(logLine.getTid(), ignored -> new Ring()).add(logLine);
+        }
+    }
+
+    /**
+     * @return 该线程最后若干行日志，按时间顺序；没有日志或已被淘汰时返回 null
+     */
+    List<AArch64Tombstone.LogLine> tail(Integer tid) {
+        if (tid == null) {
+            return null;
+        }
+        Ring ring = tid.equals(crashTid) ? crashThreadRing : otherRings.get(tid);
+        return ring == null || ring.size == 0 ? null : ring.toList();
+    }
+
+    /**
+     * 把日志尾部写入 tombstone 与各线程
+     */
+    void attachTo(AArch64Tombstone tombstone) {
+        tombstone.setCrashThreadLogTail(tail(crashTid));
+        if (tombstone.getThreadInfoList() == null) {
+            return;
+        }
+        for (AArch64Tombstone.ThreadInfo thread : tombstone.getThreadInfoList()) {
+            thread.setLogTail(tail(thread.getTid()));
+        }
+    }
+
+    /**
+     * android_LogPriority 数值转换为 logcat 中的单字母
+     */
+    static String priorityName(int priority) {
+        return switch (priority) {
+            case 2 -> "V";
+            case 3 -> "D";
+            case 4 -> "I";
+            case 5 -> "W";
+            case 6 -> "E";
+            case 7 -> "F";
+            case 8 -> "S";
+            default -> String.valueOf(priority);
+        };
+    }
+
+    private static String truncate(String line, int from) {
+        return line.substring(from, Math.min(line.length(), from + MAX_MESSAGE_LENGTH));
+    }
+
+    private static int nextToken(String line, int from, int[] bounds) {
+        int length = line.length();
+        int pos = from;
+        while (pos < length && line.charAt(pos) == ' ') {
+            pos++;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int end = pos;
+        while (end < length && line.charAt(end) != ' ') {
+            end++;
+        }
+        bounds[0] = pos;
+        bounds[1] = end;
+        return end;
+    }
+
+    private static Integer parseDecimal(String line, int from, int to) {
+        if (to - from > 9) {
+            return null;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 定长环形缓冲区，写满后覆盖最旧的一行
+     */
+    private static final class Ring {
+        private final AArch64Tombstone.LogLine[] lines = new AArch64Tombstone.LogLine[LINES_PER_THREAD];
+        private int next;
+        private int size;
+
+        void add(AArch64Tombstone.LogLine line) {
+            lines[next] = line;
+            next = (next + 1) % lines.length;
+            if (size < lines.length) {
+                size++;
+            }
+        }
+
+        List<AArch64Tombstone.LogLine> toList() {
+            List<AArch64Tombstone.LogLine> result = new ArrayList<>(size);
+            int start = (next - size + lines.length) % lines.length;
+            for (int i = 0; i < size; i++) {
+                result.add(lines[(start + i) % lines.length]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,864 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Android Tombstone 流式解析引擎
+ *
+ * 逐行消费 tombstone 文本，通过分段状态机（头部、寄存器、堆栈回溯、memory near、memory map、
+ * open files、其他线程、log）增量填充 AArch64Tombstone，整个解析过程只需单次遍历，不需要把文件物化为 List&lt;String&gt;
+ *
+ * 实例有状态且非线程安全，每个文件创建一个新实例：逐行调用 {@link #accept(String)}，最后调用 {@link #finish()}
+ * 其他线程按 "--- --- ---" 切分为独立的线程段，每读完一段即提交到 fork-join 线程池并行解析，finish 时按原顺序汇总
+ */
+public class TombstoneStreamParser {
+
+    private static final Logger logger = Logger.getLogger(TombstoneStreamParser.class.getName());
+
+    /**
+     * 线程分隔行，崩溃线程之后的每个线程段都以该行开头
+     */
+    private static final String THREAD_SEPARATOR = "--- --- ---";
+
+    /**
+     * tombstone 中的分段
+     */
+    enum Section {
+        /** 头部及崩溃线程中不属于其他分段的行（Cmdline、pid、signal 等） */
+        HEADER,
+        /** 崩溃线程寄存器 dump */
+        REGISTERS,
+        /** 崩溃线程堆栈回溯 */
+        BACKTRACE,
+        /** memory near xN 十六进制 dump */
+        MEMORY_NEAR,
+        /** memory map 内存映射 */
+        MEMORY_MAP,
+        /** open files 文件描述符列表 */
+        OPEN_FILES,
+        /** 崩溃线程之外的其他线程 */
+        OTHER_THREADS,
+        /** 文件末尾的 "--------- log main" 等 logcat 分段 */
+        LOG
+    }
+
+    private final ParseProfile profile;
+    private final AArch64Tombstone tombstone = new AArch64Tombstone();
+    private List<AArch64Tombstone.StackDumpInfo.StackFrame> stackFrames;
+    private AArch64RegisterDumpInfo registerDumpInfo;
+    private List<AArch64Tombstone.FdInfo> fdInfos;
+    private MemoryMapIndex.Builder memoryMapBuilder;
+    private MemorySnapshot memorySnapshot;
+    private String crashThreadName;
+    private final ForkJoinPool threadSectionPool;
+    private final List<ForkJoinTask<AArch64Tombstone.ThreadInfo>> threadSectionTasks = new ArrayList<>();
+    private List<String> threadSectionLines;
+    private ThreadLogTails logTails;
+    private String logBuffer;
+
+    private Section section = Section.HEADER;
+    private boolean backtraceParsed = false;
+    private boolean registerParsed = false;
+    private boolean pidParsed = false;
+    private boolean specialRegisterParsed = false;
+    private boolean complete = false;
+    private boolean finished = false;
+
+    public TombstoneStreamParser() {
+        this(ParseProfile.FULL);
+    }
+
+    /**
+     * @param profile 解析档位，所需分段解析完成后 {@link #isComplete()} 返回 true，后续输入被忽略
+     */
+    public TombstoneStreamParser(ParseProfile profile) {
+        this(profile, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param profile 解析档位
+     * @param threadSectionPool 解析其他线程段使用的线程池
+     */
+    public TombstoneStreamParser(ParseProfile profile, ForkJoinPool threadSectionPool) {
+        this.profile = profile == null ? ParseProfile.FULL : profile;
+        this.threadSectionPool = threadSectionPool;
+    }
+
+    /**
+     * 从字符流解析 tombstone，调用方负责关闭 reader
+     *
+     * @param reader tombstone 文本字符流
+     * @return 解析后的 tombstone
+     * @throws IOException 读取失败
+     */
+    public static AArch64Tombstone parse(Reader reader) throws IOException {
+        return parse(reader, ParseProfile.FULL);
+    }
+
+    /**
+     * 按解析档位从字符流解析 tombstone，所需分段解析完成后不再继续读取
+     *
+     * @param reader tombstone 文本字符流，调用方负责关闭
+     * @param profile 解析档位
+     * @return 解析后的 tombstone
+     * @throws IOException 读取失败
+     */
+    public static AArch64Tombstone parse(Reader reader, ParseProfile profile) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        TombstoneStreamParser parser = new TombstoneStreamParser(profile);
+        String line;
+        while (!parser.isComplete() && (line = bufferedReader.readLine()) != null) {
+            parser.accept(line);
+        }
+        return parser.finish();
+    }
+
+    /**
+     * 从字节通道解析 tombstone，遇到非法字节序列时抛出 CharacterCodingException
+     *
+     * @param channel tombstone 字节通道，调用方负责关闭
+     * @param charset 文本编码
+     * @return 解析后的 tombstone
+     * @throws IOException 读取或解码失败
+     */
+    public static AArch64Tombstone parse(ReadableByteChannel channel, Charset charset) throws IOException {
+        return parse(channel, charset, ParseProfile.FULL);
+    }
+
+    /**
+     * 按解析档位从字节通道解析 tombstone
+     *
+     * @param channel tombstone 字节通道，调用方负责关闭
+     * @param charset 文本编码
+     * @param profile 解析档位
+     * @return 解析后的 tombstone
+     * @throws IOException 读取或解码失败
+     */
+    public static AArch64Tombstone parse(ReadableByteChannel channel, Charset charset, ParseProfile profile)
+            throws IOException {
+        return parse(Channels.newReader(channel, charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT), -1), profile);
+    }
+
+    /**
+     * 兼容已读入内存的行列表
+     *
+     * @param lines tombstone 文本行
+     * @return 解析后的 tombstone
+     */
+    public static AArch64Tombstone parse(List<String> lines) {
+        return parse(lines, ParseProfile.FULL);
+    }
+
+    /**
+     * 按解析档位解析已读入内存的行列表
+     *
+     * @param lines tombstone 文本行
+     * @param profile 解析档位
+     * @return 解析后的 tombstone
+     */
+    public static AArch64Tombstone parse(List<String> lines, ParseProfile profile) {
+        TombstoneStreamParser parser = new TombstoneStreamParser(profile);
+        if (lines != null) {
+            for (String line : lines) {
+                if (parser.isComplete()) {
+                    break;
+                }
+                parser.accept(line);
+            }
+        }
+        return parser.finish();
+    }
+
+    /**
+     * 消费一行文本
+     *
+     * @param line 不含换行符的文本行
+     */
+    public void accept(String line) {
+        if (finished) {
+            throw new IllegalStateException("解析已结束，不能继续输入");
+        }
+        if (complete || line == null || continueSection(line)) {
+            return;
+        }
+        dispatch(line);
+    }
+
+    /**
+     * 解析档位所需的分段是否已全部解析完成
+     *
+     * @return true 表示可以停止输入
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 结束解析并返回结果
+     *
+     * @return 解析后的 tombstone
+     */
+    public AArch64Tombstone finish() {
+        if (!finished) {
+            finished = true;
+            submitThreadSection();
+            buildMemoryMapIndex();
+            if (fdInfos != null && !fdInfos.isEmpty()) {
+                tombstone.setFdInfo(fdInfos);
+            }
+            collectThreads();
+            if (logTails != null) {
+                logTails.attachTo(tombstone);
+            }
+        }
+        return tombstone;
+    }
+
+    /**
+     * 当前所处分段，仅用于测试
+     */
+    Section currentSection() {
+        return section;
+    }
+
+    /**
+     * 分段在文件中按 HEADER、REGISTERS、BACKTRACE、MEMORY_NEAR、MEMORY_MAP、OTHER_THREADS、OPEN_FILES、LOG 的顺序出现，
+     * 除 CRASH_LOG 外各档位覆盖的分段都是该顺序的前缀，因此进入第一个不需要的分段即可结束解析
+     */
+    private static boolean covers(ParseProfile profile, Section section) {
+        return switch (profile) {
+            case HEADER_ONLY -> section == Section.HEADER;
+            case CRASH_THREAD -> section == Section.HEADER
+                || section == Section.REGISTERS
+                || section == Section.BACKTRACE;
+            case CRASH_CONTEXT -> section != Section.OTHER_THREADS
+                && section != Section.OPEN_FILES
+                && section != Section.LOG;
+            case CRASH_LOG -> section != Section.OTHER_THREADS && section != Section.OPEN_FILES;
+            case FULL -> true;
+        };
+    }
+
+    /**
+     * CRASH_LOG 不需要的其他线程与 open files 分段之后还有 log 分段，只能逐行跳过，不能结束解析
+     */
+    private static boolean skips(ParseProfile profile, Section section) {
+        return profile == ParseProfile.CRASH_LOG && !covers(profile, section);
+    }
+
+    /**
+     * 切换到新分段
+     *
+     * @return false 表示当前档位不需要该分段，解析已结束或该分段被跳过
+     */
+    private boolean enter(Section next) {
+        if (skips(profile, next)) {
+            section = next;
+            return false;
+        }
+        if (!covers(profile, next)) {
+            complete = true;
+            return false;
+        }
+        section = next;
+        return true;
+    }
+
+    /**
+     * 让当前分段尝试消费该行
+     *
+     * @return true 表示该行已被当前分段消费；false 表示分段结束，需要重新分派
+     */
+    private boolean continueSection(String line) {
+        switch (section) {
+            case REGISTERS -> {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("backtrace:") || trimmed.contains("memory near")) {
+                    section = Section.HEADER;
+                    return false;
+                }
+                RegisterLineParser.parseSpaceSeparated(trimmed, registerDumpInfo);
+                if (!specialRegisterParsed && line.contains("lr ")) {
+                    specialRegisterParsed = true;
+                    AArch64Tombstone.SpecialRegisterInfo specialRegisterInfo = parseSpecialRegisterInfo(trimmed);
+                    if (specialRegisterInfo != null) {
+                        tombstone.setSpecialRegisterInfo(specialRegisterInfo);
+                    }
+                }
+                return true;
+            }
+            case BACKTRACE -> {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || !trimmed.startsWith("#")) {
+                    section = Section.HEADER;
+                    return false;
+                }
+                AArch64Tombstone.StackDumpInfo.StackFrame frame = StackFrameTokenizer.parse(trimmed);
+                if (frame != null) {
+                    stackFrames.add(frame);
+                }
+                return true;
+            }
+            case MEMORY_NEAR -> {
+                if (line.isBlank()) {
+                    memorySnapshot = null;
+                    section = Section.HEADER;
+                } else if (memorySnapshot != null) {
+                    // 只保留原始行，首次读取时再解码
+                    memorySnapshot.addLine(line);
+                }
+                return true;
+            }
+            case MEMORY_MAP -> {
+                // 映射行均带缩进，"--->" 标记故障地址所在位置
+                if (!line.isEmpty() && (line.charAt(0) == ' ' || line.startsWith("--->"))) {
+                    if (memoryMapBuilder != null) {
+                        parseMemoryMapLine(line, memoryMapBuilder);
+                    }
+                    return true;
+                }
+                buildMemoryMapIndex();
+                section = Section.HEADER;
+                return false;
+            }
+            case OPEN_FILES -> {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()
+                    || trimmed.startsWith("Maps:")
+                    || trimmed.startsWith("memory map")
+                    || trimmed.startsWith("***")) {
+                    section = Section.HEADER;
+                    return false;
+                }
+                if (fdInfos != null) {
+                    parseFdLine(trimmed);
+                }
+                return true;
+            }
+            case OTHER_THREADS -> {
+                if (line.startsWith(THREAD_SEPARATOR)) {
+                    submitThreadSection();
+                    if (!skips(profile, Section.OTHER_THREADS)) {
+                        threadSectionLines = new ArrayList<>();
+                    }
+                    return true;
+                }
+                // 线程段之后是进程级分段
+                if (line.contains("open files:") || line.startsWith("memory map") || line.startsWith("--------- ")) {
+                    submitThreadSection();
+                    section = Section.HEADER;
+                    return false;
+                }
+                if (threadSectionLines != null) {
+                    threadSectionLines.add(line);
+                }
+                return true;
+            }
+            case LOG -> {
+                // log 分段位于文件末尾，其后的行都是日志或下一个缓冲区的标题
+                if (ThreadLogTails.isSectionHeader(line)) {
+                    logBuffer = ThreadLogTails.bufferName(line);
+                } else if (!line.isEmpty()) {
+                    logTails.accept(logBuffer, line);
+                }
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 根据行首特征切换分段或解析单行字段
+     */
+    private void dispatch(String line) {
+        if (line.contains("Cmdline:")) {
+            parseCmdlineLine(line);
+        } else if (!pidParsed && line.startsWith("pid:")) {
+            pidParsed = true;
+            parsePidLine(line);
+        } else if (line.startsWith("signal ")) {
+            tombstone.setSignalInfo(parseSignalInfo(line));
+        } else if (!backtraceParsed && line.startsWith("backtrace:")) {
+            if (!enter(Section.BACKTRACE)) {
+                return;
+            }
+            backtraceParsed = true;
+            AArch64Tombstone.StackDumpInfo stackDumpInfo = new AArch64Tombstone.StackDumpInfo();
+            stackFrames = new ArrayList<>();
+            stackDumpInfo.setStackFrames(stackFrames);
+            tombstone.setStackDumpInfo(stackDumpInfo);
+        } else if (!registerParsed && line.contains("x0  ")) {
+            if (!enter(Section.REGISTERS)) {
+                return;
+            }
+            registerParsed = true;
+            registerDumpInfo = new AArch64RegisterDumpInfo();
+            tombstone.setRegisterDumpInfo(registerDumpInfo);
+            RegisterLineParser.parseSpaceSeparated(line.trim(), registerDumpInfo);
+        } else if (!specialRegisterParsed && line.contains("lr ")) {
+            specialRegisterParsed = true;
+            // 示例:     lr  0000007d0f7a7fb8  sp  0000007bdab4f9a0  pc  0000007d0f79d8cc  pst 0000000060001000
+            AArch64Tombstone.SpecialRegisterInfo specialRegisterInfo = parseSpecialRegisterInfo(line.trim());
+            if (specialRegisterInfo != null) {
+                tombstone.setSpecialRegisterInfo(specialRegisterInfo);
+            }
+        } else if (line.contains("open files:")) {
+            if (enter(Section.OPEN_FILES)) {
+                fdInfos = new ArrayList<>();
+            }
+        } else if (line.startsWith("memory near ")) {
+            if (enter(Section.MEMORY_NEAR)) {
+                memorySnapshot = parseMemoryNearHeader(line);
+                if (tombstone.getMemoryNear() == null) {
+                    tombstone.setMemoryNear(new LinkedHashMap<>());
+                }
+                tombstone.getMemoryNear().putIfAbsent(memorySnapshot.getRegister(), memorySnapshot);
+            }
+        } else if (line.startsWith("memory map")) {
+            if (enter(Section.MEMORY_MAP) && tombstone.getMemoryMapIndex() == null) {
+                memoryMapBuilder = new MemoryMapIndex.Builder();
+            }
+        } else if (line.startsWith(THREAD_SEPARATOR)) {
+            if (enter(Section.OTHER_THREADS)) {
+                threadSectionLines = new ArrayList<>();
+            }
+        } else if (ThreadLogTails.isSectionHeader(line)) {
+            if (enter(Section.LOG)) {
+                logTails = new ThreadLogTails(tombstone.getFirstTid());
+                logBuffer = ThreadLogTails.bufferName(line);
+            }
+        }
+    }
+
+    /**
+     * memory map 分段结束时构建区间索引
+     */
+    private void buildMemoryMapIndex() {
+        if (memoryMapBuilder == null) {
+            return;
+        }
+        if (!memoryMapBuilder.isEmpty()) {
+            tombstone.setMemoryMapIndex(memoryMapBuilder.build());
+        }
+        memoryMapBuilder = null;
+    }
+
+    /**
+     * 将缓存的线程段提交到线程池解析
+     */
+    private void submitThreadSection() {
+        if (threadSectionLines == null || threadSectionLines.isEmpty()) {
+            threadSectionLines = null;
+            return;
+        }
+        List<String> lines = threadSectionLines;
+        threadSectionLines = null;
+        threadSectionTasks.add(threadSectionPool.submit(() -> parseThreadSection(lines)));
+    }
+
+    /**
+     * 按原顺序汇总崩溃线程与其他线程
+     */
+    private void collectThreads() {
+        List<AArch64Tombstone.ThreadInfo> threads = new ArrayList<>(threadSectionTasks.size() + 1);
+        if (tombstone.getFirstTid() != null) {
+            AArch64Tombstone.ThreadInfo crashThread =
+                new AArch64Tombstone.ThreadInfo(tombstone.getFirstTid(), crashThreadName);
+            crashThread.setRegisterDumpInfo(tombstone.getRegisterDumpInfo());
+            crashThread.setSpecialRegisterInfo(tombstone.getSpecialRegisterInfo());
+            crashThread.setStackDumpInfo(tombstone.getStackDumpInfo());
+            threads.add(crashThread);
+        }
+        for (ForkJoinTask<AArch64Tombstone.ThreadInfo> task : threadSectionTasks) {
+            try {
+                AArch64Tombstone.ThreadInfo thread = task.join();
+                if (thread != null) {
+                    threads.add(thread);
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "解析线程段失败: " + e.getMessage(), e);
+            }
+        }
+        if (!threads.isEmpty()) {
+            tombstone.setThreadInfoList(threads);
+        }
+    }
+
+    /**
+     * 解析单个线程段：pid/tid/name 行、寄存器与堆栈回溯
+     *
+     * @param lines 线程分隔行之后、下一个分隔行之前的所有行
+     * @return 线程信息，缺少 pid 行时返回 null
+     */
+    static AArch64Tombstone.ThreadInfo parseThreadSection(List<String> lines) {
+        AArch64Tombstone.ThreadInfo thread = null;
+        List<AArch64Tombstone.StackDumpInfo.StackFrame> frames = null;
+        boolean inBacktrace = false;
+
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (inBacktrace) {
+                if (trimmed.startsWith("#")) {
+                    AArch64Tombstone.StackDumpInfo.StackFrame frame = StackFrameTokenizer.parse(trimmed);
+                    if (frame != null) {
+                        frames.add(frame);
+                    }
+                    continue;
+                }
+                inBacktrace = false;
+            }
+
+            if (thread == null) {
+                if (line.startsWith("pid:")) {
+                    thread = parseThreadHeader(line);
+                }
+            } else if (frames == null && trimmed.startsWith("backtrace:")) {
+                frames = new ArrayList<>();
+                AArch64Tombstone.StackDumpInfo stackDumpInfo = new AArch64Tombstone.StackDumpInfo();
+                stackDumpInfo.setStackFrames(frames);
+                thread.setStackDumpInfo(stackDumpInfo);
+                inBacktrace = true;
+            } else if (frames == null && isRegisterLine(trimmed)) {
+                if (thread.getRegisterDumpInfo() == null) {
+                    thread.setRegisterDumpInfo(new AArch64RegisterDumpInfo());
+                }
+                RegisterLineParser.parseSpaceSeparated(trimmed, thread.getRegisterDumpInfo());
+                if (trimmed.startsWith("lr ")) {
+                    thread.setSpecialRegisterInfo(parseSpecialRegisterInfo(trimmed));
+                }
+            }
+        }
+        return thread;
+    }
+
+    /**
+     * 示例: pid: 13196, tid: 13199, name: Signal Catcher  >>> com.example.tombstoneTest <<<
+     */
+    private static AArch64Tombstone.ThreadInfo parseThreadHeader(String line) {
+        Integer tid = null;
+        int tidStart = line.indexOf("tid:");
+        if (tidStart >= 0) {
+            int tidEnd = line.indexOf(',', tidStart);
+            String tidPart = line.substring(tidStart + 4, tidEnd >= 0 ? tidEnd : line.length()).trim();
+            try {
+                tid = Integer.parseInt(tidPart);
+            } catch (NumberFormatException e) {
+                // 忽略解析错误
+            }
+        }
+        int nameStart = line.indexOf("name:");
+        String name = nameStart >= 0 ? parseThreadName(line.substring(nameStart)) : null;
+        return new AArch64Tombstone.ThreadInfo(tid, name);
+    }
+
+    /**
+     * 从 "name: Signal Catcher  >>> com.example <<<" 中取出线程名
+     */
+    private static String parseThreadName(String namePart) {
+        String name = namePart.substring(5);
+        int processStart = name.indexOf(">>>");
+        if (processStart >= 0) {
+            name = name.substring(0, processStart);
+        }
+        return name.trim();
+    }
+
+    /**
+     * 寄存器行以寄存器名开头，如 "x0  ..."、"lr  ..."、"esr ..."
+     */
+    private static boolean isRegisterLine(String trimmed) {
+        if (trimmed.length() < 3) {
+            return false;
+        }
+        if (trimmed.charAt(0) == 'x' && Character.isDigit(trimmed.charAt(1))) {
+            return true;
+        }
+        return trimmed.startsWith("lr ") || trimmed.startsWith("sp ")
+            || trimmed.startsWith("pc ") || trimmed.startsWith("esr ");
+    }
+
+    private void parseCmdlineLine(String line) {
+        String[] parts = line.split(": ", 2);
+        if (parts.length >= 2) {
+            tombstone.setProcessName(parts[1].trim());
+        }
+    }
+
+    /**
+     * 示例: pid: 16369, tid: 16369, name: pool-1-temporar  >>> com.apkpure.aegon <<<
+     */
+    private void parsePidLine(String line) {
+        String[] parts = line.split(",");
+        for (String part : parts) {
+            String trimmedPart = part.trim();
+            if (trimmedPart.startsWith("pid:")) {
+                tombstone.setPid(Integer.parseInt(trimmedPart.substring(4).trim()));
+            } else if (trimmedPart.startsWith("tid:")) {
+                tombstone.setFirstTid(Integer.parseInt(trimmedPart.substring(4).trim()));
+            } else if (trimmedPart.startsWith("name:")) {
+                crashThreadName = parseThreadName(trimmedPart);
+                // Cmdline 未提供进程名时使用 name 字段
+                if (tombstone.getProcessName() == null || tombstone.getProcessName().isEmpty()) {
+                    String namePart = trimmedPart.substring(5).trim();
+                    if (namePart.contains(">>>") && namePart.contains("<<<")) {
+                        int start = namePart.indexOf(">>>") + 3;
+                        int end = namePart.indexOf("<<<");
+                        if (start < end) {
+                            tombstone.setProcessName(namePart.substring(start, end).trim());
+                        }
+                    } else {
+                        tombstone.setProcessName(namePart);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 示例: signal 11 (SIGSEGV), code 1 (SEGV_MAPERR), fault addr 0x7c5072d048
+     */
+    private AArch64Tombstone.SignalInfo parseSignalInfo(String line) {
+        String[] s = line.split(" ");
+        if (s.length < 8) {
+            throw new RuntimeException("解析信号信息失败，字符串长度" + s.length + " 字符串信息:" + line);
+        }
+        AArch64Tombstone.SignalInfo signalInfo = new AArch64Tombstone.SignalInfo(Integer.parseInt(s[1]));
+        signalInfo.setSigInformation(s[2].replaceAll("[(),]", ""));
+        signalInfo.setTroubleInformation(s[5].replaceAll("[(),]", ""));
+
+        // fault addr 之后可能没有地址（只有 8 个字段），此时不设置故障地址
+        if (s.length > 8 && "fault".equals(s[6]) && "addr".equals(s[7])) {
+            signalInfo.setFaultAddress(parseHexAddress(s[8]));
+        }
+
+        return signalInfo;
+    }
+
+    private Long parseHexAddress(String hexStr) {
+        if (hexStr == null || "null".equals(hexStr)) {
+            return null;
+        }
+        try {
+            if (hexStr.startsWith("0x")) {
+                return Long.parseLong(hexStr.substring(2), 16);
+            } else {
+                return Long.parseLong(hexStr, 16);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 示例: memory near x9 (/system/framework/boot-zframework.z.vdex):
+     */
+    private static MemorySnapshot parseMemoryNearHeader(String line) {
+        String rest = line.substring("memory near ".length()).trim();
+        if (rest.endsWith(":")) {
+            rest = rest.substring(0, rest.length() - 1);
+        }
+        int nameStart = rest.indexOf(" (");
+        if (nameStart < 0) {
+            return new MemorySnapshot(rest, null);
+        }
+        String name = rest.substring(nameStart + 2);
+        if (name.endsWith(")")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return new MemorySnapshot(rest.substring(0, nameStart), name);
+    }
+
+    /**
+     * 示例:     0000007f'f18a8000-0000007f'f18a8fff ---         0      1000  [anon:stack_and_tls:main] (BuildId: ...)
+     * 结束地址为闭区间，写入索引时转换为开区间；"--->" 前缀的映射行同样解析，故障地址说明行被忽略
+     *
+     * @param line 原始行
+     * @param builder 索引构建器
+     */
+    static void parseMemoryMapLine(String line, MemoryMapIndex.Builder builder) {
+        int length = line.length();
+        int pos = line.startsWith("--->") ? 4 : 0;
+        while (pos < length && line.charAt(pos) == ' ') {
+            pos++;
+        }
+        int rangeEnd = line.indexOf(' ', pos);
+        int dash = line.indexOf('-', pos);
+        if (rangeEnd < 0 || dash < 0 || dash > rangeEnd) {
+            return;
+        }
+        long start;
+        long end;
+        try {
+            start = parseMapsHex(line, pos, dash);
+            end = parseMapsHex(line, dash + 1, rangeEnd);
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        int[] bounds = new int[2];
+        pos = nextToken(line, rangeEnd, bounds);
+        if (pos < 0) {
+            return;
+        }
+        byte permission = MemoryMapIndex.parsePermissions(line.subSequence(bounds[0], bounds[1]));
+        long offset = 0;
+        pos = nextToken(line, pos, bounds);
+        if (pos >= 0) {
+            try {
+                offset = parseMapsHex(line, bounds[0], bounds[1]);
+            } catch (NumberFormatException e) {
+                return;
+            }
+            // 跳过 size 列，其余部分为映射名
+            pos = nextToken(line, pos, bounds);
+        }
+        String name = pos >= 0 ? stripMapsNameSuffix(line.substring(pos).trim()) : null;
+        builder.add(start, end + 1, offset, permission, name);
+    }
+
+    /**
+     * 定位下一个以空白分隔的字段
+     *
+     * @return 字段之后的位置，没有更多字段时返回 -1
+     */
+    private static int nextToken(String line, int from, int[] bounds) {
+        int length = line.length();
+        int pos = from;
+        while (pos < length && line.charAt(pos) == ' ') {
+            pos++;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int end = pos;
+        while (end < length && line.charAt(end) != ' ') {
+            end++;
+        }
+        bounds[0] = pos;
+        bounds[1] = end;
+        return end;
+    }
+
+    /**
+     * 解析形如 0000007f'f18a8000 的十六进制地址，忽略分组用的单引号
+     */
+    private static long parseMapsHex(String line, int from, int to) {
+        if (from >= to) {
+            throw new NumberFormatException("空的十六进制字段");
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c == '\'') {
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0 || ++digits > 16) {
+                throw new NumberFormatException("非法的十六进制字段: " + line.substring(from, to));
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 去掉映射名后的 "(BuildId: ...)"、"(load bias 0x...)" 附加信息
+     */
+    private static String stripMapsNameSuffix(String name) {
+        int suffix = name.indexOf(" (BuildId: ");
+        int loadBias = name.indexOf(" (load bias ");
+        if (loadBias >= 0 && (suffix < 0 || loadBias < suffix)) {
+            suffix = loadBias;
+        }
+        return suffix >= 0 ? name.substring(0, suffix) : name;
+    }
+
+    private static AArch64Tombstone.SpecialRegisterInfo parseSpecialRegisterInfo(String line) {
+        Long lr = null, sp = null, pc = null, pst = null;
+        boolean flag = false;
+
+        String[] parts = line.split("\\s+");
+        for (int i = 0; i < parts.length - 1; i += 2) {
+            String regName = parts[i];
+            String regValueStr = parts[i + 1];
+
+            try {
+                long regValue;
+                if (regValueStr.startsWith("0x")) {
+                    regValue = Long.parseLong(regValueStr.substring(2), 16);
+                } else {
+                    regValue = Long.parseLong(regValueStr, 16);
+                }
+
+                switch (regName) {
+                    case "lr" -> { lr = regValue; flag = true; }
+                    case "sp" -> { sp = regValue; flag = true; }
+                    case "pc" -> { pc = regValue; flag = true; }
+                    case "pst" -> { pst = regValue; flag = true; }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        if (!flag) {
+            return null;
+        }
+
+        return new AArch64Tombstone.SpecialRegisterInfo(lr, sp, pc, pst);
+    }
+
+    /**
+     * 示例: fd 0: /dev/null (unowned)
+     */
+    private void parseFdLine(String line) {
+        if (!line.startsWith("fd ")) {
+            return;
+        }
+        try {
+            int colonIndex = line.indexOf(':');
+            if (colonIndex > 0) {
+                String fdPart = line.substring(3, colonIndex).trim();
+                int fd = Integer.parseInt(fdPart);
+
+                String remaining = line.substring(colonIndex + 1).trim();
+                int parenIndex = remaining.lastIndexOf(" (");
+                if (parenIndex > 0) {
+                    String path = remaining.substring(0, parenIndex).trim();
+                    String fdsanInfoStr = remaining.substring(parenIndex).trim();
+
+                    AArch64Tombstone.FdInfo.FdsanInfo fdsanInfo =
+                        AArch64Tombstone.FdInfo.parseFdsanInfo(fdsanInfoStr);
+                    fdInfos.add(new AArch64Tombstone.FdInfo(fd, path, fdsanInfo));
+                } else {
+                    fdInfos.add(new AArch64Tombstone.FdInfo(fd, remaining, null));
+                }
+            }
+        } catch (Exception e) {
+            logger.warning("解析Fd信息失败: " + line + ", 错误: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AnrTrace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 线程等待图
+ *
+ * 每个线程最多等待一把锁，锁最多有一个持有者，因此每个线程最多一条出边（等待方 -> 持有者），
+ * 图中的环即死锁。沿出边行走并给路径上的节点打上本轮编号，走到本轮已访问的节点即找到环，
+ * 走到之前轮次的节点即停止，每个节点只访问一次，整体为线性时间
+ *
+ * 持有者优先取 "held by thread N"，缺失时按锁地址在各线程的 "- locked" 中查找；
+ * 同一线程 "- waiting on" 的对象已由 Object.wait() 释放，虽然栈帧中仍显示为 locked，不作为持有者
+ */
+final class WaitForGraph {
+
+    private static final int NO_EDGE = -1;
+
+    private WaitForGraph() {
+    }
+
+    /**
+     * @param threads 同一进程的线程列表
+     * @return 死锁环列表，每个环为参与线程的 tid，从环上最先转储的线程开始按等待方向排列
+     */
+    static List<List<Integer>> findDeadlocks(List<AnrTrace.JavaThread> threads) {
+        int count = threads.size();
+        Map<Integer, Integer> indexByTid = new HashMap<>(count * 2);
+        Map<String, Integer> ownerByMonitor = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            AnrTrace.JavaThread thread = threads.get(i);
+            if (thread.getTid() != null) {
+                indexByTid.putIfAbsent(thread.getTid(), i);
+            }
+            for (String monitor : thread.getHeldMonitors()) {
+                if (!monitor.equals(thread.getWaitingOn())) {
+                    ownerByMonitor.putIfAbsent(monitor, i);
+                }
+            }
+        }
+
+        int[] next = new int[count];
+        for (int i = 0; i < count; i++) {
+            next[i] = ownerOf(threads.get(i), indexByTid, ownerByMonitor, i);
+        }
+
+        List<List<Integer>> cycles = new ArrayList<>();
+        // 0 表示未访问，其余为访问该节点的轮次编号（起点下标 + 1）
+        int[] visitedBy = new int[count];
+        for (int start = 0; start < count; start++) {
+            if (visitedBy[start] != 0) {
+                continue;
+            }
+            int run = start + 1;
+            int node = start;
+            while (node != NO_EDGE && visitedBy[node] == 0) {
+                visitedBy[node] = run;
+                node = next[node];
+            }
+            if (node != NO_EDGE && visitedBy[node] == run) {
+                cycles.add(collectCycle(threads, next, node));
+            }
+        }
+        return cycles;
+    }
+
+    private static int ownerOf(AnrTrace.JavaThread thread, Map<Integer, Integer> indexByTid,
+                               Map<String, Integer> ownerByMonitor, int self) {
+        if (thread.getWaitingToLock() == null && thread.getWaitingToLockOwnerTid() == null) {
+            return NO_EDGE;
+        }
+        Integer owner = null;
+        if (thread.getWaitingToLockOwnerTid() != null) {
+            owner = indexByTid.get(thread.getWaitingToLockOwnerTid());
+        }
+        if (owner == null && thread.getWaitingToLock() != null) {
+            owner = ownerByMonitor.get(thread.getWaitingToLock());
+        }
+        return owner == null || owner == self ? NO_EDGE : owner;
+    }
+
+    /**
+     * 从环上任一节点出发收集整个环，并旋转到环上下标最小的节点开头，保证输出稳定
+     */
+    private static List<Integer> collectCycle(List<AnrTrace.JavaThread> threads, int[] next, int entry) {
+        List<Integer> members = new ArrayList<>();
+        int first = 0;
+        int node = entry;
+        do {
+            if (!members.isEmpty() && node < members.get(first)) {
+                first = members.size();
+            }
+            members.add(node);
+            node = next[node];
+        } while (node != entry);
+
+        List<Integer> cycle = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            cycle.add(threads.get(members.get((first + i) % members.size())).getTid());
+        }
+        return cycle;
+    }
+}
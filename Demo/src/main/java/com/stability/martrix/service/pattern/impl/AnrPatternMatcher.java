@@ -0,0 +1,104 @@
+package com.stability.martrix.service.pattern.impl;
+
+import com.stability.martrix.dto.PatternMatchResult;
+import com.stability.martrix.entity.AnrTrace;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ANR pattern matcher
+ * Reports Java deadlock cycles found by the parser's wait-for graph, or a main thread blocked on a monitor
+ */
+@Component
+public class AnrPatternMatcher {
+
+    /**
+     * Java main thread tid in ART thread dumps
+     */
+    private static final int MAIN_THREAD_TID = 1;
+    private static final int PROMPT_FRAMES = 5;
+
+    /**
+     * Match and analyze the ANR trace
+     *
+     * @param trace the ANR trace to analyze
+     * @return PatternMatchResult, or null when neither a deadlock nor a blocked main thread is found
+     */
+    public PatternMatchResult match(AnrTrace trace) {
+        if (trace == null || trace.getThreads() == null) {
+            return null;
+        }
+        Map<Integer, AnrTrace.JavaThread> threadsByTid = new HashMap<>();
+        for (AnrTrace.JavaThread thread : trace.getThreads()) {
+            if (thread.getTid() != null) {
+                threadsByTid.putIfAbsent(thread.getTid(), thread);
+            }
+        }
+
+        if (trace.getDeadlocks() != null && !trace.getDeadlocks().isEmpty()) {
+            StringBuilder cycles = new StringBuilder();
+            StringBuilder stacks = new StringBuilder();
+            for (List<Integer> cycle : trace.getDeadlocks()) {
+                cycles.append(" [");
+                for (int i = 0; i < cycle.size(); i++) {
+                    AnrTrace.JavaThread thread = threadsByTid.get(cycle.get(i));
+                    if (i > 0) {
+                        cycles.append(" -> ");
+                    }
+                    cycles.append(describe(thread, cycle.get(i)));
+                    if (thread != null) {
+                        cycles.append(" 等待锁 <").append(thread.getWaitingToLock()).append(">");
+                        stacks.append(stackSummary(thread));
+                    }
+                }
+                cycles.append("]");
+            }
+            boolean mainThreadInvolved = trace.getDeadlocks().stream()
+                .anyMatch(cycle -> cycle.contains(MAIN_THREAD_TID));
+            return PatternMatchResult.builder()
+                .confidence(mainThreadInvolved ? 0.97 : 0.90)
+                .result("检测到Java死锁，共 " + trace.getDeadlocks().size() + " 处:" + cycles +
+                    (mainThreadInvolved ? "。主线程参与死锁，这是本次ANR的直接原因。" : "。") +
+                    " 请统一各线程获取这些锁的顺序，或缩小同步块的范围。")
+                .aiPrompt("ANR线程转储中检测到Java死锁:" + cycles + "。参与死锁的线程栈顶:" + stacks +
+                    "请提醒用户：1) 按固定顺序获取多把锁；2) 避免在持锁时调用外部回调或跨进程调用；" +
+                    "3) 主线程不要等待可能被后台线程长期持有的锁。")
+                .directConclusion(mainThreadInvolved)
+                .build();
+        }
+
+        AnrTrace.JavaThread mainThread = threadsByTid.get(MAIN_THREAD_TID);
+        if (mainThread != null && mainThread.getWaitingToLock() != null) {
+            Integer ownerTid = mainThread.getWaitingToLockOwnerTid();
+            AnrTrace.JavaThread owner = ownerTid != null ? threadsByTid.get(ownerTid) : null;
+            String ownerText = ownerTid != null ? "，持有者为 " + describe(owner, ownerTid) : "";
+            return PatternMatchResult.builder()
+                .confidence(0.85)
+                .result("主线程阻塞在锁 <" + mainThread.getWaitingToLock() + "> 上" + ownerText +
+                    "。请检查持有者线程为何长时间不释放该锁。")
+                .aiPrompt("ANR时主线程处于 " + mainThread.getState() + " 状态，等待锁 <" +
+                    mainThread.getWaitingToLock() + ">" + ownerText + "。主线程栈顶:" + stackSummary(mainThread) +
+                    (owner != null ? "持有者线程栈顶:" + stackSummary(owner) : "") +
+                    "请提醒用户：1) 避免主线程与后台线程竞争同一把锁；2) 把持锁的耗时操作移出同步块。")
+                .directConclusion(false)
+                .build();
+        }
+        return null;
+    }
+
+    private String describe(AnrTrace.JavaThread thread, Integer tid) {
+        return thread != null && thread.getName() != null
+            ? "\"" + thread.getName() + "\"(tid=" + tid + ")"
+            : "tid=" + tid;
+    }
+
+    private String stackSummary(AnrTrace.JavaThread thread) {
+        List<String> frames = thread.getStackFrames();
+        StringBuilder summary = new StringBuilder(" ").append(describe(thread, thread.getTid())).append(": ");
+        summary.append(String.join(" <- ", frames.subList(0, Math.min(PROMPT_FRAMES, frames.size()))));
+        return summary.append("；").toString();
+    }
+}
@@ -2,6 +2,7 @@ package com.stability.martrix.service.pattern.impl;
 
 import com.stability.martrix.dto.PatternMatchResult;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
 import com.stability.martrix.enums.SignalType;
 import com.stability.martrix.exception.InvalidTombstoneException;
 import com.stability.martrix.service.pattern.SignalPatternMatcher;
@@ -193,7 +194,8 @@ public class SIGBUSPatternMatcher implements SignalPatternMatcher {
      * Check if fault address is in a memory-mapped file region
      */
     private boolean isInMappedFileRegion(AArch64Tombstone tombstone) {
-        if (tombstone.getMapsInfoList() == null || tombstone.getMapsInfoList().isEmpty()) {
+        MemoryMapIndex memoryMapIndex = tombstone.getMemoryMapIndex();
+        if (memoryMapIndex == null || memoryMapIndex.size() == 0) {
             return false;
         }
 
@@ -202,20 +204,9 @@ public class SIGBUSPatternMatcher implements SignalPatternMatcher {
             return false;
         }
 
-        for (AArch64Tombstone.MapsInfo mapsInfo : tombstone.getMapsInfoList()) {
-            if (mapsInfo.getStart() != null && mapsInfo.getEnd() != null) {
-                if (faultAddress >= mapsInfo.getStart() &&
-                    faultAddress < mapsInfo.getEnd()) {
-                    // Check if it's a file mapping (contains /)
-                    if (mapsInfo.getName() != null &&
-                        mapsInfo.getName().contains("/")) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
+        // Binary search for the mapping containing the fault address, then check it's a file mapping
+        int index = memoryMapIndex.indexOf(faultAddress);
+        return index >= 0 && memoryMapIndex.name(index) != null && memoryMapIndex.name(index).contains("/");
     }
 
     /**
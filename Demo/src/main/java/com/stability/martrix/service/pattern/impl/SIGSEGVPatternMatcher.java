@@ -2,6 +2,10 @@ package com.stability.martrix.service.pattern.impl;
 
 import com.stability.martrix.dto.PatternMatchResult;
 import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.register.AArch64Register;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
 import com.stability.martrix.enums.SignalType;
 import com.stability.martrix.exception.InvalidTombstoneException;
 import com.stability.martrix.service.pattern.SignalPatternMatcher;
@@ -14,6 +18,23 @@ import org.springframework.stereotype.Service;
 @Service
 public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
 
+    /**
+     * Fill pattern written by malloc debug to freed heap memory
+     */
+    private static final long FREED_FILL_PATTERN = 0xefefefefefefefefL;
+
+    /**
+     * Largest unmapped gap below a stack mapping still treated as its guard region
+     * (one guard page, up to 16KB pages)
+     */
+    private static final long STACK_GUARD_SIZE = 0x4000L;
+
+    /**
+     * x0-x30, candidates for the base pointer of the faulting access
+     */
+    private static final AArch64Register[] GENERAL_REGISTERS =
+        java.util.Arrays.copyOfRange(AArch64Register.values(), AArch64Register.X0.ordinal(), AArch64Register.X30.ordinal() + 1);
+
     @Override
     public PatternMatchResult match(AArch64Tombstone tombstone) {
         // Check for null signal info
@@ -106,12 +127,15 @@ public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
         // Get stack pointer from special register info or register dump info
         Long stackPointer = getStackPointer(tombstone);
 
-        if (stackPointer == null) {
+        // Fault address falls in the guard page right below a thread stack mapping
+        String guardedStack = findGuardedStackMapping(tombstone, faultAddress);
+
+        if (stackPointer == null && guardedStack == null) {
             return null;
         }
 
         // Calculate distance between fault address and stack pointer
-        long distance = Math.abs(faultAddress - stackPointer);
+        long distance = stackPointer != null ? Math.abs(faultAddress - stackPointer) : Long.MAX_VALUE;
 
         // Stack overflow: fault address is within 4KB of stack pointer
         // or fault address is in a typical stack guard page (very large negative offset)
@@ -120,19 +144,20 @@ public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
         // Also check if fault address is in a very low memory region (possible stack corruption)
         boolean inLowMemory = faultAddress < 0x1000L && faultAddress > 0x0L;
 
-        if (nearStackPointer || inLowMemory) {
+        if (nearStackPointer || inLowMemory || guardedStack != null) {
             String stackTraceInfo = getStackTraceSummary(tombstone);
             String recursionInfo = checkRecursionPattern(tombstone);
 
             return PatternMatchResult.builder()
-                .confidence(nearStackPointer ? 0.95 : 0.85)
+                .confidence(guardedStack != null ? 0.97 : nearStackPointer ? 0.95 : 0.85)
                 .result("检测到栈溢出: 故障地址 0x" + Long.toHexString(faultAddress) +
-                    (nearStackPointer ? " 接近栈指针(SP=0x" + Long.toHexString(stackPointer) + ")" :
+                    (guardedStack != null ? " 位于栈保护页(" + guardedStack + ")" :
+                        nearStackPointer ? " 接近栈指针(SP=0x" + Long.toHexString(stackPointer) + ")" :
                         " 位于低内存区域") +
                     "。这通常是由于无限递归或过大的局部变量导致的。" +
                     recursionInfo + stackTraceInfo)
                 .aiPrompt("检测到栈溢出，故障地址 0x" + Long.toHexString(faultAddress) +
-                    (nearStackPointer ? "，接近栈指针" : "，位于低内存区域") +
+                    (guardedStack != null ? "，位于栈保护页" : nearStackPointer ? "，接近栈指针" : "，位于低内存区域") +
                     "。请提醒用户：1) 检查是否存在无限递归；2) 检查是否有大数组作为局部变量；" +
                     "3) 考虑增加线程栈大小；4) 检查递归终止条件是否正确。" +
                     recursionInfo + stackTraceInfo)
@@ -181,6 +206,13 @@ public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
             }
         }
 
+        String freedFillRegister = findFreedFillRegister(tombstone);
+        if (freedFillRegister != null) {
+            hasHeapPattern = true;
+            heapPatterns.append(" 寄存器 ").append(freedFillRegister)
+                .append(" 附近内存为释放填充值 0x").append(Long.toHexString(FREED_FILL_PATTERN)).append(";");
+        }
+
         if (hasHeapPattern) {
             return PatternMatchResult.builder()
                 .confidence(0.90)
@@ -285,7 +317,8 @@ public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
         boolean isWildPointer = faultAddress > 0x100000000000L; // Very large address
 
         if (isAccessError || isWildPointer) {
-            String callerInfo = getCrashCallerInfo(tombstone);
+            String callerInfo = describeFaultMapping(tombstone, faultAddress) +
+                findFaultBaseRegister(tombstone, faultAddress) + getCrashCallerInfo(tombstone);
             String reason = isAccessError ? "访问权限错误（可能是写入只读内存）" :
                 "野指针（指针值异常：0x" + Long.toHexString(faultAddress) + "）";
 
@@ -317,13 +350,130 @@ public class SIGSEGVPatternMatcher implements SignalPatternMatcher {
         }
 
         // Try register dump info
-        if (tombstone.getRegisterDumpInfo() != null && tombstone.getRegisterDumpInfo().getSp() != 0) {
+        if (tombstone.getRegisterDumpInfo() != null && tombstone.getRegisterDumpInfo().has(AArch64Register.SP)) {
             return tombstone.getRegisterDumpInfo().getSp();
         }
 
         return null;
     }
 
+    /**
+     * Find the stack mapping guarded by the region containing the fault address:
+     * the fault lies in an inaccessible stack mapping, in an inaccessible mapping directly adjacent
+     * below a stack mapping, or in an unmapped gap of at most one guard size directly below a stack mapping
+     *
+     * @return name of the stack mapping, or null if not a stack guard fault
+     */
+    private String findGuardedStackMapping(AArch64Tombstone tombstone, long faultAddress) {
+        MemoryMapIndex memoryMapIndex = tombstone.getMemoryMapIndex();
+        if (memoryMapIndex == null || memoryMapIndex.size() == 0) {
+            return null;
+        }
+
+        int containing = memoryMapIndex.indexOf(faultAddress);
+        if (containing >= 0) {
+            if (!memoryMapIndex.isInaccessible(containing)) {
+                return null;
+            }
+            if (isStackMapping(memoryMapIndex.name(containing))) {
+                return memoryMapIndex.name(containing);
+            }
+            int above = containing + 1;
+            if (above < memoryMapIndex.size() && memoryMapIndex.end(containing) == memoryMapIndex.start(above)
+                && isStackMapping(memoryMapIndex.name(above))) {
+                return memoryMapIndex.name(above);
+            }
+            return null;
+        }
+
+        int above = memoryMapIndex.floorIndex(faultAddress) + 1;
+        if (above < memoryMapIndex.size() && isStackMapping(memoryMapIndex.name(above))
+            && Long.compareUnsigned(memoryMapIndex.start(above) - faultAddress, STACK_GUARD_SIZE) <= 0) {
+            return memoryMapIndex.name(above);
+        }
+        return null;
+    }
+
+    /**
+     * Find a register whose nearby memory holds the freed fill pattern.
+     * Memory snapshots are decoded lazily, only when this check runs
+     */
+    private String findFreedFillRegister(AArch64Tombstone tombstone) {
+        if (tombstone.getMemoryNear() == null) {
+            return null;
+        }
+
+        for (MemorySnapshot snapshot : tombstone.getMemoryNear().values()) {
+            for (int i = 0; i < snapshot.wordCount(); i++) {
+                if (snapshot.isWordReadable(i) && snapshot.word(i) == FREED_FILL_PATTERN) {
+                    return snapshot.getRegister();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Thread stack mappings: [stack], [stack:tid], [anon:stack_and_tls:tid] and anonymous
+     * mappings named after a stack such as [anon:dalvik-... stack]; file mappings never match
+     */
+    private boolean isStackMapping(String name) {
+        if (name == null) {
+            return false;
+        }
+        return name.equals("[stack]")
+            || name.startsWith("[stack:")
+            || name.startsWith("[anon:stack_and_tls:")
+            || (name.startsWith("[anon:") && name.endsWith("stack]"));
+    }
+
+    /**
+     * Find the general-purpose register closest below the fault address (within 4KB),
+     * usually the base pointer of the faulting load/store
+     */
+    private String findFaultBaseRegister(AArch64Tombstone tombstone, long faultAddress) {
+        AArch64RegisterDumpInfo registers = tombstone.getRegisterDumpInfo();
+        if (registers == null) {
+            return "";
+        }
+
+        AArch64Register baseRegister = null;
+        long baseDistance = 0x1000L;
+        for (AArch64Register register : GENERAL_REGISTERS) {
+            if (!registers.has(register)) {
+                continue;
+            }
+            long distance = faultAddress - registers.get(register);
+            if (distance >= 0 && distance < baseDistance) {
+                baseRegister = register;
+                baseDistance = distance;
+            }
+        }
+        if (baseRegister == null) {
+            return "";
+        }
+        return " 故障地址 = " + baseRegister.name().toLowerCase() + "(0x" +
+            Long.toHexString(registers.get(baseRegister)) + ") + 0x" + Long.toHexString(baseDistance) + "。";
+    }
+
+    /**
+     * Describe the mapping containing the fault address
+     */
+    private String describeFaultMapping(AArch64Tombstone tombstone, long faultAddress) {
+        MemoryMapIndex memoryMapIndex = tombstone.getMemoryMapIndex();
+        if (memoryMapIndex == null || memoryMapIndex.size() == 0) {
+            return "";
+        }
+
+        int index = memoryMapIndex.indexOf(faultAddress);
+        if (index < 0) {
+            return " 故障地址不在任何内存映射中。";
+        }
+        String name = memoryMapIndex.name(index);
+        return " 故障地址位于" + (name != null ? "映射 " + name : "匿名映射") +
+            "（权限 " + memoryMapIndex.permissionString(index) + "）。";
+    }
+
     /**
      * Get crash caller information from stack trace
      */
@@ -0,0 +1,444 @@
+package com.stability.martrix.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的 blob 存储
+ *
+ * 内容以 SHA-256 摘要命名，存放在 {@code <root>/<摘要前两位>/<摘要>}，相同内容只存一份；
+ * 会话文件夹中的文件是 blob 的硬链接，读取方按原路径读取，不感知 blob 存储。
+ * 引用计数即文件系统的硬链接数：blob 自身占一个链接，每个引用它的会话文件再占一个，
+ * 链接数降到 1 时说明没有会话在使用，回收时删除。
+ *
+ * 建立链接时把 blob 名记入引用方（会话文件夹）的引用清单 {@code <root>/refs/<引用方>}，删除会话后
+ * {@link #release} 只检查该会话引用过的 blob，代价与会话大小相关而与存储总量无关；遍历全部 blob 的
+ * {@link #collectGarbage} 由定时任务执行，兜底回收清单遗漏的 blob、解压缓存与崩溃残留的临时文件。
+ *
+ * 压缩存储的会话文件同样按原文摘要去重，链接到 {@code <摘要>.zst} 压缩 blob；压缩 blob 以一个 zstd 可跳过帧开头，
+ * 帧内记录原文摘要，解压时被跳过，按会话文件即可找回摘要。解压出的明文作为同一摘要的明文 blob 缓存，
+ * 没有会话文件链接，在回收时删除
+ *
+ * 链接与回收在同一把锁内进行，回收不会删除正要被链接的 blob；跨进程共用同一存储目录时不提供该保证
+ */
+public final class BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobStore.class);
+    private static final String PENDING_PREFIX = ".pending-";
+    private static final String REFS_FOLDER_NAME = "refs";
+    private static final String COMPRESSED_SUFFIX = ".zst";
+    /**
+     * zstd 可跳过帧的魔数（0x184D2A50 至 0x184D2A5F 之一），解压时整帧跳过
+     */
+    private static final int SKIPPABLE_FRAME_MAGIC = 0x184D2A50;
+    private static final int HASH_BYTES = 32;
+    private static final int HASH_FRAME_SIZE = 8 + HASH_BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path refsRoot;
+    private final Object lock = new Object();
+
+    private BlobStore(Path root) {
+        this.root = root;
+        this.refsRoot = root.resolve(REFS_FOLDER_NAME);
+    }
+
+    /**
+     * 打开 blob 存储，目录不存在时创建
+     *
+     * @param root 存储根目录，应与会话文件夹在同一文件系统上，否则硬链接失败时退化为复制
+     * @return blob 存储；文件系统不提供硬链接数（非 POSIX 文件系统）时返回 null，调用方不去重
+     */
+    public static BlobStore open(Path root) {
+        try {
+            Files.createDirectories(root);
+            if (!root.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                logger.info("文件系统不提供硬链接数，会话文件不去重: {}", root);
+                return null;
+            }
+            return new BlobStore(root);
+        } catch (IOException e) {
+            logger.warn("创建 blob 存储目录失败，会话文件不去重: {}, error={}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 开始写入一个新 blob，摘要由调用方在写入的同时计算
+     *
+     * @return 待提交的 blob，写完后调用 {@link #commit}，放弃时调用 {@link PendingBlob#discard()}
+     * @throws IOException 创建临时文件失败
+     */
+    public PendingBlob create() throws IOException {
+        Path path = Files.createTempFile(root, PENDING_PREFIX, ".tmp");
+        try {
+            return new PendingBlob(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /**
+     * 提交写完的 blob 并把 target 链接到它；内容已存在时丢弃本次写入，链接到已有的 blob
+     *
+     * @param pending 写完的 blob
+     * @param hash 调用方写入时计算的内容摘要（SHA-256，十六进制小写）
+     * @param target 会话文件路径
+     * @param owner 引用方，记入其引用清单；为 null 时不记录，只能由 {@link #collectGarbage} 回收
+     * @throws IOException 移动或链接失败
+     */
+    public void commit(PendingBlob pending, String hash, Path target, String owner) throws IOException {
+        pending.close();
+        synchronized (lock) {
+            Path blob = blobPath(hash);
+            moveIntoPlace(pending, blob);
+            link(blob, target, owner);
+        }
+    }
+
+    /**
+     * 把 target 链接到原文摘要为 hash 的压缩 blob
+     *
+     * @return 压缩 blob 不存在时返回 false，不修改 target
+     * @throws IOException 链接失败
+     */
+    public boolean linkCompressed(String hash, Path target, String owner) throws IOException {
+        synchronized (lock) {
+            Path blob = compressedBlobPath(hash);
+            if (!Files.isRegularFile(blob)) {
+                return false;
+            }
+            link(blob, target, owner);
+            return true;
+        }
+    }
+
+    /**
+     * 开始写入原文摘要为 hash 的压缩 blob，已写入记录摘要的可跳过帧，调用方接着写入 zstd 压缩数据
+     *
+     * @return 待提交的 blob，写完后调用 {@link #commitCompressed}
+     * @throws IOException 创建临时文件失败
+     */
+    public PendingBlob createCompressed(String hash) throws IOException {
+        PendingBlob pending = create();
+        try {
+            pending.outputStream().write(ByteBuffer.allocate(HASH_FRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(SKIPPABLE_FRAME_MAGIC).putInt(HASH_BYTES).put(HexFormat.of().parseHex(hash)).array());
+            return pending;
+        } catch (IOException | RuntimeException e) {
+            pending.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * 提交写完的压缩 blob 并把 target 链接到它；同一原文的压缩 blob 已存在时丢弃本次写入
+     *
+     * @throws IOException 移动或链接失败
+     */
+    public void commitCompressed(PendingBlob pending, String hash, Path target, String owner) throws IOException {
+        pending.close();
+        synchronized (lock) {
+            Path blob = compressedBlobPath(hash);
+            moveIntoPlace(pending, blob);
+            link(blob, target, owner);
+        }
+    }
+
+    /**
+     * 读取压缩 blob 开头记录的原文摘要
+     *
+     * @param path 链接到压缩 blob 的会话文件
+     * @return 原文摘要；不以摘要帧开头（未去重时压缩的文件）时返回 null
+     * @throws IOException 读取失败
+     */
+    public static String compressedHash(Path path) throws IOException {
+        byte[] frame;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            frame = inputStream.readNBytes(HASH_FRAME_SIZE);
+        }
+        if (frame.length < HASH_FRAME_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != SKIPPABLE_FRAME_MAGIC || buffer.getInt() != HASH_BYTES) {
+            return null;
+        }
+        return HexFormat.of().formatHex(frame, 8, HASH_FRAME_SIZE);
+    }
+
+    /**
+     * 查找摘要为 hash 的明文 blob；只作为解压缓存、没有会话文件链接时刷新修改时间，使其在宽限期内不被回收
+     *
+     * @return 明文 blob，不存在时返回 null
+     */
+    public Path plainBlob(String hash) {
+        Path blob = blobPath(hash);
+        synchronized (lock) {
+            try {
+                if (!Files.isRegularFile(blob)) {
+                    return null;
+                }
+                if ((Integer) Files.getAttribute(blob, "unix:nlink") <= 1) {
+                    Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+                }
+                return blob;
+            } catch (IOException e) {
+                logger.debug("读取明文 blob 失败: {}, error={}", blob, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 把写完的明文提交为摘要为 hash 的明文 blob，不链接任何会话文件，作为压缩 blob 的解压缓存；
+     * 同一内容的明文 blob 已存在时丢弃本次写入
+     *
+     * @param pending 写完的明文，内容摘要必须为 hash
+     * @return 明文 blob 路径，调用方只读不删除
+     * @throws IOException 移动失败
+     */
+    public Path commitPlain(PendingBlob pending, String hash) throws IOException {
+        pending.close();
+        synchronized (lock) {
+            Path blob = blobPath(hash);
+            moveIntoPlace(pending, blob);
+            return blob;
+        }
+    }
+
+    /**
+     * @param hash 内容摘要
+     * @return 引用该 blob 的会话文件数，blob 不存在时为 0
+     * @throws IOException 读取链接数失败
+     */
+    public int referenceCount(String hash) throws IOException {
+        Path blob = blobPath(hash);
+        if (!Files.isRegularFile(blob)) {
+            return 0;
+        }
+        return (Integer) Files.getAttribute(blob, "unix:nlink") - 1;
+    }
+
+    /**
+     * 引用方的文件删除后调用：只检查其引用清单中的 blob，删除不再被任何会话文件引用的，之后删除清单
+     *
+     * @param owner 引用方
+     * @return 删除的 blob 数
+     */
+    public int release(String owner) {
+        Path refs = refsRoot.resolve(owner);
+        int deleted = 0;
+        synchronized (lock) {
+            Set<String> names;
+            try {
+                names = Files.exists(refs) ? new HashSet<>(Files.readAllLines(refs)) : Set.of();
+            } catch (IOException e) {
+                logger.warn("读取引用清单失败，留给定时回收: {}, error={}", refs, e.getMessage());
+                return 0;
+            }
+            for (String name : names) {
+                if (!name.isBlank() && deleteIfUnreferenced(root.resolve(name.substring(0, 2)).resolve(name))) {
+                    deleted++;
+                }
+            }
+            try {
+                Files.deleteIfExists(refs);
+            } catch (IOException e) {
+                logger.debug("删除引用清单失败: {}, error={}", refs, e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            logger.info("回收 {} 不再引用的 blob {} 个", owner, deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return 有引用清单的引用方
+     */
+    public List<String> owners() {
+        if (!Files.isDirectory(refsRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.list(refsRoot)) {
+            return stream.map(path -> path.getFileName().toString()).toList();
+        } catch (IOException e) {
+            logger.warn("遍历引用清单失败: {}, error={}", refsRoot, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 遍历整个存储，删除不再被任何会话文件引用的 blob 与崩溃残留的临时文件，由定时任务调用
+     *
+     * @param minAge 只处理最后修改早于该时长的文件：更新的临时文件可能正在写入，更新的无引用 blob
+     *               可能是刚提交、调用方还没打开的解压缓存
+     * @return 删除的文件数
+     */
+    public int collectGarbage(Duration minAge) {
+        long cutoff = System.currentTimeMillis() - minAge.toMillis();
+        int deleted = 0;
+        int pending = 0;
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root, 2)) {
+            files = stream.filter(Files::isRegularFile).filter(path -> !path.startsWith(refsRoot)).toList();
+        } catch (IOException e) {
+            logger.warn("遍历 blob 存储失败: {}, error={}", root, e.getMessage());
+            return 0;
+        }
+        for (Path file : files) {
+            try {
+                if (Files.getLastModifiedTime(file).toMillis() >= cutoff) {
+                    continue;
+                }
+                if (file.getParent().equals(root)) {
+                    // 根目录下只有写入中的临时文件，足够旧的是写入方崩溃后的残留
+                    if (file.getFileName().toString().startsWith(PENDING_PREFIX) && Files.deleteIfExists(file)) {
+                        pending++;
+                    }
+                    continue;
+                }
+            } catch (IOException e) {
+                logger.debug("读取 blob 修改时间失败: {}, error={}", file, e.getMessage());
+                continue;
+            }
+            synchronized (lock) {
+                if (deleteIfUnreferenced(file)) {
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0 || pending > 0) {
+            logger.info("回收无引用的 blob {} 个，残留的临时文件 {} 个", deleted, pending);
+        }
+        return deleted + pending;
+    }
+
+    /**
+     * 在锁内调用：链接数降到 1 时删除 blob
+     */
+    private static boolean deleteIfUnreferenced(Path blob) {
+        try {
+            if (Files.isRegularFile(blob) && (Integer) Files.getAttribute(blob, "unix:nlink") <= 1) {
+                Files.delete(blob);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.debug("回收 blob 失败: {}, error={}", blob, e.getMessage());
+        }
+        return false;
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path compressedBlobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + COMPRESSED_SUFFIX);
+    }
+
+    /**
+     * 在锁内调用：blob 已存在时丢弃写入，否则把临时文件移动到 blob 路径
+     */
+    private static void moveIntoPlace(PendingBlob pending, Path blob) throws IOException {
+        if (Files.isRegularFile(blob)) {
+            pending.discard();
+        } else {
+            Files.createDirectories(blob.getParent());
+            Files.move(pending.path, blob, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 在锁内调用：先删除目录项再建立链接，目标若是另一个 blob 的硬链接，直接写入会改写共享的内容；
+     * 链接建立后把 blob 名记入引用方的清单
+     */
+    private void link(Path blob, Path target, String owner) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // 跨文件系统等无法建立硬链接时复制，内容正确但不去重，也不需要记录引用
+            logger.debug("建立硬链接失败，改为复制: {}, error={}", target, e.getMessage());
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        if (owner != null) {
+            Files.createDirectories(refsRoot);
+            Files.writeString(refsRoot.resolve(owner), blob.getFileName() + "\n",
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * 写入中的 blob
+     */
+    public static final class PendingBlob implements Closeable {
+        private final Path path;
+        private final OutputStream outputStream;
+        private boolean closed;
+
+        private PendingBlob(Path path) throws IOException {
+            this.path = path;
+            this.outputStream = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        }
+
+        /**
+         * @return 写入内容的输出流，关闭它等同于关闭本对象
+         */
+        public OutputStream outputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                outputStream.close();
+            }
+        }
+
+        /**
+         * 放弃本次写入，删除临时文件
+         */
+        public void discard() {
+            try {
+                close();
+            } catch (IOException ignored) {
+                // 无论是否写完都删除临时文件
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.debug("删除 blob 临时文件失败: {}, error={}", path, e.getMessage());
+            }
+        }
+    }
+}
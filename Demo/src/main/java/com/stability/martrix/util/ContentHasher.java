@@ -0,0 +1,76 @@
+package com.stability.martrix.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 文件内容摘要工具
+ *
+ * 使用 SHA-256 计算文件字节的摘要，作为跨会话共享缓存的键。JDK 对 SHA-256 有硬件指令内建实现，
+ * 吞吐远高于文本解析；摘要抗碰撞，不同内容不会因键冲突拿到别人的解析结果
+ */
+public class ContentHasher {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHasher() {
+    }
+
+    /**
+     * 读完输入流并计算摘要，不关闭输入流
+     *
+     * @param inputStream 输入流
+     * @return 十六进制小写摘要
+     * @throws IOException 读取失败
+     */
+    public static String hash(InputStream inputStream) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * 计算文件内容的摘要
+     *
+     * @param path 文件路径
+     * @return 十六进制小写摘要
+     * @throws IOException 读取失败
+     */
+    public static String hash(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return hash(inputStream);
+        }
+    }
+
+    /**
+     * 完成摘要计算并格式化为十六进制小写，与 {@link #hash} 的结果一致
+     *
+     * @param digest 由 {@link #newDigest()} 创建、已计入全部内容的摘要
+     * @return 十六进制小写摘要
+     */
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 创建与 {@link #hash} 相同算法的摘要，供边读取边计算（如 DigestInputStream）的调用方使用
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // 所有 Java 平台实现都必须提供 SHA-256
+            throw new IllegalStateException(ALGORITHM + " 不可用", e);
+        }
+    }
+}
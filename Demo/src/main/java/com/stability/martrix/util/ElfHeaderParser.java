@@ -39,6 +39,12 @@ public class ElfHeaderParser {
     public static final int ET_DYN = 3;       // 共享目标文件
     public static final int ET_CORE = 4;      // 核心转储文件
 
+    /**
+     * 程序头类型与 note 类型
+     */
+    public static final int PT_NOTE = 4;
+    public static final int NT_GNU_BUILD_ID = 3;
+
     /**
      * ELF头信息
      */
@@ -179,6 +185,86 @@ public class ElfHeaderParser {
         return info;
     }
 
+    /**
+     * 从文件开头的字节中读取 GNU BuildId
+     *
+     * 按程序头表找到 PT_NOTE 段，在其中查找名称为 "GNU" 的 NT_GNU_BUILD_ID note。
+     * 链接器通常把 .note.gnu.build-id 放在文件开头几 KB 内，只需读取文件头即可得到
+     *
+     * @param header 文件开头的字节
+     * @return 小写十六进制的 BuildId，不是 ELF、没有 BuildId 或 note 不在给定字节内时返回 null
+     */
+    public static String readBuildId(byte[] header) {
+        ElfHeaderInfo info = parseElfHeader(header);
+        if (info == null) {
+            return null;
+        }
+        boolean le = info.isLittleEndian();
+        long phoff = info.is64Bit() ? readAddress(header, 32, le) : readWord(header, 28, le);
+        int phentsize = readHalf(header, info.is64Bit() ? 54 : 42, le);
+        int phnum = readHalf(header, info.is64Bit() ? 56 : 44, le);
+
+        for (int i = 0; i < phnum; i++) {
+            long entry = phoff + (long) i * phentsize;
+            if (entry < 0 || entry + phentsize > header.length || phentsize < (info.is64Bit() ? 40 : 20)) {
+                return null;
+            }
+            int base = (int) entry;
+            if (readWord(header, base, le) != PT_NOTE) {
+                continue;
+            }
+            long offset = info.is64Bit() ? readAddress(header, base + 8, le) : readWord(header, base + 4, le);
+            long size = info.is64Bit() ? readAddress(header, base + 32, le) : readWord(header, base + 16, le);
+            String buildId = findBuildIdNote(header, offset, Math.min(offset + size, header.length), le);
+            if (buildId != null) {
+                return buildId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在 [start, end) 内逐个读取 note，name 与 desc 按 4 字节对齐
+     */
+    private static String findBuildIdNote(byte[] data, long start, long end, boolean isLittleEndian) {
+        long pos = start;
+        while (pos >= 0 && pos + 12 <= end) {
+            int base = (int) pos;
+            long nameSize = readWord(data, base, isLittleEndian);
+            long descSize = readWord(data, base + 4, isLittleEndian);
+            long type = readWord(data, base + 8, isLittleEndian);
+            long nameStart = pos + 12;
+            long descStart = nameStart + align4(nameSize);
+            if (descStart + descSize > end) {
+                return null;
+            }
+            if (type == NT_GNU_BUILD_ID && nameSize == 4
+                    && data[(int) nameStart] == 'G' && data[(int) nameStart + 1] == 'N'
+                    && data[(int) nameStart + 2] == 'U' && data[(int) nameStart + 3] == 0) {
+                StringBuilder hex = new StringBuilder((int) descSize * 2);
+                for (int i = 0; i < descSize; i++) {
+                    hex.append(String.format("%02x", data[(int) descStart + i] & 0xFF));
+                }
+                return hex.toString();
+            }
+            pos = descStart + align4(descSize);
+        }
+        return null;
+    }
+
+    private static long align4(long size) {
+        return (size + 3) & ~3L;
+    }
+
+    /**
+     * 读取8字节地址或偏移
+     */
+    private static long readAddress(byte[] data, int offset, boolean isLittleEndian) {
+        long low = readWord(data, offset + (isLittleEndian ? 0 : 4), isLittleEndian);
+        long high = readWord(data, offset + (isLittleEndian ? 4 : 0), isLittleEndian);
+        return high << 32 | low;
+    }
+
     /**
      * 读取2字节半字
      */
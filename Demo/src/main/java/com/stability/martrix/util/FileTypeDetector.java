@@ -7,7 +7,10 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * 文件类型检测工具
@@ -15,7 +18,10 @@ import java.nio.charset.StandardCharsets;
  */
 public class FileTypeDetector {
 
-    private static final int SAMPLE_SIZE = 4096;
+    /**
+     * 类型、编码与文本判定共用的文件头采样长度
+     */
+    public static final int SAMPLE_SIZE = 4096;
     private static final int TAR_MAGIC_OFFSET = 257;
     private static final double UTF16_ZERO_RATIO_THRESHOLD = 0.3;
     private static final double UTF16_ASCII_RATIO_THRESHOLD = 0.5;
@@ -30,6 +36,9 @@ public class FileTypeDetector {
         ELF("application/x-elf", "elf"),
         ZIP("application/zip", "zip"),
         GZIP("application/gzip", "gz"),
+        ZSTD("application/zstd", "zst"),
+        XZ("application/x-xz", "xz"),
+        TOMBSTONE_PROTO("application/x-protobuf", "pb"),
         UNKNOWN("unknown", "unknown");
 
         private final String mimeType;
@@ -55,6 +64,15 @@ public class FileTypeDetector {
     private static final int[] ZIP_MAGIC = {'P', 'K'};
     // GZIP文件魔数：1F 8B
     private static final int[] GZIP_MAGIC = {0x1F, 0x8B};
+    // Zstandard 帧魔数：28 B5 2F FD
+    private static final int[] ZSTD_MAGIC = {0x28, 0xB5, 0x2F, 0xFD};
+    // XZ 文件魔数：FD '7' 'z' 'X' 'Z' 00
+    private static final int[] XZ_MAGIC = {0xFD, '7', 'z', 'X', 'Z', 0x00};
+    // protobuf tombstone 开头的字段 tag：arch（字段 1，varint）与 build_fingerprint（字段 2，长度前缀）
+    private static final int PROTO_ARCH_TAG = 0x08;
+    private static final int PROTO_FINGERPRINT_TAG = 0x12;
+    private static final int PROTO_MAX_ARCH = 4;
+    private static final int PROTO_MIN_FINGERPRINT_LENGTH = 8;
 
     /**
      * 检测文件类型
@@ -81,6 +99,75 @@ public class FileTypeDetector {
         }
     }
 
+    /**
+     * 检测流的文件类型，只查看头部，读取位置保持不变
+     *
+     * @param inputStream 支持 mark/reset 的输入流
+     * @return 文件类型
+     * @throws IOException 读取失败或流不支持 mark/reset
+     */
+    public static FileType detectFileType(InputStream inputStream) throws IOException {
+        if (!inputStream.markSupported()) {
+            throw new IOException("输入流不支持 mark/reset，无法检测文件类型");
+        }
+        inputStream.mark(SAMPLE_SIZE);
+        byte[] header = inputStream.readNBytes(SAMPLE_SIZE);
+        inputStream.reset();
+        return detectByHeader(header);
+    }
+
+    /**
+     * 检测已读入内存的文件头的类型
+     *
+     * @param header 文件开头最多 {@value #SAMPLE_SIZE} 字节
+     * @return 文件类型
+     */
+    public static FileType detectFileType(byte[] header) {
+        return detectByHeader(header);
+    }
+
+    /**
+     * 按文件头判断内容是否像文本：带 BOM、像无 BOM 的 UTF-16，或不含 NUL 且控制字符足够少
+     *
+     * @param header 文件开头最多 {@value #SAMPLE_SIZE} 字节
+     * @return 是否可能是文本
+     */
+    public static boolean isLikelyText(byte[] header) {
+        return header.length > 0 && isLikelyText(header, Math.min(header.length, SAMPLE_SIZE));
+    }
+
+    /**
+     * 按文件头推断候选编码，按可能性排序：BOM 指定的编码、无 BOM 的 UTF-16、UTF-8、GB18030、GBK
+     *
+     * @param header 文件开头最多 {@value #SAMPLE_SIZE} 字节
+     * @return 不可变的候选编码列表，至少包含 UTF-8
+     */
+    public static List<Charset> candidateCharsets(byte[] header) {
+        LinkedHashSet<Charset> charsets = new LinkedHashSet<>();
+
+        Charset bomCharset = detectBomCharset(header);
+        if (bomCharset != null) {
+            charsets.add(bomCharset);
+        }
+
+        Charset bomLessUtf16 = detectBomlessUtf16(header, header.length);
+        if (bomLessUtf16 != null) {
+            charsets.add(bomLessUtf16);
+        }
+
+        charsets.add(StandardCharsets.UTF_8);
+        addSupportedCharset(charsets, "GB18030");
+        addSupportedCharset(charsets, "GBK");
+
+        return List.copyOf(charsets);
+    }
+
+    private static void addSupportedCharset(LinkedHashSet<Charset> charsets, String charsetName) {
+        if (Charset.isSupported(charsetName)) {
+            charsets.add(Charset.forName(charsetName));
+        }
+    }
+
     /**
      * 通过魔数检测文件类型
      *
@@ -146,10 +233,23 @@ public class FileTypeDetector {
             return FileType.GZIP;
         }
 
+        if (startsWith(header, ZSTD_MAGIC)) {
+            return FileType.ZSTD;
+        }
+
+        if (startsWith(header, XZ_MAGIC)) {
+            return FileType.XZ;
+        }
+
         if (hasTarMagic(header, length)) {
             return FileType.UNKNOWN;
         }
 
+        // 指纹是可打印字符，需在文本判定之前检测
+        if (isTombstoneProto(header, length)) {
+            return FileType.TOMBSTONE_PROTO;
+        }
+
         if (isLikelyText(header, length)) {
             return FileType.TXT;
         }
@@ -195,17 +295,85 @@ public class FileTypeDetector {
         return (header[0] & 0xFF) == GZIP_MAGIC[0] && (header[1] & 0xFF) == GZIP_MAGIC[1];
     }
 
+    private static boolean startsWith(byte[] header, int[] magic) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * protobuf tombstone 没有魔数，按字段号顺序序列化后以可选的 arch 字段开头，紧接 build_fingerprint，
+     * 形如 08 01 12 4e "google/sdk_gphone64_arm64/..."；要求指纹完整落在文件头内、全部可打印且包含 '/'
+     */
+    private static boolean isTombstoneProto(byte[] header, int length) {
+        int pos = 0;
+        if (length >= 2 && (header[0] & 0xFF) == PROTO_ARCH_TAG) {
+            if ((header[1] & 0xFF) > PROTO_MAX_ARCH) {
+                return false;
+            }
+            pos = 2;
+        }
+        if (pos >= length || (header[pos] & 0xFF) != PROTO_FINGERPRINT_TAG) {
+            return false;
+        }
+        pos++;
+
+        int fingerprintLength = 0;
+        for (int shift = 0; pos < length && shift <= 14; shift += 7) {
+            int b = header[pos++] & 0xFF;
+            fingerprintLength |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                break;
+            }
+            if (shift == 14) {
+                return false;
+            }
+        }
+        if (fingerprintLength < PROTO_MIN_FINGERPRINT_LENGTH || pos + fingerprintLength > length) {
+            return false;
+        }
+
+        boolean hasSlash = false;
+        for (int i = pos; i < pos + fingerprintLength; i++) {
+            int b = header[i] & 0xFF;
+            if (b < 0x20 || b >= 0x7F) {
+                return false;
+            }
+            hasSlash |= b == '/';
+        }
+        return hasSlash;
+    }
+
     private static boolean isLikelyText(byte[] header, int length) {
-        return hasUtf8Bom(header)
+        return detectBomCharset(header) != null
             || detectBomlessUtf16(header, length) != null
             || hasLowControlCharRatio(header, length);
     }
 
-    private static boolean hasUtf8Bom(byte[] header) {
-        return header.length >= 3
+    private static Charset detectBomCharset(byte[] header) {
+        if (header.length >= 3
             && (header[0] & 0xFF) == 0xEF
             && (header[1] & 0xFF) == 0xBB
-            && (header[2] & 0xFF) == 0xBF;
+            && (header[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+
+        if (header.length >= 2) {
+            if ((header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xFE) {
+                return StandardCharsets.UTF_16LE;
+            }
+            if ((header[0] & 0xFF) == 0xFE && (header[1] & 0xFF) == 0xFF) {
+                return StandardCharsets.UTF_16BE;
+            }
+        }
+
+        return null;
     }
 
     private static boolean hasTarMagic(byte[] header, int length) {
@@ -217,7 +385,7 @@ public class FileTypeDetector {
             && header[TAR_MAGIC_OFFSET + 4] == 'r';
     }
 
-    private static java.nio.charset.Charset detectBomlessUtf16(byte[] header, int length) {
+    private static Charset detectBomlessUtf16(byte[] header, int length) {
         int sampleLength = Math.min(length - (length % 2), SAMPLE_SIZE);
         if (sampleLength < 16) {
             return null;
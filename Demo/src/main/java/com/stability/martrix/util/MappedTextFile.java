@@ -0,0 +1,295 @@
+package com.stability.martrix.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内存映射的大文本文件，按行随机访问
+ *
+ * 文件内容只读映射到内存，不占用堆；第一次按行访问时扫描一遍换行符，建立 long[] 行起始偏移索引，
+ * 之后按行号直接定位。行内容以惰性解码的 CharSequence 返回，只有真正读取字符时才解码该行，
+ * 关键字查找直接在字节上进行，不解码。堆占用只有行索引（每行 8 字节）和实际读取的行，与文件大小无关。
+ *
+ * 支持 ASCII 兼容编码与 UTF-16LE/BE；解码时非法字节替换为 U+FFFD，不抛出异常
+ */
+public final class MappedTextFile {
+
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final Path path;
+    private final long size;
+    private final Charset charset;
+    private final MappedByteBuffer buffer;
+    private final int unitSize;
+    private final boolean bigEndian;
+    private final int contentStart;
+    private long[] lineStarts;
+    private int lineCount;
+
+    private MappedTextFile(Path path, Charset charset, MappedByteBuffer buffer) {
+        this.path = path;
+        this.size = buffer.limit();
+        this.charset = charset;
+        this.buffer = buffer;
+        this.unitSize = isUtf16(charset) ? 2 : 1;
+        this.bigEndian = StandardCharsets.UTF_16BE.equals(charset);
+        this.contentStart = bomLength();
+    }
+
+    /**
+     * 映射文件，映射完成后即关闭文件通道
+     *
+     * @param path 文件路径
+     * @param charset 文件编码，通常取 {@code FileProbe} 推断的第一个候选编码
+     * @return 映射后的文件
+     * @throws IOException 打开或映射失败，或文件超过 2 GiB
+     */
+    public static MappedTextFile open(Path path, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("文件超过 2 GiB，无法整体映射: " + path);
+            }
+            return new MappedTextFile(path, charset, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return 映射时的文件大小
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return 行数，末尾换行符之后的空串不算一行，与 {@link java.io.BufferedReader#readLine()} 一致
+     */
+    public int lineCount() {
+        ensureIndexed();
+        return lineCount;
+    }
+
+    /**
+     * 获取一行内容，不含行尾的 \n 或 \r\n，首次读取字符时才解码
+     *
+     * @param lineIndex 从 0 开始的行号
+     * @return 惰性解码的行内容
+     */
+    public CharSequence line(int lineIndex) {
+        ensureIndexed();
+        if (lineIndex < 0 || lineIndex >= lineCount) {
+            throw new IndexOutOfBoundsException("行号 " + lineIndex + " 超出范围，共 " + lineCount + " 行");
+        }
+        return new LazyText((int) lineStarts[lineIndex], lineEnd(lineIndex));
+    }
+
+    /**
+     * 获取行区间的视图，每一行都惰性解码
+     *
+     * @param fromLine 起始行号（包含）
+     * @param toLine 结束行号（不包含），超过行数时截断
+     * @return 行内容列表视图
+     */
+    public List<CharSequence> lines(int fromLine, int toLine) {
+        ensureIndexed();
+        int to = Math.min(toLine, lineCount);
+        if (fromLine < 0 || fromLine > to) {
+            throw new IndexOutOfBoundsException("行区间 [" + fromLine + ", " + toLine + ") 超出范围，共 " + lineCount + " 行");
+        }
+        return new AbstractList<>() {
+            @Override
+            public CharSequence get(int index) {
+                return line(fromLine + index);
+            }
+
+            @Override
+            public int size() {
+                return to - fromLine;
+            }
+        };
+    }
+
+    /**
+     * 从指定行开始查找第一个包含关键字的行，直接比较编码后的字节，不解码
+     *
+     * @param keyword 关键字
+     * @param fromLine 起始行号（包含）
+     * @return 行号，找不到时返回 -1
+     */
+    public int findLine(String keyword, int fromLine) {
+        ensureIndexed();
+        if (fromLine >= lineCount) {
+            return -1;
+        }
+        byte[] pattern = keyword.getBytes(charset);
+        if (pattern.length == 0) {
+            return Math.max(fromLine, 0);
+        }
+        int limit = buffer.limit() - pattern.length;
+        for (int pos = (int) lineStarts[Math.max(fromLine, 0)]; pos <= limit; pos += unitSize) {
+            if (matchesAt(pos, pattern)) {
+                return lineOf(pos);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 扫描换行符建立行起始偏移索引，只在第一次按行访问时执行
+     */
+    private synchronized void ensureIndexed() {
+        if (lineStarts != null) {
+            return;
+        }
+        long[] starts = new long[INITIAL_INDEX_CAPACITY];
+        int count = 0;
+        int limit = buffer.limit();
+        int lineStart = contentStart;
+        for (int pos = contentStart; pos + unitSize <= limit; pos += unitSize) {
+            if (isNewline(pos)) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = lineStart;
+                lineStart = pos + unitSize;
+            }
+        }
+        if (lineStart < limit) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = lineStart;
+        }
+        // 末尾哨兵：最后一行之后的位置，便于计算行尾
+        starts = Arrays.copyOf(starts, count + 1);
+        starts[count] = limit;
+        lineCount = count;
+        lineStarts = starts;
+    }
+
+    /**
+     * @return 行内容的结束偏移，去掉 \n 与之前的 \r
+     */
+    private int lineEnd(int lineIndex) {
+        int start = (int) lineStarts[lineIndex];
+        int end = (int) lineStarts[lineIndex + 1];
+        if (end - unitSize >= start && isNewline(end - unitSize)) {
+            end -= unitSize;
+        }
+        if (end - unitSize >= start && isCarriageReturn(end - unitSize)) {
+            end -= unitSize;
+        }
+        return end;
+    }
+
+    private int lineOf(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private boolean matchesAt(int pos, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer.get(pos + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isNewline(int pos) {
+        return codeUnit(pos) == '\n';
+    }
+
+    private boolean isCarriageReturn(int pos) {
+        return codeUnit(pos) == '\r';
+    }
+
+    private int codeUnit(int pos) {
+        if (unitSize == 1) {
+            return buffer.get(pos) & 0xFF;
+        }
+        int first = buffer.get(pos) & 0xFF;
+        int second = buffer.get(pos + 1) & 0xFF;
+        return bigEndian ? first << 8 | second : second << 8 | first;
+    }
+
+    private int bomLength() {
+        int limit = buffer.limit();
+        if (unitSize == 2) {
+            return limit >= 2 && codeUnit(0) == '\uFEFF' ? 2 : 0;
+        }
+        boolean utf8Bom = limit >= 3
+            && (buffer.get(0) & 0xFF) == 0xEF
+            && (buffer.get(1) & 0xFF) == 0xBB
+            && (buffer.get(2) & 0xFF) == 0xBF;
+        return utf8Bom && StandardCharsets.UTF_8.equals(charset) ? 3 : 0;
+    }
+
+    private static boolean isUtf16(Charset charset) {
+        return StandardCharsets.UTF_16LE.equals(charset) || StandardCharsets.UTF_16BE.equals(charset);
+    }
+
+    /**
+     * 映射区间上的惰性解码文本，第一次读取字符时解码并缓存
+     */
+    private final class LazyText implements CharSequence {
+        private final int start;
+        private final int end;
+        private String decoded;
+
+        private LazyText(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private String decoded() {
+            if (decoded == null) {
+                ByteBuffer slice = buffer.slice(start, end - start);
+                decoded = charset.decode(slice).toString();
+            }
+            return decoded;
+        }
+
+        @Override
+        public int length() {
+            return decoded().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return decoded().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return decoded().subSequence(start, end);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return start == end;
+        }
+
+        @Override
+        public String toString() {
+            return decoded();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.stability.martrix.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 分流输入流
+ *
+ * 从底层流读出的每个字节同时写入旁路输出流，读取方（解析器、类型检测）与写盘共用同一次读取。
+ * 读取方可在任意位置停止，随后调用 {@link #drain()} 把剩余字节写入旁路，保证旁路得到完整内容
+ *
+ * 不支持 mark/reset，需要回看头部的读取方应在外层包装 BufferedInputStream；
+ * close 不关闭底层流和旁路输出流，由创建方负责关闭
+ */
+public class TeeInputStream extends FilterInputStream {
+
+    private static final int DRAIN_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream branch;
+    private long bytesRead;
+
+    public TeeInputStream(InputStream in, OutputStream branch) {
+        super(in);
+        this.branch = branch;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            branch.write(b);
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            branch.write(b, off, n);
+            bytesRead += n;
+        }
+        return n;
+    }
+
+    /**
+     * 跳过的字节同样需要写入旁路，因此按读取处理
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, DRAIN_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("TeeInputStream 不支持 reset");
+    }
+
+    /**
+     * 读完底层流的剩余内容并写入旁路
+     *
+     * @return 底层流的总字节数
+     * @throws IOException 读取或写入失败
+     */
+    public long drain() throws IOException {
+        byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) >= 0) {
+            // 写入由 read 完成
+        }
+        branch.flush();
+        return bytesRead;
+    }
+
+    /**
+     * @return 已从底层流读出的字节数
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * 不关闭底层流与旁路，读取方关闭包装流时不影响后续 {@link #drain()}
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -67,7 +67,7 @@ public class TombstoneFormatter {
             simplified.setStackDumpInfo(stackDumpInfo);
         }
 
-        // Note: Intentionally NOT copying fdInfo, mapsInfoList, registerDumpInfo, specialRegisterInfo
+        // Note: Intentionally NOT copying fdInfo, memoryMapIndex, registerDumpInfo, specialRegisterInfo
         // to keep the tombstone object lightweight for AI analysis
 
         return simplified;
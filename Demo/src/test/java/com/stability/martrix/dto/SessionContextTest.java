@@ -1,12 +1,42 @@
 package com.stability.martrix.dto;
 
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.register.AArch64Register;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SessionContextTest {
 
+    /**
+     * 字段调整前写入 Redis 的会话 JSON
+     */
+    private static final String STORED_SESSION_JSON = """
+        {"@class":"com.stability.martrix.dto.SessionContext","sessionId":"s1","createdAt":1,"expireAt":2,\
+        "questions":["java.util.ArrayList",[]],"chatMessages":["java.util.ArrayList",[]],\
+        "parsedQuestions":["java.util.ArrayList",[]],\
+        "tombstone":{"@class":"com.stability.martrix.entity.AArch64Tombstone","pid":12,"firstTid":12,\
+        "processName":"app","version":null,"cpuArchitecture":null,"stackDumpInfo":null,\
+        "submitterStackDumpInfo":null,"signalInfo":null,"fdInfo":null,\
+        "mapsInfoList":["java.util.ArrayList",[{"@class":"com.stability.martrix.entity.AArch64Tombstone$MapsInfo",\
+        "start":4096,"end":8192,"permission":"r-xp","name":"/system/lib64/libc.so"}]],\
+        "registerDumpInfo":null,"specialRegisterInfo":null},\
+        "files":["java.util.ArrayList",[]],"success":true,"errorMessage":null}""";
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
     @Test
     void addChatMessage_shouldAppendMessageHistory() {
         SessionContext context = new SessionContext("session-1");
@@ -20,4 +50,74 @@ class SessionContextTest {
         assertEquals("first answer", context.getChatMessages().get(1).getContent());
         assertNotNull(context.getChatMessages().get(0).getTimestamp());
     }
+
+    @Test
+    void storedSessionShouldStillDeserializeAndRebuildMemoryMapIndex() {
+        SessionContext context = assertInstanceOf(SessionContext.class,
+            serializer.deserialize(STORED_SESSION_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        MemoryMapIndex memoryMapIndex = context.getTombstone().getMemoryMapIndex();
+        assertEquals(1, memoryMapIndex.size());
+        assertEquals(0, memoryMapIndex.indexOf(0x1800));
+        assertTrue(memoryMapIndex.isExecutable(0));
+        assertEquals("/system/lib64/libc.so", memoryMapIndex.name(0));
+
+        String nullMaps = STORED_SESSION_JSON.replaceFirst("\"mapsInfoList\":\\[.*?]],", "\"mapsInfoList\":null,");
+        context = assertInstanceOf(SessionContext.class,
+            serializer.deserialize(nullMaps.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(12, context.getTombstone().getPid());
+        assertNull(context.getTombstone().getMemoryMapIndex());
+    }
+
+    @Test
+    void sessionJsonShouldKeepMapsInfoListAndRawMemoryNearLines() {
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        tombstone.setMemoryMapIndex(new MemoryMapIndex.Builder()
+            .add(0x1000, 0x2000, 0x400, MemoryMapIndex.parsePermissions("r-xp"), "/system/lib64/libc.so")
+            .build());
+        MemorySnapshot x0 = new MemorySnapshot("x0", "[anon:libc_malloc]");
+        x0.addLine("    0000007b00001000 efefefefefefefef ----------------  ................");
+        tombstone.setMemoryNear(Map.of("x0", x0));
+        SessionContext context = new SessionContext("s1");
+        context.setTombstone(tombstone);
+
+        String json = new String(serializer.serialize(context), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"mapsInfoList\""));
+        assertFalse(json.contains("memoryMapIndex"));
+        assertFalse(json.contains("unreadableWords"));
+
+        SessionContext restored = assertInstanceOf(SessionContext.class,
+            serializer.deserialize(json.getBytes(StandardCharsets.UTF_8)));
+        MemoryMapIndex memoryMapIndex = restored.getTombstone().getMemoryMapIndex();
+        assertEquals(0x400, memoryMapIndex.offset(0));
+        assertEquals("r-xp", memoryMapIndex.permissionString(0));
+        MemorySnapshot restoredX0 = restored.getTombstone().getMemoryNear().get("x0");
+        assertEquals("[anon:libc_malloc]", restoredX0.getMappingName());
+        assertEquals(0xefefefefefefefefL, restoredX0.readWord(0x7b00001000L));
+        assertFalse(restoredX0.isWordReadable(1));
+    }
+
+    @Test
+    void registerDumpShouldKeepNamedRegisterProperties() {
+        AArch64RegisterDumpInfo registers = new AArch64RegisterDumpInfo();
+        registers.set(AArch64Register.X0, 0x1234L);
+        registers.set(AArch64Register.PC, 0x7d0f7a7fb8L);
+
+        String json = new String(serializer.serialize(registers), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"x0\":4660"));
+        assertFalse(json.contains("\"x29\""));
+        assertTrue(json.contains("\"pc\":537130598328"));
+        assertFalse(json.contains("values"));
+        assertFalse(json.contains("presentMask"));
+
+        String stored = "{\"@class\":\"com.stability.martrix.entity.register.AArch64RegisterDumpInfo\",\"x0\":4660,"
+            + "\"x1\":0,\"x30\":537130598328,\"sp\":8,\"pc\":16}";
+        AArch64RegisterDumpInfo restored = assertInstanceOf(AArch64RegisterDumpInfo.class,
+            serializer.deserialize(stored.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(0x1234L, restored.getX0());
+        assertEquals(0x7d0f7a7fb8L, restored.getX30());
+        assertEquals(8, restored.getSp());
+        assertTrue(restored.has(AArch64Register.PC));
+        assertFalse(restored.has(AArch64Register.X2));
+    }
 }
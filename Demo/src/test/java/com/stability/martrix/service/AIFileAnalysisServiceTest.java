@@ -0,0 +1,119 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.FileStorageProperties;
+import com.stability.martrix.config.ParseCacheProperties;
+import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.dto.AIAnalysisResponse;
+import com.stability.martrix.dto.CachedParseResult;
+import com.stability.martrix.dto.PatternMatchResult;
+import com.stability.martrix.dto.SessionContext;
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.service.parser.AndroidProtoTombstoneParser;
+import com.stability.martrix.service.parser.FileParserFactory;
+import com.stability.martrix.service.parser.ParseProfile;
+import com.stability.martrix.util.ContentHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AIFileAnalysisServiceTest {
+
+    private static final byte[] TOMBSTONE = ("*** *** *** *** *** *** *** *** *** *** *** *** *** *** *** ***\n"
+        + "pid: 1234, tid: 1234, name: app  >>> /system/bin/app <<<\n"
+        + "signal 11 (SIGSEGV), code 1 (SEGV_MAPERR), fault addr 0x0\n").getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private FileParserFactory fileParserFactory;
+    private AndroidProtoTombstoneParser protoTombstoneParser;
+    private PatternMatchService patternMatchService;
+    private ParseResultCache parseResultCache;
+    private AIFileAnalysisService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        parseResultCache = new ParseResultCache(redisTemplate, new ParseCacheProperties(), new ParserProperties());
+
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setBasePath(tempDir.toString());
+        SessionService sessionService = mock(SessionService.class);
+        when(sessionService.getSession("s1")).thenReturn(new SessionContext());
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+        when(builder.build()).thenReturn(mock(ChatClient.class, RETURNS_DEEP_STUBS));
+        fileParserFactory = mock(FileParserFactory.class);
+        protoTombstoneParser = mock(AndroidProtoTombstoneParser.class);
+        patternMatchService = mock(PatternMatchService.class);
+
+        FileProbe fileProbe = new FileProbe();
+        service = new AIFileAnalysisService(fileParserFactory, builder, new SessionFileStorageService(properties),
+            new ArchiveExtractionService(fileProbe), sessionService, patternMatchService,
+            mock(BinaryCodeResolver.class), parseResultCache, mock(BugreportIngestionService.class),
+            protoTombstoneParser, fileProbe);
+    }
+
+    @Test
+    void cachedUploadShouldSkipParsingAndPatternMatching() throws IOException {
+        cache(TOMBSTONE);
+
+        AIAnalysisResponse response = service.analyzeRequest(null, "s1",
+            new MultipartFile[]{new MockMultipartFile("files", "tombstone_00", "text/plain", TOMBSTONE)});
+
+        assertEquals(1234, response.getTombstone().getPid());
+        assertTrue(response.getProcessLogs().contains("文件解析成功: tombstone_00"));
+        verifyNoInteractions(fileParserFactory, protoTombstoneParser);
+        verify(patternMatchService, never()).analyzePattern(any());
+    }
+
+    @Test
+    void cachedArchiveEntryShouldSkipParsing() throws IOException {
+        cache(TOMBSTONE);
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("tombstones/tombstone_00"));
+            out.write(TOMBSTONE);
+            out.closeEntry();
+        }
+
+        AIAnalysisResponse response = service.analyzeRequest(null, "s1",
+            new MultipartFile[]{new MockMultipartFile("files", "logs.zip", "application/zip", zip.toByteArray())});
+
+        assertEquals(1234, response.getTombstone().getPid());
+        verifyNoInteractions(fileParserFactory, protoTombstoneParser);
+        verify(patternMatchService, never()).analyzePattern(any());
+    }
+
+    private void cache(byte[] content) throws IOException {
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        tombstone.setPid(1234);
+        PatternMatchResult patternMatchResult = PatternMatchResult.builder().confidence(0.9).result("null-pointer").build();
+        parseResultCache.put(ContentHasher.hash(new ByteArrayInputStream(content)), ParseProfile.CRASH_LOG,
+            new CachedParseResult(tombstone, patternMatchResult));
+    }
+}
@@ -0,0 +1,66 @@
+package com.stability.martrix.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stability.martrix.config.FileStorageProperties;
+import com.stability.martrix.dto.AIReactResponse;
+import com.stability.martrix.dto.SessionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AIReactServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void cleanupExpiredSessionsShouldEvictMappings() throws IOException {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setBasePath(tempDir.toString());
+        SessionFileStorageService storageService = new SessionFileStorageService(properties);
+        String filePath = storageService.storeFile("s1", new MockMultipartFile("files", "a.log", "text/plain",
+            "pid: 1\npid: 2\n".getBytes(StandardCharsets.UTF_8)));
+
+        SessionContext sessionContext = new SessionContext();
+        sessionContext.setSessionId("s1");
+        sessionContext.addFile("a.log", filePath, Files.size(Path.of(filePath)), "TXT");
+        SessionService sessionService = mock(SessionService.class);
+        when(sessionService.getSession("s1")).thenReturn(sessionContext);
+
+        ChatClient chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        when(chatClient.prompt().system(anyString()).user(anyString()).call().content()).thenReturn(
+            "{\"thought\":\"读文件\",\"action\":\"read_file_lines\",\"actionInput\":\"a.log|1|2\"}",
+            "{\"thought\":\"完成\",\"action\":\"final_answer\",\"answer\":\"ok\"}");
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+        when(builder.build()).thenReturn(chatClient);
+
+        AIReactService service = new AIReactService(builder, sessionService, mock(PatternMatchService.class),
+            mock(BinaryCodeResolver.class), new ObjectMapper(), new FileProbe(), storageService);
+        AIReactResponse response = service.chat("s1", "看一下 a.log");
+        assertEquals("ok", response.getAnswer());
+        assertTrue(service.isMapped(Path.of(filePath)));
+
+        // 会话文件夹过期后由定时清理删除，映射随之移除
+        Path folder = Path.of(properties.getSessionPath("s1"));
+        Files.setLastModifiedTime(folder, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(3).toMillis()));
+        assertEquals(1, storageService.cleanupExpiredSessions());
+
+        assertFalse(service.isMapped(Path.of(filePath)));
+    }
+}
@@ -0,0 +1,348 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.LibraryReferences;
+import com.stability.martrix.util.FileTypeDetector;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveExtractionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ArchiveExtractionService service = new ArchiveExtractionService(new FileProbe());
+
+    @Test
+    void extractArchiveShouldStreamTarGzEntriesWithoutTempTar() throws IOException {
+        // 随机内容，压缩比不会触发压缩炸弹检测
+        byte[] large = new byte[3 * 1024 * 1024 + 17];
+        new Random(19).nextBytes(large);
+        Path archive = tempDir.resolve("bugreport.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            writeTarEntry(out, "FS/data/tombstones/tombstone_00", "pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "../escape.txt", "evil".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "dumpstate_log.txt", large);
+            out.write(new byte[1024]);
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        List<String> extracted = service.extractArchive(archive.toString(), targetDir.toString());
+
+        assertEquals(List.of(targetDir.resolve("FS/data/tombstones/tombstone_00").toString(),
+            targetDir.resolve("dumpstate_log.txt").toString()), extracted);
+        assertEquals("pid: 1\n", Files.readString(targetDir.resolve("FS/data/tombstones/tombstone_00")));
+        assertArrayEquals(large, Files.readAllBytes(targetDir.resolve("dumpstate_log.txt")));
+        assertFalse(Files.exists(tempDir.resolve("escape.txt")));
+        assertFalse(Files.exists(targetDir.resolve("~temp.tar")));
+        assertTrue(Files.exists(archive));
+    }
+
+    @Test
+    void extractMatchingShouldOnlyWriteEntriesAcceptedByProbe() throws IOException {
+        Path archive = tempDir.resolve("logs.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("tombstones/tombstone_00"));
+            out.write("pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("lib/libfoo.so"));
+            out.write(new byte[]{0x7F, 'E', 'L', 'F', 2, 1, 1, 0});
+            out.closeEntry();
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        List<String> extracted = service.extractMatching(archive.toString(), targetDir.toString(),
+            probe -> probe.fileType() == FileTypeDetector.FileType.TXT);
+
+        assertEquals(List.of(targetDir.resolve("tombstones/tombstone_00").toString()), extracted);
+        assertFalse(Files.exists(targetDir.resolve("lib")));
+    }
+
+    @Test
+    void extractionShouldAbortOnCompressionBombAndDeleteWrittenFiles() throws IOException {
+        Path archive = tempDir.resolve("bomb.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.write("pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("zeros.txt"));
+            out.write(new byte[8 * 1024 * 1024]);
+            out.closeEntry();
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> service.extractArchive(archive.toString(), targetDir.toString()));
+        assertEquals(ExtractionLimitException.LimitType.COMPRESSION_RATIO,
+            assertInstanceOf(ExtractionLimitException.class, e.getCause()).getLimitType());
+        assertFalse(Files.exists(targetDir.resolve("a.txt")));
+        assertFalse(Files.exists(targetDir.resolve("zeros.txt")));
+    }
+
+    @Test
+    void extractArchivesShouldSkipArchivesOverSessionBudget() throws IOException {
+        ArchiveExtractionProperties properties = new ArchiveExtractionProperties();
+        properties.setMaxSessionFiles(2);
+        // 依次解压，先提交的归档一定完整解压，后一个归档超限
+        properties.setThreads(1);
+        ArchiveExtractionService limitedService = new ArchiveExtractionService(new FileProbe(), properties);
+        Path first = tempDir.resolve("first.zip");
+        Path second = tempDir.resolve("second.zip");
+        for (Path archive : List.of(first, second)) {
+            try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+                out.putNextEntry(new ZipEntry(archive.getFileName() + "/tombstone_00"));
+                out.write("pid: 1\n".getBytes(StandardCharsets.UTF_8));
+                out.putNextEntry(new ZipEntry(archive.getFileName() + "/tombstone_01"));
+                out.write("pid: 2\n".getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        try {
+            List<String> extracted = limitedService.extractArchives(
+                List.of(first.toString(), second.toString()), targetDir.toString(),
+                probe -> probe.fileType() == FileTypeDetector.FileType.TXT);
+
+            // 两个归档共用会话预算，只有一个能完整解压，超限的归档不留下任何文件
+            assertEquals(2, extracted.size());
+            try (var files = Files.walk(targetDir)) {
+                assertEquals(2, files.filter(Files::isRegularFile).count());
+            }
+        } finally {
+            limitedService.shutdown();
+        }
+    }
+
+    @Test
+    void skippedEntriesOfCompressedTarShouldCountTowardsSessionBudget() throws IOException {
+        ArchiveExtractionProperties properties = new ArchiveExtractionProperties();
+        properties.setMaxSessionBytes(1024 * 1024);
+        properties.setMaxCompressionRatio(100);
+        ArchiveExtractionService limitedService = new ArchiveExtractionService(new FileProbe(), properties);
+        // 探测为 ELF 的条目被 filter 拒绝，不写盘，但跳过它同样要解压出全部 64 MB
+        byte[] zeros = new byte[64 * 1024 * 1024];
+        System.arraycopy(new byte[]{0x7F, 'E', 'L', 'F', 2, 1, 1, 0}, 0, zeros, 0, 8);
+        Path archive = tempDir.resolve("bomb.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            writeTarEntry(out, "tombstones/tombstone_00", "pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "vendor/blob.bin", zeros);
+            out.write(new byte[1024]);
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        try {
+            RuntimeException e = assertThrows(RuntimeException.class,
+                () -> limitedService.extractMatching(archive.toString(), targetDir.toString(),
+                    probe -> probe.fileType() == FileTypeDetector.FileType.TXT));
+            assertTrue(Set.of(ExtractionLimitException.LimitType.SESSION_BYTES,
+                    ExtractionLimitException.LimitType.COMPRESSION_RATIO)
+                .contains(assertInstanceOf(ExtractionLimitException.class, e.getCause()).getLimitType()));
+            assertFalse(Files.exists(targetDir.resolve("tombstones/tombstone_00")));
+            assertFalse(Files.exists(targetDir.resolve("vendor/blob.bin")));
+        } finally {
+            limitedService.shutdown();
+        }
+    }
+
+    @Test
+    void extractArchivesShouldStreamIntoNestedArchivesWithinDepthLimit() throws IOException {
+        // zip -> tar.gz -> zip -> tombstone
+        ByteArrayOutputStream deviceZip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(deviceZip)) {
+            out.putNextEntry(new ZipEntry("tombstones/tombstone_00"));
+            out.write("pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bundle)) {
+            writeTarEntry(out, "device1.zip", deviceZip.toByteArray());
+            out.write(new byte[1024]);
+        }
+        Path archive = tempDir.resolve("upload.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("logs/bundle.tar.gz"));
+            out.write(bundle.toByteArray());
+            out.closeEntry();
+        }
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        List<SessionFileStorageService.StoredFile<String>> extracted = service.extractArchives(
+            List.of(archive.toString()), targetDir.toString(),
+            probe -> probe.fileType() == FileTypeDetector.FileType.TXT,
+            (fileName, inputStream) -> fileName + ":" + new String(inputStream.readNBytes(4), StandardCharsets.UTF_8));
+
+        Path tombstone = targetDir.resolve("logs/bundle.tar.gz/device1.zip/tombstones/tombstone_00");
+        assertEquals(1, extracted.size());
+        assertEquals(tombstone.toString(), extracted.getFirst().path());
+        assertEquals("tombstone_00:pid:", extracted.getFirst().result());
+        assertEquals("pid: 1\n", Files.readString(tombstone));
+        // 中间层归档只在流上读取，不落盘
+        assertTrue(Files.isDirectory(targetDir.resolve("logs/bundle.tar.gz")));
+
+        // 超过深度限制的内层归档作为普通文件交给 filter
+        ArchiveExtractionProperties properties = new ArchiveExtractionProperties();
+        properties.setMaxNestingDepth(1);
+        ArchiveExtractionService shallowService = new ArchiveExtractionService(new FileProbe(), properties);
+        Path shallowDir = Files.createDirectory(tempDir.resolve("shallow"));
+        try {
+            List<String> shallow = shallowService.extractArchives(List.of(archive.toString()), shallowDir.toString(),
+                probe -> probe.isArchive());
+            assertEquals(List.of(shallowDir.resolve("logs/bundle.tar.gz/device1.zip").toString()), shallow);
+        } finally {
+            shallowService.shutdown();
+        }
+    }
+
+    @Test
+    void zstdAndXzUploadsShouldBeDetectedAndStreamed() throws IOException {
+        FileProbe fileProbe = new FileProbe();
+        // 扩展名看不出格式，按魔数与解压出的 ustar 标记识别
+        Path tarZst = tempDir.resolve("device_logs.bin");
+        try (OutputStream out = new ZstdCompressorOutputStream(Files.newOutputStream(tarZst))) {
+            writeTarEntry(out, "FS/data/tombstones/tombstone_00", "pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(out, "FS/data/misc/blob.bin", new byte[]{0, 1, 2, 3});
+            out.write(new byte[1024]);
+        }
+        Path xzFile = tempDir.resolve("tombstone_01.xz");
+        try (OutputStream out = new XZCompressorOutputStream(Files.newOutputStream(xzFile))) {
+            out.write("pid: 2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(ArchiveExtractionService.ArchiveType.TAR_ZST, fileProbe.probe(tarZst).archiveType());
+        assertEquals(ArchiveExtractionService.ArchiveType.XZ, fileProbe.probe(xzFile).archiveType());
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+
+        List<String> extracted = service.extractArchives(List.of(tarZst.toString(), xzFile.toString()),
+            targetDir.toString(), probe -> probe.fileType() == FileTypeDetector.FileType.TXT);
+
+        assertEquals(List.of(targetDir.resolve("FS/data/tombstones/tombstone_00").toString(),
+            targetDir.resolve("tombstone_01").toString()), extracted);
+        assertEquals("pid: 2\n", Files.readString(targetDir.resolve("tombstone_01")));
+
+        // 完整解压同样按流解压，不落临时文件
+        Path fullDir = Files.createDirectory(tempDir.resolve("full"));
+        assertEquals(2, service.extractArchive(tarZst.toString(), fullDir.toString()).size());
+        assertArrayEquals(new byte[]{0, 1, 2, 3}, Files.readAllBytes(fullDir.resolve("FS/data/misc/blob.bin")));
+    }
+
+    @Test
+    void prefilterShouldSkipByMetadataAndKeepOnlyReferencedLibraries() throws IOException {
+        Path archive = tempDir.resolve("dump.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry("FS/data/tombstones/tombstone_00"));
+            out.write("pid: 1\n".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("proto/tombstone_00.proto"));
+            out.write("syntax = \"proto3\";\n".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("logs/huge.log"));
+            out.write("x".repeat(2048).getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("lib/libcrash.so"));
+            out.write(elfWithBuildId(new byte[]{1, 2, 3, 4}));
+            out.putNextEntry(new ZipEntry("lib/librenamed.so"));
+            out.write(elfWithBuildId(new byte[]{(byte) 0xAB, (byte) 0xCD, 0x0E, 0x0F}));
+            out.putNextEntry(new ZipEntry("lib/libunused.so"));
+            out.write(elfWithBuildId(new byte[]{9, 9, 9, 9}));
+            out.closeEntry();
+        }
+        ArchiveExtractionProperties properties = new ArchiveExtractionProperties();
+        properties.setMaxEntryBytes(1024);
+        ArchiveExtractionService prefilteredService = new ArchiveExtractionService(new FileProbe(), properties);
+        Path targetDir = Files.createDirectory(tempDir.resolve("session"));
+        try {
+            // 第一轮：被排除、超过大小上限的条目与共享库都不解压
+            List<String> extracted = prefilteredService.extractArchives(List.of(archive.toString()),
+                targetDir.toString(), probe -> true);
+            assertEquals(List.of(targetDir.resolve("FS/data/tombstones/tombstone_00").toString()), extracted);
+
+            // 第二轮：只解压按文件名或 BuildId 引用的共享库
+            List<String> libraries = prefilteredService.extractLibraries(List.of(archive.toString()),
+                targetDir.toString(), new LibraryReferences(Set.of("libcrash.so"), Set.of("abcd0e0f")));
+            assertEquals(List.of(targetDir.resolve("lib/libcrash.so").toString(),
+                targetDir.resolve("lib/librenamed.so").toString()), libraries);
+            assertFalse(Files.exists(targetDir.resolve("lib/libunused.so")));
+            assertFalse(Files.exists(targetDir.resolve("proto")));
+            assertFalse(Files.exists(targetDir.resolve("logs")));
+        } finally {
+            prefilteredService.shutdown();
+        }
+    }
+
+    /**
+     * 只含文件头、一个 PT_NOTE 程序头与 GNU BuildId note 的 64 位小端 ELF
+     */
+    private static byte[] elfWithBuildId(byte[] buildId) {
+        ByteBuffer elf = ByteBuffer.allocate(64 + 56 + 16 + buildId.length).order(ByteOrder.LITTLE_ENDIAN);
+        elf.put(new byte[]{0x7F, 'E', 'L', 'F', 2, 1, 1});
+        elf.putShort(16, (short) 3);
+        elf.putShort(18, (short) 183);
+        elf.putLong(32, 64);
+        elf.putShort(54, (short) 56);
+        elf.putShort(56, (short) 1);
+        elf.putInt(64, 4);
+        elf.putLong(64 + 8, 120);
+        elf.putLong(64 + 32, 16 + buildId.length);
+        elf.putInt(120, 4);
+        elf.putInt(124, buildId.length);
+        elf.putInt(128, 3);
+        elf.put(132, new byte[]{'G', 'N', 'U', 0});
+        elf.put(136, buildId);
+        return elf.array();
+    }
+
+    /**
+     * 写入一个 ustar 格式的普通文件条目，内容按 512 字节补齐
+     */
+    private static void writeTarEntry(OutputStream out, String name, byte[] content) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, "%011o".formatted(content.length));
+        put(header, 136, "00000000000");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = '0';
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        put(header, 148, "%06o".formatted(checksum));
+        header[154] = 0;
+
+        ByteArrayOutputStream entry = new ByteArrayOutputStream();
+        entry.write(header);
+        entry.write(content);
+        entry.write(new byte[(512 - content.length % 512) % 512]);
+        entry.writeTo(out);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
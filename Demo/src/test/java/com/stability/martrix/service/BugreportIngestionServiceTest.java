@@ -0,0 +1,200 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.AnrTrace;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.ExtractionBudget;
+import com.stability.martrix.service.parser.AndroidAnrTraceParser;
+import com.stability.martrix.service.parser.AndroidTombstoneParser;
+import com.stability.martrix.service.parser.FileParserFactory;
+import com.stability.martrix.service.parser.ParseProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BugreportIngestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void classifyShouldSelectTextTombstonesAndTraces() {
+        assertEquals(BugreportIngestionService.EntryKind.TOMBSTONE,
+            BugreportIngestionService.classify("FS/data/tombstones/tombstone_07"));
+        assertNull(BugreportIngestionService.classify("FS/data/tombstones/tombstone_07.pb"));
+        assertEquals(BugreportIngestionService.EntryKind.ANR_TRACE,
+            BugreportIngestionService.classify("FS/data/anr/anr_2026-01-15-00-40-06-123"));
+        assertNull(BugreportIngestionService.classify("dumpstate_log.txt"));
+        assertNull(BugreportIngestionService.classify("FS/proc/meminfo"));
+        assertNull(BugreportIngestionService.classify("proto/activity.proto"));
+    }
+
+    @Test
+    void ingestShouldParseEveryTombstoneNewestFirst() throws IOException {
+        byte[] older = readResource("tombstone_00");
+        byte[] newer = new String(readResource("tombstone_01"), StandardCharsets.UTF_8)
+            .replace("pid: 16369, tid: 16369", "pid: 2222, tid: 2222")
+            .getBytes(StandardCharsets.UTF_8);
+        Path bugreport = tempDir.resolve("bugreport.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(bugreport))) {
+            putEntry(zipOutputStream, "main_entry.txt", "bugreport-demo.txt".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "bugreport-demo.txt", "== dumpstate ==\n".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "FS/data/tombstones/tombstone_00", older, 2_000_000L);
+            putEntry(zipOutputStream, "FS/data/tombstones/tombstone_00.pb", new byte[]{0x0a, 0x05}, 2_000_000L);
+            putEntry(zipOutputStream, "FS/data/tombstones/tombstone_01", newer, 3_000_000L);
+            putEntry(zipOutputStream, "FS/proc/meminfo", "MemTotal: 1 kB\n".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "dumpstate_log.txt", "dumpstate start\n".getBytes(StandardCharsets.UTF_8), 1_000L);
+        }
+        BugreportIngestionService service = createService();
+
+        assertTrue(service.isBugreport(bugreport));
+        List<BugreportIngestionService.IngestedEntry> entries = service.ingest(bugreport, ParseProfile.CRASH_CONTEXT);
+
+        assertEquals(2, entries.size());
+        assertEquals("FS/data/tombstones/tombstone_01", entries.get(0).name());
+        assertEquals(2222, assertInstanceOf(AArch64Tombstone.class, entries.get(0).entity()).getPid());
+        assertEquals("FS/data/tombstones/tombstone_00", entries.get(1).name());
+        AArch64Tombstone olderTombstone = assertInstanceOf(AArch64Tombstone.class, entries.get(1).entity());
+        assertEquals(16369, olderTombstone.getPid());
+        assertNotNull(olderTombstone.getMemoryMapIndex());
+    }
+
+    @Test
+    void ingestShouldDecodeNonUtf8AnrTraces() throws IOException {
+        String trace = String.join("\n",
+            "----- pid 4321 at 2026-01-15 00:40:06.123456789+0800 -----",
+            "Cmd line: com.example.app",
+            "",
+            "DALVIK THREADS (1):",
+            "\"主线程\" prio=5 tid=1 Blocked",
+            "  | sysTid=4321 nice=-10 cgrp=top-app sched=0/0 handle=0x7b5b2c04f8",
+            "  at com.example.app.Cache.put(Cache.java:42)",
+            "",
+            "----- end 4321 -----",
+            "");
+        Path bugreport = tempDir.resolve("bugreport.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(bugreport))) {
+            putEntry(zipOutputStream, "main_entry.txt", "bugreport-demo.txt".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "FS/data/anr/anr_2026-01-15-00-40-06-123",
+                trace.getBytes(Charset.forName("GBK")), 1_000L);
+        }
+
+        List<BugreportIngestionService.IngestedEntry> entries = createService().ingest(bugreport, ParseProfile.FULL);
+
+        assertEquals(1, entries.size());
+        AnrTrace anrTrace = assertInstanceOf(AnrTrace.class, entries.get(0).entity());
+        assertEquals("主线程", anrTrace.getThreads().get(0).getName());
+    }
+
+    @Test
+    void ingestShouldStopWhenDecompressedEntriesExceedSessionBudget() throws IOException {
+        Path bugreport = tempDir.resolve("bugreport.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(bugreport))) {
+            putEntry(zipOutputStream, "main_entry.txt", "bugreport-demo.txt".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "FS/data/tombstones/tombstone_00", readResource("tombstone_00"), 1_000L);
+        }
+        ArchiveExtractionProperties archiveProperties = new ArchiveExtractionProperties();
+        archiveProperties.setMaxSessionBytes(1024);
+        ExtractionBudget globalBudget = ExtractionBudget.global(Long.MAX_VALUE, Long.MAX_VALUE);
+        BugreportIngestionService service = new BugreportIngestionService(createParserFactory(),
+            new AndroidAnrTraceParser(), archiveProperties, globalBudget, Executors.newSingleThreadExecutor());
+
+        assertThrows(ExtractionLimitException.class, () -> service.ingest(bugreport, ParseProfile.FULL));
+        // 会话预算的消耗在解析结束后还给全局预算
+        assertEquals(0, globalBudget.getBytes());
+    }
+
+    @Test
+    void crashContextShouldStopReadingEntryBeforeLogSection() throws IOException {
+        StringBuilder content = new StringBuilder(new String(readResource("tombstone_00"), StandardCharsets.UTF_8));
+        content.append("\n--------- log main\n");
+        for (int i = 0; i < 5000; i++) {
+            content.append("01-15 00:40:%02d.%03d 16369 16369 I Worker  : line %d%n".formatted(i / 1000, i % 1000, i));
+        }
+        byte[] tombstone = content.toString().getBytes(StandardCharsets.UTF_8);
+        Path bugreport = tempDir.resolve("bugreport.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(bugreport))) {
+            putEntry(zipOutputStream, "main_entry.txt", "bugreport-demo.txt".getBytes(StandardCharsets.UTF_8), 1_000L);
+            putEntry(zipOutputStream, "FS/data/tombstones/tombstone_00", tombstone, 1_000L);
+        }
+        // 会话预算小于条目解压后的大小，只有在 log 分段之前停止读取才不会超出
+        ArchiveExtractionProperties archiveProperties = new ArchiveExtractionProperties();
+        archiveProperties.setMaxSessionBytes(tombstone.length - 100_000);
+        BugreportIngestionService service = new BugreportIngestionService(createParserFactory(),
+            new AndroidAnrTraceParser(), archiveProperties, ExtractionBudget.global(Long.MAX_VALUE, Long.MAX_VALUE),
+            Executors.newSingleThreadExecutor());
+
+        List<BugreportIngestionService.IngestedEntry> entries = service.ingest(bugreport, ParseProfile.CRASH_CONTEXT);
+
+        AArch64Tombstone crashContext = assertInstanceOf(AArch64Tombstone.class, entries.get(0).entity());
+        assertNotNull(crashContext.getMemoryMapIndex());
+        assertNull(crashContext.getCrashThreadLogTail());
+        assertThrows(ExtractionLimitException.class,
+            () -> service.reparse(bugreport, entries.get(0), ParseProfile.CRASH_LOG));
+
+        AArch64Tombstone crashLog = assertInstanceOf(AArch64Tombstone.class,
+            createService().reparse(bugreport, entries.get(0), ParseProfile.CRASH_LOG));
+        assertNotNull(crashLog.getCrashThreadLogTail());
+    }
+
+    @Test
+    void isBugreportShouldRejectPlainZipAndNonZip() throws IOException {
+        Path plainZip = tempDir.resolve("logs.zip");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(plainZip))) {
+            putEntry(zipOutputStream, "tombstone_00", readResource("tombstone_00"), 1_000L);
+        }
+        Path text = Files.writeString(tempDir.resolve("notes.txt"), "not a zip");
+        BugreportIngestionService service = createService();
+
+        assertFalse(service.isBugreport(plainZip));
+        assertFalse(service.isBugreport(text));
+    }
+
+    private BugreportIngestionService createService() {
+        return new BugreportIngestionService(createParserFactory(), new AndroidAnrTraceParser());
+    }
+
+    private FileParserFactory createParserFactory() {
+        ParserProperties properties = new ParserProperties();
+        properties.setPlatform("android");
+        return new FileParserFactory(List.of(new AndroidTombstoneParser()), properties);
+    }
+
+    private void putEntry(ZipOutputStream zipOutputStream, String name, byte[] content, long modifiedMillis)
+            throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setLastModifiedTime(FileTime.fromMillis(modifiedMillis));
+        zipOutputStream.putNextEntry(entry);
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(inputStream, "缺少测试资源: " + name);
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.util.FileTypeDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileProbeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final FileProbe fileProbe = new FileProbe();
+
+    @Test
+    void probeShouldDetectTypeCharsetsAndArchiveFromOneHeader() throws IOException {
+        Path text = tempDir.resolve("tombstone_00");
+        Files.write(text, "pid: 1\nCmdline: 进程\n".getBytes("GBK"));
+        FileProbe.ProbeResult textProbe = fileProbe.probe(text);
+        assertEquals(FileTypeDetector.FileType.TXT, textProbe.fileType());
+        assertTrue(textProbe.likelyText());
+        assertEquals(List.of(StandardCharsets.UTF_8, Charset.forName("GB18030"), Charset.forName("GBK")),
+            textProbe.charsets());
+        assertFalse(textProbe.isArchive());
+
+        // 扩展名看不出是归档，按 gzip 内的 ustar 标记识别为 TAR.GZ
+        Path tarGz = tempDir.resolve("upload.bin");
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(Files.newOutputStream(tarGz))) {
+            gzipOutputStream.write(tarHeader("tombstones/tombstone_00"));
+        }
+        FileProbe.ProbeResult tarGzProbe = fileProbe.probe(tarGz);
+        assertEquals(FileTypeDetector.FileType.GZIP, tarGzProbe.fileType());
+        assertEquals(ArchiveExtractionService.ArchiveType.TAR_GZ, tarGzProbe.archiveType());
+        assertEquals("TAR_GZ", tarGzProbe.typeName());
+
+        Path empty = Files.createFile(tempDir.resolve("empty.log"));
+        assertTrue(fileProbe.probe(empty).empty());
+    }
+
+    @Test
+    void probeShouldReuseCachedResultUntilFileChanges() throws IOException {
+        Path file = tempDir.resolve("upload.log");
+        Files.writeString(file, "pid: 1\n", StandardCharsets.UTF_8);
+        FileTime written = Files.getLastModifiedTime(file);
+
+        FileProbe.ProbeResult remembered = fileProbe.probe("pid: 1\n".getBytes(StandardCharsets.UTF_8), "upload.log");
+        fileProbe.remember(file, remembered);
+        assertSame(remembered, fileProbe.probe(file));
+        assertSame(remembered, fileProbe.probe(tempDir.resolve("./upload.log")));
+
+        Files.write(file, new byte[]{0x7F, 'E', 'L', 'F', 2, 1, 1});
+        Files.setLastModifiedTime(file, FileTime.fromMillis(written.toMillis() + 1000));
+        assertEquals(FileTypeDetector.FileType.ELF, fileProbe.probe(file).fileType());
+    }
+
+    /**
+     * 只含文件名与 ustar 标记的 TAR 头
+     */
+    private static byte[] tarHeader(String name) {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        byte[] magic = "ustar\u000000".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, header, 257, magic.length);
+        return header;
+    }
+}
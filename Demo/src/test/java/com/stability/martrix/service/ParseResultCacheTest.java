@@ -0,0 +1,135 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.ParseCacheProperties;
+import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.dto.CachedParseResult;
+import com.stability.martrix.dto.PatternMatchResult;
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.service.parser.ParseProfile;
+import com.stability.martrix.util.ContentHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParseResultCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getShouldFallBackToRedisAndPromoteIntoLocalTier() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        CachedParseResult stored = cachedResult(1234);
+        when(valueOperations.get("parse-cache:v3:android:CRASH_CONTEXT:abc")).thenReturn(stored);
+
+        ParseResultCache cache = new ParseResultCache(redisTemplate, new ParseCacheProperties(), new ParserProperties());
+
+        assertSame(stored, cache.get("abc", ParseProfile.CRASH_CONTEXT));
+        CachedParseResult local = cache.get("abc", ParseProfile.CRASH_CONTEXT);
+        assertNotSame(stored, local);
+        assertEquals(stored.getTombstone(), local.getTombstone());
+        assertNull(cache.get("def", ParseProfile.CRASH_CONTEXT));
+        verify(valueOperations, times(1)).get("parse-cache:v3:android:CRASH_CONTEXT:abc");
+
+        ParseResultCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.localHits());
+        assertEquals(1, statistics.redisHits());
+        assertEquals(1, statistics.misses());
+        assertEquals(2.0 / 3, statistics.hitRate(), 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void localTierShouldEvictLeastRecentlyUsedEntry() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        ParseCacheProperties properties = new ParseCacheProperties();
+        properties.setLocalMaxEntries(2);
+        ParseResultCache cache = new ParseResultCache(redisTemplate, properties, new ParserProperties());
+
+        cache.put("a", ParseProfile.CRASH_CONTEXT, cachedResult(1));
+        cache.put("b", ParseProfile.CRASH_CONTEXT, cachedResult(2));
+        cache.get("a", ParseProfile.CRASH_CONTEXT);
+        cache.put("c", ParseProfile.CRASH_CONTEXT, cachedResult(3));
+
+        assertEquals(1, cache.get("a", ParseProfile.CRASH_CONTEXT).getTombstone().getPid());
+        assertNull(cache.get("b", ParseProfile.CRASH_CONTEXT));
+        assertEquals(2, cache.getStatistics().localSize());
+        verify(valueOperations, times(3)).set(anyString(), any(), eq(properties.getRedisTtl()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void hitsShouldReturnIndependentCopies() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        ParseResultCache cache = new ParseResultCache(redisTemplate, new ParseCacheProperties(), new ParserProperties());
+        CachedParseResult stored = cachedResult(1);
+        cache.put("a", ParseProfile.CRASH_CONTEXT, stored);
+
+        stored.getTombstone().setPid(2);
+        CachedParseResult first = cache.get("a", ParseProfile.CRASH_CONTEXT);
+        first.getTombstone().setPid(3);
+        first.setPatternMatchResult(null);
+        CachedParseResult second = cache.get("a", ParseProfile.CRASH_CONTEXT);
+
+        assertNotSame(first, second);
+        assertEquals(1, second.getTombstone().getPid());
+        assertNotNull(second.getPatternMatchResult());
+    }
+
+    @Test
+    void cachedResultShouldSurviveRedisSerialization() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        CachedParseResult original = cachedResult(4321);
+
+        Object restored = serializer.deserialize(serializer.serialize(original));
+
+        CachedParseResult result = assertInstanceOf(CachedParseResult.class, restored);
+        assertEquals(4321, result.getTombstone().getPid());
+        assertEquals("use-after-free", result.getPatternMatchResult().getResult());
+    }
+
+    @Test
+    void contentHashShouldDependOnEveryByte() throws IOException {
+        byte[] content = "pid: 1, tid: 1, name: main  >>> /system/bin/app <<<\n".repeat(4096).getBytes(StandardCharsets.UTF_8);
+        String hash = ContentHasher.hash(new ByteArrayInputStream(content));
+
+        content[content.length - 2] ^= 1;
+
+        assertEquals(64, hash.length());
+        assertNotEquals(hash, ContentHasher.hash(new ByteArrayInputStream(content)));
+    }
+
+    private CachedParseResult cachedResult(int pid) {
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        tombstone.setPid(pid);
+        tombstone.setProcessName("/system/bin/app");
+        PatternMatchResult patternMatchResult = PatternMatchResult.builder()
+            .confidence(0.9)
+            .result("use-after-free")
+            .build();
+        return new CachedParseResult(tombstone, patternMatchResult);
+    }
+}
@@ -0,0 +1,196 @@
+package com.stability.martrix.service;
+
+import com.stability.martrix.config.FileStorageProperties;
+import com.stability.martrix.service.storage.BlobStore;
+import com.stability.martrix.util.ContentHasher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionFileStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void storeFileShouldWriteWholeUploadWhenConsumerStopsEarly() throws IOException {
+        SessionFileStorageService service = createService();
+        byte[] content = "pid: 1\n".repeat(20_000).getBytes(StandardCharsets.UTF_8);
+        MultipartFile file = new MockMultipartFile("files", "tombstone_00", "text/plain", content);
+
+        SessionFileStorageService.StoredFile<String> stored = service.storeFile("s1", file,
+            (fileName, inputStream) -> fileName + ":" + new String(inputStream.readNBytes(6), StandardCharsets.UTF_8));
+
+        assertEquals("tombstone_00:pid: 1", stored.result());
+        assertArrayEquals(content, Files.readAllBytes(Path.of(stored.path())));
+        // consumer 只读了头部，摘要仍覆盖完整内容
+        assertEquals(ContentHasher.hash(new ByteArrayInputStream(content)), stored.contentHash());
+    }
+
+    @Test
+    void storeFilesShouldKeepFileWhenConsumerFails() throws IOException {
+        SessionFileStorageService service = createService();
+        byte[] content = "not parsable".getBytes(StandardCharsets.UTF_8);
+        MultipartFile[] files = {
+            new MockMultipartFile("files", "a.log", "text/plain", content),
+            new MockMultipartFile("files", "empty.log", "text/plain", new byte[0])
+        };
+
+        List<SessionFileStorageService.StoredFile<Object>> stored = service.storeFiles("s2", files, (fileName, inputStream) -> {
+            inputStream.read();
+            throw new IOException("boom");
+        });
+
+        assertEquals(1, stored.size());
+        assertNull(stored.getFirst().result());
+        assertArrayEquals(content, Files.readAllBytes(Path.of(stored.getFirst().path())));
+    }
+
+    @Test
+    void deleteSessionFolderShouldNotifyListeners() throws IOException {
+        SessionFileStorageService service = createService();
+        List<Path> deleted = new ArrayList<>();
+        service.onSessionFolderDeleted(deleted::add);
+        service.storeFile("s3", new MockMultipartFile("files", "a.log", "text/plain", "pid: 1".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(service.deleteSessionFolder("s3"));
+
+        assertEquals(List.of(Path.of(service.getFileStorageProperties().getSessionPath("s3"))), deleted);
+    }
+
+    @Test
+    void cleanupExpiredSessionsShouldNotifyListeners() throws IOException {
+        SessionFileStorageService service = createService();
+        List<Path> deleted = new ArrayList<>();
+        service.onSessionFolderDeleted(deleted::add);
+        service.storeFile("s4", new MockMultipartFile("files", "a.log", "text/plain", "pid: 1".getBytes(StandardCharsets.UTF_8)));
+        service.storeFile("s5", new MockMultipartFile("files", "b.log", "text/plain", "pid: 2".getBytes(StandardCharsets.UTF_8)));
+        Path expired = Path.of(service.getFileStorageProperties().getSessionPath("s4"));
+        Files.setLastModifiedTime(expired, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(3).toMillis()));
+
+        assertEquals(1, service.cleanupExpiredSessions());
+
+        assertEquals(List.of(expired), deleted);
+    }
+
+    @Test
+    void compressAtRestShouldStoreZstdAndDecompressTransparently() throws IOException {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setBasePath(tempDir.toString());
+        properties.setCompressAtRest(true);
+        properties.setDeduplicate(false);
+        SessionFileStorageService service = new SessionFileStorageService(properties);
+        byte[] content = "pid: 1, tid: 2\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        String stored = service.storeFile("s3", new MockMultipartFile("files", "tombstone_00", "text/plain", content));
+
+        Path compressed = Path.of(service.compressAtRest(stored));
+        assertTrue(SessionFileStorageService.isCompressedAtRest(compressed));
+        assertFalse(Files.exists(Path.of(stored)));
+        assertTrue(Files.size(compressed) < content.length / 10);
+        // 已压缩存储的文件不再压缩
+        assertEquals(compressed.toString(), service.compressAtRest(compressed.toString()));
+
+        try (InputStream inputStream = service.openFile(compressed)) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+        SessionFileStorageService.MaterializedFile plain = service.materialize(compressed);
+        assertTrue(plain.temporary());
+        assertArrayEquals(content, Files.readAllBytes(plain.path()));
+        Files.delete(plain.path());
+
+        // 本身已压缩的上传保持原样
+        String zip = service.storeFile("s3", new MockMultipartFile("files", "logs.zip", "application/zip",
+            new byte[]{'P', 'K', 3, 4, 0, 0}));
+        assertEquals(zip, service.compressAtRest(zip));
+    }
+
+    @Test
+    void compressAtRestShouldShareCompressedAndMaterializedBlobsAcrossSessions() throws IOException {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setBasePath(tempDir.toString());
+        properties.setCompressAtRest(true);
+        SessionFileStorageService service = new SessionFileStorageService(properties);
+        if (BlobStore.open(tempDir.resolve("blobs")) == null) {
+            return;
+        }
+        byte[] content = "pid: 1, tid: 2\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        String hash = ContentHasher.hash(new ByteArrayInputStream(content));
+
+        Path first = Path.of(service.compressAtRest(
+            service.storeFile("s6", new MockMultipartFile("files", "tombstone_00", "text/plain", content))));
+        Path second = Path.of(service.compressAtRest(
+            service.storeFile("s7", new MockMultipartFile("files", "tombstone_00", "text/plain", content))));
+
+        // 两个会话的压缩文件是同一个压缩 blob，开头记录原文摘要，解压时跳过
+        assertTrue(Files.isSameFile(first, second));
+        assertEquals(hash, BlobStore.compressedHash(first));
+        try (InputStream inputStream = service.openFile(second)) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+
+        SessionFileStorageService.MaterializedFile plain = service.materialize(first);
+        assertFalse(plain.temporary());
+        assertTrue(plain.path().startsWith(tempDir.resolve("blobs")));
+        assertEquals(hash, ContentHasher.hash(plain.path()));
+        assertEquals(plain, service.materialize(second));
+    }
+
+    @Test
+    void deduplicatedStoreShouldShareContentAcrossSessionsAndCollectUnreferencedBlobs() throws IOException {
+        SessionFileStorageService service = createService();
+        BlobStore blobStore = BlobStore.open(tempDir.resolve("blobs"));
+        if (blobStore == null) {
+            // 文件系统不支持硬链接数，服务退回普通存储
+            return;
+        }
+        byte[] content = "pid: 1, tid: 2\n".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+        String hash = ContentHasher.hash(new ByteArrayInputStream(content));
+
+        Path first = Path.of(service.storeFile("s4", new MockMultipartFile("files", "tombstone_00", "text/plain", content)));
+        // 内容已存储时只增加链接，consumer 照常读取上传内容，摘要在同一次读取中得到
+        SessionFileStorageService.StoredFile<Integer> second = service.storeFile("s5",
+            new MockMultipartFile("files", "tombstone_01", "text/plain", content),
+            (fileName, inputStream) -> inputStream.readAllBytes().length);
+
+        assertEquals(content.length, second.result());
+        assertEquals(hash, second.contentHash());
+        assertTrue(Files.isSameFile(first, Path.of(second.path())));
+        assertEquals(2, blobStore.referenceCount(hash));
+        assertArrayEquals(content, Files.readAllBytes(Path.of(second.path())));
+
+        assertTrue(service.deleteSessionFolder("s4"));
+        assertEquals(1, blobStore.referenceCount(hash));
+        assertArrayEquals(content, Files.readAllBytes(Path.of(second.path())));
+
+        assertTrue(service.deleteSessionFolder("s5"));
+        assertEquals(0, service.collectUnreferencedBlobs());
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("blobs"))) {
+            assertFalse(blobs.anyMatch(Files::isRegularFile));
+        }
+    }
+
+    private SessionFileStorageService createService() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setBasePath(tempDir.toString());
+        return new SessionFileStorageService(properties);
+    }
+}
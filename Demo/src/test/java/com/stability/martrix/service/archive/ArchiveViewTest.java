@@ -0,0 +1,128 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.service.ArchiveExtractionService;
+import com.stability.martrix.service.FileProbe;
+import com.stability.martrix.util.FileTypeDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArchiveViewTest {
+
+    private static final byte[] TOMBSTONE = "pid: 1, tid: 1\nsignal 11 (SIGSEGV)\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ELF = {0x7F, 'E', 'L', 'F', 2, 1, 1, 0};
+
+    @TempDir
+    Path tempDir;
+
+    private final FileProbe fileProbe = new FileProbe();
+
+    @Test
+    void zipViewShouldListAndProbeEntriesFromCentralDirectory() throws IOException {
+        Path zip = tempDir.resolve("logs.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("data/"));
+            out.putNextEntry(new ZipEntry("data/tombstone_00"));
+            out.write(TOMBSTONE);
+            out.putNextEntry(new ZipEntry("lib/libfoo.so"));
+            out.write(ELF);
+            out.closeEntry();
+        }
+
+        try (ArchiveView view = ArchiveView.open(zip, ArchiveExtractionService.ArchiveType.ZIP, fileProbe)) {
+            assertEntries(view);
+        }
+    }
+
+    @Test
+    void tarViewShouldListProbeAndOpenEntriesInAnyOrder() throws IOException {
+        ByteArrayOutputStream tarBytes = new ByteArrayOutputStream();
+        writeTarEntry(tarBytes, "data/tombstone_00", TOMBSTONE);
+        writeTarEntry(tarBytes, "lib/libfoo.so", ELF);
+        tarBytes.write(new byte[1024]);
+
+        Path tar = tempDir.resolve("logs.tar");
+        Files.write(tar, tarBytes.toByteArray());
+        try (ArchiveView view = ArchiveView.open(tar, ArchiveExtractionService.ArchiveType.TAR, fileProbe)) {
+            assertEntries(view);
+        }
+
+        Path tarGz = tempDir.resolve("logs.tar.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tarGz))) {
+            tarBytes.writeTo(out);
+        }
+        // 整体压缩的 TAR 不能随机访问，不提供视图
+        assertFalse(ArchiveView.supportsRandomAccess(ArchiveExtractionService.ArchiveType.TAR_GZ));
+        assertThrows(IOException.class,
+            () -> ArchiveView.open(tarGz, ArchiveExtractionService.ArchiveType.TAR_GZ, fileProbe));
+    }
+
+    /**
+     * 条目列表、按开头字节的探测结果，以及先后、先前打开条目的内容
+     */
+    private static void assertEntries(ArchiveView view) throws IOException {
+        List<ArchiveView.Entry> entries = view.entries();
+        assertEquals(List.of("data/tombstone_00", "lib/libfoo.so"),
+            entries.stream().map(ArchiveView.Entry::name).toList());
+        assertEquals("libfoo.so", entries.get(1).fileName());
+        assertEquals(TOMBSTONE.length, entries.get(0).size());
+
+        assertEquals(FileTypeDetector.FileType.TXT, view.probe(entries.get(0)).fileType());
+        assertEquals(FileTypeDetector.FileType.ELF, view.probe(entries.get(1)).fileType());
+
+        for (int index : new int[]{0, 1, 0}) {
+            try (InputStream inputStream = view.open(entries.get(index))) {
+                assertArrayEquals(index == 0 ? TOMBSTONE : ELF, inputStream.readAllBytes());
+            }
+        }
+    }
+
+    /**
+     * 写入一个 ustar 格式的普通文件条目，内容按 512 字节补齐
+     */
+    static void writeTarEntry(OutputStream out, String name, byte[] content) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, "%011o".formatted(content.length));
+        put(header, 136, "00000000000");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = '0';
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        put(header, 148, "%06o".formatted(checksum));
+        header[154] = 0;
+
+        out.write(header);
+        out.write(content);
+        out.write(new byte[(512 - content.length % 512) % 512]);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,35 @@
+package com.stability.martrix.service.archive;
+
+import com.stability.martrix.config.ArchiveExtractionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntryPrefilterTest {
+
+    @Test
+    void evaluateShouldApplyExcludeSizeIncludeAndLibraryRulesInOrder() {
+        ArchiveExtractionProperties properties = new ArchiveExtractionProperties();
+        properties.setIncludeGlobs(List.of("tombstone_*", "traces*", "*.log", "*.so"));
+        properties.setMaxEntryBytes(1024);
+        EntryPrefilter prefilter = EntryPrefilter.from(properties);
+
+        assertEquals(EntryPrefilter.Decision.EXTRACT, prefilter.evaluate("FS/data/tombstones/tombstone_03", 100));
+        assertEquals(EntryPrefilter.Decision.EXTRACT, prefilter.evaluate("FS/data/anr/traces.txt", -1));
+        // 含 / 的 exclude 从任一级目录开始匹配
+        assertEquals(EntryPrefilter.Decision.SKIP, prefilter.evaluate("proto/tombstone_03.proto", 100));
+        assertEquals(EntryPrefilter.Decision.SKIP, prefilter.evaluate("dump/FS/system/lib64/libc.so", 100));
+        assertEquals(EntryPrefilter.Decision.SKIP, prefilter.evaluate("logs/main.log", 4096));
+        assertEquals(EntryPrefilter.Decision.SKIP, prefilter.evaluate("FS/data/misc/settings.xml", 10));
+        assertEquals(EntryPrefilter.Decision.LIBRARY, prefilter.evaluate("FS/data/app/lib/arm64/libapp.so", 100));
+        // 嵌套归档不受 include 与大小上限限制
+        assertEquals(EntryPrefilter.Decision.EXTRACT, prefilter.evaluate("dumps/device.tar.gz", 1L << 40));
+
+        properties.setReferencedLibrariesOnly(false);
+        assertEquals(EntryPrefilter.Decision.EXTRACT,
+            EntryPrefilter.from(properties).evaluate("FS/data/app/lib/arm64/libapp.so", 100));
+        assertEquals(EntryPrefilter.Decision.EXTRACT, EntryPrefilter.ACCEPT_ALL.evaluate("proto/a.proto", 1L << 40));
+    }
+}
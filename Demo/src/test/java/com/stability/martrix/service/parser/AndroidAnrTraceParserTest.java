@@ -0,0 +1,162 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AnrTrace;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AndroidAnrTraceParserTest {
+
+    private static final List<String> TRACE = List.of(
+        "Subject: Input dispatching timed out (Application does not have a focused window)",
+        "",
+        "----- pid 4321 at 2026-01-15 00:40:06.123456789+0800 -----",
+        "Cmd line: com.example.app",
+        "Build fingerprint: 'google/sdk_gphone64_arm64/emu64a:16/BE4B.251210.005:userdebug/dev-keys'",
+        "ABI: 'arm64'",
+        "",
+        "DALVIK THREADS (4):",
+        "\"main\" prio=5 tid=1 Blocked",
+        "  | group=\"main\" sCount=1 ucsCount=0 flags=1 obj=0x72a0e5f8 self=0xb400007a1e63b7b0",
+        "  | sysTid=4321 nice=-10 cgrp=top-app sched=0/0 handle=0x7b5b2c04f8",
+        "  at com.example.app.Cache.put(Cache.java:42)",
+        "  - waiting to lock <0x0d6e1a2b> (a java.lang.Object) held by thread 22",
+        "  at com.example.app.MainActivity.onResume(MainActivity.java:88)",
+        "  - locked <0x0a1b2c3d> (a com.example.app.Store)",
+        "",
+        "\"Binder:4321_2\" daemon prio=5 tid=22 Blocked",
+        "  | sysTid=4340 nice=0 cgrp=top-app sched=0/0 handle=0x7a11aa2cb0",
+        "  at com.example.app.Store.load(Store.java:17)",
+        "  - waiting to lock <0x0a1b2c3d> (a com.example.app.Store) held by thread 1",
+        "  at com.example.app.Cache.refresh(Cache.java:60)",
+        "  - locked <0x0d6e1a2b> (a java.lang.Object)",
+        "",
+        "\"Signal Catcher\" daemon prio=10 tid=6 Runnable",
+        "  | sysTid=4330 nice=-20 cgrp=top-app sched=0/0 handle=0x7a1d0d1cb0",
+        "  native: #00 pc 000000000004b2cc  /apex/com.android.runtime/lib64/bionic/libc.so (syscall+28)",
+        "",
+        "\"HwBinder:4321_1\" prio=10 (not attached)",
+        "  | sysTid=4350 nice=-20 cgrp=top-app",
+        "",
+        "----- end 4321 -----",
+        "",
+        "----- pid 1000 at 2026-01-15 00:40:07.000000000+0800 -----",
+        "Cmd line: system_server"
+    );
+
+    private final AndroidAnrTraceParser parser = new AndroidAnrTraceParser();
+
+    @Test
+    void parseShouldDecodeHeaderThreadsAndMonitors() throws IOException {
+        assertTrue(parser.canParse(TRACE));
+        AnrTrace trace = assertInstanceOf(AnrTrace.class,
+            parser.parse(new StringReader(String.join("\n", TRACE)), ParseProfile.FULL));
+
+        assertEquals(4321, trace.getPid());
+        assertEquals(4321, trace.getFirstTid());
+        assertEquals("com.example.app", trace.getProcessName());
+        assertEquals("google/sdk_gphone64_arm64/emu64a:16/BE4B.251210.005:userdebug/dev-keys", trace.getVersion());
+        assertEquals("2026-01-15 00:40:06.123456789+0800", trace.getTimestamp());
+        assertEquals("Input dispatching timed out (Application does not have a focused window)", trace.getSubject());
+        assertEquals(4, trace.getThreads().size());
+
+        AnrTrace.JavaThread main = trace.getThreads().get(0);
+        assertEquals("Blocked", main.getState());
+        assertEquals(2, main.getStackFrames().size());
+        assertEquals("0x0d6e1a2b", main.getWaitingToLock());
+        assertEquals(22, main.getWaitingToLockOwnerTid());
+        assertEquals(List.of("0x0a1b2c3d"), main.getHeldMonitors());
+
+        AnrTrace.JavaThread binder = trace.getThreads().get(1);
+        assertTrue(binder.isDaemon());
+        assertEquals(22, binder.getTid());
+        assertEquals(4340, binder.getSysTid());
+
+        AnrTrace.JavaThread notAttached = trace.getThreads().get(3);
+        assertEquals("HwBinder:4321_1", notAttached.getName());
+        assertNull(notAttached.getTid());
+        assertEquals("(not attached)", notAttached.getState());
+
+        assertEquals(List.of(List.of(1, 22)), trace.getDeadlocks());
+    }
+
+    @Test
+    void headerOnlyShouldStopBeforeThreads() {
+        AnrTrace trace = assertInstanceOf(AnrTrace.class, parser.parse(TRACE, ParseProfile.HEADER_ONLY));
+
+        assertEquals("com.example.app", trace.getProcessName());
+        assertTrue(trace.getThreads().isEmpty());
+        assertFalse(parser.canParse(List.of("pid: 1, tid: 1, name: main  >>> demo <<<", "Cmdline: demo")));
+    }
+
+    @Test
+    void waitForGraphShouldFindCyclesAcrossManyThreadsAndIgnoreChains() {
+        List<String> lines = new ArrayList<>(List.of(
+            "----- pid 1 at 2026-01-15 00:00:00 -----",
+            "Cmd line: demo",
+            "DALVIK THREADS (300):"));
+        int threadCount = 300;
+        for (int tid = 1; tid <= threadCount; tid++) {
+            lines.add("\"worker-" + tid + "\" prio=5 tid=" + tid + " Blocked");
+            lines.add("  | sysTid=" + (1000 + tid));
+            lines.add("  at demo.Worker.run(Worker.java:" + tid + ")");
+            if (tid <= 3) {
+                // 1 -> 2 -> 3 -> 1，锁持有者只通过 "- locked" 给出
+                lines.add("  - waiting to lock <0x" + (tid % 3 + 1) + "> (a java.lang.Object)");
+            } else if (tid < threadCount) {
+                // 长等待链 4 -> 5 -> ... -> 300，没有环
+                lines.add("  - waiting to lock <0x" + (tid + 1) + "> (a java.lang.Object) held by thread " + (tid + 1));
+            }
+            lines.add("  - locked <0x" + tid + "> (a java.lang.Object)");
+            lines.add("");
+        }
+        lines.add("----- end 1 -----");
+
+        AnrTrace trace = assertInstanceOf(AnrTrace.class, parser.parse(lines, ParseProfile.FULL));
+
+        assertTrue(threadCount >= AndroidAnrTraceParser.PARALLEL_THRESHOLD);
+        assertEquals(threadCount, trace.getThreads().size());
+        assertEquals("worker-300", trace.getThreads().get(threadCount - 1).getName());
+        assertEquals(1001, trace.getFirstTid());
+        assertEquals(List.of(List.of(1, 2, 3)), trace.getDeadlocks());
+    }
+
+    @Test
+    void waitForGraphShouldIgnoreMonitorsReleasedByObjectWait() {
+        List<String> lines = List.of(
+            "----- pid 1 at 2026-01-15 00:00:00 -----",
+            "Cmd line: demo",
+            "DALVIK THREADS (3):",
+            "\"main\" prio=5 tid=1 Blocked",
+            "  at demo.Main.run(Main.java:1)",
+            "  - waiting to lock <0x0a> (a java.lang.Object)",
+            "  - locked <0x0c> (a java.lang.Object)",
+            "",
+            // Object.wait() 已释放 <0x0a>，栈帧中仍显示为 locked
+            "\"waiter\" prio=5 tid=2 Waiting",
+            "  at java.lang.Object.wait(Native method)",
+            "  - waiting on <0x0a> (a java.lang.Object)",
+            "  at demo.Waiter.run(Waiter.java:2)",
+            "  - locked <0x0a> (a java.lang.Object)",
+            "",
+            "\"worker\" prio=5 tid=3 Blocked",
+            "  at demo.Worker.run(Worker.java:3)",
+            "  - waiting to lock <0x0c> (a java.lang.Object)",
+            "  - locked <0x0a> (a java.lang.Object)",
+            "",
+            "----- end 1 -----");
+
+        AnrTrace trace = assertInstanceOf(AnrTrace.class, parser.parse(lines, ParseProfile.FULL));
+
+        assertEquals(List.of(List.of(1, 3)), trace.getDeadlocks());
+    }
+}
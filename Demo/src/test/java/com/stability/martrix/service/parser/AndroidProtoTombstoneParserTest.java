@@ -0,0 +1,261 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.register.AArch64Register;
+import com.stability.martrix.enums.CPUArchitecture;
+import com.stability.martrix.util.FileTypeDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AndroidProtoTombstoneParserTest {
+
+    private static final String FINGERPRINT =
+        "google/sdk_gphone64_arm64/emu64a:16/BE4B.251210.005:userdebug/dev-keys";
+
+    @TempDir
+    Path tempDir;
+
+    private final AndroidProtoTombstoneParser parser = new AndroidProtoTombstoneParser();
+
+    @Test
+    void parseShouldDecodeCrashThreadMapsAndFdsFromMappedFile() throws IOException {
+        Path file = Files.write(tempDir.resolve("tombstone_00.pb"), buildTombstone());
+
+        assertEquals(FileTypeDetector.FileType.TOMBSTONE_PROTO, FileTypeDetector.detectFileType(file));
+        AArch64Tombstone tombstone = parser.parse(file, ParseProfile.FULL);
+
+        assertTrue(parser.isValid(tombstone));
+        assertEquals(CPUArchitecture.ARM64, tombstone.getCpuArchitecture());
+        assertEquals(FINGERPRINT, tombstone.getVersion());
+        assertEquals(2036, tombstone.getPid());
+        assertEquals(2036, tombstone.getFirstTid());
+        assertEquals("com.example.tombstoneTest --flag", tombstone.getProcessName());
+
+        AArch64Tombstone.SignalInfo signalInfo = tombstone.getSignalInfo();
+        assertEquals(11, signalInfo.getSigNumber());
+        assertEquals("SIGSEGV", signalInfo.getSigInformation());
+        assertEquals("SEGV_MAPERR", signalInfo.getTroubleInformation());
+        assertEquals(0x10L, signalInfo.getFaultAddress());
+        assertNull(signalInfo.getFromPid());
+
+        assertEquals(0x7b00001000L, tombstone.getRegisterDumpInfo().get(AArch64Register.X0));
+        assertEquals(0x7d0f7a7fb8L, tombstone.getRegisterDumpInfo().get(AArch64Register.X30));
+        assertEquals(new AArch64Tombstone.SpecialRegisterInfo(0x7d0f7a7fb8L, 0x7bdab4f9a0L, 0x7d0f79d8ccL, 0x60001000L),
+            tombstone.getSpecialRegisterInfo());
+
+        AArch64Tombstone.StackDumpInfo.StackFrame top = tombstone.getStackDumpInfo().getStackFrames().get(0);
+        assertEquals(new AArch64Tombstone.StackDumpInfo.StackFrame(164L, "abort", "/apex/com.android.runtime/lib64/bionic/libc.so",
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.OFFSET, 0x5b9c8L, 0, "a1b2c3"), top);
+        AArch64Tombstone.StackDumpInfo.StackFrame unnamed = tombstone.getStackDumpInfo().getStackFrames().get(1);
+        assertNull(unnamed.getSymbol());
+        assertNull(unnamed.getOffsetFromSymbolStart());
+        assertNull(unnamed.getBuildId());
+
+        // 崩溃线程在 map 中排在其他线程之后，结果中仍然在第一个
+        assertEquals(2, tombstone.getThreadInfoList().size());
+        assertEquals("main", tombstone.getThreadInfoList().get(0).getName());
+        assertEquals(2050, tombstone.getThreadInfoList().get(1).getTid());
+        assertEquals("RenderThread", tombstone.getThreadInfoList().get(1).getName());
+
+        MemorySnapshot x0 = tombstone.getMemoryNear().get("x0");
+        assertEquals("[anon:libc_malloc]", x0.getMappingName());
+        assertEquals(0x7b00001000L, x0.baseAddress());
+        assertEquals(4, x0.wordCount());
+        assertEquals(0x4847464544434241L, x0.readWord(0x7b00001000L));
+        assertFalse(x0.isReadable(0x7b00001018L));
+        assertEquals("    0000007b00001000 4847464544434241 0000000000000002  ABCDEFGH........", x0.getLines().get(0));
+
+        MemoryMapIndex maps = tombstone.getMemoryMapIndex();
+        assertEquals(2, maps.size());
+        assertEquals(maps.indexOf(0x7d0f700000L), maps.indexOf(0x7d0f7fffffL));
+        assertEquals("r-x", maps.permissionString(maps.indexOf(0x7d0f700000L)));
+        assertEquals(1, maps.indexOf(0x7d0f800000L));
+        assertEquals(-1, maps.indexOf(0x7d0f801000L));
+        assertEquals("/apex/com.android.runtime/lib64/bionic/libc.so", maps.name(1));
+
+        assertEquals(2, tombstone.getFdInfo().size());
+        assertEquals("unique_fd", tombstone.getFdInfo().get(0).getFdsanInfo().getOwnedType());
+        assertEquals(0x7c65904a74L, tombstone.getFdInfo().get(0).getFdsanInfo().getOwner());
+        assertNull(tombstone.getFdInfo().get(1).getFdsanInfo());
+
+        AArch64Tombstone.LogLine log = tombstone.getCrashThreadLogTail().get(0);
+        assertEquals(new AArch64Tombstone.LogLine("main", "01-07 22:34:54.100", 2036, 2036, "F", "libc",
+            "Fatal signal 11 (SIGSEGV)"), log);
+        assertEquals("frame dropped", tombstone.getThreadInfoList().get(1).getLogTail().get(0).getMessage());
+    }
+
+    @Test
+    void parseShouldSkipUnneededSectionsByProfile() {
+        ByteBuffer buffer = ByteBuffer.wrap(buildTombstone());
+
+        AArch64Tombstone header = parser.parse(buffer, ParseProfile.HEADER_ONLY);
+        assertEquals("SIGSEGV", header.getSignalInfo().getSigInformation());
+        assertNull(header.getStackDumpInfo());
+        assertNull(header.getThreadInfoList());
+        assertNull(header.getMemoryMapIndex());
+
+        AArch64Tombstone crashThread = parser.parse(buffer, ParseProfile.CRASH_THREAD);
+        assertEquals(1, crashThread.getThreadInfoList().size());
+        assertNotNull(crashThread.getRegisterDumpInfo());
+        assertNull(crashThread.getMemoryNear());
+        assertNull(crashThread.getMemoryMapIndex());
+
+        AArch64Tombstone crashContext = parser.parse(buffer, ParseProfile.CRASH_CONTEXT);
+        assertNotNull(crashContext.getMemoryNear());
+        assertNotNull(crashContext.getMemoryMapIndex());
+        assertNull(crashContext.getFdInfo());
+        assertNull(crashContext.getCrashThreadLogTail());
+
+        AArch64Tombstone crashLog = parser.parse(buffer, ParseProfile.CRASH_LOG);
+        assertEquals(1, crashLog.getThreadInfoList().size());
+        assertEquals(1, crashLog.getCrashThreadLogTail().size());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void parseShouldReturnNullForTruncatedMessage() {
+        byte[] content = buildTombstone();
+        byte[] truncated = Arrays.copyOf(content, content.length - 5);
+
+        assertNull(parser.parse(ByteBuffer.wrap(truncated), ParseProfile.FULL));
+        assertFalse(parser.canParse(List.of("pid: 1, tid: 1, name: main  >>> demo <<<")));
+    }
+
+    private byte[] buildTombstone() {
+        ProtoWriter signal = new ProtoWriter()
+            .varint(1, 11).string(2, "SIGSEGV").varint(3, 1).string(4, "SEGV_MAPERR")
+            .varint(8, 1).varint(9, 0x10);
+
+        ProtoWriter crashThread = new ProtoWriter()
+            .varint(1, 2036).string(2, "main")
+            .message(3, register("x0", 0x7b00001000L))
+            .message(3, register("x29", 0x7bdab4f9b0L))
+            .message(3, register("lr", 0x7d0f7a7fb8L))
+            .message(3, register("sp", 0x7bdab4f9a0L))
+            .message(3, register("pc", 0x7d0f79d8ccL))
+            .message(3, register("pst", 0x60001000L))
+            .message(4, new ProtoWriter().varint(1, 0x5b9c8).varint(2, 0x7d0f79d8ccL)
+                .string(4, "abort").varint(5, 164)
+                .string(6, "/apex/com.android.runtime/lib64/bionic/libc.so").string(8, "a1b2c3"))
+            .message(4, new ProtoWriter().varint(1, 0x1234).string(6, "/system/bin/app_process64"))
+            .message(5, new ProtoWriter().string(1, "x0").string(2, "[anon:libc_malloc]")
+                .varint(3, 0x7b00001000L)
+                .bytes(4, memory()));
+        ProtoWriter otherThread = new ProtoWriter()
+            .varint(1, 2050).string(2, "RenderThread")
+            .message(3, register("x0", 1))
+            .message(5, new ProtoWriter().string(1, "x0").varint(3, 0x1000).bytes(4, le(7L)));
+
+        return new ProtoWriter()
+            .varint(1, 1)
+            .string(2, FINGERPRINT)
+            .string(3, "0")
+            .string(4, "2026-01-07 22:34:54.123456789+0800")
+            .varint(5, 2036).varint(6, 2036).varint(7, 10210)
+            .string(8, "u:r:untrusted_app:s0:c210,c256,c512,c768")
+            .string(9, "com.example.tombstoneTest").string(9, "--flag")
+            .message(10, signal)
+            .message(16, new ProtoWriter().varint(1, 2050).message(2, otherThread))
+            .message(16, new ProtoWriter().varint(1, 2036).message(2, crashThread))
+            .message(17, new ProtoWriter().varint(1, 0x7d0f700000L).varint(2, 0x7d0f800000L)
+                .varint(4, 1).varint(6, 1).string(7, "/apex/com.android.runtime/lib64/bionic/libc.so"))
+            .message(17, new ProtoWriter().varint(1, 0x7d0f800000L).varint(2, 0x7d0f801000L).varint(3, 0x100000)
+                .varint(4, 1).string(7, "/apex/com.android.runtime/lib64/bionic/libc.so"))
+            .message(19, new ProtoWriter().varint(1, 0).string(2, "/dev/null").string(3, "unique_fd")
+                .varint(4, 0x7c65904a74L))
+            .message(19, new ProtoWriter().varint(1, 1).string(2, "/dev/null"))
+            .message(18, new ProtoWriter().string(1, "main")
+                .message(2, logMessage(2036, "libc", "Fatal signal 11 (SIGSEGV)"))
+                .message(2, logMessage(2050, "Render", "frame dropped")))
+            .varint(22, 4096)
+            .toByteArray();
+    }
+
+    /**
+     * 3 个完整的字加 3 字节不足一个字的尾部
+     */
+    private static byte[] memory() {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Long.BYTES + 3).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("ABCDEFGH".getBytes(StandardCharsets.US_ASCII)).putLong(2L).putLong(3L).put(new byte[]{1, 2, 3});
+        return buffer.array();
+    }
+
+    private static byte[] le(long... words) {
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    private static ProtoWriter logMessage(int tid, String tag, String message) {
+        return new ProtoWriter().string(1, "01-07 22:34:54.100").varint(2, 2036).varint(3, tid)
+            .varint(4, 7).string(5, tag).string(6, message);
+    }
+
+    private static ProtoWriter register(String name, long value) {
+        return new ProtoWriter().string(1, name).varint(2, value);
+    }
+
+    /**
+     * 测试用的最小 protobuf 编码器
+     */
+    private static final class ProtoWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ProtoWriter varint(int field, long value) {
+            writeVarint((long) field << 3);
+            writeVarint(value);
+            return this;
+        }
+
+        ProtoWriter string(int field, String value) {
+            return lengthDelimited(field, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ProtoWriter message(int field, ProtoWriter message) {
+            return lengthDelimited(field, message.toByteArray());
+        }
+
+        ProtoWriter bytes(int field, byte[] value) {
+            return lengthDelimited(field, value);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private ProtoWriter lengthDelimited(int field, byte[] value) {
+            writeVarint((long) field << 3 | ProtoReader.WIRE_LENGTH_DELIMITED);
+            writeVarint(value.length);
+            out.writeBytes(value);
+            return this;
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -1,20 +1,33 @@
 package com.stability.martrix.service.parser;
 
 import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.entity.AnrTrace;
 import com.stability.martrix.entity.TroubleEntity;
+import com.stability.martrix.exception.ExtractionLimitException;
+import com.stability.martrix.service.archive.BudgetedInputStream;
+import com.stability.martrix.service.archive.ExtractionBudget;
+import com.stability.martrix.util.TeeInputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FileParserFactoryTest {
 
@@ -63,6 +76,51 @@ class FileParserFactoryTest {
         assertEquals("gb进程", entity.getProcessName());
     }
 
+    @Test
+    void parseStreamShouldSwitchToGbkAtFirstMalformedByteAfterAsciiPrefix() throws IOException {
+        FileParserFactory factory = createFactory(new TombstoneStubParserStrategy());
+        // 头部不含 BOM，候选编码以 UTF-8 开始；解码到 "进" 时在出错位置原地切换，整个流只读取一遍
+        StringBuilder content = new StringBuilder("pid: 654\nCmdline: gbk进程\n");
+        for (int i = 0; i < 2000; i++) {
+            content.append("日志 ").append(i).append('\n');
+        }
+        byte[] bytes = content.toString().getBytes("GBK");
+        CountingInputStream inputStream = new CountingInputStream(bytes);
+
+        TroubleEntity entity = factory.parseStream(inputStream, ParseProfile.FULL);
+
+        assertNotNull(entity);
+        assertEquals(654, entity.getPid());
+        assertEquals("gbk进程", entity.getProcessName());
+        assertEquals(bytes.length, inputStream.bytesRead);
+    }
+
+    @Test
+    void readFileLinesShouldRestartWithNextCharsetAfterNonAsciiPrefix() throws IOException {
+        FileParserFactory factory = createFactory(new TombstoneStubParserStrategy());
+        Path file = tempDir.resolve("mixed.log");
+        // UTF-8 能解码出非 ASCII 的前缀 "café"，之后的 GB18030 内容在 UTF-8 下非法，只能从头换编码
+        byte[] prefix = "caf\u00e9\n".getBytes(StandardCharsets.UTF_8);
+        byte[] rest = "pid: 1\n崩溃\n".getBytes("GB18030");
+        byte[] content = new byte[prefix.length + rest.length];
+        System.arraycopy(prefix, 0, content, 0, prefix.length);
+        System.arraycopy(rest, 0, content, prefix.length, rest.length);
+        Files.write(file, content);
+
+        List<String> lines = factory.readFileLines(file);
+
+        assertEquals(new String(prefix, "GB18030").trim(), lines.get(0));
+        assertEquals(List.of("pid: 1", "崩溃"), lines.subList(1, lines.size()));
+    }
+
+    @Test
+    void fallbackDecodingReaderShouldOnlySwitchBetweenAsciiCompatibleCharsets() {
+        assertTrue(FallbackDecodingReader.isAsciiCompatible(StandardCharsets.UTF_8));
+        assertTrue(FallbackDecodingReader.isAsciiCompatible(java.nio.charset.Charset.forName("GBK")));
+        assertFalse(FallbackDecodingReader.isAsciiCompatible(StandardCharsets.UTF_16LE));
+        assertFalse(FallbackDecodingReader.isAsciiCompatible(StandardCharsets.UTF_16BE));
+    }
+
     @Test
     void parseFileShouldRejectBinaryPayloadEvenIfItContainsMarkers() throws IOException {
         FileParserFactory factory = createFactory(new TombstoneStubParserStrategy());
@@ -111,6 +169,157 @@ class FileParserFactoryTest {
         assertNull(entity);
     }
 
+    @Test
+    void parseStreamShouldPropagateExtractionLimitsRaisedWhileParsing() {
+        FileParserFactory factory = createFactory(new TombstoneStubParserStrategy());
+        StringBuilder content = new StringBuilder("pid: 987\nCmdline: budget\n");
+        for (int i = 0; i < 10000; i++) {
+            content.append("日志 ").append(i).append('\n');
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        // 预算足够读取判定前缀，解析器继续读取时超出
+        ExtractionBudget budget = ExtractionBudget.global(bytes.length / 2, Long.MAX_VALUE);
+
+        assertThrows(ExtractionLimitException.class, () -> factory.parseStream(
+            new BudgetedInputStream(new ByteArrayInputStream(bytes), budget), ParseProfile.FULL));
+    }
+
+    @Test
+    void routingModeShouldDispatchByContentInPriorityOrder() throws IOException {
+        RecordingParserStrategy openHarmony = new RecordingParserStrategy("OpenHarmony", 20, "Pid:");
+        RecordingParserStrategy fallback = new RecordingParserStrategy("Generic", 100, "Pid:");
+        FileParserFactory factory = createRoutingFactory(new TombstoneStubParserStrategy(), fallback, openHarmony);
+        assertTrue(factory.isRouting());
+        assertNull(factory.getCurrentParser());
+
+        Path tombstone = tempDir.resolve("tombstone.log");
+        Files.writeString(tombstone, "pid: 1\nCmdline: demo\n", StandardCharsets.UTF_8);
+        assertEquals("demo", factory.parseFile(tombstone).getProcessName());
+        assertEquals(1, openHarmony.canParseCalls);
+
+        Path cppcrash = tempDir.resolve("cppcrash.log");
+        Files.writeString(cppcrash, "Generated by HiviewDFX@OpenHarmony\nPid:2\n", StandardCharsets.UTF_8);
+        assertEquals("OpenHarmony", factory.parseFile(cppcrash).getProcessName());
+        assertEquals(2, openHarmony.canParseCalls);
+        assertEquals(0, fallback.canParseCalls);
+
+        Path unknown = tempDir.resolve("unknown.log");
+        Files.writeString(unknown, "nothing to see\n", StandardCharsets.UTF_8);
+        assertNull(factory.parseFile(unknown));
+    }
+
+    @Test
+    void fixedPlatformShouldAlsoTrySamePlatformFormatParsers() throws IOException {
+        ParserProperties properties = new ParserProperties();
+        properties.setPlatform("android");
+        FileParserFactory factory = new FileParserFactory(List.of(new TombstoneStubParserStrategy(),
+            new AndroidAnrTraceParser(), new RecordingParserStrategy("OpenHarmony", 20, "----- pid")), properties);
+
+        TroubleEntity entity = factory.parseReader(new StringReader(String.join("\n",
+            "----- pid 4321 at 2026-01-15 00:40:06.123456789+0800 -----",
+            "Cmd line: com.example.app",
+            "",
+            "DALVIK THREADS (1):",
+            "\"main\" prio=5 tid=1 Native",
+            "",
+            "----- end 4321 -----")));
+
+        assertEquals(4321, assertInstanceOf(AnrTrace.class, entity).getPid());
+        assertEquals(321, factory.parseReader(new StringReader("pid: 321\nCmdline: demo\n")).getPid());
+    }
+
+    @Test
+    void routingModeShouldShareOneBoundedPrefixAcrossCandidates() throws IOException {
+        RecordingParserStrategy first = new RecordingParserStrategy("First", 1, "never");
+        RecordingParserStrategy second = new RecordingParserStrategy("Second", 2, "line 0");
+        FileParserFactory factory = createRoutingFactory(first, second);
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        TroubleEntity entity = factory.parseReader(new StringReader(content.toString()));
+
+        assertNotNull(entity);
+        assertEquals("Second", entity.getProcessName());
+        assertSame(first.lastPrefix, second.lastPrefix);
+        assertEquals(50, second.lastPrefix.size());
+        assertEquals(500, second.parsedLines);
+    }
+
+    @Test
+    void parseReaderShouldBoundPrefixByCharactersForVeryLongLines() throws IOException {
+        RecordingParserStrategy parser = new RecordingParserStrategy("Long", 1, "pid:");
+        FileParserFactory factory = createRoutingFactory(parser);
+
+        String longLine = "x".repeat(2 * 1024 * 1024);
+        TroubleEntity entity = factory.parseReader(new StringReader("pid: 1\r\n" + longLine + "\nafter\n"));
+
+        assertNotNull(entity);
+        assertEquals(2, parser.lastPrefix.size());
+        assertEquals("pid: 1", parser.lastPrefix.get(0));
+        assertTrue(parser.lastPrefix.get(1).length() < longLine.length());
+        assertEquals(3, parser.parsedLines);
+
+        assertNull(factory.parseReader(new StringReader(longLine + "\npid: 2\n")));
+    }
+
+    @Test
+    void parseReaderShouldGrowPrefixBufferUntilFiftyLines() throws IOException {
+        RecordingParserStrategy parser = new RecordingParserStrategy("Wide", 1, "line 0");
+        FileParserFactory factory = createRoutingFactory(parser);
+
+        // 50 行约 15K 字符，超过初始缓冲区，不超过前缀上限
+        String padding = "y".repeat(300);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            content.append("line ").append(i).append(' ').append(padding).append('\n');
+        }
+        TroubleEntity entity = factory.parseReader(new StringReader(content.toString()));
+
+        assertNotNull(entity);
+        assertEquals(50, parser.lastPrefix.size());
+        assertEquals("line 49 " + padding, parser.lastPrefix.get(49));
+        assertEquals(60, parser.parsedLines);
+    }
+
+    @Test
+    void parseStreamShouldParseTeedUploadInOnePass() throws IOException {
+        FileParserFactory factory = createFactory(new TombstoneStubParserStrategy());
+        byte[] content = "header\npid: 321\nCmdline: tee进程\n".getBytes(StandardCharsets.UTF_16LE);
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        TeeInputStream teeInputStream = new TeeInputStream(new ByteArrayInputStream(content), stored);
+
+        TroubleEntity entity = factory.parseStream(teeInputStream, ParseProfile.FULL);
+        teeInputStream.drain();
+
+        assertNotNull(entity);
+        assertEquals(321, entity.getPid());
+        assertEquals("tee进程", entity.getProcessName());
+        assertArrayEquals(content, stored.toByteArray());
+    }
+
+    private static final class CountingInputStream extends ByteArrayInputStream {
+        private int bytesRead;
+
+        private CountingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int read = super.read(b, off, len);
+            bytesRead += Math.max(read, 0);
+            return read;
+        }
+    }
+
+    private FileParserFactory createRoutingFactory(FileParserStrategy... strategies) {
+        ParserProperties properties = new ParserProperties();
+        properties.setPlatform(ParserProperties.PLATFORM_AUTO);
+        return new FileParserFactory(List.of(strategies), properties);
+    }
+
     private FileParserFactory createFactory(FileParserStrategy strategy) {
         ParserProperties properties = new ParserProperties();
         properties.setPlatform("android");
@@ -144,6 +353,48 @@ class FileParserFactoryTest {
         }
     }
 
+    private static final class RecordingParserStrategy implements FileParserStrategy {
+
+        private final String platformName;
+        private final int priority;
+        private final String marker;
+        private int canParseCalls;
+        private List<String> lastPrefix;
+        private int parsedLines;
+
+        private RecordingParserStrategy(String platformName, int priority, String marker) {
+            this.platformName = platformName;
+            this.priority = priority;
+            this.marker = marker;
+        }
+
+        @Override
+        public String getPlatformName() {
+            return platformName;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public boolean canParse(List<String> lines) {
+            canParseCalls++;
+            lastPrefix = lines;
+            return lines.stream().anyMatch(line -> line.startsWith(marker));
+        }
+
+        @Override
+        public TroubleEntity parse(List<String> lines) {
+            parsedLines = lines.size();
+            TroubleEntity entity = new TroubleEntity();
+            entity.setPid(1);
+            entity.setProcessName(platformName);
+            return entity;
+        }
+    }
+
     private static final class ThrowingParserStrategy implements FileParserStrategy {
 
         @Override
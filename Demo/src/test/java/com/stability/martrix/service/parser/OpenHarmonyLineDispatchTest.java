@@ -0,0 +1,107 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenHarmonyLineDispatchTest {
+
+    private static final List<String> LOG = List.of(
+        "Generated by HiviewDFX@OpenHarmony",
+        "================================================================",
+        "Device info:OpenHarmony 3.2",
+        "Build info:OpenHarmony 6.1.0.32",
+        "Module name:strptime",
+        "Timestamp:2026-02-24 17:52:02.000",
+        "Pid:14707",
+        "Uid:0",
+        "Process name:strptime",
+        "Process life time:1s",
+        "Reason:Signal:SIGABRT(SI_QUEUE)@0x00003973 from:14707:0",
+        "Fault thread info:",
+        "Tid:14707, Name:sigchain_interc",
+        "#00 pc 000dbe28 /system/lib/ld-musl-arm.so.1(sigqueue+248)(acbcd8a38a05aef9b405c54d21ad6ad5)",
+        "#01 pc 000080a7 /data/local/tmp/libc-test/sigchain_intercept_sigaction(main+378)(18f12286b5e387422f0c43878b8c8586)",
+        "#02 at onClick (entry/src/main/ets/pages/Index.ets:24:9)",
+        "========SubmitterStacktrace========",
+        "#00 pc 00012345 /system/lib/libffrt.so(ffrt::submit+16)(0123456789abcdef)",
+        "Registers:",
+        "r0:00000000 r1:ffdd30dc r2:00000000 r3:00000008",
+        "fp:ffdd31f0 ip:00000000 sp:ffdd30d8 lr:00003973 pc:f7c58e28",
+        "cpsr:00800010",
+        "Maps:",
+        "3000-4000 r--p 00000000 /data/local/tmp/libc-test/sigchain_intercept_sigaction",
+        "4000-9000 r-xp 00001000 /data/local/tmp/libc-test/sigchain_intercept_sigaction",
+        "f7b7d000-f7c7e000 r-xp 00000000 /system/lib/ld-musl-arm.so.1",
+        "f7d00000-f7d01000 rw-p 00000000",
+        "OpenFiles:",
+        "0->/dev/null native object of unknown type 0"
+    );
+
+    @Test
+    void classifyShouldDispatchOnLeadingKeyword() {
+        assertEquals(OpenHarmonyLogFileParser.LineType.PID, OpenHarmonyLogFileParser.classify("Pid:14707"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.PROCESS_NAME, OpenHarmonyLogFileParser.classify("Process name:strptime"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.OTHER, OpenHarmonyLogFileParser.classify("Process life time:1s"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.THREAD, OpenHarmonyLogFileParser.classify("Tid:14707, Name:main"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.IGNORED, OpenHarmonyLogFileParser.classify("Timestamp:2026-02-24 17:52:02.000"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.REGISTERS, OpenHarmonyLogFileParser.classify("Registers:"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.MAPS, OpenHarmonyLogFileParser.classify("Maps:"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.MAPS_END, OpenHarmonyLogFileParser.classify("HiLog:"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.NATIVE_FRAME, OpenHarmonyLogFileParser.classify("#00 pc 000dbe28 /system/lib/libc.so"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.HIGH_LEVEL_FRAME, OpenHarmonyLogFileParser.classify("#02 at onClick (Index.ets:24:9)"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.OTHER, OpenHarmonyLogFileParser.classify("r0:00000000 r1:ffdd30dc"));
+        assertEquals(OpenHarmonyLogFileParser.LineType.EMPTY, OpenHarmonyLogFileParser.classify(""));
+    }
+
+    @Test
+    void parseMapsShouldFollowColumnFormat() {
+        MemoryMapIndex.Builder builder = new MemoryMapIndex.Builder();
+        assertTrue(OpenHarmonyLogFileParser.parseMaps("f7b7d000-f7c7e000 r-xp 00001000 /system/lib/libc.so extra", builder));
+        assertTrue(OpenHarmonyLogFileParser.parseMaps("ffffff8000000000-ffffffffffffffff rw-p 0000000000000000 [vectors]", builder));
+        assertFalse(OpenHarmonyLogFileParser.parseMaps("f7d00000-f7d01000 rw-p 00000000", builder));
+        assertFalse(OpenHarmonyLogFileParser.parseMaps("f7d00000-f7d01000 rwzp 00000000 /x", builder));
+        assertFalse(OpenHarmonyLogFileParser.parseMaps("1f7d00000000000000-f7d01000 rw-p 00000000 /x", builder));
+
+        MemoryMapIndex index = builder.build();
+        assertEquals(2, index.size());
+        assertEquals(0xf7b7d000L, index.start(0));
+        assertEquals(0x1000L, index.offset(0));
+        assertEquals("/system/lib/libc.so", index.name(0));
+        assertTrue(index.isExecutable(0));
+        assertEquals(0xffffffffffffffffL, index.end(1));
+    }
+
+    @Test
+    void parseShouldRouteLinesBySection() {
+        AArch64Tombstone tombstone = (AArch64Tombstone) new OpenHarmonyLogFileParser().parse(LOG);
+
+        assertEquals(14707, tombstone.getPid());
+        assertEquals("strptime", tombstone.getProcessName());
+        assertEquals("OpenHarmony 6.1.0.32", tombstone.getVersion());
+        assertEquals(6, tombstone.getSignalInfo().getSigNumber());
+        assertEquals(14707, tombstone.getFirstTid());
+
+        List<AArch64Tombstone.StackDumpInfo.StackFrame> frames = tombstone.getStackDumpInfo().getStackFrames();
+        assertEquals(3, frames.size());
+        assertEquals("sigqueue", frames.get(0).getSymbol());
+        assertEquals(AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.HIGH_LEVEL, frames.get(2).getAddressType());
+        assertNotNull(tombstone.getSubmitterStackDumpInfo());
+        assertEquals(1, tombstone.getSubmitterStackDumpInfo().getStackFrames().size());
+
+        assertEquals(0xffdd30dcL, tombstone.getRegisterDumpInfo().getX1());
+        assertEquals(0xf7c58e28L, tombstone.getSpecialRegisterInfo().getPc());
+        assertEquals(0x3973L, tombstone.getSpecialRegisterInfo().getLr());
+
+        MemoryMapIndex maps = tombstone.getMemoryMapIndex();
+        assertEquals(3, maps.size());
+        assertEquals("/system/lib/ld-musl-arm.so.1", maps.name(maps.indexOf(0xf7c58e28L)));
+    }
+}
@@ -0,0 +1,312 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenHarmony 日志解析基准
+ *
+ * 对比原先逐行 if/else + 正则的实现与按行首字符分派的 {@link OpenHarmonyLogFileParser}，输出每秒解析行数与每行分配字节数
+ * 默认生成一份带数千条 Maps 的 HiviewDFX cppcrash 日志，也可通过参数指定真实的 cppcrash 日志文件
+ *
+ * 运行: mvn test-compile 后执行
+ * java -cp target/test-classes:target/classes:&lt;依赖&gt; com.stability.martrix.service.parser.OpenHarmonyLogFileParserBenchmark [文件...]
+ */
+public class OpenHarmonyLogFileParserBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+    private static final int GENERATED_MAPS = 6000;
+
+    private static final Pattern LEGACY_PID_PATTERN = Pattern.compile("Pid:(\\d+)");
+    private static final Pattern LEGACY_FAULT_THREAD_PATTERN = Pattern.compile("Tid:(\\d+),\\s*Name:(\\S+)");
+    private static final Pattern LEGACY_MAPS_PATTERN = Pattern.compile("([0-9a-fA-F]+)-([0-9a-fA-F]+)\\s+([rwxps-]+)\\s+([0-9a-fA-F]+)\\s+(\\S+)");
+
+    public static void main(String[] args) throws IOException {
+        List<List<String>> logs = new ArrayList<>();
+        if (args.length == 0) {
+            logs.add(generateLog(GENERATED_MAPS));
+        }
+        for (String file : args) {
+            logs.add(Files.readAllLines(Path.of(file), StandardCharsets.ISO_8859_1));
+        }
+
+        OpenHarmonyLogFileParser parser = new OpenHarmonyLogFileParser();
+        for (List<String> log : logs) {
+            verify((AArch64Tombstone) parser.parse(log), legacyParse(log));
+        }
+
+        int lineCount = logs.stream().mapToInt(List::size).sum();
+        System.out.printf("日志数: %d, 行数: %d%n", logs.size(), lineCount);
+        run("legacy", logs, lineCount, OpenHarmonyLogFileParserBenchmark::legacyParse);
+        run("dispatch", logs, lineCount, log -> (AArch64Tombstone) parser.parse(log));
+    }
+
+    /**
+     * 生成 HiviewDFX cppcrash 格式的日志，Maps 段占绝大部分行
+     */
+    static List<String> generateLog(int mapsCount) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Generated by HiviewDFX@OpenHarmony");
+        lines.add("================================================================");
+        lines.add("Device info:OpenHarmony 3.2");
+        lines.add("Build info:OpenHarmony 6.1.0.32");
+        lines.add("Module name:com.example.app");
+        lines.add("Timestamp:2026-02-24 17:52:02.000");
+        lines.add("Pid:14707");
+        lines.add("Uid:20010044");
+        lines.add("Process name:com.example.app");
+        lines.add("Reason:Signal:SIGSEGV(SEGV_MAPERR)@0x00000008");
+        lines.add("Fault thread info:");
+        lines.add("Tid:14707, Name:com.example.app");
+        for (int i = 0; i < 40; i++) {
+            lines.add(String.format("#%02d pc %08x /system/lib64/libace_napi.z.so(napi_call_function_%d+%d)(acbcd8a38a05aef9b405c54d21ad6ad5)",
+                i, 0x10000 + i * 0x44, i, i * 4));
+        }
+        lines.add("#40 at onClick (entry/src/main/ets/pages/Index.ets:24:9)");
+        lines.add("Registers:");
+        lines.add("x0:0000000000000000 x1:0000007fc0e1d0a8 x2:0000000000000020 x3:0000000000000001");
+        lines.add("x4:0000000000000000 x5:0000007fc0e1d0c8 x6:0000000000000000 x7:0000000000000000");
+        lines.add("x28:0000000000000000 x29:0000007fc0e1d100");
+        lines.add("lr:0000005f2c4b1d2c sp:0000007fc0e1d0a0 pc:0000005f2c4b1d40 pstate:60001000");
+        lines.add("Other thread info:");
+        for (int t = 1; t <= 20; t++) {
+            lines.add("Tid:" + (14707 + t) + ", Name:worker-" + t);
+            for (int i = 0; i < 10; i++) {
+                lines.add(String.format("#%02d pc %08x /system/lib/ld-musl-aarch64.so.1(__timedwait_cp+%d)(acbcd8a38a05aef9b405c54d21ad6ad5)",
+                    i, 0x20000 + i * 0x10, i * 8));
+            }
+        }
+        lines.add("Maps:");
+        long address = 0x5f2c400000L;
+        for (int i = 0; i < mapsCount; i++) {
+            String perm = switch (i % 4) {
+                case 0 -> "r--p";
+                case 1 -> "r-xp";
+                case 2 -> "rw-p";
+                default -> "---p";
+            };
+            String name = i % 5 == 4 ? "[anon:native_heap:jemalloc]" : "/system/lib64/libmodule_" + (i / 4) + ".z.so";
+            lines.add(String.format("%x-%x %s %08x %s", address, address + 0x1000, perm, (i % 4) * 0x1000, name));
+            address += 0x1000;
+        }
+        lines.add("OpenFiles:");
+        for (int i = 0; i < 200; i++) {
+            lines.add(i + "->/dev/ashmem" + i + " native object of unknown type 0");
+        }
+        lines.add("HiLog:");
+        for (int i = 0; i < 200; i++) {
+            lines.add("02-24 17:52:01.123 14707 14707 I A00000/testTag: hilog line " + i);
+        }
+        return lines;
+    }
+
+    private static void verify(AArch64Tombstone actual, AArch64Tombstone expected) {
+        if (!Objects.equals(actual.getPid(), expected.getPid())
+            || !Objects.equals(actual.getVersion(), expected.getVersion())
+            || !Objects.equals(actual.getFirstTid(), expected.getFirstTid())
+            || !Objects.equals(actual.getRegisterDumpInfo(), expected.getRegisterDumpInfo())
+            || !Objects.equals(actual.getStackDumpInfo(), expected.getStackDumpInfo())
+            || !Objects.equals(actual.getSubmitterStackDumpInfo(), expected.getSubmitterStackDumpInfo())
+            || !Objects.equals(actual.getMemoryMapIndex(), expected.getMemoryMapIndex())) {
+            throw new IllegalStateException("解析结果不一致");
+        }
+    }
+
+    private static void run(String name, List<List<String>> logs, int lineCount, Function<List<String>, AArch64Tombstone> parser) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            consume(logs, parser);
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            checksum += consume(logs, parser);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long lines = (long) lineCount * MEASURE_ROUNDS;
+        System.out.printf("%-10s %,14.0f lines/s %10.1f B/line (checksum %d)%n",
+            name, lines * 1e9 / elapsed, (double) allocated / lines, checksum);
+    }
+
+    private static long consume(List<List<String>> logs, Function<List<String>, AArch64Tombstone> parser) {
+        long checksum = 0;
+        for (List<String> log : logs) {
+            AArch64Tombstone tombstone = parser.apply(log);
+            if (tombstone.getMemoryMapIndex() != null) {
+                checksum += tombstone.getMemoryMapIndex().size();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * 原先逐行 if/else 判断并在 Maps 段对每行调用 String.matches 的实现，仅作为对照，不解析信号信息
+     */
+    static AArch64Tombstone legacyParse(List<String> lines) {
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        AArch64RegisterDumpInfo registerDumpInfo = new AArch64RegisterDumpInfo();
+        List<AArch64Tombstone.StackDumpInfo.StackFrame> stackFrames = new ArrayList<>();
+        List<AArch64Tombstone.StackDumpInfo.StackFrame> submitterStackFrames = new ArrayList<>();
+        MemoryMapIndex.Builder mapsBuilder = new MemoryMapIndex.Builder();
+
+        boolean inRegisters = false;
+        boolean inMaps = false;
+        boolean inFaultThread = false;
+        boolean parsingSubmitterThread = false;
+
+        for (String rawLine : lines) {
+            String line = rawLine.trim();
+            if (line.startsWith("Pid:")) {
+                Matcher m = LEGACY_PID_PATTERN.matcher(line);
+                if (m.find()) {
+                    tombstone.setPid(Integer.parseInt(m.group(1)));
+                }
+            } else if (line.startsWith("Uid:")) {
+                // 不存储
+            } else if (line.startsWith("Process name:")) {
+                // 不参与对照
+            } else if (line.startsWith("Module name:")) {
+                // 不存储
+            } else if (line.contains("Build info:")) {
+                int index = line.indexOf("Build info:");
+                tombstone.setVersion(line.substring(index + "Build info:".length()).trim());
+            } else if (line.startsWith("Timestamp:")) {
+                // 不存储
+            } else if (line.startsWith("Reason:")) {
+                // 不参与对照
+            } else if (line.startsWith("Tid:")) {
+                Matcher m = LEGACY_FAULT_THREAD_PATTERN.matcher(line);
+                if (m.find()) {
+                    int tid = Integer.parseInt(m.group(1));
+                    if (!inFaultThread) {
+                        inFaultThread = true;
+                        tombstone.setFirstTid(tid);
+                    } else {
+                        inFaultThread = false;
+                        parsingSubmitterThread = false;
+                    }
+                }
+            } else if (line.contains("====SubmitterStacktrace====")) {
+                parsingSubmitterThread = true;
+                inFaultThread = false;
+            } else if (parsingSubmitterThread && line.startsWith("#") && line.contains(" at ")) {
+                addIfPresent(submitterStackFrames, legacyParseHighLevelStackFrame(line));
+            } else if (parsingSubmitterThread && line.startsWith("#") && line.contains("pc ")) {
+                addIfPresent(submitterStackFrames, legacyParseStackFrame(line));
+            } else if (inFaultThread && line.startsWith("#") && line.contains(" at ")) {
+                addIfPresent(stackFrames, legacyParseHighLevelStackFrame(line));
+            } else if (inFaultThread && line.startsWith("#") && line.contains("pc ")) {
+                addIfPresent(stackFrames, legacyParseStackFrame(line));
+            } else if (line.startsWith("Registers:")) {
+                inRegisters = true;
+                inMaps = false;
+            } else if (inRegisters && !line.isEmpty() && !line.startsWith("Memory") && !line.startsWith("Registers")) {
+                RegisterLineParser.parseColonSeparated(line, registerDumpInfo);
+                if (line.contains("pstate:")) {
+                    inRegisters = false;
+                }
+            } else if (line.startsWith("Maps:")) {
+                inMaps = true;
+                inRegisters = false;
+            } else if (inMaps && line.matches("[0-9a-fA-F]+-[0-9a-fA-F]+.*")) {
+                Matcher m = LEGACY_MAPS_PATTERN.matcher(line);
+                if (m.find()) {
+                    try {
+                        mapsBuilder.add(Long.parseUnsignedLong(m.group(1), 16), Long.parseUnsignedLong(m.group(2), 16),
+                            Long.parseUnsignedLong(m.group(4), 16), MemoryMapIndex.parsePermissions(m.group(3)), m.group(5));
+                    } catch (NumberFormatException e) {
+                        // ignore
+                    }
+                }
+            } else if (line.startsWith("OpenFiles:") || line.startsWith("HiLog:")) {
+                inMaps = false;
+            }
+        }
+
+        if (!stackFrames.isEmpty()) {
+            tombstone.setStackDumpInfo(new AArch64Tombstone.StackDumpInfo());
+            tombstone.getStackDumpInfo().setStackFrames(stackFrames);
+        }
+        if (!submitterStackFrames.isEmpty()) {
+            tombstone.setSubmitterStackDumpInfo(new AArch64Tombstone.StackDumpInfo());
+            tombstone.getSubmitterStackDumpInfo().setStackFrames(submitterStackFrames);
+        }
+        if (!mapsBuilder.isEmpty()) {
+            tombstone.setMemoryMapIndex(mapsBuilder.build());
+        }
+        tombstone.setRegisterDumpInfo(registerDumpInfo);
+        return tombstone;
+    }
+
+    private static void addIfPresent(List<AArch64Tombstone.StackDumpInfo.StackFrame> frames,
+                                     AArch64Tombstone.StackDumpInfo.StackFrame frame) {
+        if (frame != null) {
+            frames.add(frame);
+        }
+    }
+
+    private static AArch64Tombstone.StackDumpInfo.StackFrame legacyParseHighLevelStackFrame(String line) {
+        Matcher m = Pattern.compile("#(\\d+)\\s+at\\s+(\\S+)\\s*\\(([^)]+):(\\d+):(\\d+)\\)").matcher(line);
+        if (!m.find()) {
+            return null;
+        }
+        Long address = null;
+        try {
+            address = Long.parseLong(m.group(2), 16);
+        } catch (NumberFormatException e) {
+            // 不是十六进制地址
+        }
+        return new AArch64Tombstone.StackDumpInfo.StackFrame(null, m.group(2), m.group(3) + ":" + m.group(4) + ":" + m.group(5),
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.HIGH_LEVEL, address, Integer.parseInt(m.group(1)), null);
+    }
+
+    private static AArch64Tombstone.StackDumpInfo.StackFrame legacyParseStackFrame(String line) {
+        Matcher basicMatcher = Pattern.compile("#(\\d+)\\s+pc\\s+([0-9a-fA-F]+)").matcher(line);
+        if (!basicMatcher.find()) {
+            return null;
+        }
+        Long address = null;
+        try {
+            address = Long.parseLong(basicMatcher.group(2), 16);
+        } catch (NumberFormatException e) {
+            // ignore
+        }
+        Matcher symbolMatcher = Pattern.compile("(/.+?)(?:\\(([^)]+)\\))?(?:\\(([^)]+)\\))?$")
+            .matcher(line.substring(basicMatcher.end()));
+        if (!symbolMatcher.find()) {
+            return null;
+        }
+        String symbolInfo = symbolMatcher.group(2);
+        String symbol = symbolInfo;
+        Long offset = null;
+        if (symbolInfo != null && symbolInfo.contains("+")) {
+            String[] parts = symbolInfo.split("\\+");
+            symbol = parts[0];
+            try {
+                offset = Long.parseLong(parts[1], 16);
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return new AArch64Tombstone.StackDumpInfo.StackFrame(offset, symbol, symbolMatcher.group(1),
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.OFFSET, address, Integer.parseInt(basicMatcher.group(1)),
+            symbolMatcher.group(3));
+    }
+}
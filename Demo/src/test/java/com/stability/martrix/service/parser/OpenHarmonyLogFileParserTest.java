@@ -100,8 +100,8 @@ public class OpenHarmonyLogFileParserTest {
         assertEquals(0xef8d4L, firstFrame.getAddress(), "第一个堆栈帧地址应该是 0xef8d4");
 
         // 验证 Maps 信息
-        assertNotNull(tombstone.getMapsInfoList(), "Maps 信息不应为空");
-        assertTrue(tombstone.getMapsInfoList().size() > 0, "应该有 Maps 信息");
+        assertNotNull(tombstone.getMemoryMapIndex(), "Maps 信息不应为空");
+        assertTrue(tombstone.getMemoryMapIndex().size() > 0, "应该有 Maps 信息");
 
         // 验证特殊寄存器
         assertNotNull(tombstone.getSpecialRegisterInfo(), "特殊寄存器信息不应为空");
@@ -114,7 +114,7 @@ public class OpenHarmonyLogFileParserTest {
         System.out.println("Process: " + tombstone.getProcessName());
         System.out.println("Signal: " + tombstone.getSignalInfo().getSigNumber());
         System.out.println("Stack frames: " + tombstone.getStackDumpInfo().getStackFrames().size());
-        System.out.println("Maps entries: " + tombstone.getMapsInfoList().size());
+        System.out.println("Maps entries: " + tombstone.getMemoryMapIndex().size());
         System.out.println("x0: 0x" + Long.toHexString(regs.getX0()));
         System.out.println("x1: 0x" + Long.toHexString(regs.getX1()));
         System.out.println("sp: 0x" + Long.toHexString(regs.getSp()));
@@ -0,0 +1,80 @@
+package com.stability.martrix.service.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stability.martrix.entity.register.AArch64Register;
+import com.stability.martrix.entity.register.AArch64RegisterDumpInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisterLineParserTest {
+
+    @Test
+    void shouldParseAndroidRegisterLines() {
+        AArch64RegisterDumpInfo registers = new AArch64RegisterDumpInfo();
+
+        RegisterLineParser.parseSpaceSeparated("x0  0000000000000000  x1  0000007c5072d028", registers);
+        RegisterLineParser.parseSpaceSeparated("x28 ffffffffffffffff  x29 0000007bdab4f9f0", registers);
+        RegisterLineParser.parseSpaceSeparated("lr  0000007d0f7a7fb8  sp  0000007bdab4f9a0  pc  0000007d0f79d8cc  pst 0000000060001000", registers);
+        RegisterLineParser.parseSpaceSeparated("x2  zzzz  x3  0x20", registers);
+
+        assertTrue(registers.has(AArch64Register.X0));
+        assertEquals(0L, registers.getX0());
+        assertEquals(0x7c5072d028L, registers.getX1());
+        assertEquals(-1L, registers.getX28());
+        assertEquals(0x7d0f7a7fb8L, registers.getX30());
+        assertEquals(0x7bdab4f9a0L, registers.getSp());
+        assertEquals(0x7d0f79d8ccL, registers.get(AArch64Register.PC));
+        assertFalse(registers.has(AArch64Register.X2));
+        assertEquals(0x20L, registers.getX3());
+        assertFalse(registers.has(AArch64Register.X4));
+    }
+
+    @Test
+    void shouldMapOpenHarmonyArm32RegistersToAArch64() {
+        AArch64RegisterDumpInfo registers = new AArch64RegisterDumpInfo();
+
+        RegisterLineParser.parseColonSeparated("r0:4ceadb00 r1:ffc480a8 r2:00000000 r3:00000001", registers);
+        RegisterLineParser.parseColonSeparated("fp:ffc48020 ip:f7d5b0f8 sp:ffc47f80 lr:00bc96c5 pc:f7cfc8d4", registers);
+        RegisterLineParser.parseColonSeparated("cpsr:20070010", registers);
+
+        assertEquals(0x4ceadb00L, registers.getX0());
+        assertEquals(0xffc480a8L, registers.getX1());
+        assertEquals(0xffc48020L, registers.getX29());
+        assertEquals(0xf7d5b0f8L, registers.getX12());
+        assertEquals(0xffc47f80L, registers.getSp());
+        assertEquals(0x00bc96c5L, registers.getX30());
+        assertEquals(0xf7cfc8d4L, registers.getPc());
+    }
+
+    @Test
+    void lookupShouldRecognizeRegisterNamesOnly() {
+        assertEquals(AArch64Register.X9, AArch64Register.lookup("x9"));
+        assertEquals(AArch64Register.X30, AArch64Register.lookup("x30"));
+        assertEquals(AArch64Register.X30, AArch64Register.lookup("lr"));
+        assertEquals(AArch64Register.X12, AArch64Register.lookup("r12"));
+        assertNull(AArch64Register.lookup("x31"));
+        assertNull(AArch64Register.lookup("x05"));
+        assertNull(AArch64Register.lookup("r13"));
+        assertNull(AArch64Register.lookup("pst"));
+        assertNull(AArch64Register.lookup("esr"));
+    }
+
+    @Test
+    void registerFileShouldSurviveJsonRoundTrip() throws Exception {
+        AArch64RegisterDumpInfo registers = new AArch64RegisterDumpInfo();
+        registers.setX0(0);
+        registers.setSp(0x7bdab4f9a0L);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        AArch64RegisterDumpInfo restored = objectMapper.readValue(
+            objectMapper.writeValueAsString(registers), AArch64RegisterDumpInfo.class);
+
+        assertEquals(registers, restored);
+        assertTrue(restored.has(AArch64Register.X0));
+        assertFalse(restored.has(AArch64Register.X1));
+    }
+}
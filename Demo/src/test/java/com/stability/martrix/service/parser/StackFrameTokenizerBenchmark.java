@@ -0,0 +1,190 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 堆栈行解析基准
+ *
+ * 对比原先基于 split 的实现与 {@link StackFrameTokenizer}，输出每秒解析帧数与每帧分配字节数
+ * 默认使用 classpath 中的 tombstone_00、tombstone_01，可通过参数追加 tombstone 所在目录
+ *
+ * 运行: mvn test-compile 后执行
+ * java -cp target/test-classes:target/classes:&lt;依赖&gt; com.stability.martrix.service.parser.StackFrameTokenizerBenchmark [目录...]
+ */
+public class StackFrameTokenizerBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+
+    public static void main(String[] args) throws IOException {
+        List<String> frameLines = new ArrayList<>();
+        for (String resource : List.of("tombstone_00", "tombstone_01")) {
+            try (InputStream inputStream = StackFrameTokenizerBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+                if (inputStream != null) {
+                    collectFrameLines(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).lines(), frameLines);
+                }
+            }
+        }
+        for (String dir : args) {
+            try (Stream<Path> files = Files.walk(Path.of(dir))) {
+                for (Path file : files.filter(Files::isRegularFile).filter(f -> !f.toString().endsWith(".pb")).toList()) {
+                    try (Stream<String> lines = Files.lines(file, StandardCharsets.ISO_8859_1)) {
+                        collectFrameLines(lines, frameLines);
+                    }
+                }
+            }
+        }
+        if (frameLines.isEmpty()) {
+            System.out.println("没有可用的堆栈行");
+            return;
+        }
+
+        for (String line : frameLines) {
+            if (!Objects.equals(legacyParse(line), StackFrameTokenizer.parse(line))) {
+                throw new IllegalStateException("解析结果不一致: " + line);
+            }
+        }
+
+        System.out.printf("堆栈行数: %d%n", frameLines.size());
+        run("split", frameLines, StackFrameTokenizerBenchmark::legacyParse);
+        run("tokenizer", frameLines, StackFrameTokenizer::parse);
+    }
+
+    private static void collectFrameLines(Stream<String> lines, List<String> frameLines) {
+        lines.map(String::trim)
+            .filter(line -> line.startsWith("#") && line.contains(" pc "))
+            .forEach(frameLines::add);
+    }
+
+    private static void run(String name, List<String> lines, Function<String, AArch64Tombstone.StackDumpInfo.StackFrame> parser) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            consume(lines, parser);
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            checksum += consume(lines, parser);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long frames = (long) lines.size() * MEASURE_ROUNDS;
+        System.out.printf("%-10s %,14.0f frames/s %10.1f B/frame (checksum %d)%n",
+            name, frames * 1e9 / elapsed, (double) allocated / frames, checksum);
+    }
+
+    private static long consume(List<String> lines, Function<String, AArch64Tombstone.StackDumpInfo.StackFrame> parser) {
+        long checksum = 0;
+        for (String line : lines) {
+            AArch64Tombstone.StackDumpInfo.StackFrame frame = parser.apply(line);
+            if (frame != null) {
+                checksum += frame.getIndex();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * 原先基于 split 的实现，仅作为对照
+     */
+    static AArch64Tombstone.StackDumpInfo.StackFrame legacyParse(String line) {
+        String[] parts = line.split("\\s+");
+        if (parts.length < 4) {
+            return null;
+        }
+
+        int index = Integer.parseInt(parts[0].substring(1));
+        Long address = null;
+        try {
+            String pcStr = parts[2];
+            if (pcStr.startsWith("0x")) {
+                address = Long.parseLong(pcStr.substring(2), 16);
+            } else {
+                address = Long.parseLong(pcStr, 16);
+            }
+        } catch (NumberFormatException e) {
+            // 忽略解析错误
+        }
+
+        String mapsInfo = parts[3];
+        String symbol = null;
+        Long offsetFromSymbolStart = null;
+        String buildId = null;
+        AArch64Tombstone.StackDumpInfo.StackFrame.AddressType addressType =
+            AArch64Tombstone.StackDumpInfo.StackFrame.AddressType.OFFSET;
+
+        StringBuilder fullInfoBuilder = new StringBuilder();
+        for (int j = 4; j < parts.length; j++) {
+            if (j > 4) fullInfoBuilder.append(" ");
+            fullInfoBuilder.append(parts[j]);
+        }
+
+        String fullInfo = fullInfoBuilder.toString();
+
+        int buildIdStart = -1;
+        int buildIdEnd = -1;
+
+        int tempBuildIdStart = fullInfo.indexOf("(BuildId: ");
+        if (tempBuildIdStart != -1) {
+            buildIdEnd = fullInfo.indexOf(")", tempBuildIdStart);
+            if (buildIdEnd != -1) {
+                buildIdStart = tempBuildIdStart;
+            }
+        }
+
+        String symbolPart;
+        if (buildIdStart != -1 && buildIdEnd != -1) {
+            buildId = fullInfo.substring(buildIdStart + 10, buildIdEnd).trim();
+            symbolPart = fullInfo.substring(0, buildIdStart).trim();
+        } else {
+            symbolPart = fullInfo;
+        }
+
+        if (symbolPart.startsWith("(") && symbolPart.endsWith(")")) {
+            symbolPart = symbolPart.substring(1, symbolPart.length() - 1);
+        }
+
+        if (!symbolPart.isEmpty()) {
+            int lastPlusIndex = symbolPart.lastIndexOf('+');
+            if (lastPlusIndex != -1) {
+                String potentialSymbol = symbolPart.substring(0, lastPlusIndex).trim();
+                String offsetStr = symbolPart.substring(lastPlusIndex + 1).trim();
+
+                try {
+                    offsetFromSymbolStart = Long.parseLong(offsetStr);
+                    symbol = potentialSymbol;
+                } catch (NumberFormatException e) {
+                    symbol = symbolPart;
+                }
+            } else {
+                symbol = symbolPart;
+            }
+        }
+
+        return new AArch64Tombstone.StackDumpInfo.StackFrame(
+            offsetFromSymbolStart,
+            symbol,
+            mapsInfo,
+            addressType,
+            address,
+            index,
+            buildId
+        );
+    }
+}
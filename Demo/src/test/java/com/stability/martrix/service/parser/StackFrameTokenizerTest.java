@@ -0,0 +1,57 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.entity.AArch64Tombstone;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StackFrameTokenizerTest {
+
+    @Test
+    void shouldParseSymbolOffsetAndBuildId() {
+        AArch64Tombstone.StackDumpInfo.StackFrame frame = StackFrameTokenizer.parse(
+            "#00 pc 000000000005a8cc  /system/lib64/libbinder.so (android::Parcel::ipcSetDataReference(unsigned char const*, unsigned long)+340) (BuildId: f992d84feb3f8b8e5f0f7268aeaa2f5d)");
+
+        assertEquals(0, frame.getIndex());
+        assertEquals(0x5a8ccL, frame.getAddress());
+        assertEquals("/system/lib64/libbinder.so", frame.getMapsInfo());
+        assertEquals("android::Parcel::ipcSetDataReference(unsigned char const*, unsigned long)", frame.getSymbol());
+        assertEquals(340L, frame.getOffsetFromSymbolStart());
+        assertEquals("f992d84feb3f8b8e5f0f7268aeaa2f5d", frame.getBuildId());
+    }
+
+    @Test
+    void shouldKeepWholeSymbolWhenOffsetIsNotDecimal() {
+        AArch64Tombstone.StackDumpInfo.StackFrame frame = StackFrameTokenizer.parse(
+            "#12 pc 0x00000000000fd5a8  [anon:dalvik-jit-code-cache] (offset 0x2000000) (java.lang.Thread.run+abc)");
+
+        assertEquals(12, frame.getIndex());
+        assertEquals(0xfd5a8L, frame.getAddress());
+        assertEquals("[anon:dalvik-jit-code-cache]", frame.getMapsInfo());
+        assertEquals("offset 0x2000000) (java.lang.Thread.run+abc", frame.getSymbol());
+        assertNull(frame.getOffsetFromSymbolStart());
+        assertNull(frame.getBuildId());
+    }
+
+    @Test
+    void shouldCollapseRepeatedWhitespaceInSymbol() {
+        AArch64Tombstone.StackDumpInfo.StackFrame frame = StackFrameTokenizer.parse(
+            "#01 pc 0000000000001000  /system/lib64/libc.so (foo(int,\t  long)+8)  (BuildId:  aa )");
+
+        assertEquals("foo(int, long)", frame.getSymbol());
+        assertEquals(8L, frame.getOffsetFromSymbolStart());
+        assertEquals("aa", frame.getBuildId());
+    }
+
+    @Test
+    void shouldHandleMissingFieldsAndInvalidAddress() {
+        assertNull(StackFrameTokenizer.parse("#00 pc 0000000000001000"));
+
+        AArch64Tombstone.StackDumpInfo.StackFrame frame =
+            StackFrameTokenizer.parse("#03 pc ffffffffffffffff  /system/lib64/libc.so");
+        assertEquals(3, frame.getIndex());
+        assertNull(frame.getAddress());
+        assertNull(frame.getSymbol());
+    }
+}
@@ -0,0 +1,383 @@
+package com.stability.martrix.service.parser;
+
+import com.stability.martrix.config.ParserProperties;
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.entity.MemorySnapshot;
+import com.stability.martrix.entity.TroubleEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TombstoneStreamParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readerAndListEntryPointsShouldProduceSameTombstone() throws IOException {
+        List<String> lines = readResourceLines("tombstone_00");
+
+        AArch64Tombstone fromList = TombstoneStreamParser.parse(lines);
+        AArch64Tombstone fromReader = TombstoneStreamParser.parse(new StringReader(String.join("\n", lines)));
+
+        assertEquals(fromList, fromReader);
+        assertSameMemoryMaps(fromList.getMemoryMapIndex(), fromReader.getMemoryMapIndex());
+        assertEquals(16369, fromReader.getPid());
+        assertEquals("com.apkpure.aegon", fromReader.getProcessName());
+        assertEquals(11, fromReader.getSignalInfo().getSigNumber());
+        assertEquals(0x7c5072d048L, fromReader.getSignalInfo().getFaultAddress());
+        assertEquals(4, fromReader.getStackDumpInfo().getStackFrames().size());
+        assertEquals(0x7c5072d028L, fromReader.getRegisterDumpInfo().getX1());
+        assertEquals(0x7d0f7a7fb8L, fromReader.getRegisterDumpInfo().getX30());
+        assertEquals(0x60001000L, fromReader.getSpecialRegisterInfo().getPst());
+        assertNotNull(fromReader.getFdInfo());
+    }
+
+    @Test
+    void otherThreadSectionsShouldNotOverrideCrashThread() {
+        TombstoneStreamParser parser = new TombstoneStreamParser();
+        parser.accept("pid: 100, tid: 101, name: main  >>> demo <<<");
+        parser.accept("signal 6 (SIGABRT), code -1 (SI_QUEUE), fault addr --------");
+        parser.accept("backtrace:");
+        parser.accept("      #00 pc 0000000000001000  /system/lib64/libc.so (abort+164) (BuildId: aa)");
+        parser.accept("");
+        parser.accept("memory near x0:");
+        parser.accept("    0000007bdab4fca0 0000000000000001 00000000727d0288  ..lr ...pid:....");
+        parser.accept("");
+        assertEquals(TombstoneStreamParser.Section.HEADER, parser.currentSection());
+
+        parser.accept("--- --- --- --- --- --- --- --- --- --- --- --- --- --- --- ---");
+        parser.accept("pid: 100, tid: 102, name: Signal Catcher  >>> demo <<<");
+        parser.accept("backtrace:");
+        parser.accept("      #00 pc 0000000000002000  /system/lib64/libc.so (__rt_sigtimedwait+8)");
+        assertEquals(TombstoneStreamParser.Section.OTHER_THREADS, parser.currentSection());
+
+        AArch64Tombstone tombstone = parser.finish();
+
+        assertEquals(101, tombstone.getFirstTid());
+        assertEquals("SIGABRT", tombstone.getSignalInfo().getSigInformation());
+        assertEquals(1, tombstone.getStackDumpInfo().getStackFrames().size());
+        assertEquals("abort", tombstone.getStackDumpInfo().getStackFrames().get(0).getSymbol());
+    }
+
+    @Test
+    void signalLineWithoutFaultAddressValueShouldLeaveAddressUnset() {
+        TombstoneStreamParser parser = new TombstoneStreamParser();
+        parser.accept("pid: 100, tid: 101, name: main  >>> demo <<<");
+        // 恰好 8 个字段：fault addr 之后没有地址
+        parser.accept("signal 11 (SIGSEGV), code 1 (SEGV_MAPERR), fault addr");
+
+        AArch64Tombstone tombstone = parser.finish();
+
+        assertEquals(11, tombstone.getSignalInfo().getSigNumber());
+        assertEquals("SEGV_MAPERR", tombstone.getSignalInfo().getTroubleInformation());
+        assertNull(tombstone.getSignalInfo().getFaultAddress());
+    }
+
+    @Test
+    void otherThreadsShouldBeParsedInFileOrder() {
+        List<String> lines = new ArrayList<>(List.of(
+            "pid: 100, tid: 101, name: main  >>> demo <<<",
+            "signal 6 (SIGABRT), code -1 (SI_QUEUE), fault addr --------",
+            "backtrace:",
+            "      #00 pc 0000000000001000  /system/lib64/libc.so (abort+164) (BuildId: aa)",
+            ""));
+        for (int tid = 102; tid < 110; tid++) {
+            lines.add("--- --- --- --- --- --- --- --- --- --- --- --- --- --- --- ---");
+            lines.add("Cmdline: demo");
+            lines.add("pid: 100, tid: " + tid + ", name: worker-" + tid + "  >>> demo <<<");
+            lines.add("    x0  0000000000000001  x1  0000000000000002");
+            lines.add("    x28 0000000000000003  x29 0000000000000004");
+            lines.add("    lr  0000000000000005  sp  0000000000000006  pc  0000000000000007  pst 0000000060001000");
+            lines.add("    esr 0000000000000000");
+            lines.add("");
+            lines.add("2 total frames");
+            lines.add("backtrace:");
+            lines.add("      #00 pc 0000000000002000  /system/lib64/libc.so (__futex_wait+8)");
+            lines.add("      #01 pc 0000000000003000  /system/lib64/libc.so (pthread_cond_wait+96)");
+        }
+        lines.add("");
+        lines.add("open files:");
+        lines.add("    fd 0: /dev/null (unowned)");
+
+        AArch64Tombstone tombstone = TombstoneStreamParser.parse(lines);
+
+        List<AArch64Tombstone.ThreadInfo> threads = tombstone.getThreadInfoList();
+        assertEquals(9, threads.size());
+        assertEquals(101, threads.get(0).getTid());
+        assertEquals("main", threads.get(0).getName());
+        assertEquals(tombstone.getStackDumpInfo(), threads.get(0).getStackDumpInfo());
+        for (int i = 1; i < threads.size(); i++) {
+            AArch64Tombstone.ThreadInfo thread = threads.get(i);
+            assertEquals(101 + i, thread.getTid());
+            assertEquals("worker-" + (101 + i), thread.getName());
+            assertEquals(4L, thread.getRegisterDumpInfo().getX29());
+            assertEquals(5L, thread.getRegisterDumpInfo().getX30());
+            assertEquals(6L, thread.getSpecialRegisterInfo().getSp());
+            assertEquals(2, thread.getStackDumpInfo().getStackFrames().size());
+            assertEquals("pthread_cond_wait", thread.getStackDumpInfo().getStackFrames().get(1).getSymbol());
+        }
+        assertEquals(1, tombstone.getFdInfo().size());
+    }
+
+    @Test
+    void factoryShouldStreamTombstoneFile() throws IOException {
+        Path file = tempDir.resolve("tombstone_00");
+        Files.write(file, readResourceLines("tombstone_00"), StandardCharsets.UTF_8);
+
+        ParserProperties properties = new ParserProperties();
+        properties.setPlatform("android");
+        FileParserFactory factory = new FileParserFactory(List.of(new AndroidTombstoneParser()), properties);
+
+        TroubleEntity entity = factory.streamParseFile(file);
+
+        AArch64Tombstone tombstone = assertInstanceOf(AArch64Tombstone.class, entity);
+        AArch64Tombstone fromLines = TombstoneStreamParser.parse(factory.readFileLines(file));
+        assertEquals(fromLines, tombstone);
+        assertSameMemoryMaps(fromLines.getMemoryMapIndex(), tombstone.getMemoryMapIndex());
+    }
+
+    @Test
+    void headerOnlyProfileShouldStopBeforeRegisters() throws IOException {
+        List<String> lines = readResourceLines("tombstone_00");
+        TombstoneStreamParser parser = new TombstoneStreamParser(ParseProfile.HEADER_ONLY);
+
+        int consumed = 0;
+        for (String line : lines) {
+            if (parser.isComplete()) {
+                break;
+            }
+            parser.accept(line);
+            consumed++;
+        }
+        AArch64Tombstone tombstone = parser.finish();
+
+        assertEquals(11, consumed);
+        assertEquals(16369, tombstone.getPid());
+        assertEquals("SIGSEGV", tombstone.getSignalInfo().getSigInformation());
+        assertNull(tombstone.getRegisterDumpInfo());
+        assertNull(tombstone.getStackDumpInfo());
+    }
+
+    @Test
+    void crashThreadProfileShouldSkipTrailingSections() throws IOException {
+        List<String> lines = readResourceLines("tombstone_00");
+
+        AArch64Tombstone full = TombstoneStreamParser.parse(lines);
+        AArch64Tombstone crashThread = TombstoneStreamParser.parse(lines, ParseProfile.CRASH_THREAD);
+
+        assertEquals(full.getSignalInfo(), crashThread.getSignalInfo());
+        assertEquals(full.getRegisterDumpInfo(), crashThread.getRegisterDumpInfo());
+        assertEquals(full.getSpecialRegisterInfo(), crashThread.getSpecialRegisterInfo());
+        assertEquals(full.getStackDumpInfo(), crashThread.getStackDumpInfo());
+        assertNotNull(full.getFdInfo());
+        assertNull(crashThread.getFdInfo());
+    }
+
+    @Test
+    void factoryShouldNotReadPastRequestedSections() throws IOException {
+        Path file = tempDir.resolve("tombstone_truncated");
+        String crashThread = String.join("\n", readResourceLines("tombstone_00").subList(0, 30));
+        String memoryNear = "\nmemory near x0:\n"
+            + "    0000007bdab4fca0 0000000000000001 00000000727d0288  ................\n".repeat(4096);
+        byte[] head = (crashThread + memoryNear).getBytes(StandardCharsets.UTF_8);
+        // 崩溃线程之后的非法 UTF-8 字节在 CRASH_THREAD 档位下不会被解码
+        byte[] content = Arrays.copyOf(head, head.length + 2);
+        content[head.length] = (byte) 0xC3;
+        content[head.length + 1] = (byte) 0x28;
+        Files.write(file, content);
+
+        ParserProperties properties = new ParserProperties();
+        properties.setPlatform("android");
+        FileParserFactory factory = new FileParserFactory(List.of(new AndroidTombstoneParser()), properties);
+
+        AArch64Tombstone tombstone = assertInstanceOf(AArch64Tombstone.class,
+            factory.streamParseFile(file, ParseProfile.CRASH_THREAD));
+
+        assertEquals(4, tombstone.getStackDumpInfo().getStackFrames().size());
+    }
+
+    @Test
+    void memoryMapShouldResolvePcToMapping() throws IOException {
+        List<String> lines = readResourceLines("tombstone_00");
+
+        AArch64Tombstone tombstone = TombstoneStreamParser.parse(lines, ParseProfile.CRASH_CONTEXT);
+        MemoryMapIndex memoryMapIndex = tombstone.getMemoryMapIndex();
+
+        assertEquals(2889, memoryMapIndex.size());
+        assertNull(tombstone.getFdInfo());
+        long pc = tombstone.getSpecialRegisterInfo().getPc();
+        int index = memoryMapIndex.indexOf(pc);
+        assertEquals("/system/lib64/libbinder.so", memoryMapIndex.name(index));
+        assertEquals("r-x", memoryMapIndex.permissionString(index));
+        assertEquals(tombstone.getStackDumpInfo().getStackFrames().get(0).getAddress(),
+            pc - memoryMapIndex.start(index) + memoryMapIndex.offset(index));
+
+        // 结束地址为闭区间
+        int stack = memoryMapIndex.indexOf(0x7ffdb52fffL);
+        assertEquals("[stack]", memoryMapIndex.name(stack));
+        assertEquals(-1, memoryMapIndex.indexOf(0x7ffdb53000L));
+        assertEquals(-1, memoryMapIndex.indexOf(0x1000L));
+        int guard = memoryMapIndex.indexOf(0x7ffd353000L);
+        assertTrue(memoryMapIndex.isInaccessible(guard));
+        assertNull(memoryMapIndex.name(guard));
+    }
+
+    @Test
+    void memoryMapShouldParseFaultMarkerAndUnsortedEntries() {
+        TombstoneStreamParser parser = new TombstoneStreamParser();
+        parser.accept("pid: 100, tid: 101, name: main  >>> demo <<<");
+        parser.accept("memory map (3 entries):");
+        parser.accept("    0000007f'f18a9000-0000007f'f18b8fff rw-         0     10000  [anon:stack_and_tls:101]");
+        parser.accept("--->Fault address falls at 0000007f'f18a8ff8 between mapped regions");
+        parser.accept("--->0000007f'f18a8000-0000007f'f18a8fff ---         0      1000");
+        parser.accept("    00000000'12c00000-00000000'12ffffff rw-         0    400000  /system/lib64/libc.so (BuildId: aa) (load bias 0x1000)");
+        parser.accept("");
+
+        MemoryMapIndex memoryMapIndex = parser.finish().getMemoryMapIndex();
+
+        assertEquals(3, memoryMapIndex.size());
+        assertEquals(0x12c00000L, memoryMapIndex.start(0));
+        assertEquals("/system/lib64/libc.so", memoryMapIndex.name(0));
+        assertTrue(memoryMapIndex.isFileBacked(0));
+        assertEquals(1, memoryMapIndex.indexOf(0x7ff18a8ff8L));
+        assertTrue(memoryMapIndex.isInaccessible(1));
+        assertEquals(2, memoryMapIndex.indexOf(0x7ff18a9000L));
+        assertEquals(-1, memoryMapIndex.indexOf(0x13000000L));
+        assertEquals(0, memoryMapIndex.floorIndex(0x13000000L));
+    }
+
+    @Test
+    void memoryNearShouldBeDecodedOnAccess() throws IOException {
+        AArch64Tombstone tombstone = TombstoneStreamParser.parse(readResourceLines("tombstone_00"));
+
+        MemorySnapshot x9 = tombstone.getMemoryNear().get("x9");
+        assertEquals("/system/framework/boot-zframework.z.vdex", x9.getMappingName());
+        assertEquals(16, x9.getLines().size());
+        assertEquals(0x73682a60L, x9.baseAddress());
+        assertEquals(32, x9.wordCount());
+        assertEquals(0x000089db17b71bafL, x9.readWord(0x73682a60L));
+        assertEquals(0x2c611baf000089dbL, x9.readWord(0x73682a64L));
+        assertEquals(0xaf, x9.readByte(0x73682a60L));
+        assertEquals(0x0000ec0d17eb1bb0L, x9.word(31));
+        assertThrows(IndexOutOfBoundsException.class, () -> x9.readWord(0x73682b5cL));
+        assertNull(tombstone.getMemoryNear().get("x18").getMappingName());
+
+        assertNull(TombstoneStreamParser.parse(readResourceLines("tombstone_00"), ParseProfile.CRASH_THREAD).getMemoryNear());
+    }
+
+    @Test
+    void memoryNearShouldMarkUnreadableWords() {
+        TombstoneStreamParser parser = new TombstoneStreamParser();
+        parser.accept("memory near sp ([stack]):");
+        parser.accept("    0000007ff18a8ff0 ---------------- ----------------  ................");
+        parser.accept("    0000007ff18a9000 0000000000000001 efefefefefefefef  ................");
+        parser.accept("");
+
+        MemorySnapshot sp = parser.finish().getMemoryNear().get("sp");
+
+        assertEquals("[stack]", sp.getMappingName());
+        assertFalse(sp.isReadable(0x7ff18a8ff8L));
+        assertTrue(sp.isReadable(0x7ff18a9000L));
+        assertFalse(sp.isReadable(0x7ff18a9010L));
+        assertEquals(0xefefefefefefefefL, sp.readWord(0x7ff18a9008L));
+        assertFalse(sp.isWordReadable(1));
+        assertThrows(IllegalStateException.class, () -> sp.readWord(0x7ff18a8ff8L));
+        assertThrows(IllegalStateException.class, () -> sp.readWord(0x7ff18a8ffcL));
+        assertThrows(IllegalStateException.class, () -> sp.readByte(0x7ff18a8fffL));
+        assertThrows(IllegalStateException.class, () -> sp.word(0));
+        assertEquals(1, sp.word(2));
+    }
+
+    @Test
+    void logSectionShouldKeepBoundedTailPerThread() throws IOException {
+        List<String> lines = new ArrayList<>(readResourceLines("tombstone_00"));
+        lines.add("");
+        lines.add("--------- log main");
+        for (int i = 0; i < 5000; i++) {
+            // 崩溃线程与 200 个其他线程交替输出，超过跟踪的线程数上限
+            int tid = i % 2 == 0 ? 16369 : 20000 + i % 200;
+            lines.add("01-15 00:40:%02d.%03d 16369 %5d I Worker  : line %d".formatted(i / 1000, i % 1000, tid, i));
+        }
+        lines.add("--------- log crash");
+        lines.add("01-15 00:40:06.123 16369 16369 F DEBUG tag : Fatal signal 11 (SIGSEGV), code 1 (SEGV_MAPERR)");
+
+        AArch64Tombstone tombstone = TombstoneStreamParser.parse(lines, ParseProfile.CRASH_LOG);
+
+        List<AArch64Tombstone.LogLine> tail = tombstone.getCrashThreadLogTail();
+        assertEquals(ThreadLogTails.LINES_PER_THREAD, tail.size());
+        assertEquals("line 4938", tail.get(0).getMessage());
+        AArch64Tombstone.LogLine last = tail.get(tail.size() - 1);
+        assertEquals("crash", last.getBuffer());
+        assertEquals("01-15 00:40:06.123", last.getTimestamp());
+        assertEquals(16369, last.getPid());
+        assertEquals("F", last.getPriority());
+        assertEquals("DEBUG tag", last.getTag());
+        assertEquals("Fatal signal 11 (SIGSEGV), code 1 (SEGV_MAPERR)", last.getMessage());
+        assertEquals(tail, tombstone.getThreadInfoList().get(0).getLogTail());
+        // open files 分段被跳过
+        assertNull(tombstone.getFdInfo());
+        assertNotNull(tombstone.getMemoryMapIndex());
+
+        assertNull(TombstoneStreamParser.parse(lines, ParseProfile.CRASH_CONTEXT).getCrashThreadLogTail());
+        assertEquals(tail, TombstoneStreamParser.parse(lines, ParseProfile.FULL).getCrashThreadLogTail());
+    }
+
+    @Test
+    void threadLogTailsShouldEvictLeastRecentThreadsButKeepCrashThread() {
+        ThreadLogTails logTails = new ThreadLogTails(1);
+        logTails.accept("main", "01-15 00:40:00.000   100     1 E Crash   : first");
+        for (int tid = 2; tid < 2 + ThreadLogTails.MAX_THREADS * 2; tid++) {
+            logTails.accept("main", "01-15 00:40:00.000   100 %5d D Other   : from %d".formatted(tid, tid));
+        }
+        logTails.accept("main", "not a logcat line");
+        logTails.accept("main", "01-15 00:40:00.000   100     7 W NoMessage:");
+        logTails.accept("main", "01-15 00:40:00.000   100     8 I Long    : " + "x".repeat(10_000));
+
+        assertEquals("first", logTails.tail(1).get(0).getMessage());
+        assertNull(logTails.tail(2));
+        assertEquals("from 129", logTails.tail(129).get(0).getMessage());
+        assertEquals("NoMessage", logTails.tail(7).get(0).getTag());
+        assertEquals(ThreadLogTails.MAX_MESSAGE_LENGTH, logTails.tail(8).get(0).getMessage().length());
+    }
+
+    private static void assertSameMemoryMaps(MemoryMapIndex expected, MemoryMapIndex actual) {
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.start(i), actual.start(i));
+            assertEquals(expected.end(i), actual.end(i));
+            assertEquals(expected.offset(i), actual.offset(i));
+            assertEquals(expected.permissionString(i), actual.permissionString(i));
+            assertEquals(expected.name(i), actual.name(i));
+        }
+    }
+
+    private List<String> readResourceLines(String name) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(inputStream, "缺少测试资源: " + name);
+            return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).lines().toList();
+        }
+    }
+}
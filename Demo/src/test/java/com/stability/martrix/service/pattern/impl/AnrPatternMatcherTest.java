@@ -0,0 +1,78 @@
+package com.stability.martrix.service.pattern.impl;
+
+import com.stability.martrix.dto.PatternMatchResult;
+import com.stability.martrix.entity.AnrTrace;
+import com.stability.martrix.service.parser.AndroidAnrTraceParser;
+import com.stability.martrix.service.parser.ParseProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnrPatternMatcherTest {
+
+    private final AnrPatternMatcher matcher = new AnrPatternMatcher();
+    private final AndroidAnrTraceParser parser = new AndroidAnrTraceParser();
+
+    @Test
+    void deadlockInvolvingMainThreadShouldBeDirectConclusion() {
+        PatternMatchResult result = matcher.match(parse(
+            "\"main\" prio=5 tid=1 Blocked",
+            "  at com.example.app.Cache.put(Cache.java:42)",
+            "  - waiting to lock <0x0d6e1a2b> (a java.lang.Object) held by thread 22",
+            "  - locked <0x0a1b2c3d> (a com.example.app.Store)",
+            "",
+            "\"Binder:4321_2\" daemon prio=5 tid=22 Blocked",
+            "  at com.example.app.Store.load(Store.java:17)",
+            "  - waiting to lock <0x0a1b2c3d> (a com.example.app.Store) held by thread 1",
+            "  - locked <0x0d6e1a2b> (a java.lang.Object)"));
+
+        assertNotNull(result);
+        assertEquals(0.97, result.getConfidence());
+        assertTrue(result.isDirectConclusion());
+        assertTrue(result.getResult().contains("\"main\"(tid=1) 等待锁 <0x0d6e1a2b> -> \"Binder:4321_2\"(tid=22)"));
+        assertTrue(result.getAiPrompt().contains("com.example.app.Store.load(Store.java:17)"));
+    }
+
+    @Test
+    void blockedMainThreadWithoutCycleShouldNameLockOwner() {
+        PatternMatchResult result = matcher.match(parse(
+            "\"main\" prio=5 tid=1 Blocked",
+            "  at com.example.app.Cache.put(Cache.java:42)",
+            "  - waiting to lock <0x0d6e1a2b> (a java.lang.Object) held by thread 7",
+            "",
+            "\"io\" prio=5 tid=7 Native",
+            "  at java.io.FileInputStream.read(FileInputStream.java:1)",
+            "  - locked <0x0d6e1a2b> (a java.lang.Object)"));
+
+        assertNotNull(result);
+        assertFalse(result.isDirectConclusion());
+        assertTrue(result.getResult().contains("\"io\"(tid=7)"));
+        assertTrue(result.getAiPrompt().contains("java.io.FileInputStream.read"));
+    }
+
+    @Test
+    void idleMainThreadShouldNotMatch() {
+        assertNull(matcher.match(parse(
+            "\"main\" prio=5 tid=1 Native",
+            "  native: #00 pc 000000000004b2cc  /apex/com.android.runtime/lib64/bionic/libc.so (syscall+28)")));
+    }
+
+    private AnrTrace parse(String... threadLines) {
+        List<String> lines = new ArrayList<>(List.of(
+            "----- pid 4321 at 2026-01-15 00:40:06.123456789+0800 -----",
+            "Cmd line: com.example.app",
+            "",
+            "DALVIK THREADS (2):"));
+        lines.addAll(List.of(threadLines));
+        lines.add("");
+        lines.add("----- end 4321 -----");
+        return (AnrTrace) parser.parse(lines, ParseProfile.FULL);
+    }
+}
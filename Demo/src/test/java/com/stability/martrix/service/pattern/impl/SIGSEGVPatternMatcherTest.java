@@ -0,0 +1,63 @@
+package com.stability.martrix.service.pattern.impl;
+
+import com.stability.martrix.dto.PatternMatchResult;
+import com.stability.martrix.entity.AArch64Tombstone;
+import com.stability.martrix.entity.MemoryMapIndex;
+import com.stability.martrix.enums.SignalType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SIGSEGVPatternMatcherTest {
+
+    private final SIGSEGVPatternMatcher matcher = new SIGSEGVPatternMatcher();
+
+    @Test
+    void faultInGuardPageBelowThreadStackShouldBeStackOverflow() {
+        MemoryMapIndex memoryMapIndex = new MemoryMapIndex.Builder()
+            .add(0x7bd9942000L, 0x7bd9943000L, 0, MemoryMapIndex.parsePermissions("---p"), "[anon:stack_and_tls:16184]")
+            .add(0x7bd9943000L, 0x7bd9a4a000L, 0, MemoryMapIndex.parsePermissions("rw-p"), "[anon:stack_and_tls:16184]")
+            .build();
+
+        PatternMatchResult result = matcher.match(tombstone(memoryMapIndex, 0x7bd9942ff0L));
+
+        assertNotNull(result);
+        assertEquals(0.97, result.getConfidence());
+        assertTrue(result.getResult().contains("[anon:stack_and_tls:16184]"));
+    }
+
+    @Test
+    void faultInGapBelowLibraryNamedStackShouldNotBeStackOverflow() {
+        MemoryMapIndex memoryMapIndex = new MemoryMapIndex.Builder()
+            .add(0x7c00000000L, 0x7c00020000L, 0, MemoryMapIndex.parsePermissions("r--p"), "/system/lib64/libc.so")
+            .add(0x7c10000000L, 0x7c10040000L, 0, MemoryMapIndex.parsePermissions("r-xp"), "/system/lib64/libunwindstack.so")
+            .build();
+
+        PatternMatchResult result = matcher.match(tombstone(memoryMapIndex, 0x7c0ffffff0L));
+
+        assertFalse(result != null && result.getResult().contains("栈溢出"));
+    }
+
+    @Test
+    void faultFarBelowThreadStackShouldNotBeStackOverflow() {
+        MemoryMapIndex memoryMapIndex = new MemoryMapIndex.Builder()
+            .add(0x7c00000000L, 0x7c00020000L, 0, MemoryMapIndex.parsePermissions("r--p"), "/system/lib64/libc.so")
+            .add(0x7c10000000L, 0x7c10100000L, 0, MemoryMapIndex.parsePermissions("rw-p"), "[anon:stack_and_tls:main]")
+            .build();
+
+        PatternMatchResult result = matcher.match(tombstone(memoryMapIndex, 0x7c0fff0000L));
+
+        assertFalse(result != null && result.getResult().contains("栈溢出"));
+    }
+
+    private static AArch64Tombstone tombstone(MemoryMapIndex memoryMapIndex, long faultAddress) {
+        AArch64Tombstone tombstone = new AArch64Tombstone();
+        tombstone.setSignalInfo(new AArch64Tombstone.SignalInfo(SignalType.SIGSEGV.getSignalNumber(),
+            "SIGSEGV", "SEGV_MAPERR", faultAddress, null, null));
+        tombstone.setMemoryMapIndex(memoryMapIndex);
+        return tombstone;
+    }
+}
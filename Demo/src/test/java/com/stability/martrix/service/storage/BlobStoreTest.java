@@ -0,0 +1,160 @@
+package com.stability.martrix.service.storage;
+
+import com.stability.martrix.util.ContentHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobStoreTest {
+
+    private static final byte[] CONTENT = "pid: 1, tid: 2\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = hash(CONTENT);
+
+    @TempDir
+    Path tempDir;
+
+    private BlobStore blobStore;
+    private Path sessionA;
+    private Path sessionB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        blobStore = BlobStore.open(tempDir.resolve("blobs"));
+        sessionA = Files.createDirectory(tempDir.resolve("session_a"));
+        sessionB = Files.createDirectory(tempDir.resolve("session_b"));
+    }
+
+    @Test
+    void commitShouldStoreSameContentOnceAndCountLinks() throws IOException {
+        if (blobStore == null) {
+            // 文件系统不提供硬链接数，不使用 blob 存储
+            return;
+        }
+        Path first = commit(CONTENT, sessionA.resolve("tombstone_00"), "session_a");
+        Path second = commit(CONTENT, sessionB.resolve("tombstone_01"), "session_b");
+
+        assertTrue(Files.isSameFile(first, second));
+        assertEquals(2, blobStore.referenceCount(HASH));
+        assertArrayEquals(CONTENT, Files.readAllBytes(second));
+        // 重复内容的写入被丢弃，不留临时文件
+        assertEquals(List.of(), pendingFiles());
+    }
+
+    @Test
+    void releaseShouldOnlyReclaimBlobsNoLongerLinked() throws IOException {
+        if (blobStore == null) {
+            return;
+        }
+        Path shared = commit(CONTENT, sessionA.resolve("tombstone_00"), "session_a");
+        commit(CONTENT, sessionB.resolve("tombstone_00"), "session_b");
+        byte[] other = "pid: 3\n".getBytes(StandardCharsets.UTF_8);
+        commit(other, sessionA.resolve("tombstone_01"), "session_a");
+        assertEquals(List.of("session_a", "session_b"), blobStore.owners().stream().sorted().toList());
+
+        deleteFolder(sessionA);
+        // 共享的 blob 仍被 session_b 引用，只回收 session_a 独占的 blob
+        assertEquals(1, blobStore.release("session_a"));
+        assertEquals(1, blobStore.referenceCount(HASH));
+        assertEquals(0, blobStore.referenceCount(hash(other)));
+        assertEquals(List.of("session_b"), blobStore.owners());
+
+        deleteFolder(sessionB);
+        assertEquals(1, blobStore.release("session_b"));
+        assertEquals(0, blobStore.referenceCount(HASH));
+        assertEquals(List.of(), blobStore.owners());
+        assertFalse(Files.exists(shared));
+    }
+
+    @Test
+    void collectGarbageShouldSkipRecentBlobsAndReclaimOldUnreferencedOnes() throws IOException {
+        if (blobStore == null) {
+            return;
+        }
+        // 没有记录引用方的链接，删除后只能由全量回收处理
+        byte[] other = "pid: 3\n".getBytes(StandardCharsets.UTF_8);
+        Files.delete(commit(other, sessionA.resolve("tombstone_01"), null));
+        // 解压缓存没有会话文件链接
+        BlobStore.PendingBlob pending = blobStore.create();
+        pending.outputStream().write(CONTENT);
+        Path cached = blobStore.commitPlain(pending, HASH);
+
+        // 宽限期内的 blob 不回收，刚提交的解压缓存不会在调用方打开前被删除
+        assertEquals(0, blobStore.collectGarbage(Duration.ofMinutes(10)));
+        assertNotNull(blobStore.plainBlob(HASH));
+
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+        Files.setLastModifiedTime(cached, old);
+        Files.setLastModifiedTime(blobStore.getRoot().resolve(hash(other).substring(0, 2)).resolve(hash(other)), old);
+        assertEquals(2, blobStore.collectGarbage(Duration.ofMinutes(10)));
+        assertNull(blobStore.plainBlob(HASH));
+        assertEquals(0, blobStore.referenceCount(hash(other)));
+    }
+
+    @Test
+    void collectGarbageShouldDeleteOnlyStalePendingFiles() throws IOException {
+        if (blobStore == null) {
+            return;
+        }
+        // 写入方崩溃后残留的临时文件
+        BlobStore.PendingBlob stale = blobStore.create();
+        stale.close();
+        Path stalePath = pendingFiles().getFirst();
+        Files.setLastModifiedTime(stalePath, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofHours(2).toMillis()));
+        BlobStore.PendingBlob writing = blobStore.create();
+        writing.outputStream().write(CONTENT);
+
+        assertEquals(1, blobStore.collectGarbage(Duration.ofHours(1)));
+        assertFalse(Files.exists(stalePath));
+        assertEquals(1, pendingFiles().size());
+
+        writing.discard();
+        assertEquals(List.of(), pendingFiles());
+    }
+
+    private Path commit(byte[] content, Path target, String owner) throws IOException {
+        BlobStore.PendingBlob pending = blobStore.create();
+        pending.outputStream().write(content);
+        blobStore.commit(pending, hash(content), target, owner);
+        return target;
+    }
+
+    private List<Path> pendingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(blobStore.getRoot())) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static void deleteFolder(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return ContentHasher.hash(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
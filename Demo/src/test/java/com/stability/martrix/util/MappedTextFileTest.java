@@ -0,0 +1,71 @@
+package com.stability.martrix.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedTextFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void linesShouldMatchBufferedReaderForCrLfBomAndMissingTrailingNewline() throws IOException {
+        Path file = tempDir.resolve("dumpstate_log.txt");
+        Files.write(file, "\uFEFFfirst\r\n\r\nthird\nlast".getBytes(StandardCharsets.UTF_8));
+
+        MappedTextFile mapped = MappedTextFile.open(file, StandardCharsets.UTF_8);
+
+        assertEquals(4, mapped.lineCount());
+        assertEquals(List.of("first", "", "third", "last"),
+            mapped.lines(0, 10).stream().map(CharSequence::toString).toList());
+        assertEquals(5, mapped.line(0).length());
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.line(4));
+    }
+
+    @Test
+    void findLineShouldSearchEncodedBytesWithoutDecoding() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        Path file = tempDir.resolve("bugreport.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, gbk)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.write("01-15 00:40:06.123  1000  1000 I 日志 : line " + i + "\n");
+                if (i == 75_000) {
+                    writer.write("------ SYSTEM LOG (logcat -v threadtime) ------\n");
+                }
+            }
+        }
+
+        MappedTextFile mapped = MappedTextFile.open(file, gbk);
+
+        assertEquals(100_001, mapped.lineCount());
+        int section = mapped.findLine("------ SYSTEM LOG", 0);
+        assertEquals(75_001, section);
+        assertEquals("01-15 00:40:06.123  1000  1000 I 日志 : line 75001", mapped.line(section + 1).toString());
+        assertEquals(3, mapped.findLine("日志 : line 3", 0));
+        assertEquals(-1, mapped.findLine("------ SYSTEM LOG", section + 1));
+    }
+
+    @Test
+    void utf16FilesShouldBeIndexedByCodeUnit() throws IOException {
+        Path file = tempDir.resolve("hilog.txt");
+        // U+0A0D 的低字节是 0x0D、U+0D0A 的低字节是 0x0A，按字节扫描会误判为换行
+        Files.writeString(file, "\uFEFFa\u0D0Ab\nc\u0A0D\r\nd", StandardCharsets.UTF_16LE);
+
+        MappedTextFile mapped = MappedTextFile.open(file, StandardCharsets.UTF_16LE);
+
+        assertEquals(List.of("a\u0D0Ab", "c\u0A0D", "d"),
+            mapped.lines(0, mapped.lineCount()).stream().map(CharSequence::toString).toList());
+        assertEquals(2, mapped.findLine("d", 0));
+    }
+}